@@ -0,0 +1,23 @@
+package com.codesanbox.benchmark;
+
+import com.codesanbox.JavaCodeSandboxTemplate;
+import com.codesanbox.blacklist.BlacklistHit;
+import com.codesanbox.blacklist.BlacklistScanner;
+
+import java.util.List;
+
+/**
+ * 暴露模板中受保护的步骤，便于单独测量
+ */
+public class BenchmarkSandbox extends JavaCodeSandboxTemplate {
+
+    @Override
+    public List<BlacklistHit> findForbiddenWords(String code) {
+        return super.findForbiddenWords(code);
+    }
+
+    @Override
+    public BlacklistScanner getBlacklistScanner() {
+        return super.getBlacklistScanner();
+    }
+}
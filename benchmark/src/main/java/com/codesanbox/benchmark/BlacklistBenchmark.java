@@ -0,0 +1,68 @@
+package com.codesanbox.benchmark;
+
+import cn.hutool.dfa.FoundWord;
+import cn.hutool.dfa.WordTree;
+import com.codesanbox.blacklist.BlacklistHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 黑名单检测：按token匹配的自动机（scan，报告全部命中）与原来的字典树子串匹配（wordTree，只找第一个命中）
+ * clean：源码不含禁止词，需要扫描全文；tail：禁止词在末尾，扫描全文后命中
+ * 运行：java -jar target/benchmarks.jar BlacklistBenchmark -prof gc 可以同时对比每次扫描分配的内存
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlacklistBenchmark {
+
+    @Param({"4096", "102400", "1048576"})
+    private int sourceSize;
+
+    @Param({"clean", "tail"})
+    private String content;
+
+    private BenchmarkSandbox sandbox;
+
+    private WordTree wordTree;
+
+    private String code;
+
+    @Setup
+    public void setUp() {
+        sandbox = new BenchmarkSandbox();
+        //同一份规则
+        wordTree = new WordTree();
+        wordTree.addWords(sandbox.getBlacklistScanner().getRules());
+        code = Corpus.enlarge(Corpus.LARGE, sourceSize, "clean".equals(content) ? null : "Runtime.getRuntime().exec");
+        if ("tail".equals(content)) {
+            //禁止词在注释中，追加一行真正的调用
+            code += "class Tail { void f() throws Exception { Runtime.getRuntime().exec(\"ls\"); } }\n";
+        }
+    }
+
+    @Benchmark
+    public List<BlacklistHit> scan() {
+        return sandbox.findForbiddenWords(code);
+    }
+
+    @Benchmark
+    public FoundWord wordTree() {
+        return wordTree.matchWord(code);
+    }
+}
@@ -0,0 +1,51 @@
+package com.codesanbox.benchmark;
+
+import com.codesanbox.model.CompileResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内编译（complieCode），不经过编译缓存
+ * 预热阶段包含javac自身的类加载和JIT，测量结果对应编译器已预热的稳定状态
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompileBenchmark {
+
+    @Param({"sum", "large", "large-64k"})
+    private String program;
+
+    private BenchmarkSandbox sandbox;
+
+    private String code;
+
+    @Setup
+    public void setUp() {
+        sandbox = new BenchmarkSandbox();
+        code = "large-64k".equals(program) ? Corpus.enlarge(Corpus.LARGE, 65536, null) : Corpus.java(program);
+        CompileResult compileResult = sandbox.complieCode(code);
+        if (!compileResult.isSuccess()) {
+            throw new IllegalStateException("样例编译失败：" + compileResult.getExecuteMessage().getMessage());
+        }
+    }
+
+    @Benchmark
+    public CompileResult complieCode() {
+        return sandbox.complieCode(code);
+    }
+}
@@ -0,0 +1,79 @@
+package com.codesanbox.benchmark;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试使用的样例程序，位于 resources/corpus/{语言}/{名称}/
+ * 输入和放大后的源码都按固定规则生成，保证不同版本、不同机器之间的结果可以对比
+ */
+public final class Corpus {
+
+    //A + B，最小的提交，主要测量沙箱本身的开销
+    public static final String SUM = "sum";
+
+    //按参数输出大量行，测量输出处理
+    public static final String PRINT = "print";
+
+    //按参数执行若干百万次循环，测量CPU密集程序
+    public static final String LOOP = "loop";
+
+    //较长的算法题提交，不含黑名单词
+    public static final String LARGE = "large";
+
+    //缺少分号，编译失败
+    public static final String COMPILE_ERROR = "compile_error";
+
+    private Corpus() {
+    }
+
+    public static String java(String name) {
+        return ResourceUtil.readStr("corpus/java/" + name + "/Main.java", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把样例源码重复拼接到指定大小，每份改名为不同的类，仍然是可以编译的源码
+     *
+     * @param name  样例名称
+     * @param bytes 目标大小（字符数）
+     * @param tail  追加到末尾的内容（如黑名单词），为null时不追加
+     */
+    public static String enlarge(String name, int bytes, String tail) {
+        String source = java(name);
+        StringBuilder builder = new StringBuilder(bytes + source.length());
+        builder.append(source);
+        for (int i = 0; builder.length() < bytes; i++) {
+            builder.append('\n').append(source.replace("public class Main", "class Main" + i)
+                    .replaceAll("(?m)^import .*$", ""));
+        }
+        if (tail != null) {
+            builder.append("\n// ").append(tail).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 生成 sum 的输入用例："i i+1"
+     */
+    public static List<String> sumInputs(int count) {
+        List<String> inputList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            inputList.add(i + " " + (i + 1));
+        }
+        return inputList;
+    }
+
+    /**
+     * 生成 count 个相同的输入用例
+     */
+    public static List<String> repeat(String input, int count) {
+        List<String> inputList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            inputList.add(input);
+        }
+        return inputList;
+    }
+}
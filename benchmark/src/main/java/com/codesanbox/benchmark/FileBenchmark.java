@@ -0,0 +1,47 @@
+package com.codesanbox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码落盘和删除（createFile / deleteFile），每次使用新的目录
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileBenchmark {
+
+    @Param({"sum", "large"})
+    private String program;
+
+    private BenchmarkSandbox sandbox;
+
+    private String code;
+
+    @Setup
+    public void setUp() {
+        sandbox = new BenchmarkSandbox();
+        code = Corpus.java(program);
+    }
+
+    @Benchmark
+    public boolean createAndDeleteFile() {
+        File file = sandbox.createFile(code);
+        return sandbox.deleteFile(file);
+    }
+}
@@ -0,0 +1,58 @@
+package com.codesanbox.benchmark;
+
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.ExecuteMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结果汇总（getOutputResponse），所有用例都成功时需要遍历全部执行信息
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutputResponseBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int inputs;
+
+    private BenchmarkSandbox sandbox;
+
+    private List<ExecuteMessage> executeMessages;
+
+    @Setup
+    public void setUp() {
+        sandbox = new BenchmarkSandbox();
+        executeMessages = new ArrayList<>(inputs);
+        for (int i = 0; i < inputs; i++) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(0);
+            executeMessage.setMessage(String.valueOf(i * 2 + 1));
+            executeMessage.setTime((long) (i % 50));
+            executeMessage.setCpuTime((long) (i % 40));
+            executeMessage.setMemory((long) (1024 + i % 4096));
+            executeMessages.add(executeMessage);
+        }
+    }
+
+    @Benchmark
+    public ExecuteCodeResponse getOutputResponse() {
+        return sandbox.getOutputResponse(executeMessages);
+    }
+}
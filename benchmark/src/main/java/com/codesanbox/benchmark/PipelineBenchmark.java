@@ -0,0 +1,115 @@
+package com.codesanbox.benchmark;
+
+import com.codesanbox.CodeSandbox;
+import com.codesanbox.JavaCodeSandboxTemplate;
+import com.codesanbox.JavaDockerCodeSandbox;
+import com.codesanbox.JavaNativeCodeSandbox;
+import com.codesanbox.docker.ContainerPool;
+import com.codesanbox.docker.DockerContainerRuntime;
+import com.codesanbox.docker.StatsOverhead;
+import com.codesanbox.model.ExecuteCodeRequest;
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.enums.QuestionSubmitStatusEnum;
+import com.codesanbox.runner.JvmRunnerPool;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DockerClientBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整提交流程（executeCode），对比三种执行方式：
+ * native：每个用例启动一个java进程；pooled：常驻运行器JVM池；docker：预先启动的容器池
+ * 相同源码在预热后命中编译缓存，测量的是重复提交的稳定状态，编译耗时见 {@link CompileBenchmark}
+ * docker模式需要本机可以访问docker，否则该组参数在启动时失败，其余参数照常执行
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    private static final String IMAGE = "openjdk:8-alpine";
+
+    @Param({"native", "pooled", "docker"})
+    private String mode;
+
+    @Param({"1", "10", "100"})
+    private int inputs;
+
+    private CodeSandbox codeSandbox;
+
+    private JvmRunnerPool jvmRunnerPool;
+
+    private ContainerPool containerPool;
+
+    private ExecuteCodeRequest executeCodeRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        File runnerDir = new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "runner");
+        int cores = Runtime.getRuntime().availableProcessors();
+        switch (mode) {
+            case "native":
+                codeSandbox = new JavaNativeCodeSandbox();
+                break;
+            case "pooled":
+                jvmRunnerPool = new JvmRunnerPool(true, cores, 50, 60000, "java",
+                        Arrays.asList("-Xmx256m", "-Dfile.encoding=UTF-8"), runnerDir);
+                jvmRunnerPool.start();
+                codeSandbox = new JavaNativeCodeSandbox(jvmRunnerPool);
+                break;
+            case "docker":
+                DockerClient dockerClient = DockerClientBuilder.getInstance().build();
+                dockerClient.pingCmd().exec();
+                DockerContainerRuntime containerRuntime = new DockerContainerRuntime(dockerClient, IMAGE,
+                        256 * 1024 * 1024L, 1L, 64L, new StatsOverhead());
+                File workRoot = new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "containers");
+                containerPool = new ContainerPool(containerRuntime, 2, 100, 60000, workRoot);
+                containerPool.start();
+                codeSandbox = new JavaDockerCodeSandbox(containerPool);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的执行方式：" + mode);
+        }
+        executeCodeRequest = new ExecuteCodeRequest();
+        executeCodeRequest.setCode(Corpus.java(Corpus.SUM));
+        executeCodeRequest.setLanguage("java");
+        executeCodeRequest.setInputList(Corpus.sumInputs(inputs));
+        //首次提交确认环境可用，同时完成编译
+        ExecuteCodeResponse executeCodeResponse = codeSandbox.executeCode(executeCodeRequest);
+        if (!QuestionSubmitStatusEnum.SUCCEED.getValue().equals(executeCodeResponse.getStatus())) {
+            throw new IllegalStateException(mode + " 执行失败：" + executeCodeResponse);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (jvmRunnerPool != null) {
+            jvmRunnerPool.shutdown();
+        }
+        if (containerPool != null) {
+            containerPool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public ExecuteCodeResponse executeCode() {
+        return codeSandbox.executeCode(executeCodeRequest);
+    }
+}
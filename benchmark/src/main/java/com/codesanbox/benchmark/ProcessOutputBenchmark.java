@@ -0,0 +1,63 @@
+package com.codesanbox.benchmark;
+
+import cn.hutool.core.io.FileUtil;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.util.ProcessUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程输出处理（ProcessUtils.runAndProcess），用cat输出固定内容的文件，排除用户程序本身的耗时
+ * 64MB超过默认输出上限，测量的是输出溢出时的处理路径
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessOutputBenchmark {
+
+    @Param({"1024", "1048576", "8388608", "67108864"})
+    private int outputSize;
+
+    private File outputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        //与print样例相同的行格式
+        StringBuilder builder = new StringBuilder(outputSize);
+        for (int i = 0; builder.length() < outputSize; i++) {
+            builder.append(i).append(' ').append(i * 31L % 1000003).append('\n');
+        }
+        builder.setLength(outputSize);
+        outputFile = File.createTempFile("codesandbox-output", ".txt");
+        FileUtil.writeString(builder.toString(), outputFile, StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtil.del(outputFile);
+    }
+
+    @Benchmark
+    public ExecuteMessage runAndProcess() throws IOException {
+        Process process = new ProcessBuilder("cat", outputFile.getAbsolutePath()).start();
+        return ProcessUtils.runAndProcess(process, "输出");
+    }
+}
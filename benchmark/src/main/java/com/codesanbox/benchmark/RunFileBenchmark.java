@@ -0,0 +1,62 @@
+package com.codesanbox.benchmark;
+
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.model.ExecuteMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 落盘后逐个用例启动java进程执行（runFile），用例由全局调度器并发执行
+ * 每次调用耗时在百毫秒到秒级，使用单次计时
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RunFileBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int inputs;
+
+    private BenchmarkSandbox sandbox;
+
+    private File file;
+
+    private List<String> inputList;
+
+    @Setup
+    public void setUp() {
+        sandbox = new BenchmarkSandbox();
+        String code = Corpus.java(Corpus.SUM);
+        CompileResult compileResult = sandbox.complieCode(code);
+        file = sandbox.createFile(code);
+        sandbox.saveClassFiles(file, compileResult.getClassBytes());
+        inputList = Corpus.sumInputs(inputs);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sandbox.deleteFile(file);
+    }
+
+    @Benchmark
+    public List<ExecuteMessage> runFile() {
+        return sandbox.runFile(file, inputList);
+    }
+}
@@ -0,0 +1,221 @@
+package com.codesanbox.benchmark.load;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+import cn.hutool.json.JSONUtil;
+import com.codesanbox.model.ExecuteCodeRequest;
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.JudgeInfo;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 节点能同时持有多少提交：逐级同时发起 levels 个提交（闭环，每个提交一个客户端线程），
+ * 期间每隔 {@link #SAMPLE_INTERVAL} ms 读取服务端指标，记录调度器中同时持有的用例数和平台线程数的峰值
+ * 分别在 codesandbox.virtual-threads.enabled=false/true 下启动服务各跑一次，对比两份报告：
+ * 平台线程模式下持有的提交数受 server.tomcat.threads.max 限制，调高上限时平台线程数随之增长；
+ * 虚拟线程模式下所有提交都进入调度器排队，平台线程数基本不变（jvm.threads.live 不统计虚拟线程）
+ */
+public class ConcurrencyProbe {
+
+    private static final long SAMPLE_INTERVAL = 200;
+
+    //两级之间等待服务端空闲的最长时间（ms）
+    private static final long IDLE_TIMEOUT = 60000;
+
+    private final LoadOptions options;
+
+    private final String metricsUrl;
+
+    private final Map<ProgramKind, String> requestBodies = new EnumMap<>(ProgramKind.class);
+
+    private final Random random;
+
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "probe-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ConcurrencyProbe(LoadOptions options) {
+        this.options = options;
+        this.metricsUrl = options.getUrl().substring(0, options.getUrl().lastIndexOf('/')) + "/actuator/metrics/";
+        this.random = new Random(options.getSeed());
+        for (ProgramKind programKind : options.getMix().keySet()) {
+            ExecuteCodeRequest executeCodeRequest = new ExecuteCodeRequest();
+            executeCodeRequest.setCode(programKind.getCode());
+            executeCodeRequest.setLanguage(SupportLanguageEnum.JAVA.getValue());
+            executeCodeRequest.setInputList(programKind.getInputList(options.getInputs()));
+            requestBodies.put(programKind, JSONUtil.toJsonStr(executeCodeRequest));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadOptions options = LoadOptions.parse(args);
+        System.out.println("压测参数：" + options);
+        Map<String, Object> report = new ConcurrencyProbe(options).run();
+        File reportFile = FileUtil.writeString(JSONUtil.toJsonPrettyStr(report), options.getReport(), StandardCharsets.UTF_8);
+        System.out.println("报告已写入：" + reportFile.getAbsolutePath());
+    }
+
+    /**
+     * 逐级执行
+     *
+     * @return 报告
+     */
+    public Map<String, Object> run() throws InterruptedException {
+        List<Map<String, Object>> levelReports = new ArrayList<>();
+        try {
+            for (int level : options.getLevels()) {
+                awaitIdle();
+                Map<String, Object> levelReport = runLevel(level);
+                levelReports.add(levelReport);
+                System.out.printf("并发：%d，完成：%s，失败：%s，耗时：%s s，p50：%.1f ms，p99：%.1f ms，调度器峰值：%s，平台线程峰值：%s%n",
+                        level, levelReport.get("completed"), levelReport.get("errors"), levelReport.get("elapsed"),
+                        (long) levelReport.get("p50") / 1000.0, (long) levelReport.get("p99") / 1000.0,
+                        levelReport.get("maxHeld"), levelReport.get("maxThreads"));
+            }
+        } finally {
+            sampler.shutdownNow();
+        }
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("url", options.getUrl());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        options.getMix().forEach((programKind, weight) -> mix.put(programKind.getValue(), weight));
+        config.put("mix", mix);
+        config.put("inputs", options.getInputs());
+        config.put("timeout", options.getTimeout());
+        config.put("seed", options.getSeed());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("unit", "us");
+        report.put("config", config);
+        report.put("levels", levelReports);
+        return report;
+    }
+
+    private Map<String, Object> runLevel(int level) throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        CountDownLatch ready = new CountDownLatch(level);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> clients = new ArrayList<>(level);
+        for (int i = 0; i < level; i++) {
+            ProgramKind programKind = pick();
+            Thread client = new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                execute(programKind, recorder);
+            }, "probe-client-" + i);
+            client.setDaemon(true);
+            client.start();
+            clients.add(client);
+        }
+        ready.await();
+        //调度器中排队 + 执行中的用例数、平台线程数的峰值
+        AtomicLong maxHeld = new AtomicLong();
+        AtomicLong maxThreads = new AtomicLong();
+        ScheduledFuture<?> sampling = sampler.scheduleWithFixedDelay(() -> {
+            long held = (long) (readMetric("sandbox.scheduler.queue") + readMetric("sandbox.scheduler.active"));
+            maxHeld.accumulateAndGet(held, Math::max);
+            maxThreads.accumulateAndGet((long) readMetric("jvm.threads.live"), Math::max);
+        }, 0, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread client : clients) {
+            client.join();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        sampling.cancel(false);
+
+        Map<String, Object> levelReport = new LinkedHashMap<>();
+        levelReport.put("level", level);
+        levelReport.put("completed", recorder.getCount());
+        levelReport.put("errors", recorder.getErrorCount());
+        levelReport.put("elapsed", Math.round(elapsed / 1e7) / 100.0);
+        levelReport.put("p50", recorder.getPercentile(50));
+        levelReport.put("p99", recorder.getPercentile(99));
+        levelReport.put("maxHeld", maxHeld.get());
+        levelReport.put("maxThreads", maxThreads.get());
+        levelReport.put("kinds", recorder.toReport());
+        return levelReport;
+    }
+
+    private ProgramKind pick() {
+        int total = 0;
+        for (int weight : options.getMix().values()) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (Map.Entry<ProgramKind, Integer> entry : options.getMix().entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("权重计算错误");
+    }
+
+    private void execute(ProgramKind programKind, LatencyRecorder recorder) {
+        long sendTime = System.nanoTime();
+        ExecuteCodeResponse executeCodeResponse;
+        try (HttpResponse httpResponse = HttpRequest.post(options.getUrl())
+                .header(options.getSecretHeader(), options.getSecretKey())
+                .body(requestBodies.get(programKind), "application/json")
+                .timeout(options.getTimeout())
+                .execute()) {
+            if (!httpResponse.isOk()) {
+                throw new IllegalStateException("HTTP " + httpResponse.getStatus());
+            }
+            executeCodeResponse = JSONUtil.toBean(httpResponse.body(), ExecuteCodeResponse.class);
+        } catch (Exception e) {
+            recorder.recordError(programKind);
+            return;
+        }
+        long time = (System.nanoTime() - sendTime) / 1000;
+        JudgeInfo judgeInfo = executeCodeResponse.getJudgeInfo();
+        String verdict = judgeInfo == null || judgeInfo.getMessage() == null
+                ? JudgeInfoMessageEnum.ACCEPTED.getValue() : judgeInfo.getMessage();
+        recorder.record(programKind, time, time, verdict, executeCodeResponse.getPhaseTimings());
+    }
+
+    //读取 /actuator/metrics 中的单值指标，读取失败时为0
+    private double readMetric(String name) {
+        try (HttpResponse httpResponse = HttpRequest.get(metricsUrl + name).timeout(5000).execute()) {
+            if (!httpResponse.isOk()) {
+                return 0;
+            }
+            return JSONUtil.parseObj(httpResponse.body()).getJSONArray("measurements").getJSONObject(0).getDouble("value");
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    //等待上一级的提交在服务端全部结束
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + IDLE_TIMEOUT;
+        while (readMetric("sandbox.scheduler.queue") + readMetric("sandbox.scheduler.active") > 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(SAMPLE_INTERVAL);
+        }
+    }
+}
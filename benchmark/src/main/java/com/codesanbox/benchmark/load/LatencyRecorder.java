@@ -0,0 +1,168 @@
+package com.codesanbox.benchmark.load;
+
+import com.codesanbox.model.PhaseTimings;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按程序类型和阶段记录延迟分布（μs），线程安全
+ */
+public class LatencyRecorder {
+
+    //从计划发送时间到收到响应，包含压测端排队，不受协调遗漏（coordinated omission）影响
+    public static final String TOTAL = "total";
+
+    public static final String QUEUE = "queue";
+
+    public static final String COMPILE = "compile";
+
+    public static final String RUN = "run";
+
+    public static final String CLEANUP = "cleanup";
+
+    //实际发送到收到响应的时间减去沙箱内各阶段：网络、Tomcat排队、序列化等
+    public static final String TRANSPORT = "transport";
+
+    private static final String[] PHASES = {TOTAL, QUEUE, COMPILE, RUN, CLEANUP, TRANSPORT};
+
+    //报告中的汇总分组
+    private static final String ALL = "all";
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, KindRecord> records = new LinkedHashMap<>();
+
+    public LatencyRecorder() {
+        records.put(ALL, new KindRecord());
+        for (ProgramKind programKind : ProgramKind.values()) {
+            records.put(programKind.getValue(), new KindRecord());
+        }
+    }
+
+    /**
+     * 记录一次成功返回的请求
+     *
+     * @param programKind  程序类型
+     * @param totalTime    从计划发送时间开始的延迟（μs）
+     * @param serviceTime  从实际发送开始的延迟（μs）
+     * @param judgeMessage 判题信息，通过时为"成功"
+     * @param phaseTimings 沙箱返回的各阶段耗时，可能为空
+     */
+    public void record(ProgramKind programKind, long totalTime, long serviceTime, String judgeMessage, PhaseTimings phaseTimings) {
+        for (KindRecord kindRecord : new KindRecord[]{records.get(ALL), records.get(programKind.getValue())}) {
+            kindRecord.record(TOTAL, totalTime);
+            kindRecord.verdicts.computeIfAbsent(judgeMessage, key -> new LongAdder()).increment();
+            if (phaseTimings == null) {
+                continue;
+            }
+            long sandboxTime = 0;
+            sandboxTime += kindRecord.record(QUEUE, phaseTimings.getQueue());
+            sandboxTime += kindRecord.record(COMPILE, phaseTimings.getCompile());
+            sandboxTime += kindRecord.record(RUN, phaseTimings.getRun());
+            sandboxTime += kindRecord.record(CLEANUP, phaseTimings.getCleanup());
+            kindRecord.record(TRANSPORT, Math.max(serviceTime - sandboxTime, 0));
+        }
+    }
+
+    /**
+     * 记录一次失败的请求（连接失败、超时、非200）
+     */
+    public void recordError(ProgramKind programKind) {
+        records.get(ALL).errors.increment();
+        records.get(programKind.getValue()).errors.increment();
+    }
+
+    public long getCount() {
+        return records.get(ALL).histograms.get(TOTAL).getTotalCount();
+    }
+
+    public long getErrorCount() {
+        return records.get(ALL).errors.sum();
+    }
+
+    public long getPercentile(double percentile) {
+        return records.get(ALL).histograms.get(TOTAL).getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return 可以直接序列化为JSON的报告，键的顺序固定，便于不同版本之间diff
+     */
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        for (Map.Entry<String, KindRecord> entry : records.entrySet()) {
+            KindRecord kindRecord = entry.getValue();
+            if (kindRecord.histograms.get(TOTAL).getTotalCount() == 0 && kindRecord.errors.sum() == 0) {
+                continue;
+            }
+            report.put(entry.getKey(), kindRecord.toReport());
+        }
+        return report;
+    }
+
+    private static Map<String, Object> summarize(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("min", histogram.getMinValue());
+        summary.put("mean", Math.round(histogram.getMean()));
+        summary.put("p50", histogram.getValueAtPercentile(50));
+        summary.put("p90", histogram.getValueAtPercentile(90));
+        summary.put("p99", histogram.getValueAtPercentile(99));
+        summary.put("p999", histogram.getValueAtPercentile(99.9));
+        summary.put("max", histogram.getMaxValue());
+        //完整分布，可用 Histogram.decodeFromCompressedByteBuffer 还原后合并或重新计算分位数
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        summary.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+        return summary;
+    }
+
+    private static class KindRecord {
+        private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+
+        private final Map<String, LongAdder> verdicts = new ConcurrentHashMap<>();
+
+        private final LongAdder errors = new LongAdder();
+
+        KindRecord() {
+            for (String phase : PHASES) {
+                histograms.put(phase, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            }
+        }
+
+        //返回记录的值，为空时不记录并返回0
+        long record(String phase, Long value) {
+            if (value == null) {
+                return 0;
+            }
+            long time = Math.max(value, 0);
+            histograms.get(phase).recordValue(time);
+            return time;
+        }
+
+        Map<String, Object> toReport() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("count", histograms.get(TOTAL).getTotalCount());
+            report.put("errors", errors.sum());
+            Map<String, Long> verdictCounts = new TreeMap<>();
+            verdicts.forEach((verdict, count) -> verdictCounts.put(verdict, count.sum()));
+            report.put("verdicts", verdictCounts);
+            Map<String, Object> phases = new LinkedHashMap<>();
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                if (entry.getValue().getTotalCount() > 0) {
+                    phases.put(entry.getKey(), summarize(entry.getValue()));
+                }
+            }
+            report.put("phases", phases);
+            return report;
+        }
+    }
+}
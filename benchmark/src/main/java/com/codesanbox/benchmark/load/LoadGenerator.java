@@ -0,0 +1,211 @@
+package com.codesanbox.benchmark.load;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+import cn.hutool.json.JSONUtil;
+import com.codesanbox.model.ExecuteCodeRequest;
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.JudgeInfo;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 对 POST /execute 的开环压测
+ * 按设定速率发起提交，不等待前一个响应；延迟从计划发送时间算起，服务变慢时排队时间也计入延迟
+ * 结束后输出各程序类型、各阶段的延迟分布报告（JSON），可用 {@link LoadReportDiff} 对比两次压测
+ */
+public class LoadGenerator {
+
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    private final LoadOptions options;
+
+    private final Map<ProgramKind, String> requestBodies = new EnumMap<>(ProgramKind.class);
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private final Semaphore inFlight;
+
+    private final ExecutorService sender;
+
+    private final LongAdder sent = new LongAdder();
+
+    //超过同时未完成上限而丢弃的请求
+    private final LongAdder dropped = new LongAdder();
+
+    public LoadGenerator(LoadOptions options) {
+        this.options = options;
+        this.inFlight = new Semaphore(options.getMaxInFlight());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.sender = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "load-sender-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (ProgramKind programKind : options.getMix().keySet()) {
+            ExecuteCodeRequest executeCodeRequest = new ExecuteCodeRequest();
+            executeCodeRequest.setCode(programKind.getCode());
+            executeCodeRequest.setLanguage(SupportLanguageEnum.JAVA.getValue());
+            executeCodeRequest.setInputList(programKind.getInputList(options.getInputs()));
+            requestBodies.put(programKind, JSONUtil.toJsonStr(executeCodeRequest));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadOptions options = LoadOptions.parse(args);
+        System.out.println("压测参数：" + options);
+        Map<String, Object> report = new LoadGenerator(options).run();
+        File reportFile = FileUtil.writeString(JSONUtil.toJsonPrettyStr(report), options.getReport(), StandardCharsets.UTF_8);
+        System.out.println("报告已写入：" + reportFile.getAbsolutePath());
+    }
+
+    /**
+     * 执行压测
+     *
+     * @return 报告
+     */
+    public Map<String, Object> run() throws InterruptedException {
+        Random random = new Random(options.getSeed());
+        double meanInterval = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        long startTime = System.nanoTime();
+        long measureStartTime = startTime + TimeUnit.SECONDS.toNanos(options.getWarmup());
+        long endTime = measureStartTime + TimeUnit.SECONDS.toNanos(options.getDuration());
+        long nextProgressTime = measureStartTime + PROGRESS_INTERVAL;
+        //计划发送时间按到达间隔累加，与实际发送时间无关
+        long intendedTime = startTime;
+        while (intendedTime < endTime) {
+            long now;
+            while ((now = System.nanoTime()) < intendedTime) {
+                LockSupport.parkNanos(intendedTime - now);
+            }
+            boolean measured = intendedTime >= measureStartTime;
+            send(pick(random), intendedTime, measured);
+            if (now >= nextProgressTime) {
+                printProgress();
+                nextProgressTime += PROGRESS_INTERVAL;
+            }
+            intendedTime += "uniform".equals(options.getArrival())
+                    ? (long) meanInterval
+                    : (long) (-Math.log(1 - random.nextDouble()) * meanInterval);
+        }
+        //等待已发出的请求完成
+        sender.shutdown();
+        if (!sender.awaitTermination(options.getTimeout(), TimeUnit.MILLISECONDS)) {
+            System.out.println("等待未完成请求超时，剩余请求不计入报告");
+        }
+        printProgress();
+        return buildReport();
+    }
+
+    //按权重随机选择程序类型
+    private ProgramKind pick(Random random) {
+        int total = 0;
+        for (int weight : options.getMix().values()) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (Map.Entry<ProgramKind, Integer> entry : options.getMix().entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("权重计算错误");
+    }
+
+    private void send(ProgramKind programKind, long intendedTime, boolean measured) {
+        if (!inFlight.tryAcquire()) {
+            if (measured) {
+                dropped.increment();
+            }
+            return;
+        }
+        if (measured) {
+            sent.increment();
+        }
+        sender.execute(() -> {
+            try {
+                execute(programKind, intendedTime, measured);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void execute(ProgramKind programKind, long intendedTime, boolean measured) {
+        long sendTime = System.nanoTime();
+        ExecuteCodeResponse executeCodeResponse;
+        try (HttpResponse httpResponse = HttpRequest.post(options.getUrl())
+                .header(options.getSecretHeader(), options.getSecretKey())
+                .body(requestBodies.get(programKind), "application/json")
+                .timeout(options.getTimeout())
+                .execute()) {
+            if (!httpResponse.isOk()) {
+                throw new IllegalStateException("HTTP " + httpResponse.getStatus());
+            }
+            executeCodeResponse = JSONUtil.toBean(httpResponse.body(), ExecuteCodeResponse.class);
+        } catch (Exception e) {
+            if (measured) {
+                recorder.recordError(programKind);
+            }
+            return;
+        }
+        long finishTime = System.nanoTime();
+        if (!measured) {
+            return;
+        }
+        JudgeInfo judgeInfo = executeCodeResponse.getJudgeInfo();
+        String verdict = judgeInfo == null || judgeInfo.getMessage() == null
+                ? JudgeInfoMessageEnum.ACCEPTED.getValue() : judgeInfo.getMessage();
+        recorder.record(programKind, (finishTime - intendedTime) / 1000, (finishTime - sendTime) / 1000,
+                verdict, executeCodeResponse.getPhaseTimings());
+    }
+
+    private void printProgress() {
+        System.out.printf("已发送：%d，已完成：%d，失败：%d，丢弃：%d，p50：%.1f ms，p99：%.1f ms%n",
+                sent.sum(), recorder.getCount(), recorder.getErrorCount(), dropped.sum(),
+                recorder.getPercentile(50) / 1000.0, recorder.getPercentile(99) / 1000.0);
+    }
+
+    private Map<String, Object> buildReport() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("url", options.getUrl());
+        config.put("rate", options.getRate());
+        config.put("arrival", options.getArrival());
+        config.put("duration", options.getDuration());
+        config.put("warmup", options.getWarmup());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        options.getMix().forEach((programKind, weight) -> mix.put(programKind.getValue(), weight));
+        config.put("mix", mix);
+        config.put("inputs", options.getInputs());
+        config.put("maxInFlight", options.getMaxInFlight());
+        config.put("seed", options.getSeed());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("unit", "us");
+        report.put("config", config);
+        report.put("sent", sent.sum());
+        report.put("completed", recorder.getCount());
+        report.put("errors", recorder.getErrorCount());
+        report.put("dropped", dropped.sum());
+        //测量期间实际完成的提交速率
+        report.put("throughput", Math.round(recorder.getCount() * 100.0 / options.getDuration()) / 100.0);
+        report.put("kinds", recorder.toReport());
+        return report;
+    }
+}
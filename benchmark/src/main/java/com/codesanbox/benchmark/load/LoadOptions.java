@@ -0,0 +1,144 @@
+package com.codesanbox.benchmark.load;
+
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行格式为 name=value（可以带 -- 前缀）
+ */
+@Data
+public class LoadOptions {
+
+    private String url = "http://localhost:8090/execute";
+
+    //鉴权请求头和密钥，与 MainController 一致
+    private String secretHeader = "secretHeader";
+
+    private String secretKey = "secretKey";
+
+    //每秒发起的提交数（开环，不受响应快慢影响）
+    private double rate = 10;
+
+    //到达间隔：uniform 固定间隔，poisson 指数分布间隔
+    private String arrival = "poisson";
+
+    //压测时长（s），不含预热
+    private int duration = 60;
+
+    //预热时长（s），预热期间的结果不计入报告
+    private int warmup = 10;
+
+    //程序类型 -> 权重，格式 accepted:70,compile_error:10,tle:10,large_output:10
+    private Map<ProgramKind, Integer> mix = parseMix("accepted:70,compile_error:10,tle:10,large_output:10");
+
+    //每个提交的用例数
+    private int inputs = 5;
+
+    //同时未完成的请求上限，超过时丢弃新的请求并计数，避免压测端无限堆积
+    private int maxInFlight = 512;
+
+    //请求超时（ms）
+    private int timeout = 120000;
+
+    //随机种子，相同种子得到相同的提交序列
+    private long seed = 1;
+
+    private String report = "load-report.json";
+
+    //ConcurrencyProbe 逐级同时发起的提交数
+    private int[] levels = {64, 128, 256, 512, 1024};
+
+    public static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index < 0) {
+                throw new IllegalArgumentException("参数格式应为 name=value：" + arg);
+            }
+            String name = arg.substring(arg.startsWith("--") ? 2 : 0, index);
+            String value = arg.substring(index + 1);
+            switch (name) {
+                case "url":
+                    options.setUrl(value);
+                    break;
+                case "secret-header":
+                    options.setSecretHeader(value);
+                    break;
+                case "secret-key":
+                    options.setSecretKey(value);
+                    break;
+                case "rate":
+                    options.setRate(Double.parseDouble(value));
+                    break;
+                case "arrival":
+                    if (!"uniform".equals(value) && !"poisson".equals(value)) {
+                        throw new IllegalArgumentException("arrival只支持uniform、poisson：" + value);
+                    }
+                    options.setArrival(value);
+                    break;
+                case "duration":
+                    options.setDuration(Integer.parseInt(value));
+                    break;
+                case "warmup":
+                    options.setWarmup(Integer.parseInt(value));
+                    break;
+                case "mix":
+                    options.setMix(parseMix(value));
+                    break;
+                case "inputs":
+                    options.setInputs(Integer.parseInt(value));
+                    break;
+                case "max-in-flight":
+                    options.setMaxInFlight(Integer.parseInt(value));
+                    break;
+                case "timeout":
+                    options.setTimeout(Integer.parseInt(value));
+                    break;
+                case "seed":
+                    options.setSeed(Long.parseLong(value));
+                    break;
+                case "report":
+                    options.setReport(value);
+                    break;
+                case "levels":
+                    options.setLevels(parseLevels(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数：" + name);
+            }
+        }
+        if (options.rate <= 0) {
+            throw new IllegalArgumentException("rate必须大于0");
+        }
+        return options;
+    }
+
+    private static int[] parseLevels(String value) {
+        String[] items = value.split(",");
+        int[] levels = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            levels[i] = Integer.parseInt(items[i].trim());
+            if (levels[i] <= 0) {
+                throw new IllegalArgumentException("levels必须大于0：" + value);
+            }
+        }
+        return levels;
+    }
+
+    private static Map<ProgramKind, Integer> parseMix(String value) {
+        Map<ProgramKind, Integer> mix = new EnumMap<>(ProgramKind.class);
+        for (String item : value.split(",")) {
+            String[] pair = item.trim().split(":");
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1]) : 1;
+            if (weight > 0) {
+                mix.put(ProgramKind.getEnumByValue(pair[0]), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("mix至少需要一种程序类型");
+        }
+        return mix;
+    }
+}
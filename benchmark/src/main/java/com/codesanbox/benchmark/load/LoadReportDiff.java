@@ -0,0 +1,79 @@
+package com.codesanbox.benchmark.load;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 对比两份压测报告的吞吐和各阶段分位数
+ * 用法：LoadReportDiff base.json current.json
+ */
+public class LoadReportDiff {
+
+    private static final String[] PERCENTILES = {"p50", "p90", "p99", "p999"};
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("用法：LoadReportDiff base.json current.json");
+            return;
+        }
+        JSONObject base = JSONUtil.readJSONObject(new File(args[0]), StandardCharsets.UTF_8);
+        JSONObject current = JSONUtil.readJSONObject(new File(args[1]), StandardCharsets.UTF_8);
+        System.out.printf("%-24s %12s %12s %9s%n", "", "base", "current", "change");
+        for (String key : new String[]{"throughput", "completed", "errors", "dropped"}) {
+            printRow(key, base.getDouble(key), current.getDouble(key));
+        }
+        JSONObject baseKinds = base.getJSONObject("kinds");
+        JSONObject currentKinds = current.getJSONObject("kinds");
+        for (String kind : union(baseKinds, currentKinds)) {
+            System.out.println();
+            System.out.println("[" + kind + "] (ms)");
+            JSONObject basePhases = phases(baseKinds, kind);
+            JSONObject currentPhases = phases(currentKinds, kind);
+            for (String phase : union(basePhases, currentPhases)) {
+                for (String percentile : PERCENTILES) {
+                    printRow(phase + "." + percentile, toMillis(basePhases, phase, percentile), toMillis(currentPhases, phase, percentile));
+                }
+            }
+        }
+    }
+
+    private static JSONObject phases(JSONObject kinds, String kind) {
+        JSONObject kindReport = kinds == null ? null : kinds.getJSONObject(kind);
+        JSONObject phases = kindReport == null ? null : kindReport.getJSONObject("phases");
+        return phases == null ? new JSONObject() : phases;
+    }
+
+    private static Double toMillis(JSONObject phases, String phase, String percentile) {
+        JSONObject summary = phases.getJSONObject(phase);
+        if (summary == null || summary.getLong(percentile) == null) {
+            return null;
+        }
+        return summary.getLong(percentile) / 1000.0;
+    }
+
+    private static Set<String> union(JSONObject base, JSONObject current) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (base != null) {
+            keys.addAll(base.keySet());
+        }
+        if (current != null) {
+            keys.addAll(current.keySet());
+        }
+        return keys;
+    }
+
+    private static void printRow(String name, Double base, Double current) {
+        String change = base == null || current == null || base == 0
+                ? "-" : String.format("%+.1f%%", (current - base) * 100 / base);
+        System.out.printf("%-24s %12s %12s %9s%n", name, format(base), format(current), change);
+    }
+
+    private static String format(Double value) {
+        return value == null ? "-" : String.format("%.2f", value);
+    }
+}
@@ -0,0 +1,54 @@
+package com.codesanbox.benchmark.load;
+
+import com.codesanbox.benchmark.Corpus;
+
+import java.util.List;
+
+/**
+ * 压测提交的程序类型，源码来自 {@link Corpus}
+ */
+public enum ProgramKind {
+
+    //正常通过
+    ACCEPTED("accepted", Corpus.SUM, null),
+    //编译错误，只经过编译阶段
+    COMPILE_ERROR("compile_error", Corpus.COMPILE_ERROR, null),
+    //每个用例都超时，占满执行时间
+    TLE("tle", Corpus.LOOP, "100000"),
+    //每个用例输出约2.5MB
+    LARGE_OUTPUT("large_output", Corpus.PRINT, "200000");
+
+    private final String value;
+
+    private final String program;
+
+    //为null时使用 sum 的输入
+    private final String input;
+
+    ProgramKind(String value, String program, String input) {
+        this.value = value;
+        this.program = program;
+        this.input = input;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getCode() {
+        return Corpus.java(program);
+    }
+
+    public List<String> getInputList(int count) {
+        return input == null ? Corpus.sumInputs(count) : Corpus.repeat(input, count);
+    }
+
+    public static ProgramKind getEnumByValue(String value) {
+        for (ProgramKind programKind : values()) {
+            if (programKind.value.equals(value)) {
+                return programKind;
+            }
+        }
+        throw new IllegalArgumentException("未知的程序类型：" + value);
+    }
+}
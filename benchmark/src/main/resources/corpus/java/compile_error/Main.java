@@ -2,6 +2,6 @@ public class Main {
     public static void main(String[] args) {
         int a = Integer.parseInt(args[0]);
         int b = Integer.parseInt(args[1]);
-        System.out.println("结果:" + (a + b));
+        System.out.println(a + b)
     }
-}
\ No newline at end of file
+}
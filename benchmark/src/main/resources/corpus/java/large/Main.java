@@ -0,0 +1,137 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 典型的算法题提交：建图后求单源最短距离，再用线段树回答区间查询
+ * 不包含黑名单中的任何词，黑名单检测需要扫描完整源码
+ */
+public class Main {
+
+    static final long INF = Long.MAX_VALUE / 4;
+
+    static int n;
+
+    static List<int[]>[] graph;
+
+    static long[] tree;
+
+    static long[] lazy;
+
+    @SuppressWarnings("unchecked")
+    static void init(int size) {
+        n = size;
+        graph = new List[n];
+        for (int i = 0; i < n; i++) {
+            graph[i] = new ArrayList<>();
+        }
+        tree = new long[n * 4];
+        lazy = new long[n * 4];
+    }
+
+    static void addEdge(int u, int v, int w) {
+        graph[u].add(new int[]{v, w});
+        graph[v].add(new int[]{u, w});
+    }
+
+    static long[] dijkstra(int source) {
+        long[] dist = new long[n];
+        Arrays.fill(dist, INF);
+        dist[source] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        queue.add(new long[]{0, source});
+        while (!queue.isEmpty()) {
+            long[] top = queue.poll();
+            int u = (int) top[1];
+            if (top[0] > dist[u]) {
+                continue;
+            }
+            for (int[] edge : graph[u]) {
+                long next = dist[u] + edge[1];
+                if (next < dist[edge[0]]) {
+                    dist[edge[0]] = next;
+                    queue.add(new long[]{next, edge[0]});
+                }
+            }
+        }
+        return dist;
+    }
+
+    static void build(int node, int left, int right, long[] values) {
+        if (left == right) {
+            tree[node] = values[left];
+            return;
+        }
+        int mid = (left + right) >>> 1;
+        build(node * 2, left, mid, values);
+        build(node * 2 + 1, mid + 1, right, values);
+        tree[node] = tree[node * 2] + tree[node * 2 + 1];
+    }
+
+    static void push(int node, int left, int right) {
+        if (lazy[node] != 0) {
+            int mid = (left + right) >>> 1;
+            apply(node * 2, left, mid, lazy[node]);
+            apply(node * 2 + 1, mid + 1, right, lazy[node]);
+            lazy[node] = 0;
+        }
+    }
+
+    static void apply(int node, int left, int right, long delta) {
+        tree[node] += delta * (right - left + 1);
+        lazy[node] += delta;
+    }
+
+    static void update(int node, int left, int right, int from, int to, long delta) {
+        if (to < left || right < from) {
+            return;
+        }
+        if (from <= left && right <= to) {
+            apply(node, left, right, delta);
+            return;
+        }
+        push(node, left, right);
+        int mid = (left + right) >>> 1;
+        update(node * 2, left, mid, from, to, delta);
+        update(node * 2 + 1, mid + 1, right, from, to, delta);
+        tree[node] = tree[node * 2] + tree[node * 2 + 1];
+    }
+
+    static long query(int node, int left, int right, int from, int to) {
+        if (to < left || right < from) {
+            return 0;
+        }
+        if (from <= left && right <= to) {
+            return tree[node];
+        }
+        push(node, left, right);
+        int mid = (left + right) >>> 1;
+        return query(node * 2, left, mid, from, to) + query(node * 2 + 1, mid + 1, right, from, to);
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seed = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        init(size);
+        long state = seed;
+        for (int i = 1; i < size; i++) {
+            state = (state * 1103515245 + 12345) & 0x7fffffff;
+            addEdge((int) (state % i), i, (int) (state % 100) + 1);
+        }
+        long[] dist = dijkstra(0);
+        build(1, 0, size - 1, dist);
+        long answer = 0;
+        for (int i = 0; i < size; i++) {
+            state = (state * 1103515245 + 12345) & 0x7fffffff;
+            int from = (int) (state % size);
+            int to = Math.min(size - 1, from + (int) (state % 50));
+            if ((i & 1) == 0) {
+                update(1, 0, size - 1, from, to, i % 10);
+            } else {
+                answer += query(1, 0, size - 1, from, to);
+            }
+        }
+        System.out.println(answer);
+    }
+}
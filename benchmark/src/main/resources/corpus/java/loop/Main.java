@@ -0,0 +1,10 @@
+public class Main {
+    public static void main(String[] args) {
+        long rounds = Long.parseLong(args[0]) * 1000000L;
+        long hash = 17;
+        for (long i = 0; i < rounds; i++) {
+            hash = hash * 31 + (i ^ (hash >>> 7));
+        }
+        System.out.println(hash);
+    }
+}
@@ -0,0 +1,14 @@
+public class Main {
+    public static void main(String[] args) {
+        int lines = Integer.parseInt(args[0]);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append(i).append(' ').append(i * 31L % 1000003).append('\n');
+            if (builder.length() > 8192) {
+                System.out.print(builder);
+                builder.setLength(0);
+            }
+        }
+        System.out.print(builder);
+    }
+}
@@ -0,0 +1,41 @@
+package com.codesanbox;
+
+import cn.hutool.core.util.StrUtil;
+import com.codesanbox.model.ExecuteCodeRequest;
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.JudgeInfo;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.model.enums.QuestionSubmitStatusEnum;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按请求的语言分发到对应的代码沙箱，未指定语言时按Java执行
+ */
+public class CodeSandboxRouter implements CodeSandbox {
+
+    //语言（SupportLanguageEnum的value） -> 代码沙箱
+    private final Map<String, CodeSandbox> codeSandboxes;
+
+    public CodeSandboxRouter(Map<String, CodeSandbox> codeSandboxes) {
+        this.codeSandboxes = codeSandboxes;
+    }
+
+    @Override
+    public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
+        String language = StrUtil.blankToDefault(executeCodeRequest.getLanguage(), SupportLanguageEnum.JAVA.getValue());
+        CodeSandbox codeSandbox = codeSandboxes.get(language);
+        if (codeSandbox == null) {
+            return new ExecuteCodeResponse(null, new JudgeInfo(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue(), null, null, null, null),
+                    QuestionSubmitStatusEnum.FAILED.getValue(), "不支持的语言：" + language, null);
+        }
+        return codeSandbox.executeCode(executeCodeRequest);
+    }
+
+    public Set<String> getLanguages() {
+        return Collections.unmodifiableSet(codeSandboxes.keySet());
+    }
+}
@@ -0,0 +1,95 @@
+package com.codesanbox;
+
+import cn.hutool.core.io.FileUtil;
+import com.codesanbox.cgroup.CgroupLeaf;
+import com.codesanbox.cgroup.CgroupPool;
+import com.codesanbox.compiler.CachedCompilation;
+import com.codesanbox.input.TestInput;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.scheduler.ProcessWatchdog;
+import com.codesanbox.util.ProcessUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 使用cgroup v2限制资源的原生代码沙箱
+ * 与原生沙箱一样直接启动java进程，但进程在exec之前就被放入池中的叶子节点，受内存、CPU、进程数限制，
+ * 用户程序创建的子进程也在同一节点中，用例结束后统一结束
+ * 内存取节点的 memory.peak（包括JVM本身和堆外内存），被内核OOM结束时判为内存溢出
+ * cgroup不可用时退回原生执行
+ */
+@Slf4j
+public class JavaCgroupCodeSandbox extends JavaCodeSandboxTemplate{
+
+    private final CgroupPool cgroupPool;
+
+    public JavaCgroupCodeSandbox(CgroupPool cgroupPool) {
+        this.cgroupPool = cgroupPool;
+    }
+
+    @Override
+    protected List<ExecuteMessage> runCompiled(CachedCompilation compilation, String code, List<TestInput> testInputs) {
+        if (!cgroupPool.isAvailable()) {
+            return super.runCompiled(compilation, code, testInputs);
+        }
+        String absolutePath = materialize(compilation, code).getParentFile().getAbsolutePath();
+        return getTestCaseScheduler().runAll(testInputs, testInput -> runInCgroup(absolutePath, testInput));
+    }
+
+    //每个用例独占一个叶子节点，峰值内存和OOM记录不会混入其他用例
+    private ExecuteMessage runInCgroup(String absolutePath, TestInput testInput) {
+        File reportFile = new File(absolutePath, UUID.randomUUID() + ".measure");
+        CgroupLeaf leaf = null;
+        Process exec = null;
+        try {
+            leaf = cgroupPool.acquire();
+            ProcessBuilder processBuilder = new ProcessBuilder(leaf.wrap(buildRunCommand(absolutePath, reportFile, testInput)));
+            File stdinFile = testInput.getStdinFile();
+            if (stdinFile != null) {
+                processBuilder.redirectInput(stdinFile);
+            }
+            long launchTime = System.currentTimeMillis();
+            exec = processBuilder.start();
+            ExecuteMessage executeMessage;
+            try (ProcessWatchdog.Watch watch = ProcessWatchdog.getInstance().watch(exec, TIME_OUT + JVM_STARTUP_ALLOWANCE)) {
+                executeMessage = ProcessUtils.runAndProcess(exec, "运行", ProcessUtils.DEFAULT_OUTPUT_LIMIT, testInput.newChecker());
+                if (watch.isTimedOut()) {
+                    setTimeLimitExceeded(executeMessage);
+                    return executeMessage;
+                }
+            }
+            boolean outOfMemory = applyMeasurement(executeMessage, reportFile, launchTime);
+            long memoryPeak = leaf.readMemoryPeak();
+            if (memoryPeak >= 0) {
+                executeMessage.setMemory(memoryPeak / 1024);
+            }
+            //超过memory.max时进程被内核直接结束，来不及写测量报告
+            outOfMemory |= leaf.isOomKilled();
+            log.debug("执行结果：{}", executeMessage);
+            return judgeCase(executeMessage, outOfMemory);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("执行失败", e);
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return executeMessage;
+        } finally {
+            if (exec != null && exec.isAlive()) {
+                exec.destroy();
+            }
+            FileUtil.del(reportFile);
+            //节点中残留的进程在归还后统一结束
+            if (leaf != null) {
+                cgroupPool.release(leaf);
+            }
+        }
+    }
+}
@@ -1,18 +1,45 @@
 package com.codesanbox;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.dfa.FoundWord;
-import cn.hutool.dfa.WordTree;
+import com.codesanbox.blacklist.BlacklistHit;
+import com.codesanbox.blacklist.BlacklistScanner;
+import com.codesanbox.blacklist.BytecodeVerifier;
+import com.codesanbox.blacklist.JavaApiPolicy;
+import com.codesanbox.blacklist.SourceSyntax;
+import com.codesanbox.compiler.CachedCompilation;
+import com.codesanbox.compiler.CompileCache;
+import com.codesanbox.compiler.JavaCompilerEngine;
+import com.codesanbox.dataset.Dataset;
+import com.codesanbox.dataset.TestDataStore;
+import com.codesanbox.input.TestInput;
+import com.codesanbox.metrics.SandboxMetrics;
+import com.codesanbox.model.CompileResult;
 import com.codesanbox.model.ExecuteCodeRequest;
 import com.codesanbox.model.ExecuteCodeResponse;
 import com.codesanbox.model.ExecuteMessage;
 import com.codesanbox.model.JudgeInfo;
+import com.codesanbox.model.PhaseTimings;
+import com.codesanbox.model.enums.CheckerEnum;
+import com.codesanbox.model.enums.InputModeEnum;
 import com.codesanbox.model.enums.JudgeInfoMessageEnum;
 import com.codesanbox.model.enums.QuestionSubmitStatusEnum;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+import com.codesanbox.runner.AppCdsArchive;
+import com.codesanbox.runner.ForkServer;
+import com.codesanbox.runner.ForkServerPool;
+import com.codesanbox.runner.MeasuredLauncher;
+import com.codesanbox.runner.RunnerClasses;
+import com.codesanbox.runner.SandboxView;
+import com.codesanbox.scheduler.ProcessWatchdog;
+import com.codesanbox.scheduler.TestCaseScheduler;
 import com.codesanbox.util.ProcessUtils;
+import com.codesanbox.workspace.Workspace;
+import com.codesanbox.workspace.WorkspacePool;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Resource;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
@@ -20,8 +47,13 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * java原生实现代码沙箱
@@ -30,10 +62,17 @@ import java.util.UUID;
 @Slf4j
 public class JavaCodeSandboxTemplate implements CodeSandbox{
     public static final String USER_DIR="tmpCode";
-    public static final String JAVA_NAME="Main.java";
+    public static final String MAIN_CLASS_NAME="Main";
+    public static final String JAVA_NAME=MAIN_CLASS_NAME+".java";
     public static final int TIME_OUT=5000;
+    //超时强制结束进程时，墙钟时间额外留给JVM启动的时间（ms）
+    public static final int JVM_STARTUP_ALLOWANCE=2000;
+    //运行用户程序的JVM参数，AppCDS归档也按此生成
+    public static final List<String> JVM_OPTIONS=Collections.unmodifiableList(Arrays.asList("-Xmx256m", "-Dfile.encoding=UTF-8"));
+    //黑名单检测最多报告的命中数
+    public static final int MAX_BLACKLIST_HITS=20;
     /**
-     * Java代码黑名单
+     * Java代码黑名单，按token匹配（见 {@link BlacklistScanner}），注释和字符串中的内容不算命中
      * 黑名单检测通常用于辅助安全策略，而不是作为唯一的安全手段
      */
     private static final List<String> blackList = Arrays.asList(
@@ -80,48 +119,306 @@ public class JavaCodeSandboxTemplate implements CodeSandbox{
     );
 
     /**
-     * 代码黑名单字典树
+     * 预先编译的代码黑名单
      */
-    private static final WordTree WORD_TREE;
+    private static final BlacklistScanner BLACKLIST_SCANNER = BlacklistScanner.compile(SourceSyntax.JAVA,
+            Stream.concat(blackList.stream(), JavaApiPolicy.sourceRules().stream()).collect(Collectors.toList()));
+
+    /**
+     * 编译后的字节码校验，与源码黑名单共用 {@link JavaApiPolicy} 的规则，
+     * 拦截源码检测不到的写法（如全限定名、静态导入、继承禁止的类）
+     */
+    private static final BytecodeVerifier BYTECODE_VERIFIER = BytecodeVerifier.compile(JavaApiPolicy.FORBIDDEN_APIS);
+
+    /**
+     * 编译缓存，Spring环境下注入共享实例
+     */
+    @Resource
+    private CompileCache compileCache = new CompileCache(1024, 64L * 1024 * 1024);
+
+    /**
+     * 测试用例调度器，非Spring环境使用默认实例
+     */
+    @Resource
+    private TestCaseScheduler testCaseScheduler;
+
+    /**
+     * 执行指标，非Spring环境使用全局注册表
+     */
+    @Resource
+    private SandboxMetrics sandboxMetrics;
+
+    /**
+     * 测试数据存储，非Spring环境使用默认实例
+     */
+    @Resource
+    private TestDataStore testDataStore;
+
+    /**
+     * fork服务池，开启隔离执行时由其启动用例进程，非Spring环境为空
+     */
+    @Resource
+    private ForkServerPool forkServerPool;
+
+    /**
+     * 启动器的AppCDS归档，可用时用户程序的JVM映射归档中的类启动，非Spring环境为空
+     */
+    @Resource
+    private AppCdsArchive appCdsArchive;
+
+    /**
+     * 工作目录池，代码目录和输入文件放在内存文件系统上并复用，非Spring环境为空（直接创建在代码目录下）
+     */
+    @Resource
+    private WorkspacePool workspacePool;
 
-    static
-    {
-        // 初始化黑名单字典树
-        WORD_TREE = new WordTree();
-        WORD_TREE.addWords(blackList);
-    }
     @Override
     public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
-        List<String> inputList = executeCodeRequest.getInputList();
+        //与批量执行一致，没有输入用例时按空列表处理
+        List<String> inputList = executeCodeRequest.getInputList() == null ? Collections.emptyList() : executeCodeRequest.getInputList();
         String code = executeCodeRequest.getCode();
+        String language = StrUtil.blankToDefault(executeCodeRequest.getLanguage(), getLanguage().getValue());
+        InputModeEnum inputMode = StrUtil.isBlank(executeCodeRequest.getInputMode())
+                ? InputModeEnum.ARGS : InputModeEnum.getEnumByValue(executeCodeRequest.getInputMode());
+        if (inputMode == null)
+        {
+            return systemError("不支持的输入方式：" + executeCodeRequest.getInputMode());
+        }
+        //传了期望输出时在沙箱内比对，不再返回完整输出
+        List<String> expectedOutputList = executeCodeRequest.getExpectedOutputList();
+        CheckerEnum checker = StrUtil.isBlank(executeCodeRequest.getChecker())
+                ? CheckerEnum.EXACT : CheckerEnum.getEnumByValue(executeCodeRequest.getChecker());
+        if (checker == null)
+        {
+            return systemError("不支持的比对方式：" + executeCodeRequest.getChecker());
+        }
+        //引用已上传的测试数据时不再使用请求中的输入和期望输出
+        Dataset dataset = null;
+        if (StrUtil.isNotBlank(executeCodeRequest.getDatasetId()))
+        {
+            if (CollUtil.isNotEmpty(inputList) || expectedOutputList != null)
+            {
+                return systemError("datasetId与inputList、expectedOutputList不能同时指定");
+            }
+            dataset = getTestDataStore().get(executeCodeRequest.getDatasetId(), executeCodeRequest.getDatasetVersion());
+            if (dataset == null)
+            {
+                return systemError("测试数据不存在：" + executeCodeRequest.getDatasetId() + "/" + executeCodeRequest.getDatasetVersion());
+            }
+        }
+        else if (expectedOutputList != null && expectedOutputList.size() != inputList.size())
+        {
+            return systemError("期望输出数量与输入用例数量不一致");
+        }
+        boolean checkOutput = dataset != null ? dataset.isExpectedOutput() : expectedOutputList != null;
+        SandboxMetrics metrics = getSandboxMetrics();
+        PhaseTimings phaseTimings = new PhaseTimings();
+        long startTime = System.nanoTime();
         // 安全控制：限制敏感代码：黑名单检测
-        FoundWord foundWord = WORD_TREE.matchWord(code);
-        if (foundWord != null)
+        List<BlacklistHit> blacklistHits = findForbiddenWords(code);
+        metrics.recordPhase(SandboxMetrics.PHASE_BLACKLIST, language, startTime);
+        if (!blacklistHits.isEmpty())
         {
-            System.out.println("包含禁止词：" + foundWord.getFoundWord());
+            String forbiddenWord = blacklistHits.stream().map(BlacklistHit::toString).collect(Collectors.joining("、"));
+            log.info("包含禁止词：{}", forbiddenWord);
+            phaseTimings.setCompile(elapsedMicros(startTime));
+            metrics.recordVerdict(language, JudgeInfoMessageEnum.DANGEROUS_OPERATION.getValue());
             // 返回错误信息
-            return new ExecuteCodeResponse(null, new JudgeInfo(JudgeInfoMessageEnum.DANGEROUS_OPERATION.getValue(),null,null), QuestionSubmitStatusEnum.FAILED.getValue(),"包含禁止词：" + foundWord.getFoundWord());
+            return new ExecuteCodeResponse(null, new JudgeInfo(JudgeInfoMessageEnum.DANGEROUS_OPERATION.getValue(),null,null,null,null), QuestionSubmitStatusEnum.FAILED.getValue(),"包含禁止词：" + forbiddenWord, phaseTimings);
         }
-        File file = createFile(code);
-        //编译代码
-        ExecuteMessage executeMessage=complieCode(file);
-        System.out.println("编译结果：" + executeMessage);
-        if (executeMessage.getErrorMessage() != null)
-        {
-            // 返回编译错误信息
-            return new ExecuteCodeResponse(null, new JudgeInfo(executeMessage.getErrorMessage(), null, null), QuestionSubmitStatusEnum.FAILED.getValue(), executeMessage.getMessage());
+        //编译代码（进程内编译，相同源码命中缓存时跳过编译和写盘）
+        CachedCompilation compilation = compileCache.acquire(language, code, getCompileOptions(),
+                metrics.timedCompile(language, this::complieCode));
+        phaseTimings.setCompile(elapsedMicros(startTime));
+        long cleanupTime;
+        ExecuteCodeResponse executeCodeResponse;
+        //从这里开始持有缓存条目的引用，任何异常都要在finally中释放
+        List<TestInput> testInputs = Collections.emptyList();
+        try {
+            testInputs = dataset != null
+                    ? TestInput.of(dataset, inputMode, checker, executeCodeRequest.getEpsilon())
+                    : TestInput.of(inputList, inputMode, getInputDir());
+            if (dataset == null && expectedOutputList != null) {
+                for (int i = 0; i < testInputs.size(); i++) {
+                    testInputs.get(i).expect(expectedOutputList.get(i), checker, executeCodeRequest.getEpsilon());
+                }
+            }
+            ExecuteMessage executeMessage = compilation.getCompileResult().getExecuteMessage();
+            log.debug("编译结果：{}", executeMessage);
+            if (executeMessage.getErrorMessage() != null)
+            {
+                // 返回编译错误信息
+                cleanupTime = System.nanoTime();
+                executeCodeResponse = new ExecuteCodeResponse(null, new JudgeInfo(executeMessage.getErrorMessage(), null, null, null, null), QuestionSubmitStatusEnum.FAILED.getValue(), executeMessage.getMessage(), phaseTimings);
+            } else {
+                //执行文件
+                long runTime = System.nanoTime();
+                List<ExecuteMessage> executeMessages=runCompiled(compilation,code,testInputs);
+                cleanupTime = System.nanoTime();
+                metrics.recordPhase(SandboxMetrics.PHASE_RUN, language, runTime);
+                for (ExecuteMessage caseMessage : executeMessages) {
+                    metrics.recordCase(language, caseMessage);
+                }
+                //第一个用例开始执行前的等待计为排队，其余计为执行
+                long queue = executeMessages.stream().map(ExecuteMessage::getQueueTime).filter(Objects::nonNull)
+                        .min(Long::compare).orElse(0L);
+                phaseTimings.setQueue(queue);
+                phaseTimings.setRun(Math.max((cleanupTime - runTime) / 1000 - queue, 0));
+                executeCodeResponse = getOutputResponse(executeMessages);
+                if (checkOutput) {
+                    applyCheckResult(executeCodeResponse);
+                }
+                metrics.recordPhase(SandboxMetrics.PHASE_AGGREGATE, language, cleanupTime);
+            }
+        } catch (IllegalStateException e) {
+            //工作目录空间不足等服务端的问题，不是代码的问题
+            log.warn("执行失败：{}", e.getMessage());
+            cleanupTime = System.nanoTime();
+            executeCodeResponse = systemError(e.getMessage());
+        } finally {
+            //代码目录随缓存条目淘汰删除，输入文件随提交删除
+            long releaseTime = System.nanoTime();
+            compilation.release();
+            testInputs.forEach(TestInput::close);
+            metrics.recordPhase(SandboxMetrics.PHASE_CLEANUP, language, releaseTime);
         }
-        //执行文件
-        List<ExecuteMessage> executeMessages=runFile(file,inputList);
-        ExecuteCodeResponse getOutputResponse=getOutputResponse(executeMessages);
-        boolean b = deleteFile(file);
-        if (!b){
-               log.error("删除文件失败：{}",file.getAbsolutePath());
+        phaseTimings.setCleanup(elapsedMicros(cleanupTime));
+        executeCodeResponse.setPhaseTimings(phaseTimings);
+        metrics.recordVerdict(language, executeCodeResponse.getJudgeInfo().getMessage());
+        return executeCodeResponse;
+    }
+
+    //沙箱内比对时只返回判题结果，答案错误、格式错误时在差异摘要前标出第几个用例
+    private static void applyCheckResult(ExecuteCodeResponse executeCodeResponse){
+        JudgeInfo judgeInfo = executeCodeResponse.getJudgeInfo();
+        String judgeMessage = judgeInfo.getMessage();
+        if (judgeMessage == null) {
+            judgeInfo.setMessage(JudgeInfoMessageEnum.ACCEPTED.getValue());
+        } else if (JudgeInfoMessageEnum.WRONG_ANSWER.getValue().equals(judgeMessage)
+                || JudgeInfoMessageEnum.PRESENTATION_ERROR.getValue().equals(judgeMessage)) {
+            executeCodeResponse.setMessage("第 " + (executeCodeResponse.getOutputList().size() + 1) + " 个用例："
+                    + executeCodeResponse.getMessage());
+        }
+        executeCodeResponse.setOutputList(null);
+    }
+
+    private static ExecuteCodeResponse systemError(String message){
+        return new ExecuteCodeResponse(null, new JudgeInfo(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue(), null, null, null, null),
+                QuestionSubmitStatusEnum.FAILED.getValue(), message, null);
+    }
+
+    /**
+     * 执行结果是否已标记（超时、内存溢出、输出溢出、系统错误、答案错误、格式错误），
+     * 未标记的非0退出由调用方判为运行错误
+     */
+    protected static boolean isMarked(ExecuteMessage executeMessage){
+        String errorMessage = executeMessage.getErrorMessage();
+        return JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getValue().equals(errorMessage)
+                || JudgeInfoMessageEnum.MEMORY_LIMIT_EXCEEDED.getValue().equals(errorMessage)
+                || JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getValue().equals(errorMessage)
+                || JudgeInfoMessageEnum.SYSTEM_ERROR.getValue().equals(errorMessage)
+                || JudgeInfoMessageEnum.WRONG_ANSWER.getValue().equals(errorMessage)
+                || JudgeInfoMessageEnum.PRESENTATION_ERROR.getValue().equals(errorMessage);
+    }
+
+    private static long elapsedMicros(long startNanos){
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+
+    //沙箱执行的语言，请求未指定语言时使用
+    protected SupportLanguageEnum getLanguage(){
+        return SupportLanguageEnum.JAVA;
+    }
+
+    //黑名单检测，返回全部命中（最多MAX_BLACKLIST_HITS个），没有命中返回空列表
+    protected List<BlacklistHit> findForbiddenWords(String code){
+        return getBlacklistScanner().scan(code, MAX_BLACKLIST_HITS);
+    }
+
+    //该语言的黑名单
+    protected BlacklistScanner getBlacklistScanner(){
+        return BLACKLIST_SCANNER;
+    }
+
+    //编译参数，作为编译缓存key的一部分
+    protected List<String> getCompileOptions(){
+        return JavaCompilerEngine.COMPILE_OPTIONS;
+    }
+
+    /**
+     * 运行编译结果，默认落盘后逐个启动java进程，子类可以改为其他执行方式
+     *
+     * @param compilation 编译缓存条目
+     * @param code        源码
+     * @param testInputs  输入用例
+     * @return 每个用例的执行信息
+     */
+    protected List<ExecuteMessage> runCompiled(CachedCompilation compilation, String code, List<TestInput> testInputs){
+        File file = materialize(compilation, code);
+        return runInputs(file, testInputs);
+    }
+
+    //编译结果落盘（运行进程需要从磁盘加载class文件），同一条目只写一次
+    protected File materialize(CachedCompilation compilation, String code){
+        synchronized (compilation) {
+            File file = compilation.getCodeFile();
+            if (file == null) {
+                long startTime = System.nanoTime();
+                file = createCodeFile(compilation, code, JAVA_NAME);
+                for (Map.Entry<String, byte[]> entry : compilation.getCompileResult().getClassBytes().entrySet()) {
+                    writeArtifact(compilation, file.getParentFile(), entry.getKey().replace('.', File.separatorChar) + ".class", entry.getValue());
+                }
+                compilation.setCodeFile(file);
+                getSandboxMetrics().recordPhase(SandboxMetrics.PHASE_FILE_WRITE, getLanguage().getValue(), startTime);
+            }
+            return file;
+        }
+    }
+
+    /**
+     * 源文件落盘：开启工作目录池时写入借用的目录（随缓存条目淘汰归还），否则在代码目录下按缓存key创建
+     *
+     * @throws IllegalStateException 超过工作目录的空间配额
+     */
+    protected File createCodeFile(CachedCompilation compilation, String code, String fileName){
+        if (workspacePool == null) {
+            return createFile(code, compilation.getKey(), fileName);
+        }
+        try {
+            //上次写入失败时条目已持有目录，继续使用
+            Workspace workspace = compilation.getWorkspace();
+            if (workspace == null) {
+                workspace = workspacePool.acquire();
+                compilation.setWorkspace(workspace);
+            }
+            return workspace.write(fileName, code);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    //编译产物写到源文件所在目录，来自工作目录池时计入配额
+    protected File writeArtifact(CachedCompilation compilation, File dir, String name, byte[] bytes){
+        Workspace workspace = compilation.getWorkspace();
+        if (workspace == null) {
+            return FileUtil.writeBytes(bytes, new File(dir, name));
+        }
+        try {
+            return workspace.write(name, bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
         }
-        return getOutputResponse;
     }
 
     public File createFile(String code){
+        return createFile(code, UUID.randomUUID().toString());
+    }
+
+    public File createFile(String code, String dirName){
+        return createFile(code, dirName, JAVA_NAME);
+    }
+
+    public File createFile(String code, String dirName, String fileName){
         String userDir = System.getProperty("user.dir");
         String globalCodePathName=userDir+ File.separator+ USER_DIR;
         //判断代码java文件是否存在，没有就创建
@@ -129,61 +426,295 @@ public class JavaCodeSandboxTemplate implements CodeSandbox{
             FileUtil.mkdir(globalCodePathName);
         }
         //用户代码分开存放
-        String userCodePath=globalCodePathName+File.separator+ UUID.randomUUID();
-        String userCode=userCodePath+File.separator+JAVA_NAME;
+        String userCodePath=globalCodePathName+File.separator+ dirName;
+        String userCode=userCodePath+File.separator+fileName;
         return FileUtil.writeString(code, userCode, StandardCharsets.UTF_8);
     }
-    public ExecuteMessage complieCode(File file){
+    public CompileResult complieCode(String code){
         try {
-            String compileCmd = String.format("javac -encoding utf-8 %s", file.getAbsolutePath());
-            Process process = Runtime.getRuntime().exec(compileCmd);
-            ExecuteMessage executeMessage = ProcessUtils.runAndProcess(process, "编译");
-            if(executeMessage.getExitValue()!=0){
-                executeMessage.setExitValue(1);
-                executeMessage.setMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getText());
-                executeMessage.setErrorMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getValue());
-            }
-            return executeMessage;
+            CompileResult compileResult = JavaCompilerEngine.getInstance().compile(MAIN_CLASS_NAME, code);
+            return compileResult.isSuccess() ? verifyBytecode(compileResult) : compileResult;
         }catch (Exception e){
             ExecuteMessage executeMessage = new ExecuteMessage();
             executeMessage.setExitValue(1);
             executeMessage.setMessage(e.getMessage());
             executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
-            return executeMessage;
+            return new CompileResult(executeMessage, null);
        }
     }
 
+    //字节码校验，引用了禁止的API时按危险操作处理，不返回字节码（与编译结果一起缓存，同一份代码只校验一次）
+    protected CompileResult verifyBytecode(CompileResult compileResult){
+        List<String> violations = BYTECODE_VERIFIER.verify(compileResult.getClassBytes(), MAX_BLACKLIST_HITS);
+        if (violations.isEmpty()) {
+            return compileResult;
+        }
+        String violation = String.join("、", violations);
+        log.info("字节码校验未通过：{}", violation);
+        ExecuteMessage executeMessage = compileResult.getExecuteMessage();
+        executeMessage.setExitValue(1);
+        executeMessage.setMessage("引用了禁止的API：" + violation);
+        executeMessage.setErrorMessage(JudgeInfoMessageEnum.DANGEROUS_OPERATION.getValue());
+        return new CompileResult(executeMessage, null);
+    }
+
+    //把内存中的字节码写到代码目录，供运行进程加载
+    public void saveClassFiles(File file, Map<String, byte[]> classBytes){
+        String userCodePath = file.getParentFile().getAbsolutePath();
+        for (Map.Entry<String, byte[]> entry : classBytes.entrySet()) {
+            String classFileName = entry.getKey().replace('.', File.separatorChar) + ".class";
+            FileUtil.writeBytes(entry.getValue(), userCodePath + File.separator + classFileName);
+        }
+    }
+
+    //按命令行参数方式执行
     public List<ExecuteMessage> runFile(File code,List<String> inputList){
+        List<TestInput> testInputs = TestInput.of(inputList, InputModeEnum.ARGS, getInputDir());
+        return runInputs(code, testInputs);
+    }
+
+    public List<ExecuteMessage> runInputs(File code,List<TestInput> testInputs){
         String absolutePath = code.getParentFile().getAbsolutePath();
-        List<ExecuteMessage> executeMessages=new ArrayList<>();
-        for (String input : inputList)  {
-            String runCmd = String.format("java -Xmx256m -Dfile.encoding=UTF-8 -cp %s Main %s", absolutePath, input);
-            try {
-                Process exec = Runtime.getRuntime().exec(runCmd);
-                //超时控制
-                new Thread(()->{
-                   try {
-                       Thread.sleep(TIME_OUT);
-                       System.out.println("超时中断");
-                       exec.destroy();
-                   }catch (Exception e){
-                       throw new RuntimeException(e);
-                   }
-                }).start();
-                ExecuteMessage executeMessage = ProcessUtils.runAndProcess(exec, "运行");
-                System.out.println(executeMessage);
-                if (executeMessage.getExitValue() != 0)
-                {
-                    executeMessage.setExitValue(1);
-                    executeMessage.setMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getText());
-                    executeMessage.setErrorMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getValue());
+        //用例并发执行，由全局调度器限制节点上同时运行的进程数
+        return getTestCaseScheduler().runAll(testInputs, testInput -> runCase(absolutePath, testInput));
+    }
+
+    //执行单个用例，通过启动器运行以测量不含JVM启动的运行时间、CPU时间和峰值内存
+    private ExecuteMessage runCase(String absolutePath, TestInput testInput){
+        if (isIsolated()) {
+            return runIsolatedCase(absolutePath, testInput);
+        }
+        File reportFile = new File(absolutePath, UUID.randomUUID() + ".measure");
+        Process exec = null;
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(buildRunCommand(absolutePath, reportFile, testInput));
+            //标准输入方式直接把输入文件重定向给子进程
+            File stdinFile = testInput.getStdinFile();
+            if (stdinFile != null) {
+                processBuilder.redirectInput(stdinFile);
+            }
+            long launchTime = System.currentTimeMillis();
+            exec = processBuilder.start();
+            //超时控制，由看门狗统一调度，进程结束即取消；墙钟时间额外留出JVM启动的时间
+            ExecuteMessage executeMessage;
+            try (ProcessWatchdog.Watch watch = ProcessWatchdog.getInstance().watch(exec, TIME_OUT + JVM_STARTUP_ALLOWANCE)) {
+                executeMessage = ProcessUtils.runAndProcess(exec, "运行", ProcessUtils.DEFAULT_OUTPUT_LIMIT, testInput.newChecker());
+                if (watch.isTimedOut()) {
+                    setTimeLimitExceeded(executeMessage);
+                    return executeMessage;
+                }
+            }
+            boolean outOfMemory = applyMeasurement(executeMessage, reportFile, launchTime);
+            log.debug("执行结果：{}", executeMessage);
+            return judgeCase(executeMessage, outOfMemory);
+        }catch (Exception e){
+            log.error("执行失败", e);
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return executeMessage;
+        }finally {
+            //用例被取消（failFast）时结束仍在运行的进程
+            if (exec != null && exec.isAlive()) {
+                exec.destroy();
+            }
+            FileUtil.del(reportFile);
+        }
+    }
+
+    /**
+     * 隔离执行单个用例：由fork服务在新的命名空间中以nobody身份启动java进程，并安装系统调用白名单（见 fork_server.py）
+     * 每次只需在预先启动的fork服务中fork，不需要创建容器；JDK和代码目录需要对nobody可读
+     */
+    private ExecuteMessage runIsolatedCase(String absolutePath, TestInput testInput){
+        File reportFile = new File(absolutePath, UUID.randomUUID() + ".measure");
+        try {
+            //用户程序没有代码目录的写权限，测量报告预先创建并允许写入
+            FileUtil.touch(reportFile);
+            reportFile.setWritable(true, false);
+            List<String> runCmd = buildRunCommand(absolutePath, reportFile, testInput);
+            String[] args = runCmd.subList(1, runCmd.size()).toArray(new String[0]);
+            File java = resolveCommand(runCmd.get(0));
+            //超时、输出溢出、隔离失败已由fork服务标记，墙钟时间额外留出JVM启动的时间
+            long launchTime = System.currentTimeMillis();
+            ExecuteMessage executeMessage = forkServerPool.execute(forkServerPool.userMode(ForkServer.MODE_EXEC), java,
+                    args, testInput.getStdinFile(), TIME_OUT + JVM_STARTUP_ALLOWANCE, ProcessUtils.DEFAULT_OUTPUT_LIMIT, 0, testInput.newChecker(),
+                    isolatedView(absolutePath, java, reportFile));
+            boolean outOfMemory = applyMeasurement(executeMessage, reportFile, launchTime);
+            log.debug("执行结果：{}", executeMessage);
+            return judgeCase(executeMessage, outOfMemory);
+        }catch (Exception e){
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("执行失败", e);
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return executeMessage;
+        }finally {
+            FileUtil.del(reportFile);
+        }
+    }
+
+    //在PATH中查找命令，fork服务exec时需要绝对路径
+    private static File resolveCommand(String command){
+        if (command.indexOf(File.separatorChar) >= 0) {
+            return new File(command);
+        }
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String dir : path.split(File.pathSeparator)) {
+                File file = new File(dir, command);
+                if (file.isFile() && file.canExecute()) {
+                    return file;
                 }
-                executeMessages.add(executeMessage);
-            }catch (Exception e){
-                e.printStackTrace();
             }
         }
-        return executeMessages;
+        return new File(command);
+    }
+
+    /**
+     * 单个用例的运行命令：java -cp 代码目录:启动器目录 MeasuredLauncher 报告文件 Main 参数...
+     * AppCDS归档可用时改为 java 归档参数 -cp 启动器jar:代码目录 ...
+     *
+     * @param absolutePath 代码目录
+     * @param reportFile   启动器的测量报告
+     * @param testInput    输入用例
+     */
+    protected List<String> buildRunCommand(String absolutePath, File reportFile, TestInput testInput) throws IOException {
+        List<String> runCmd = new ArrayList<>();
+        runCmd.add("java");
+        String classpath;
+        if (appCdsArchive != null && appCdsArchive.isAvailable()) {
+            runCmd.addAll(appCdsArchive.archiveOptions());
+            classpath = appCdsArchive.classpath(absolutePath);
+        } else {
+            classpath = absolutePath + File.pathSeparator + getLauncherPath();
+        }
+        runCmd.addAll(JVM_OPTIONS);
+        runCmd.addAll(Arrays.asList("-cp", classpath, MeasuredLauncher.class.getName(), reportFile.getAbsolutePath(), MAIN_CLASS_NAME));
+        runCmd.addAll(Arrays.asList(testInput.toArgs()));
+        return runCmd;
+    }
+
+    /**
+     * 按进程的执行结果判定：输出溢出、内存溢出、超时（按实际运行时间）、答案错误、运行错误
+     *
+     * @param outOfMemory 用户程序是否内存溢出
+     */
+    protected ExecuteMessage judgeCase(ExecuteMessage executeMessage, boolean outOfMemory){
+        //输出溢出已由ProcessUtils标记
+        if (JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getValue().equals(executeMessage.getErrorMessage())) {
+            return executeMessage;
+        }
+        if (outOfMemory) {
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(JudgeInfoMessageEnum.MEMORY_LIMIT_EXCEEDED.getText());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.MEMORY_LIMIT_EXCEEDED.getValue());
+            return executeMessage;
+        }
+        //按实际运行时间判定超时，不受JVM启动快慢影响
+        if (executeMessage.getTime() != null && executeMessage.getTime() > TIME_OUT) {
+            setTimeLimitExceeded(executeMessage);
+            return executeMessage;
+        }
+        //答案错误、格式错误已由比对器标记（提前结束的进程退出码不为0）
+        if (isMarked(executeMessage)) {
+            return executeMessage;
+        }
+        //其余非0退出为运行错误
+        if (executeMessage.getExitValue() == null || executeMessage.getExitValue() != 0)
+        {
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getText());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getValue());
+        }
+        return executeMessage;
+    }
+
+    /**
+     * 读取启动器的测量报告，覆盖墙钟时间，并记录JVM启动耗时
+     * 报告缺失（如进程被强制结束）时保留ProcessUtils记录的墙钟时间
+     *
+     * @param launchTime 启动进程的时间（ms）
+     * @return 用户程序是否内存溢出
+     */
+    protected boolean applyMeasurement(ExecuteMessage executeMessage, File reportFile, long launchTime){
+        if (!reportFile.exists()) {
+            return false;
+        }
+        String[] report = FileUtil.readUtf8String(reportFile).trim().split(" ");
+        if (report.length < 4) {
+            return false;
+        }
+        executeMessage.setTime(Long.parseLong(report[0]));
+        long cpuTime = Long.parseLong(report[1]);
+        if (cpuTime >= 0) {
+            executeMessage.setCpuTime(cpuTime);
+        }
+        long memory = Long.parseLong(report[2]);
+        if (memory >= 0) {
+            executeMessage.setMemory(memory);
+        }
+        if (report.length > 4) {
+            executeMessage.setStartupTime(Math.max(0, Long.parseLong(report[4]) - launchTime));
+        }
+        return Boolean.parseBoolean(report[3]);
+    }
+
+    //标准输入方式下输入文件所在目录
+    protected File getInputDir(){
+        if (workspacePool != null) {
+            return workspacePool.getInputDir();
+        }
+        return new File(System.getProperty("user.dir"), USER_DIR + File.separator + "input");
+    }
+
+    //启动器类所在目录，首次使用时写出
+    //隔离执行的JVM能看到的文件：代码目录、启动器和AppCDS归档所在的目录（只读）、JDK（不在系统目录时），测量报告可写
+    private static SandboxView isolatedView(String absolutePath, File java, File reportFile) throws IOException {
+        SandboxView view = SandboxView.of(new File(absolutePath))
+                .readOnly(new File(getLauncherPath()))
+                .writable(reportFile);
+        //java 不在PATH中时无法确定JDK，隔离执行会因找不到命令而失败
+        if (java.isFile() && java.getAbsoluteFile().getParentFile().getParentFile() != null) {
+            view.readOnly(java.getAbsoluteFile().getParentFile().getParentFile());
+        }
+        return view;
+    }
+
+    private static String getLauncherPath() throws IOException {
+        File launcherDir = new File(System.getProperty("user.dir"), USER_DIR + File.separator + "runner");
+        RunnerClasses.extract(launcherDir);
+        return launcherDir.getAbsolutePath();
+    }
+
+    //超时结果
+    protected void setTimeLimitExceeded(ExecuteMessage executeMessage){
+        executeMessage.setExitValue(1);
+        executeMessage.setTime((long) TIME_OUT);
+        executeMessage.setMessage(JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getText());
+        executeMessage.setErrorMessage(JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getValue());
+    }
+
+    protected SandboxMetrics getSandboxMetrics(){
+        return sandboxMetrics != null ? sandboxMetrics : SandboxMetrics.getDefault();
+    }
+
+    protected TestDataStore getTestDataStore(){
+        return testDataStore != null ? testDataStore : TestDataStore.getDefault();
+    }
+
+    //用例是否由fork服务隔离执行
+    protected boolean isIsolated(){
+        return forkServerPool != null && forkServerPool.isEnabled() && forkServerPool.isIsolated();
+    }
+
+    protected TestCaseScheduler getTestCaseScheduler(){
+        return testCaseScheduler != null ? testCaseScheduler : TestCaseScheduler.getDefault();
     }
 
     //获取输出结果
@@ -193,15 +724,12 @@ public class JavaCodeSandboxTemplate implements CodeSandbox{
         //去最大值判断是否超时
         long maxTime=0;
         long maxMemory = 0;
+        long maxCpuTime = 0;
+        //JVM启动耗时单独统计，没有启动过JVM（常驻运行器、其他语言）时为空
+        Long maxStartupTime = null;
+        //判题信息，出错时为对应的错误（运行错误、超时等）
+        String judgeMessage = null;
         for (ExecuteMessage executeMessage : executeMessages) {
-            if(StrUtil.isNotBlank(executeMessage.getErrorMessage())){
-                executeCodeResponse.setMessage(executeMessage.getMessage());
-                // 用户提交的代码执行中存在错误
-                executeCodeResponse.setStatus(QuestionSubmitStatusEnum.FAILED.getValue());
-                executeCodeResponse.setJudgeInfo(new JudgeInfo(executeMessage.getErrorMessage(), null, null));
-                break;
-            }
-            outputList.add(executeMessage.getMessage());
             Long time = executeMessage.getTime();
             if(time!=null){
                 maxTime=Math.max(time,maxTime);
@@ -211,6 +739,24 @@ public class JavaCodeSandboxTemplate implements CodeSandbox{
             {
                 maxMemory = Math.max(maxMemory, memory);
             }
+            Long cpuTime = executeMessage.getCpuTime();
+            if (cpuTime != null)
+            {
+                maxCpuTime = Math.max(maxCpuTime, cpuTime);
+            }
+            Long startupTime = executeMessage.getStartupTime();
+            if (startupTime != null)
+            {
+                maxStartupTime = maxStartupTime == null ? startupTime : Math.max(maxStartupTime, startupTime);
+            }
+            if(StrUtil.isNotBlank(executeMessage.getErrorMessage())){
+                executeCodeResponse.setMessage(executeMessage.getMessage());
+                // 用户提交的代码执行中存在错误
+                executeCodeResponse.setStatus(QuestionSubmitStatusEnum.FAILED.getValue());
+                judgeMessage = executeMessage.getErrorMessage();
+                break;
+            }
+            outputList.add(executeMessage.getMessage());
         }
         //正常运行成功
         if (outputList.size()==executeMessages.size()){
@@ -219,8 +765,11 @@ public class JavaCodeSandboxTemplate implements CodeSandbox{
         }
         executeCodeResponse.setOutputList(outputList);
         JudgeInfo judgeInfo = new JudgeInfo();
+        judgeInfo.setMessage(judgeMessage);
         judgeInfo.setTime(maxTime);
         judgeInfo.setMemory(maxMemory);
+        judgeInfo.setCpuTime(maxCpuTime);
+        judgeInfo.setStartupTime(maxStartupTime);
         executeCodeResponse.setJudgeInfo(judgeInfo);
         return executeCodeResponse;
     }
@@ -230,7 +779,7 @@ public class JavaCodeSandboxTemplate implements CodeSandbox{
         if (userCodeFile.getParentFile() != null) {
             String absolutePath = userCodeFile.getParentFile().getAbsolutePath();
             boolean del = FileUtil.del(absolutePath);
-            System.out.println("删除"+(del?"成功":"失败"));
+            log.debug("删除{}：{}", del ? "成功" : "失败", absolutePath);
             return del;
         }
         return true;
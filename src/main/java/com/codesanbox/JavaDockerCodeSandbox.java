@@ -1,202 +1,163 @@
 package com.codesanbox;
 
-import cn.hutool.core.date.StopWatch;
 import cn.hutool.core.io.resource.ResourceUtil;
 import cn.hutool.core.util.ArrayUtil;
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.compiler.CachedCompilation;
+import com.codesanbox.docker.ContainerPool;
+import com.codesanbox.docker.DockerContainerRuntime;
+import com.codesanbox.docker.PooledContainer;
+import com.codesanbox.docker.StatsOverhead;
+import com.codesanbox.input.TestInput;
+import com.codesanbox.metrics.SandboxMetrics;
 import com.codesanbox.model.ExecuteCodeRequest;
 import com.codesanbox.model.ExecuteCodeResponse;
 import com.codesanbox.model.ExecuteMessage;
-import com.github.dockerjava.api.DockerClient;
-import com.github.dockerjava.api.async.ResultCallback;
-import com.github.dockerjava.api.command.*;
-import com.github.dockerjava.api.model.*;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.util.ProcessUtils;
 import com.github.dockerjava.core.DockerClientBuilder;
-import com.github.dockerjava.core.command.ExecStartResultCallback;
+import lombok.extern.slf4j.Slf4j;
 
-import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * 使用docker容器实现代码沙箱
- * 缺点：安全但是没有及时性，内存无法获取，原因是内存判断是通过定时获取docker容器状态实现的，显然存在在你获取容器状态之前程序就执行完了的情况
+ * 容器由容器池预先创建并启动，每个提交借用一个，字节码写到容器只读挂载的工作目录后通过exec执行
+ * 同一容器中的用例依次执行，每个用例独占容器的内存、CPU和进程数限制，
+ * 内存由容器常驻的统计订阅加上exec结束后的cgroup峰值得到（见 ContainerMonitor），即该用例的峰值
  */
+@Slf4j
 public class JavaDockerCodeSandbox extends JavaCodeSandboxTemplate{
     private static final long TIME_OUT = 5000L;
 
-    private static final Boolean FIRST_INIT = true;
-    //测试
-    public static void main(String[] args) {
-        JavaDockerCodeSandbox javaNativeCodeSandBox = new JavaDockerCodeSandbox();
-        ExecuteCodeRequest executeCodeRequest = new ExecuteCodeRequest();
-        executeCodeRequest.setInputList(Arrays.asList("1 2", "1 3"));
-        String code = ResourceUtil.readStr("Main.java", StandardCharsets.UTF_8);
-        executeCodeRequest.setCode(code);
-        executeCodeRequest.setLanguage("java");
-        ExecuteCodeResponse executeCodeResponse = javaNativeCodeSandBox.executeCode(executeCodeRequest);
-        System.out.println(executeCodeResponse);
-    }
-    @Override
-    public List<ExecuteMessage> runFile(File file, List<String> inputList) {
-        String absolutePath = file.getParentFile().getAbsolutePath();
-        //创建实例
-        DockerClient dockerClient = DockerClientBuilder.getInstance().build();
-        //拉取镜像
-        String image="openjdk:8-alpine";
-        if (FIRST_INIT) {
-            PullImageCmd pullImageCmd = dockerClient.pullImageCmd(image);
-            PullImageResultCallback resultCallback = new PullImageResultCallback() {
-                @Override
-                public void onNext(PullResponseItem item) {
-                    System.out.println("下载拉取镜像中：" + item.getStatus());
-                    super.onNext(item);
-                }
-            };
-            try {
-                pullImageCmd.exec(resultCallback).awaitCompletion();
-            } catch (Exception e) {
-                System.out.println("拉取镜像失败");
-                throw new RuntimeException(e);
-            }
-            System.out.println("拉取镜像成功");
-        }
-            //创建容器时，可以指定文件路径（Volume） 映射，作用是把本地的文件同步到容器中，可以让容器访问，创建可交互能多次输入输出的容器
-            CreateContainerCmd containerCmd = dockerClient.createContainerCmd(image);
-            HostConfig hostConfig=new HostConfig();
-            //容器挂载目录
-            hostConfig.setBinds(new Bind(absolutePath, new Volume("/app")));
-            //限制内存
-            hostConfig.withMemory(100*100*1000L);
-            hostConfig.withCpuCount(1L);
-            //内存交换
-            hostConfig.withMemorySwap(1000L);
-            //设置安全管理，读写权限
-            String profile = ResourceUtil.readUtf8Str("profile.json");
-            //将一个名为"seccomp"的安全选项添加到Docker容器的安全选项列表
-            hostConfig.withSecurityOpts(Arrays.asList("seccomp=" + profile));
-            CreateContainerResponse containerResponse = containerCmd
-                    .withReadonlyRootfs(true)  //只读
-                    .withNetworkDisabled(true) //禁用网络
-                    .withHostConfig(hostConfig)
-                    .withAttachStderr(true) //开启输入输出
-                    .withAttachStdin(true)
-                    .withAttachStdout(true)
-                    .withTty(true) //开启一个交互终端
-                    .exec();
-            String containerId = containerResponse.getId();
-            System.out.println("创建容器id："+containerId);
-            //启动容器
-            dockerClient.startContainerCmd(containerId).exec();
-            //执行docker exec containtId java -cp /app Main 1 2
-            ArrayList<ExecuteMessage> executeMessages=new ArrayList<>();
-            // 设置执行消息
-            ExecuteMessage execDockerMessage = new ExecuteMessage();
-            StopWatch stopWatch=new StopWatch();
-            //最大内存占用
-            final long[] memory={0L};
-            //设置执行信息
-            final String[] messageDocker = {null};
-            final String[] errorDockerMessage = {null};
-            long time = 0L;
-            for (String input:inputList) {
-                String[] inputArgsArray = input.split(" ");
-                //要把命令按照空格拆分，作为一个数组传递，否则可能会被识别为一个字符串，而不是多个参数
-                String[] append = ArrayUtil.append(new String[]{"java", "-cp", "/app", "Main"}, inputArgsArray);
-                //执行容器
-                ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
-                        .withCmd(append)
-                        .withAttachStderr(true)
-                        .withAttachStdin(true)
-                        .withAttachStdout(true)
-                        .exec();
-                System.out.println("创建执行命令：" + execCreateCmdResponse.getId());
-                String execId = execCreateCmdResponse.getId();
-                // 判断超时变量
-                final boolean[] isTimeOut = {true};
-                if (execId==null){
-                    throw new RuntimeException("创建执行命令失败");
-                }
-                //执行命令，通过回调接口来获取程序的输出结果，并且通过 StreamType 来区分标准输出和错误输出
-                ExecStartResultCallback execStartResultCallback = new ExecStartResultCallback() {
-
-                    @Override
-                    public void onComplete() {
-                        // 执行完成，设置为 false 不超时
-                        isTimeOut[0] = false;
-                        super.onComplete();
-                    }
+    private static final String IMAGE = "openjdk:8-alpine";
 
-                    @Override
-                    public void onNext(Frame frame) {
-                        // 获取程序执行信息
-                        StreamType streamType = frame.getStreamType();
-                        if (StreamType.STDERR.equals(streamType)) {
-                            errorDockerMessage[0] = new String(frame.getPayload());
-                            System.out.println("输出错误结果：" + errorDockerMessage[0]);
-                        } else {
-                            messageDocker[0] = new String(frame.getPayload());
-                            System.out.println("输出结果：" + messageDocker[0]);
-                        }
-                        super.onNext(frame);
-                    }
-                };
-                //获取占用内存
-                StatsCmd statsCmd = dockerClient.statsCmd(containerId);
-                ResultCallback<Statistics> statisticsResultCallback = statsCmd.exec(new ResultCallback<Statistics>() {
-                    @Override
-                    public void onNext(Statistics statistics) {
-                        Long usageMemory = statistics.getMemoryStats().getUsage();
-                        System.out.println("内存占用：" + usageMemory);
-                        memory[0] = Math.max(usageMemory, memory[0]);
-                    }
+    //容器内存上限中留给JVM自身（元空间、线程栈、JIT代码缓存等）的部分（byte）
+    private static final long JVM_OVERHEAD = 64L * 1024 * 1024;
 
-                    @Override
-                    public void onStart(Closeable closeable) {
+    private static final long MIN_HEAP = 16L * 1024 * 1024;
 
-                    }
+    private final ContainerPool containerPool;
 
-                    @Override
-                    public void onError(Throwable throwable) {
+    private final String[] javaCmd;
 
-                    }
-
-                    @Override
-                    public void onComplete() {
-
-                    }
+    /**
+     * @param memoryLimit 容器内存上限（byte），堆上限据此留出JVM自身的开销，避免用户程序未触发OOM就被容器杀死
+     */
+    public JavaDockerCodeSandbox(ContainerPool containerPool, long memoryLimit) {
+        this.containerPool = containerPool;
+        long heapLimit = Math.max(memoryLimit - JVM_OVERHEAD, MIN_HEAP);
+        this.javaCmd = new String[]{"java", "-Xmx" + heapLimit / 1024 / 1024 + "m", "-XX:-UsePerfData",
+                "-cp", DockerContainerRuntime.WORK_DIR, MAIN_CLASS_NAME};
+    }
 
-                    @Override
-                    public void close() throws IOException {
+    //测试
+    public static void main(String[] args) {
+        long memoryLimit = 256L * 1024 * 1024;
+        DockerContainerRuntime containerRuntime = new DockerContainerRuntime(DockerClientBuilder.getInstance().build(),
+                IMAGE, memoryLimit, 1L, 64L, new StatsOverhead());
+        File workRoot = new File(System.getProperty("user.dir"), USER_DIR + File.separator + "containers");
+        ContainerPool containerPool = new ContainerPool(containerRuntime, 1, 100, 60000, workRoot);
+        containerPool.start();
+        try {
+            JavaDockerCodeSandbox javaDockerCodeSandbox = new JavaDockerCodeSandbox(containerPool, memoryLimit);
+            ExecuteCodeRequest executeCodeRequest = new ExecuteCodeRequest();
+            executeCodeRequest.setInputList(Arrays.asList("1 2", "1 3"));
+            String code = ResourceUtil.readStr("Main.java", StandardCharsets.UTF_8);
+            executeCodeRequest.setCode(code);
+            executeCodeRequest.setLanguage("java");
+            ExecuteCodeResponse executeCodeResponse = javaDockerCodeSandbox.executeCode(executeCodeRequest);
+            System.out.println(executeCodeResponse);
+        } finally {
+            containerPool.shutdown();
+        }
+    }
 
-                    }
-                });
-                statsCmd.exec(statisticsResultCallback);
+    /**
+     * 借用池中的容器执行，字节码直接写入容器的工作目录，不再为每个提交创建容器
+     */
+    @Override
+    protected List<ExecuteMessage> runCompiled(CachedCompilation compilation, String code, List<TestInput> testInputs) {
+        PooledContainer container;
+        try {
+            container = containerPool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待空闲容器被中断", e);
+        }
+        boolean healthy = false;
+        try {
+            long startTime = System.nanoTime();
+            saveClassFiles(new File(container.getWorkDir(), JAVA_NAME), compilation.getCompileResult().getClassBytes());
+            getSandboxMetrics().recordPhase(SandboxMetrics.PHASE_FILE_WRITE, getLanguage().getValue(), startTime);
+            //各用例在同一容器中依次执行：并发时会争抢容器的内存、CPU和进程数限制，内存统计也无法区分各个exec
+            List<ExecuteMessage> executeMessages = getTestCaseScheduler().runSequentially(testInputs, testInput -> runInContainer(container, testInput));
+            //超时的用例可能还在容器内运行，这种容器不再复用
+            healthy = executeMessages.stream().noneMatch(executeMessage ->
+                    JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getValue().equals(executeMessage.getErrorMessage()));
+            return executeMessages;
+        } finally {
+            containerPool.release(container, healthy);
+        }
+    }
 
-                try {
-                    //执行启动命令
-                    stopWatch.start();
-                    dockerClient.execStartCmd(execId)
-                            .exec(execStartResultCallback)
-                            .awaitCompletion();
-                    stopWatch.stop();
-                    time=stopWatch.getLastTaskTimeMillis();
-                    //关闭统计
-                    statsCmd.close();
-                }catch (Exception e){
-                    System.out.println("程序执行异常");
-                    throw new RuntimeException(e);
-                }
-                System.out.println("耗时："+time+" ms");
-                execDockerMessage.setMessage(messageDocker[0]);
-                execDockerMessage.setErrorMessage(errorDockerMessage[0]);
-                execDockerMessage.setTime(time);
-                execDockerMessage.setMemory(memory[0]);
-                executeMessages.add(execDockerMessage);
+    //在容器中执行单个用例：docker exec containerId java -cp /app Main 1 2
+    private ExecuteMessage runInContainer(PooledContainer container, TestInput testInput) {
+        //要把命令按照空格拆分，作为一个数组传递，否则可能会被识别为一个字符串，而不是多个参数
+        String[] cmd = ArrayUtil.append(javaCmd, testInput.toArgs());
+        File stdinFile = null;
+        ExecuteMessage executeMessage;
+        try {
+            if (testInput.isStdin()) {
+                //输入文件放进容器的工作目录，在容器内重定向为标准输入，不经过docker的attach流
+                stdinFile = linkInput(testInput.getStdinFile(), container.getWorkDir());
+                cmd = new String[]{"sh", "-c", "exec " + String.join(" ", javaCmd) + " < " + DockerContainerRuntime.WORK_DIR + "/" + stdinFile.getName()};
             }
-            return executeMessages;
+            executeMessage = containerPool.getContainerRuntime().exec(container.getContainerId(), cmd, TIME_OUT, ProcessUtils.DEFAULT_OUTPUT_LIMIT);
+        } catch (IOException | RuntimeException e) {
+            log.error("容器执行失败", e);
+            executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return executeMessage;
+        } finally {
+            if (stdinFile != null) {
+                stdinFile.delete();
+            }
+        }
+        log.debug("耗时：{} ms", executeMessage.getTime());
+        //exec的输出由docker回调收集，结束后再比对
+        OutputChecker checker = testInput.newChecker();
+        if (checker != null && !isMarked(executeMessage) && Integer.valueOf(0).equals(executeMessage.getExitValue())) {
+            byte[] output = executeMessage.getMessage() == null ? new byte[0] : executeMessage.getMessage().getBytes(StandardCharsets.UTF_8);
+            checker.feed(output, 0, output.length);
+            checker.applyTo(executeMessage);
+        }
+        //超时、输出溢出、答案错误已标记，其余非0退出为运行错误
+        if (!isMarked(executeMessage) && (executeMessage.getExitValue() == null || executeMessage.getExitValue() != 0)) {
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getText());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getValue());
+        }
+        return executeMessage;
+    }
+
+    //硬链接到容器工作目录（同一文件系统时不复制数据），不在同一文件系统时复制
+    private static File linkInput(File input, File workDir) throws IOException {
+        Path target = new File(workDir, UUID.randomUUID() + ".in").toPath();
+        try {
+            Files.createLink(target, input.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(input.toPath(), target);
+        }
+        return target.toFile();
     }
 }
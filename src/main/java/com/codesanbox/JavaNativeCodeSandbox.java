@@ -1,14 +1,83 @@
 package com.codesanbox;
 
+import com.codesanbox.compiler.CachedCompilation;
+import com.codesanbox.compiler.JavaCompilerEngine;
+import com.codesanbox.input.TestInput;
 import com.codesanbox.model.ExecuteCodeRequest;
 import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.runner.JvmRunnerPool;
+import com.codesanbox.util.ProcessUtils;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Map;
+
 //java原生实现代码沙箱（复用模板方法）
+@Slf4j
 @Component
 public class JavaNativeCodeSandbox extends JavaCodeSandboxTemplate{
+
+    @Resource
+    private JvmRunnerPool jvmRunnerPool;
+
+    public JavaNativeCodeSandbox() {
+    }
+
+    //非Spring环境（如基准测试）手动指定运行器池
+    public JavaNativeCodeSandbox(JvmRunnerPool jvmRunnerPool) {
+        this.jvmRunnerPool = jvmRunnerPool;
+    }
+
+    //启动时预热编译器，首个提交不再承担javac类加载的开销
+    @PostConstruct
+    public void warmUp() {
+        JavaCompilerEngine.getInstance().warmUpAsync();
+    }
+
     @Override
     public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
         return super.executeCode(executeCodeRequest);
     }
+
+    /**
+     * 运行器池开启时，字节码直接通过管道交给常驻JVM执行，不落盘也不再为每个用例启动JVM
+     * 开启隔离执行时不使用运行器池（常驻JVM在同一进程中执行不同提交），每个用例由fork服务隔离启动
+     */
+    @Override
+    protected List<ExecuteMessage> runCompiled(CachedCompilation compilation, String code, List<TestInput> testInputs) {
+        if (jvmRunnerPool == null || !jvmRunnerPool.isEnabled() || isIsolated()) {
+            return super.runCompiled(compilation, code, testInputs);
+        }
+        Map<String, byte[]> classBytes = compilation.getCompileResult().getClassBytes();
+        return getTestCaseScheduler().runAll(testInputs, testInput -> runInPool(classBytes, testInput));
+    }
+
+    //标准输入方式只传输入文件路径，由运行器直接打开
+    private ExecuteMessage runInPool(Map<String, byte[]> classBytes, TestInput testInput) {
+        ExecuteMessage executeMessage;
+        try {
+            executeMessage = jvmRunnerPool.execute(classBytes, MAIN_CLASS_NAME, testInput.toArgs(), testInput.getStdinFile(),
+                    TIME_OUT, ProcessUtils.DEFAULT_OUTPUT_LIMIT, testInput.newChecker());
+        } catch (Exception e) {
+            log.error("运行器执行失败", e);
+            executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return executeMessage;
+        }
+        //超时、内存溢出、输出溢出、答案错误已由运行器标记，其余非0退出为运行错误
+        if (executeMessage.getExitValue() != 0 && !isMarked(executeMessage))
+        {
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getText());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getValue());
+        }
+        return executeMessage;
+    }
 }
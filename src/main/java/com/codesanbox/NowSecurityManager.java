@@ -2,9 +2,12 @@ package com.codesanbox;
 
 /**
  * 安全权限管理
+ * SecurityManager 在 JDK 17 起已废弃，且每次调用都要做权限检查，
+ * 已由编译后的字节码校验 {@link com.codesanbox.blacklist.BytecodeVerifier} 代替
  *
  * @author zzx
  */
+@Deprecated
 public class NowSecurityManager extends SecurityManager
 {
 
@@ -0,0 +1,23 @@
+package com.codesanbox.blacklist;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 命中的黑名单规则
+ */
+@Getter
+@AllArgsConstructor
+public class BlacklistHit {
+
+    //规则原文
+    private final String word;
+
+    //命中位置所在的行（从1开始）
+    private final int line;
+
+    @Override
+    public String toString() {
+        return word + "（第 " + line + " 行）";
+    }
+}
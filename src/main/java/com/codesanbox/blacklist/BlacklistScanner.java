@@ -0,0 +1,202 @@
+package com.codesanbox.blacklist;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * 按token匹配的代码黑名单
+ * 规则和源码经 {@link SourceLexer} 规范化为 " token token ... " 后，用预先编译的 Aho-Corasick 自动机一次扫描找出全部命中：
+ * 注释和字符串中的内容不参与匹配，规则只匹配完整的token序列（"Files" 不匹配 "Profiles"，"Path" 不匹配 "maxPath"），
+ * 规则中token之间的空白不影响匹配（"System.exit" 匹配 "System . exit"）
+ * 规则以 * 结尾时最后一个token按前缀匹配，如 "pthread*" 匹配 pthread_create
+ * 编译后只读，可以多线程共用
+ */
+public class BlacklistScanner {
+
+    //规则只能包含ASCII字符，源码中的其他字符都归为0类（不在任何规则中）
+    private static final int ASCII = 128;
+
+    private static final char PREFIX_MARK = '*';
+
+    private final SourceSyntax syntax;
+
+    //去重后的规则原文
+    private final List<String> rules;
+
+    //字符 -> 字符类别，0表示不在任何规则中
+    private final int[] charClasses = new int[ASCII];
+
+    private final int alphabetSize;
+
+    //完整的状态转移表（已合并失败指针）：transitions[state * alphabetSize + 字符类别]
+    private final int[] transitions;
+
+    //状态对应的规则下标，不是某条规则的结尾时为-1
+    private final int[] matches;
+
+    //沿失败指针往上最近的、是规则结尾的状态，没有时为-1
+    private final int[] matchLinks;
+
+    private BlacklistScanner(SourceSyntax syntax, List<String> rules) {
+        this.syntax = syntax;
+        this.rules = rules;
+        List<String> patterns = new ArrayList<>(rules.size());
+        int totalLength = 0;
+        int classCount = 1;
+        for (String rule : rules) {
+            String pattern = normalize(syntax, rule);
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c >= ASCII) {
+                    throw new IllegalArgumentException("黑名单规则只能包含ASCII字符：" + rule);
+                }
+                if (charClasses[c] == 0) {
+                    charClasses[c] = classCount++;
+                }
+            }
+            patterns.add(pattern);
+            totalLength += pattern.length();
+        }
+        this.alphabetSize = classCount;
+        //字典树，-1表示没有边
+        int maxStates = totalLength + 1;
+        int[] trie = new int[maxStates * alphabetSize];
+        Arrays.fill(trie, -1);
+        int[] matchOf = new int[maxStates];
+        Arrays.fill(matchOf, -1);
+        int stateCount = 1;
+        for (int r = 0; r < patterns.size(); r++) {
+            String pattern = patterns.get(r);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int index = state * alphabetSize + charClasses[pattern.charAt(i)];
+                if (trie[index] < 0) {
+                    trie[index] = stateCount++;
+                }
+                state = trie[index];
+            }
+            //规范化后相同的规则只保留第一条
+            if (matchOf[state] < 0) {
+                matchOf[state] = r;
+            }
+        }
+        //按层遍历，计算失败指针，并把缺失的边补成失败后的转移
+        int[] fail = new int[stateCount];
+        int[] links = new int[stateCount];
+        links[0] = -1;
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int a = 0; a < alphabetSize; a++) {
+            int child = trie[a];
+            if (child < 0) {
+                trie[a] = 0;
+            } else {
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failState = fail[state];
+            links[state] = matchOf[failState] >= 0 ? failState : links[failState];
+            for (int a = 0; a < alphabetSize; a++) {
+                int index = state * alphabetSize + a;
+                int next = trie[failState * alphabetSize + a];
+                if (trie[index] < 0) {
+                    trie[index] = next;
+                } else {
+                    fail[trie[index]] = next;
+                    queue.add(trie[index]);
+                }
+            }
+        }
+        this.transitions = Arrays.copyOf(trie, stateCount * alphabetSize);
+        this.matches = Arrays.copyOf(matchOf, stateCount);
+        this.matchLinks = links;
+    }
+
+    /**
+     * 编译规则
+     *
+     * @param syntax 源码的词法规则
+     * @param rules  黑名单规则，如 "Runtime.getRuntime().exec"、"import os"、"pthread*"
+     * @throws IllegalArgumentException 规则为空或包含非ASCII字符
+     */
+    public static BlacklistScanner compile(SourceSyntax syntax, Collection<String> rules) {
+        List<String> distinctRules = new ArrayList<>(new LinkedHashSet<>(rules));
+        return new BlacklistScanner(syntax, Collections.unmodifiableList(distinctRules));
+    }
+
+    /**
+     * 扫描源码
+     *
+     * @param code  源码
+     * @param limit 最多返回的命中数，达到后停止扫描
+     * @return 按出现顺序的命中，没有命中时为空列表
+     */
+    public List<BlacklistHit> scan(String code, int limit) {
+        Matcher matcher = new Matcher(limit);
+        SourceLexer.lex(code, syntax, matcher);
+        return matcher.hits == null ? Collections.emptyList() : matcher.hits;
+    }
+
+    public List<String> getRules() {
+        return rules;
+    }
+
+    public SourceSyntax getSyntax() {
+        return syntax;
+    }
+
+    //规则按源码同样的方式规范化，前缀规则去掉末尾的分隔符
+    private static String normalize(SourceSyntax syntax, String rule) {
+        boolean prefix = rule.endsWith(String.valueOf(PREFIX_MARK));
+        StringBuilder builder = new StringBuilder();
+        SourceLexer.lex(prefix ? rule.substring(0, rule.length() - 1) : rule, syntax, (c, line) -> {
+            builder.append(c);
+            return true;
+        });
+        if (builder.length() <= 1) {
+            throw new IllegalArgumentException("黑名单规则为空：" + rule);
+        }
+        if (prefix) {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    //一次扫描的状态
+    private class Matcher implements SourceLexer.Sink {
+
+        private final int limit;
+
+        private int state;
+
+        private List<BlacklistHit> hits;
+
+        Matcher(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean accept(char c, int line) {
+            state = transitions[state * alphabetSize + (c < ASCII ? charClasses[c] : 0)];
+            int matched = matches[state] >= 0 ? state : matchLinks[state];
+            for (; matched >= 0; matched = matchLinks[matched]) {
+                if (hits == null) {
+                    hits = new ArrayList<>();
+                }
+                hits.add(new BlacklistHit(rules.get(matches[matched]), line));
+                if (hits.size() >= limit) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
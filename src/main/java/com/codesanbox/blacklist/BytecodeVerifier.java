@@ -0,0 +1,201 @@
+package com.codesanbox.blacklist;
+
+import org.objectweb.asm.ClassReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 编译后的字节码校验，替代运行时的 SecurityManager
+ * 类、方法、字段的引用都记录在常量池中（包括继承的父类、lambda和字符串拼接的引导方法），
+ * 执行前扫描一次常量池即可找出对禁止API的全部直接引用，用户程序运行时没有权限检查的开销
+ * 规则写法见 {@link JavaApiPolicy}，编译后只读，可以多线程共用
+ */
+public class BytecodeVerifier {
+
+    private static final int CONSTANT_CLASS = 7;
+
+    private static final int CONSTANT_FIELDREF = 9;
+
+    private static final int CONSTANT_METHODREF = 10;
+
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+
+    //去重后的规则原文
+    private final List<String> rules;
+
+    //禁止的包前缀（内部名，如 java/net/）
+    private final List<String> packages = new ArrayList<>();
+
+    //禁止的类（内部名，含其内部类）
+    private final Set<String> classes = new HashSet<>();
+
+    //类（内部名）-> 禁止的成员
+    private final Map<String, List<MemberRule>> members = new HashMap<>();
+
+    private BytecodeVerifier(List<String> rules) {
+        this.rules = rules;
+        for (String rule : rules) {
+            int descriptorStart = rule.indexOf('(');
+            String name = descriptorStart < 0 ? rule : rule.substring(0, descriptorStart);
+            if (name.isEmpty() || name.startsWith(".") || name.contains("..")) {
+                throw new IllegalArgumentException("字节码校验规则格式错误：" + rule);
+            }
+            if (descriptorStart < 0 && name.endsWith(".")) {
+                packages.add(internalName(name));
+                continue;
+            }
+            int dot = name.lastIndexOf('.');
+            String simpleName = name.substring(dot + 1);
+            if (descriptorStart < 0 && JavaApiPolicy.isClassName(simpleName)) {
+                classes.add(internalName(name));
+                continue;
+            }
+            if (dot < 0) {
+                throw new IllegalArgumentException("字节码校验规则缺少类名：" + rule);
+            }
+            String descriptor = descriptorStart < 0 ? "" : rule.substring(descriptorStart);
+            members.computeIfAbsent(internalName(name.substring(0, dot)), key -> new ArrayList<>())
+                    .add(new MemberRule(rule, simpleName, descriptor));
+        }
+    }
+
+    /**
+     * 编译规则
+     *
+     * @param rules 禁止的API（全限定名），如 "java.net."、"java.lang.ProcessBuilder"、"java.lang.Runtime.exec"
+     * @throws IllegalArgumentException 规则格式错误
+     */
+    public static BytecodeVerifier compile(Collection<String> rules) {
+        return new BytecodeVerifier(Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(rules))));
+    }
+
+    /**
+     * 校验编译结果
+     *
+     * @param classBytes 类名 -> 字节码
+     * @param limit      最多返回的违规数，达到后停止校验
+     * @return 违规说明，如 "Main 引用了 java.lang.Runtime.exec"，没有违规时为空列表
+     */
+    public List<String> verify(Map<String, byte[]> classBytes, int limit) {
+        Set<String> violations = new LinkedHashSet<>();
+        for (Map.Entry<String, byte[]> entry : classBytes.entrySet()) {
+            verifyClass(entry.getKey(), new ClassReader(entry.getValue()), violations, limit);
+            if (violations.size() >= limit) {
+                break;
+            }
+        }
+        return violations.isEmpty() ? Collections.emptyList() : new ArrayList<>(violations);
+    }
+
+    public List<String> getRules() {
+        return rules;
+    }
+
+    private void verifyClass(String className, ClassReader reader, Set<String> violations, int limit) {
+        char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount() && violations.size() < limit; i++) {
+            int offset = reader.getItem(i);
+            //long、double占两个常量池项，第二项的偏移为0
+            if (offset == 0) {
+                continue;
+            }
+            String forbidden = null;
+            switch (reader.readByte(offset - 1)) {
+                case CONSTANT_CLASS:
+                    forbidden = checkClass(reader.readUTF8(offset, buffer));
+                    break;
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                    String owner = reader.readClass(offset, buffer);
+                    int nameAndType = reader.getItem(reader.readUnsignedShort(offset + 2));
+                    forbidden = checkMember(owner, reader.readUTF8(nameAndType, buffer), reader.readUTF8(nameAndType + 2, buffer));
+                    break;
+                default:
+                    break;
+            }
+            if (forbidden != null) {
+                violations.add(className + " 引用了 " + forbidden);
+            }
+        }
+    }
+
+    //命中时返回规则原文
+    private String checkClass(String internalName) {
+        String name = elementType(internalName);
+        if (name == null) {
+            return null;
+        }
+        for (String prefix : packages) {
+            if (name.startsWith(prefix)) {
+                return name.replace('/', '.');
+            }
+        }
+        String outer = name;
+        int nested = outer.indexOf('$');
+        if (nested > 0) {
+            outer = outer.substring(0, nested);
+        }
+        return classes.contains(outer) ? outer.replace('/', '.') : null;
+    }
+
+    private String checkMember(String owner, String name, String descriptor) {
+        String forbiddenClass = checkClass(owner);
+        if (forbiddenClass != null) {
+            return forbiddenClass;
+        }
+        List<MemberRule> memberRules = members.get(owner);
+        if (memberRules == null) {
+            return null;
+        }
+        for (MemberRule memberRule : memberRules) {
+            if (memberRule.name.equals(name) && descriptor.startsWith(memberRule.descriptor)) {
+                return memberRule.rule;
+            }
+        }
+        return null;
+    }
+
+    //数组类型取元素类型，基本类型数组返回null
+    private static String elementType(String internalName) {
+        if (internalName.isEmpty() || internalName.charAt(0) != '[') {
+            return internalName;
+        }
+        int start = 0;
+        while (start < internalName.length() && internalName.charAt(start) == '[') {
+            start++;
+        }
+        if (start < internalName.length() && internalName.charAt(start) == 'L' && internalName.endsWith(";")) {
+            return internalName.substring(start + 1, internalName.length() - 1);
+        }
+        return null;
+    }
+
+    private static String internalName(String name) {
+        return name.replace('.', '/');
+    }
+
+    private static class MemberRule {
+
+        private final String rule;
+
+        private final String name;
+
+        //方法描述符前缀，为空时匹配全部重载
+        private final String descriptor;
+
+        MemberRule(String rule, String name, String descriptor) {
+            this.rule = rule;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.codesanbox.blacklist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Java禁止调用的API，源码黑名单和字节码校验共用
+ * 写法（全限定名）：
+ * 1. 以 . 结尾为包（含子包），如 java.net.
+ * 2. 类名，如 java.lang.ProcessBuilder
+ * 3. 类名.成员名 为方法或字段，成员名后可以跟方法描述符的前缀，只禁止对应的重载，如 java.io.PrintWriter.&lt;init&gt;(Ljava/lang/String;
+ */
+public final class JavaApiPolicy {
+
+    public static final List<String> FORBIDDEN_APIS = Collections.unmodifiableList(Arrays.asList(
+            // 系统命令执行、结束进程
+            "java.lang.ProcessBuilder", "java.lang.ProcessHandle", "java.lang.Runtime.exec", "java.lang.Runtime.halt",
+            "java.lang.Runtime.exit", "java.lang.System.exit",
+
+            // 文件操作，包括以文件名创建输出流的构造方法
+            "java.io.File", "java.io.FileInputStream", "java.io.FileOutputStream", "java.io.FileReader", "java.io.FileWriter",
+            "java.io.RandomAccessFile", "java.nio.file.", "java.nio.channels.", "java.util.zip.",
+            "java.io.PrintStream.<init>(Ljava/lang/String;", "java.io.PrintWriter.<init>(Ljava/lang/String;",
+            "java.util.Formatter.<init>(Ljava/lang/String;",
+
+            // 网络
+            "java.net.", "javax.net.",
+
+            // 反射、动态加载类
+            "java.lang.reflect.", "java.lang.Class.forName", "java.lang.Class.newInstance", "java.lang.ClassLoader",
+            "java.lang.invoke.MethodHandles.lookup", "java.lang.invoke.MethodHandles.publicLookup",
+            "java.lang.invoke.MethodHandles.privateLookupIn", "sun.misc.Unsafe", "sun.reflect.", "jdk.internal.",
+
+            // 本地库、系统属性、环境变量、关闭钩子
+            "java.lang.System.load", "java.lang.System.loadLibrary", "java.lang.Runtime.load", "java.lang.Runtime.loadLibrary",
+            "java.lang.System.getProperties", "java.lang.System.setProperty", "java.lang.System.setProperties",
+            "java.lang.System.getenv", "java.lang.System.console", "java.lang.System.setSecurityManager",
+            "java.lang.Runtime.addShutdownHook",
+
+            // 线程
+            "java.lang.Thread", "java.lang.ThreadGroup", "java.util.concurrent.",
+
+            // 数据库、序列化、安全
+            "java.sql.", "javax.sql.", "java.io.ObjectInputStream", "java.io.ObjectOutputStream", "java.security."
+    ));
+
+    private JavaApiPolicy() {
+    }
+
+    /**
+     * 对应的源码黑名单规则：包保持原样（import），类取简单类名，方法和字段取 简单类名.成员名，
+     * 构造方法和只禁止部分重载的规则在源码中无法区分，只由字节码校验检查
+     */
+    public static List<String> sourceRules() {
+        List<String> rules = new ArrayList<>();
+        for (String api : FORBIDDEN_APIS) {
+            if (api.endsWith(".")) {
+                rules.add(api);
+                continue;
+            }
+            if (api.indexOf('(') >= 0 || api.endsWith(".<init>")) {
+                continue;
+            }
+            String[] parts = api.split("\\.");
+            String last = parts[parts.length - 1];
+            if (isClassName(last)) {
+                rules.add(last);
+            } else {
+                rules.add(parts[parts.length - 2] + "." + last);
+            }
+        }
+        return rules;
+    }
+
+    //按命名习惯，类名以大写字母开头
+    static boolean isClassName(String name) {
+        return !name.isEmpty() && Character.isUpperCase(name.charAt(0));
+    }
+}
@@ -0,0 +1,311 @@
+package com.codesanbox.blacklist;
+
+/**
+ * 黑名单扫描用的简易词法分析
+ * 跳过注释和字符串字面量，把剩下的代码规范化为 " token token ... " 的字符流：
+ * 标识符（字母、数字、_、$ 组成）原样输出，其余符号每个字符单独作为一个token，token之间以一个空格分隔
+ * 不创建token字符串，逐字符交给 {@link Sink}
+ */
+final class SourceLexer {
+
+    //token分隔符，字符流以分隔符开始，每个token后都跟一个分隔符
+    static final char SEPARATOR = ' ';
+
+    //ASCII字符是否可以组成标识符
+    private static final boolean[] ASCII_IDENTIFIER = new boolean[128];
+
+    static {
+        for (char c = 0; c < ASCII_IDENTIFIER.length; c++) {
+            ASCII_IDENTIFIER[c] = c == '_' || c == '$' || Character.isLetterOrDigit(c);
+        }
+    }
+
+    interface Sink {
+        /**
+         * @param c    规范化后的字符
+         * @param line 所在行（从1开始）
+         * @return 返回false时停止扫描
+         */
+        boolean accept(char c, int line);
+    }
+
+    private final String code;
+
+    private final SourceSyntax syntax;
+
+    private final Sink sink;
+
+    private int line = 1;
+
+    private boolean stopped;
+
+    private SourceLexer(String code, SourceSyntax syntax, Sink sink) {
+        this.code = code;
+        this.syntax = syntax;
+        this.sink = sink;
+    }
+
+    static void lex(String code, SourceSyntax syntax, Sink sink) {
+        String source = code;
+        //与编译器一致，先处理Java的Unicode转义和C的续行，否则可以用转义或续行拼出禁止词绕过检测
+        if (syntax == SourceSyntax.JAVA) {
+            source = decodeUnicodeEscapes(code);
+        } else if (syntax == SourceSyntax.C) {
+            source = spliceLines(code);
+        }
+        SourceLexer lexer = new SourceLexer(source, syntax, sink);
+        if (lexer.emit(SEPARATOR)) {
+            lexer.lexCode(0, source.length(), true);
+        }
+    }
+
+    /**
+     * @param literals 是否识别注释和字符串，为false时（f-string的内容）全部按代码扫描
+     */
+    private void lexCode(int from, int to, boolean literals) {
+        int i = from;
+        while (i < to && !stopped) {
+            char c = code.charAt(i);
+            if (c == '\n') {
+                line++;
+                i++;
+                continue;
+            }
+            if (c < ASCII_IDENTIFIER.length ? c <= ' ' : Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (literals) {
+                int end = skipCommentOrLiteral(i, to);
+                if (end > i) {
+                    i = end;
+                    continue;
+                }
+            }
+            if (isIdentifierPart(c)) {
+                int start = i;
+                while (i < to && isIdentifierPart(code.charAt(i))) {
+                    i++;
+                }
+                if (literals) {
+                    int end = skipPrefixedLiteral(start, i, to);
+                    if (end > i) {
+                        i = end;
+                        continue;
+                    }
+                }
+                for (int j = start; j < i; j++) {
+                    emit(code.charAt(j));
+                }
+                emit(SEPARATOR);
+                continue;
+            }
+            emit(c);
+            emit(SEPARATOR);
+            i++;
+        }
+    }
+
+    //位置i是注释或字符串的开始时跳过，返回结束位置，否则返回i
+    private int skipCommentOrLiteral(int i, int to) {
+        char c = code.charAt(i);
+        char next = i + 1 < to ? code.charAt(i + 1) : 0;
+        if (syntax == SourceSyntax.PYTHON) {
+            if (c == '#') {
+                return lineEnd(i, to);
+            }
+            if (c == '\'' || c == '"') {
+                return skipPythonString(i, to);
+            }
+            return i;
+        }
+        if (c == '/' && next == '/') {
+            return lineEnd(i, to);
+        }
+        if (c == '/' && next == '*') {
+            int end = code.indexOf("*/", i + 2);
+            return advance(i, end < 0 || end + 2 > to ? to : end + 2);
+        }
+        if (c == '"' && syntax == SourceSyntax.JAVA && code.startsWith("\"\"\"", i)) {
+            return advance(i, closingQuotes(i + 3, to, '"'));
+        }
+        //C++14 的数字分隔符（1'000'000）不是字符字面量
+        if (c == '\'' && syntax == SourceSyntax.C && i > 0 && isIdentifierPart(code.charAt(i - 1))) {
+            return i;
+        }
+        if (c == '"' || c == '\'') {
+            return advance(i, closingQuote(i + 1, to, c));
+        }
+        return i;
+    }
+
+    //字符串前缀（C的原始字符串 R"(...)"，Python的 r''、b''、f'' 等）紧跟字符串时跳过，返回结束位置，否则返回identEnd
+    private int skipPrefixedLiteral(int start, int identEnd, int to) {
+        if (identEnd >= to) {
+            return identEnd;
+        }
+        char quote = code.charAt(identEnd);
+        if (syntax == SourceSyntax.C && quote == '"' && isRawStringPrefix(start, identEnd)) {
+            int open = code.indexOf('(', identEnd);
+            if (open < 0 || open - identEnd > 17) {
+                return identEnd;
+            }
+            String closing = ")" + code.substring(identEnd + 1, open) + "\"";
+            int end = code.indexOf(closing, open);
+            return advance(identEnd, end < 0 || end + closing.length() > to ? to : end + closing.length());
+        }
+        if (syntax == SourceSyntax.PYTHON && (quote == '\'' || quote == '"') && identEnd - start <= 2) {
+            boolean format = false;
+            for (int j = start; j < identEnd; j++) {
+                char p = Character.toLowerCase(code.charAt(j));
+                if (p != 'r' && p != 'b' && p != 'u' && p != 'f') {
+                    return identEnd;
+                }
+                format |= p == 'f';
+            }
+            if (!format) {
+                return skipPythonString(identEnd, to);
+            }
+            //f-string中的 {...} 是可以执行的表达式，内容全部按代码扫描
+            int quoteLength = code.startsWith(triple(quote), identEnd) ? 3 : 1;
+            int end = quoteLength == 3 ? closingQuotes(identEnd + 3, to, quote) : closingQuote(identEnd + 1, to, quote);
+            int contentEnd = Math.max(identEnd + quoteLength, end - quoteLength);
+            lexCode(identEnd + quoteLength, Math.min(contentEnd, to), false);
+            return Math.max(end, identEnd + 1);
+        }
+        return identEnd;
+    }
+
+    private int skipPythonString(int i, int to) {
+        char quote = code.charAt(i);
+        if (code.startsWith(triple(quote), i)) {
+            return advance(i, closingQuotes(i + 3, to, quote));
+        }
+        return advance(i, closingQuote(i + 1, to, quote));
+    }
+
+    //单行字符串的结束位置（含引号），未闭合时到行尾
+    private int closingQuote(int from, int to, char quote) {
+        int j = from;
+        while (j < to) {
+            char c = code.charAt(j);
+            if (c == '\\') {
+                j += 2;
+            } else if (c == quote) {
+                return j + 1;
+            } else if (c == '\n') {
+                return j;
+            } else {
+                j++;
+            }
+        }
+        return to;
+    }
+
+    //三引号字符串（文本块）的结束位置（含引号），未闭合时到末尾
+    private int closingQuotes(int from, int to, char quote) {
+        int j = from;
+        while (j < to) {
+            char c = code.charAt(j);
+            if (c == '\\') {
+                j += 2;
+            } else if (c == quote && j + 2 < to && code.charAt(j + 1) == quote && code.charAt(j + 2) == quote) {
+                return j + 3;
+            } else {
+                j++;
+            }
+        }
+        return to;
+    }
+
+    private int lineEnd(int i, int to) {
+        int end = code.indexOf('\n', i);
+        return end < 0 || end > to ? to : end;
+    }
+
+    //跳过一段内容，统计其中的换行
+    private int advance(int from, int end) {
+        for (int j = from; j < end; j++) {
+            if (code.charAt(j) == '\n') {
+                line++;
+            }
+        }
+        return end;
+    }
+
+    private boolean isRawStringPrefix(int start, int end) {
+        int length = end - start;
+        return code.charAt(end - 1) == 'R' && (length == 1
+                || length == 2 && "LuU".indexOf(code.charAt(start)) >= 0
+                || length == 3 && code.startsWith("u8", start));
+    }
+
+    private boolean emit(char c) {
+        if (!stopped && !sink.accept(c, line)) {
+            stopped = true;
+        }
+        return !stopped;
+    }
+
+    private static String triple(char quote) {
+        return quote == '"' ? "\"\"\"" : "'''";
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return c < ASCII_IDENTIFIER.length ? ASCII_IDENTIFIER[c] : Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * 解码Java的Unicode转义：前面有偶数个连续反斜杠的 \\u+XXXX 才是转义
+     */
+    static String decodeUnicodeEscapes(String code) {
+        if (code.indexOf("\\u") < 0) {
+            return code;
+        }
+        StringBuilder builder = new StringBuilder(code.length());
+        int backslashes = 0;
+        int i = 0;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            if (c == '\\' && backslashes % 2 == 0 && i + 1 < code.length() && code.charAt(i + 1) == 'u') {
+                int j = i + 1;
+                while (j < code.length() && code.charAt(j) == 'u') {
+                    j++;
+                }
+                int value = j + 4 <= code.length() ? parseHex(code, j) : -1;
+                if (value >= 0) {
+                    builder.append((char) value);
+                    backslashes = 0;
+                    i = j + 4;
+                    continue;
+                }
+            }
+            builder.append(c);
+            backslashes = c == '\\' ? backslashes + 1 : 0;
+            i++;
+        }
+        return builder.toString();
+    }
+
+    private static int parseHex(String code, int from) {
+        int value = 0;
+        for (int j = from; j < from + 4; j++) {
+            int digit = Character.digit(code.charAt(j), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 16 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * 去掉C的续行（行尾的反斜杠和换行），与预处理一致
+     */
+    static String spliceLines(String code) {
+        if (code.indexOf("\\\n") < 0 && code.indexOf("\\\r\n") < 0) {
+            return code;
+        }
+        return code.replace("\\\r\n", "").replace("\\\n", "");
+    }
+}
@@ -0,0 +1,27 @@
+package com.codesanbox.blacklist;
+
+import com.codesanbox.model.enums.SupportLanguageEnum;
+
+/**
+ * 黑名单扫描时的词法规则：注释、字符串字面量的写法
+ */
+public enum SourceSyntax {
+    //注释 // 和 /* */，字符串 "..."、"""..."""，字符 '...'，支持 Unicode 转义（\\uXXXX）
+    JAVA,
+    //注释 // 和 /* */，字符串 "..."、R"(...)"，字符 '...'，支持续行（行尾的反斜杠）
+    C,
+    //注释 #，字符串 '...'、"..."、三引号，f-string 的内容按代码扫描
+    PYTHON;
+
+    public static SourceSyntax of(SupportLanguageEnum language) {
+        switch (language) {
+            case PYTHON3:
+                return PYTHON;
+            case C:
+            case CPP:
+                return C;
+            default:
+                return JAVA;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.codesanbox.cgroup;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * cgroup v2 的叶子节点，每次只放一个用例的进程
+ * 进程在exec之前由外层shell把自己写入 cgroup.procs，用户程序（包括JVM本身）从第一条指令起就受限制并被统计
+ * 叶子节点只使用一次：memory.peak、memory.events 无法清零，用完后由 {@link CgroupPool} 删除并补充新的节点
+ */
+@Slf4j
+public class CgroupLeaf {
+
+    //先把shell自己移入cgroup（写0表示写入者本身），再exec为真正的命令，pid不变
+    private static final String ENTER_SCRIPT = "echo 0 > \"$0/cgroup.procs\" && exec \"$@\"";
+
+    //等待进程全部退出的最长时间（ms）
+    private static final long KILL_TIMEOUT = 1000;
+
+    @Getter
+    private final File dir;
+
+    CgroupLeaf(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 包装命令，使其在本节点中执行
+     *
+     * @param command 原命令
+     * @return sh -c '...' 叶子目录 原命令...
+     */
+    public List<String> wrap(List<String> command) {
+        List<String> wrapped = new ArrayList<>(command.size() + 4);
+        wrapped.addAll(Arrays.asList("sh", "-c", ENTER_SCRIPT, dir.getAbsolutePath()));
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    /**
+     * 节点中所有进程（含已退出）的峰值内存（byte），内核不支持 memory.peak（5.19以下）时返回-1
+     */
+    public long readMemoryPeak() {
+        try {
+            return Long.parseLong(read("memory.peak").trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 是否有进程因超过 memory.max 被内核结束
+     */
+    public boolean isOomKilled() {
+        try {
+            for (String line : read("memory.events").split("\n")) {
+                if (line.startsWith("oom_kill ")) {
+                    return Long.parseLong(line.substring("oom_kill ".length()).trim()) > 0;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("读取memory.events失败：{}", e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 结束节点中的所有进程（包括用户程序创建的子进程），等待其退出
+     */
+    void kill() throws IOException, InterruptedException {
+        if (!isPopulated()) {
+            return;
+        }
+        File killFile = new File(dir, "cgroup.kill");
+        if (killFile.exists()) {
+            write("cgroup.kill", "1");
+        } else {
+            //5.14以下的内核没有cgroup.kill，逐个结束
+            List<String> killCmd = new ArrayList<>(Arrays.asList("kill", "-9"));
+            for (String pid : read("cgroup.procs").split("\n")) {
+                if (!pid.trim().isEmpty()) {
+                    killCmd.add(pid.trim());
+                }
+            }
+            if (killCmd.size() > 2) {
+                new ProcessBuilder(killCmd).start().waitFor();
+            }
+        }
+        long deadline = System.currentTimeMillis() + KILL_TIMEOUT;
+        while (isPopulated()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("cgroup中的进程未能结束：" + dir);
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    //节点中是否还有进程
+    boolean isPopulated() throws IOException {
+        return read("cgroup.events").contains("populated 1");
+    }
+
+    //删除节点，节点中不能再有进程
+    boolean remove() {
+        return dir.delete();
+    }
+
+    void write(String name, String value) throws IOException {
+        Files.write(new File(dir, name).toPath(), value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    String read(String name) throws IOException {
+        return new String(Files.readAllBytes(new File(dir, name).toPath()), StandardCharsets.US_ASCII);
+    }
+}
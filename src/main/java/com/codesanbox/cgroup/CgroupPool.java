@@ -0,0 +1,231 @@
+package com.codesanbox.cgroup;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * cgroup v2 叶子节点池
+ * 在委派给沙箱服务的父节点下预先创建若干设置好 memory.max、cpu.max、pids.max 的叶子节点，每个用例借用一个；
+ * 归还后在后台结束残留进程、删除节点并补充新的节点，借用时只需从队列中取出
+ * 父节点需要可写，且其上级已开启 memory、cpu、pids 控制器（如systemd服务设置 Delegate=yes），
+ * 不满足时池不可用，由调用方退回原生执行
+ */
+@Slf4j
+public class CgroupPool {
+
+    //cpu.max 的周期（us）
+    private static final long CPU_PERIOD = 100000;
+
+    private static final String LEAF_PREFIX = "leaf-";
+
+    private static final String[] CONTROLLERS = {"memory", "cpu", "pids"};
+
+    @Getter
+    private final boolean enabled;
+
+    //父节点，如 /sys/fs/cgroup/codesandbox
+    private final File root;
+
+    @Getter
+    private final int size;
+
+    //等待空闲节点的最长时间（ms）
+    private final long acquireTimeout;
+
+    //单个用例的内存上限（byte），包括JVM本身
+    private final long memoryLimit;
+
+    //单个用例可以使用的CPU核数
+    private final double cpuCount;
+
+    //单个用例最多进程（线程）数
+    private final long pidsLimit;
+
+    private final BlockingQueue<CgroupLeaf> idleLeaves = new LinkedBlockingQueue<>();
+
+    //使用中 + 空闲 + 创建中的节点数量
+    private final AtomicInteger leafCount = new AtomicInteger();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ExecutorService recycler = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cgroup-recycler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean available;
+
+    private volatile boolean closed;
+
+    public CgroupPool(boolean enabled, File root, int size, long acquireTimeout, long memoryLimit, double cpuCount, long pidsLimit) {
+        this.enabled = enabled;
+        this.root = root;
+        this.size = size;
+        this.acquireTimeout = acquireTimeout;
+        this.memoryLimit = memoryLimit;
+        this.cpuCount = cpuCount;
+        this.pidsLimit = pidsLimit;
+    }
+
+    /**
+     * 准备父节点并预创建叶子节点，cgroup v2 不可用时只记录日志
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            prepareRoot();
+            for (int i = 0; i < size; i++) {
+                idleLeaves.offer(createLeaf());
+                leafCount.incrementAndGet();
+            }
+        } catch (IOException e) {
+            log.warn("cgroup v2 不可用，Java代码回退为不限制资源的原生执行：{}", e.getMessage());
+            removeIdleLeaves();
+            return;
+        }
+        available = true;
+        log.info("cgroup节点池启动：{}，大小：{}，内存上限：{} bytes，CPU：{} 核，进程数上限：{}",
+                root, size, memoryLimit, cpuCount, pidsLimit);
+    }
+
+    /**
+     * 开启且启动成功
+     */
+    public boolean isAvailable() {
+        return available && !closed;
+    }
+
+    /**
+     * 借用一个未使用过的叶子节点
+     */
+    public CgroupLeaf acquire() throws InterruptedException {
+        //之前创建失败的节点在这里补上
+        if (leafCount.get() < size) {
+            replenish();
+        }
+        CgroupLeaf leaf = idleLeaves.poll(acquireTimeout, TimeUnit.MILLISECONDS);
+        if (leaf == null) {
+            throw new IllegalStateException("等待空闲cgroup节点超时");
+        }
+        return leaf;
+    }
+
+    /**
+     * 归还节点，在后台结束残留进程、删除节点并补充新的节点
+     */
+    public void release(CgroupLeaf leaf) {
+        if (closed) {
+            destroy(leaf);
+            return;
+        }
+        recycler.execute(() -> {
+            destroy(leaf);
+            leafCount.decrementAndGet();
+            replenish();
+        });
+    }
+
+    public int getIdleCount() {
+        return idleLeaves.size();
+    }
+
+    public void shutdown() {
+        closed = true;
+        recycler.shutdownNow();
+        removeIdleLeaves();
+    }
+
+    private void replenish() {
+        if (closed || leafCount.incrementAndGet() > size) {
+            leafCount.decrementAndGet();
+            return;
+        }
+        try {
+            idleLeaves.offer(createLeaf());
+        } catch (IOException e) {
+            log.error("创建cgroup节点失败", e);
+            leafCount.decrementAndGet();
+        }
+    }
+
+    //检查cgroup v2和控制器，清理上次运行残留的节点，为叶子节点开启控制器
+    private void prepareRoot() throws IOException {
+        CgroupLeaf parent = new CgroupLeaf(root.getParentFile());
+        if (!new File(parent.getDir(), "cgroup.controllers").exists()) {
+            throw new IOException(root.getParent() + " 不是cgroup v2节点");
+        }
+        //子节点可用的控制器由上级节点的 cgroup.subtree_control 决定
+        String delegated = " " + parent.read("cgroup.subtree_control").trim() + " ";
+        StringBuilder subtreeControl = new StringBuilder();
+        for (String controller : CONTROLLERS) {
+            if (!delegated.contains(" " + controller + " ")) {
+                throw new IOException(root.getParent() + " 未向子节点开启 " + controller + " 控制器");
+            }
+            subtreeControl.append('+').append(controller).append(' ');
+        }
+        if (!root.isDirectory() && !root.mkdir()) {
+            throw new IOException("无法创建cgroup节点：" + root);
+        }
+        File[] stale = root.listFiles(file -> file.isDirectory() && file.getName().startsWith(LEAF_PREFIX));
+        if (stale != null) {
+            for (File dir : stale) {
+                destroy(new CgroupLeaf(dir));
+            }
+        }
+        new CgroupLeaf(root).write("cgroup.subtree_control", subtreeControl.toString().trim());
+    }
+
+    private CgroupLeaf createLeaf() throws IOException {
+        File dir = new File(root, LEAF_PREFIX + sequence.incrementAndGet());
+        if (!dir.mkdir()) {
+            throw new IOException("无法创建cgroup节点：" + dir);
+        }
+        CgroupLeaf leaf = new CgroupLeaf(dir);
+        try {
+            leaf.write("memory.max", String.valueOf(memoryLimit));
+            //不使用swap，超过内存上限直接触发OOM
+            if (new File(dir, "memory.swap.max").exists()) {
+                leaf.write("memory.swap.max", "0");
+            }
+            leaf.write("cpu.max", Math.max(1000, Math.round(cpuCount * CPU_PERIOD)) + " " + CPU_PERIOD);
+            leaf.write("pids.max", String.valueOf(pidsLimit));
+        } catch (IOException e) {
+            leaf.remove();
+            throw e;
+        }
+        return leaf;
+    }
+
+    private void destroy(CgroupLeaf leaf) {
+        try {
+            leaf.kill();
+        } catch (IOException e) {
+            log.warn("结束cgroup节点中的进程失败：{}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!leaf.remove()) {
+            log.warn("删除cgroup节点失败：{}", leaf.getDir());
+        }
+    }
+
+    private void removeIdleLeaves() {
+        CgroupLeaf leaf;
+        while ((leaf = idleLeaves.poll()) != null) {
+            destroy(leaf);
+        }
+    }
+}
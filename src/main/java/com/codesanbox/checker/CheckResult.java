@@ -0,0 +1,22 @@
+package com.codesanbox.checker;
+
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 输出比对结果
+ */
+@Getter
+@AllArgsConstructor
+public class CheckResult {
+    //ACCEPTED、WRONG_ANSWER 或 PRESENTATION_ERROR
+    private final JudgeInfoMessageEnum verdict;
+
+    //不一致处的差异摘要，通过时为null
+    private final String diff;
+
+    public boolean isAccepted() {
+        return verdict == JudgeInfoMessageEnum.ACCEPTED;
+    }
+}
@@ -0,0 +1,95 @@
+package com.codesanbox.checker;
+
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 精确比对：逐字节比较，只忽略\r和末尾的空行
+ * 同时按token比较，逐字节不一致但token一致时为格式错误，token也不一致时为答案错误（此时可以提前结束）
+ */
+class ExactChecker extends OutputChecker {
+
+    private final TokenChecker tokenChecker;
+
+    //期望输出中下一个未比较的位置
+    private int expectedPosition;
+
+    //尚未比较的换行，遇到后续非换行字符时再比较，末尾的换行不参与比较
+    private int pendingNewlines;
+
+    private boolean exactMatched = true;
+
+    //第一次逐字节不一致时的差异摘要
+    private String presentationDiff;
+
+    ExactChecker(ByteBuffer expected) {
+        super(expected);
+        this.tokenChecker = new TokenChecker(expected);
+    }
+
+    @Override
+    boolean accept(byte b) {
+        if (!tokenChecker.accept(b)) {
+            return false;
+        }
+        if (!exactMatched || b == '\r') {
+            return true;
+        }
+        if (b == '\n') {
+            pendingNewlines++;
+            return true;
+        }
+        for (; pendingNewlines > 0; pendingNewlines--) {
+            if (nextExpected() != '\n') {
+                mismatch();
+                return true;
+            }
+        }
+        if (nextExpected() != b) {
+            mismatch();
+        }
+        return true;
+    }
+
+    @Override
+    boolean complete() {
+        if (!tokenChecker.complete()) {
+            return false;
+        }
+        if (exactMatched) {
+            //期望输出剩余的只能是换行
+            int next = nextExpected();
+            while (next == '\n') {
+                next = nextExpected();
+            }
+            if (next != -1) {
+                mismatch();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    int expectedPosition() {
+        return tokenChecker.expectedPosition();
+    }
+
+    @Override
+    CheckResult accepted() {
+        return exactMatched ? super.accepted() : new CheckResult(JudgeInfoMessageEnum.PRESENTATION_ERROR, presentationDiff);
+    }
+
+    //期望输出的下一个字节（跳过\r），没有时返回-1
+    private int nextExpected() {
+        while (expectedPosition < expected.limit() && expected.get(expectedPosition) == '\r') {
+            expectedPosition++;
+        }
+        return expectedPosition < expected.limit() ? expected.get(expectedPosition++) : -1;
+    }
+
+    private void mismatch() {
+        exactMatched = false;
+        presentationDiff = excerpt(expectedPosition - 1);
+    }
+}
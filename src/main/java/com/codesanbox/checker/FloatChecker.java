@@ -0,0 +1,48 @@
+package com.codesanbox.checker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * 浮点误差比对：按空白拆分，两个token都是数值时，绝对误差或相对误差不超过epsilon即视为相同，否则按文本比较
+ * 数值只接受普通的十进制写法（可带指数），1f、0x1p3、Infinity、NaN 等Java字面量写法不算数值；超出double范围的值不相同
+ */
+class FloatChecker extends TokenChecker {
+
+    public static final double DEFAULT_EPSILON = 1e-6;
+
+    //超过这个长度的token不按数值解析
+    private static final int MAX_NUMBER_LENGTH = 64;
+
+    private static final Pattern DECIMAL = Pattern.compile("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][+-]?\\d+)?");
+
+    private final double epsilon;
+
+    FloatChecker(ByteBuffer expected, double epsilon) {
+        super(expected);
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    boolean tokenMatches(ByteBuffer expected, int offset, int length, byte[] actual, int actualLength) {
+        if (super.tokenMatches(expected, offset, length, actual, actualLength)) {
+            return true;
+        }
+        if (length > MAX_NUMBER_LENGTH || actualLength > MAX_NUMBER_LENGTH) {
+            return false;
+        }
+        String expectedText = new String(bytes(expected, offset, length), StandardCharsets.US_ASCII);
+        String actualText = new String(actual, 0, actualLength, StandardCharsets.US_ASCII);
+        if (!DECIMAL.matcher(expectedText).matches() || !DECIMAL.matcher(actualText).matches()) {
+            return false;
+        }
+        double expectedValue = Double.parseDouble(expectedText);
+        double actualValue = Double.parseDouble(actualText);
+        if (Double.isInfinite(expectedValue) || Double.isInfinite(actualValue)) {
+            return false;
+        }
+        //|a - b| <= eps 或 |a - b| <= eps * |b|
+        return Math.abs(actualValue - expectedValue) <= epsilon * Math.max(1.0, Math.abs(expectedValue));
+    }
+}
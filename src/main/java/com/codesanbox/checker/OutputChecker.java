@@ -0,0 +1,192 @@
+package com.codesanbox.checker;
+
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.CheckerEnum;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式输出比对
+ * 边读取用户程序的标准输出边与期望输出比较，不保存完整输出；
+ * 确定答案错误后 {@link #feed} 返回false，调用方可以提前结束进程
+ * 期望输出按绝对位置读取，可以直接使用内存映射的测试数据文件
+ * 非线程安全，每个用例一个实例
+ */
+public abstract class OutputChecker {
+
+    //差异摘要中每行最多保留的字节数
+    private static final int EXCERPT_LIMIT = 128;
+
+    //期望输出，只按绝对位置读取
+    protected final ByteBuffer expected;
+
+    //实际输出的当前行号（从1开始）和当前行已读到的内容
+    private int actualLine = 1;
+
+    private final byte[] actualLineBytes = new byte[EXCERPT_LIMIT];
+
+    private int actualLineLength;
+
+    private CheckResult result;
+
+    protected OutputChecker(ByteBuffer expected) {
+        this.expected = expected;
+    }
+
+    /**
+     * @param checker        比对方式，为空时精确比较
+     * @param expectedOutput 期望输出
+     * @param epsilon        浮点比对的误差，为空时使用默认值
+     */
+    public static OutputChecker create(CheckerEnum checker, String expectedOutput, Double epsilon) {
+        return create(checker, ByteBuffer.wrap(expectedOutput.getBytes(StandardCharsets.UTF_8)), epsilon);
+    }
+
+    /**
+     * @param checker  比对方式，为空时精确比较
+     * @param expected 期望输出（UTF-8），position到limit之间的内容
+     * @param epsilon  浮点比对的误差，为空时使用默认值
+     */
+    public static OutputChecker create(CheckerEnum checker, ByteBuffer expected, Double epsilon) {
+        expected = expected.slice();
+        if (checker == CheckerEnum.WHITESPACE) {
+            return new TokenChecker(expected);
+        }
+        if (checker == CheckerEnum.FLOAT) {
+            return new FloatChecker(expected, epsilon == null ? FloatChecker.DEFAULT_EPSILON : epsilon);
+        }
+        return new ExactChecker(expected);
+    }
+
+    /**
+     * 输入一段实际输出
+     *
+     * @return 已确定答案错误时返回false，之后的输出不再比较
+     */
+    public final boolean feed(byte[] data, int offset, int length) {
+        if (result != null) {
+            return result.isAccepted();
+        }
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = data[i];
+            if (!accept(b)) {
+                //摘要补上当前行剩余的内容
+                for (int j = i; j < end && data[j] != '\n'; j++) {
+                    appendActual(data[j]);
+                }
+                result = new CheckResult(JudgeInfoMessageEnum.WRONG_ANSWER, excerpt(expectedPosition()));
+                return false;
+            }
+            if (b == '\n') {
+                actualLine++;
+                actualLineLength = 0;
+            } else {
+                appendActual(b);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 实际输出结束，得到比对结果
+     */
+    public final CheckResult finish() {
+        if (result == null) {
+            result = complete() ? accepted() : new CheckResult(JudgeInfoMessageEnum.WRONG_ANSWER, excerpt(expectedPosition()));
+        }
+        return result;
+    }
+
+    /**
+     * 是否已提前判定为答案错误
+     */
+    public boolean isRejected() {
+        return result != null && !result.isAccepted();
+    }
+
+    /**
+     * 把比对结果写入执行信息：通过时不返回输出，不通过时返回判题结果和差异摘要
+     * 退出码保持不变（程序本身正常结束）
+     */
+    public void applyTo(ExecuteMessage executeMessage) {
+        CheckResult checkResult = finish();
+        if (checkResult.isAccepted()) {
+            executeMessage.setMessage(null);
+            return;
+        }
+        executeMessage.setMessage(checkResult.getDiff());
+        executeMessage.setErrorMessage(checkResult.getVerdict().getValue());
+    }
+
+    /**
+     * 比较一个字节
+     *
+     * @return 已确定答案错误时返回false
+     */
+    abstract boolean accept(byte b);
+
+    /**
+     * 实际输出结束
+     *
+     * @return 与期望输出一致返回true
+     */
+    abstract boolean complete();
+
+    /**
+     * 不一致时期望输出中对应的位置，用于差异摘要
+     */
+    abstract int expectedPosition();
+
+    //全部比较通过时的结果
+    CheckResult accepted() {
+        return new CheckResult(JudgeInfoMessageEnum.ACCEPTED, null);
+    }
+
+    //差异摘要：实际输出的当前行和期望输出中对应的行
+    String excerpt(int expectedPosition) {
+        int length = expected.limit();
+        int position = Math.min(Math.max(expectedPosition, 0), length);
+        int expectedLine = 1;
+        int lineStart = 0;
+        for (int i = 0; i < position; i++) {
+            if (expected.get(i) == '\n') {
+                expectedLine++;
+                lineStart = i + 1;
+            }
+        }
+        int lineEnd = lineStart;
+        while (lineEnd < length && expected.get(lineEnd) != '\n' && lineEnd - lineStart < EXCERPT_LIMIT) {
+            lineEnd++;
+        }
+        String expectedText = lineStart >= length ? "（无）" : line(bytes(expected, lineStart, lineEnd - lineStart), 0, lineEnd - lineStart);
+        String actualText = actualLineLength == 0 ? "（空）" : line(actualLineBytes, 0, actualLineLength);
+        return "第 " + actualLine + " 行与期望输出第 " + expectedLine + " 行不一致\n期望：" + expectedText + "\n实际：" + actualText;
+    }
+
+    private void appendActual(byte b) {
+        if (b != '\r' && actualLineLength < EXCERPT_LIMIT) {
+            actualLineBytes[actualLineLength++] = b;
+        }
+    }
+
+    private static String line(byte[] data, int offset, int length) {
+        String text = new String(data, offset, length, StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    //复制期望输出中的一段
+    static byte[] bytes(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return bytes;
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
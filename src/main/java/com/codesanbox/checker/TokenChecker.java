@@ -0,0 +1,88 @@
+package com.codesanbox.checker;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 忽略空白的比对：实际输出和期望输出都按空白拆分后逐个比较
+ * 实际输出只缓存当前一个token，每读完一个token就与期望输出中的下一个比较
+ */
+class TokenChecker extends OutputChecker {
+
+    //期望输出中下一个未比较的位置
+    private int expectedPosition;
+
+    //最近一次比较的期望token的起始位置
+    private int tokenStart;
+
+    private byte[] token = new byte[64];
+
+    private int tokenLength;
+
+    TokenChecker(ByteBuffer expected) {
+        super(expected);
+    }
+
+    @Override
+    boolean accept(byte b) {
+        if (isWhitespace(b)) {
+            return tokenLength == 0 || endToken();
+        }
+        if (tokenLength == token.length) {
+            token = Arrays.copyOf(token, token.length * 2);
+        }
+        token[tokenLength++] = b;
+        return true;
+    }
+
+    @Override
+    boolean complete() {
+        if (tokenLength > 0 && !endToken()) {
+            return false;
+        }
+        skipWhitespace();
+        tokenStart = expectedPosition;
+        return expectedPosition == expected.limit();
+    }
+
+    @Override
+    int expectedPosition() {
+        return tokenStart;
+    }
+
+    /**
+     * 比较一对token，子类可以放宽比较规则
+     */
+    boolean tokenMatches(ByteBuffer expected, int offset, int length, byte[] actual, int actualLength) {
+        if (length != actualLength) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (expected.get(offset + i) != actual[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //实际输出读完一个token，与期望输出的下一个token比较
+    private boolean endToken() {
+        skipWhitespace();
+        int start = expectedPosition;
+        int end = start;
+        while (end < expected.limit() && !isWhitespace(expected.get(end))) {
+            end++;
+        }
+        tokenStart = start;
+        expectedPosition = end;
+        boolean matched = start < end && tokenMatches(expected, start, end - start, token, tokenLength);
+        tokenLength = 0;
+        return matched;
+    }
+
+    private void skipWhitespace() {
+        while (expectedPosition < expected.limit() && isWhitespace(expected.get(expectedPosition))) {
+            expectedPosition++;
+        }
+    }
+}
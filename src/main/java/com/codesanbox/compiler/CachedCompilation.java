@@ -0,0 +1,104 @@
+package com.codesanbox.compiler;
+
+import cn.hutool.core.io.FileUtil;
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.workspace.Workspace;
+import lombok.Getter;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * 编译缓存条目
+ * 除了编译结果，还记录写到磁盘上的代码目录；正在运行的提交通过引用计数持有条目，
+ * 条目被淘汰后等最后一个使用者释放时才删除目录（来自工作目录池时归还）
+ */
+public class CachedCompilation {
+
+    @Getter
+    private final String key;
+
+    @Getter
+    private final CompileResult compileResult;
+
+    @Getter
+    private final long size;
+
+    //磁盘上的源文件（目录内同时有class文件），未落盘时为null
+    private File codeFile;
+
+    //代码目录来自工作目录池时，删除改为归还
+    private Workspace workspace;
+
+    private int refCount;
+
+    private boolean evicted;
+
+    CachedCompilation(String key, String code, CompileResult compileResult) {
+        this.key = key;
+        this.compileResult = compileResult;
+        this.size = estimateSize(code, compileResult);
+    }
+
+    public synchronized File getCodeFile() {
+        return codeFile;
+    }
+
+    public synchronized void setCodeFile(File codeFile) {
+        this.codeFile = codeFile;
+    }
+
+    public synchronized void setWorkspace(Workspace workspace) {
+        this.workspace = workspace;
+    }
+
+    public synchronized Workspace getWorkspace() {
+        return workspace;
+    }
+
+    synchronized void retain() {
+        refCount++;
+    }
+
+    /**
+     * 使用完毕后释放
+     */
+    public synchronized void release() {
+        refCount--;
+        if (evicted && refCount <= 0) {
+            deleteCodeDir();
+        }
+    }
+
+    synchronized void evict() {
+        evicted = true;
+        if (refCount <= 0) {
+            deleteCodeDir();
+        }
+    }
+
+    private void deleteCodeDir() {
+        if (workspace != null) {
+            workspace.close();
+            workspace = null;
+        } else if (codeFile != null && codeFile.getParentFile() != null) {
+            FileUtil.del(codeFile.getParentFile());
+        }
+        codeFile = null;
+    }
+
+    private static long estimateSize(String code, CompileResult compileResult) {
+        long size = code.length() * 2L;
+        Map<String, byte[]> classBytes = compileResult.getClassBytes();
+        if (classBytes != null) {
+            for (byte[] bytes : classBytes.values()) {
+                size += bytes.length;
+            }
+        }
+        String message = compileResult.getExecuteMessage().getMessage();
+        if (message != null) {
+            size += message.length() * 2L;
+        }
+        return size;
+    }
+}
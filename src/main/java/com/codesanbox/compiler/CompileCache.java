@@ -0,0 +1,179 @@
+package com.codesanbox.compiler;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 内容寻址的编译缓存
+ * key 为 语言 + 编译参数 + 规范化源码 的 SHA-256，缓存编译产物或编译错误，
+ * 按LRU淘汰，同时限制条目数与总字节数；相同源码并发到达时只编译一次
+ */
+@Slf4j
+public class CompileCache {
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    //accessOrder=true 即LRU顺序，由 this 加锁保护
+    private final LinkedHashMap<String, CachedCompilation> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    //正在编译中的key，后到的相同提交等待同一个结果
+    private final ConcurrentHashMap<String, CompletableFuture<CachedCompilation>> compiling = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public CompileCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取编译结果，未命中时调用 compiler 编译并放入缓存
+     * 返回的条目已被持有，使用完必须调用 {@link CachedCompilation#release()}
+     *
+     * @param language 语言
+     * @param code     源码
+     * @param options  编译参数
+     * @param compiler 编译函数，入参为规范化后的源码
+     * @return 编译缓存条目
+     */
+    public CachedCompilation acquire(String language, String code, List<String> options, Function<String, CompileResult> compiler) {
+        String normalizedCode = normalize(code);
+        String key = DigestUtil.sha256Hex(language + "\n" + String.join(" ", options) + "\n" + normalizedCode);
+        synchronized (this) {
+            CachedCompilation cached = entries.get(key);
+            if (cached != null) {
+                hitCount.incrementAndGet();
+                cached.retain();
+                return cached;
+            }
+        }
+        CompletableFuture<CachedCompilation> future = new CompletableFuture<>();
+        CompletableFuture<CachedCompilation> running = compiling.putIfAbsent(key, future);
+        if (running != null) {
+            //相同源码正在编译，直接复用其结果
+            hitCount.incrementAndGet();
+            CachedCompilation cached = running.join();
+            cached.retain();
+            return cached;
+        }
+        try {
+            //再检查一次，避免与刚结束的编译擦肩而过导致重复编译
+            synchronized (this) {
+                CachedCompilation cached = entries.get(key);
+                if (cached != null) {
+                    hitCount.incrementAndGet();
+                    cached.retain();
+                    future.complete(cached);
+                    return cached;
+                }
+            }
+            missCount.incrementAndGet();
+            CompileResult compileResult = compiler.apply(normalizedCode);
+            CachedCompilation compilation = new CachedCompilation(key, normalizedCode, compileResult);
+            compilation.retain();
+            if (isCacheable(compileResult)) {
+                put(compilation);
+            } else {
+                //系统错误不缓存，按已淘汰处理，释放后即清理
+                compilation.evict();
+            }
+            future.complete(compilation);
+            return compilation;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            compiling.remove(key);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void put(CachedCompilation compilation) {
+        CachedCompilation previous = entries.put(compilation.getKey(), compilation);
+        if (previous != null) {
+            totalBytes -= previous.getSize();
+            previous.evict();
+        }
+        totalBytes += compilation.getSize();
+        Iterator<Map.Entry<String, CachedCompilation>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && iterator.hasNext()) {
+            CachedCompilation eldest = iterator.next().getValue();
+            if (eldest == compilation) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getSize();
+            eldest.evict();
+            evictionCount.incrementAndGet();
+        }
+        log.debug("编译缓存条目数：{}，占用：{} bytes", entries.size(), totalBytes);
+    }
+
+    //只缓存确定性的结果：编译成功、编译错误或字节码校验未通过
+    private boolean isCacheable(CompileResult compileResult) {
+        ExecuteMessage executeMessage = compileResult.getExecuteMessage();
+        return executeMessage != null && (executeMessage.getErrorMessage() == null
+                || JudgeInfoMessageEnum.COMPILE_ERROR.getValue().equals(executeMessage.getErrorMessage())
+                || JudgeInfoMessageEnum.DANGEROUS_OPERATION.getValue().equals(executeMessage.getErrorMessage()));
+    }
+
+    /**
+     * 规范化源码：统一换行符，去掉行尾空白和末尾空行，不改变行号
+     */
+    static String normalize(String code) {
+        String[] lines = code.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1);
+        StringBuilder builder = new StringBuilder(code.length());
+        for (String line : lines) {
+            int end = line.length();
+            while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+            builder.append(line, 0, end).append('\n');
+        }
+        int length = builder.length();
+        while (length > 0 && builder.charAt(length - 1) == '\n') {
+            length--;
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+}
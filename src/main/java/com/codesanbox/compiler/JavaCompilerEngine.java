@@ -0,0 +1,157 @@
+package com.codesanbox.compiler;
+
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 进程内编译引擎（javax.tools）
+ * 复用同一个JavaCompiler和已预热的StandardJavaFileManager，避免每次提交都fork一个javac JVM
+ */
+@Slf4j
+public class JavaCompilerEngine {
+
+    //编译参数，同原来的 javac -encoding utf-8，额外关闭注解处理器扫描；
+    //用户程序可能运行在Java 8上（如docker沙箱的 openjdk:8-alpine），编译器支持时按Java 8的API和字节码版本编译
+    public static final List<String> COMPILE_OPTIONS = compileOptions(ToolProvider.getSystemJavaCompiler());
+
+    private static final String WARM_UP_CODE = "public class Main { public static void main(String[] args) { System.out.println(args.length); } }";
+
+    private static final JavaCompilerEngine INSTANCE = new JavaCompilerEngine();
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    /**
+     * 空闲的文件管理器，StandardJavaFileManager本身不是线程安全的，所以每次编译独占一个
+     * 复用它能保留平台类的索引缓存，这是预热的主要收益
+     */
+    private final BlockingQueue<StandardJavaFileManager> idleFileManagers =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private JavaCompilerEngine() {
+    }
+
+    public static JavaCompilerEngine getInstance() {
+        return INSTANCE;
+    }
+
+    //JDK 9及以上的javac支持 --release，JDK 8的javac默认就是Java 8；-Xlint:-options 关闭新版本javac对旧版本目标的过时提示
+    static List<String> compileOptions(JavaCompiler compiler) {
+        List<String> options = new ArrayList<>(Arrays.asList("-encoding", "utf-8", "-proc:none"));
+        if (compiler != null && compiler.isSupportedOption("--release") >= 0) {
+            options.addAll(Arrays.asList("--release", "8", "-Xlint:-options"));
+        }
+        return Collections.unmodifiableList(options);
+    }
+
+    /**
+     * 异步预热：编译一次空程序，加载javac自身的类并建立平台类索引
+     */
+    public void warmUpAsync() {
+        if (compiler == null) {
+            log.warn("当前运行环境没有系统编译器，跳过编译预热");
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            long start = System.currentTimeMillis();
+            compile("Main", WARM_UP_CODE);
+            log.info("编译器预热完成，耗时：{} ms", System.currentTimeMillis() - start);
+        });
+    }
+
+    /**
+     * 在内存中编译源码
+     *
+     * @param className 主类名（决定源文件名）
+     * @param code      源码
+     * @return 编译信息及字节码
+     */
+    public CompileResult compile(String className, String code) {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        if (compiler == null) {
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage("当前运行环境不是JDK，无法获取编译器");
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return new CompileResult(executeMessage, null);
+        }
+        long start = System.currentTimeMillis();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardFileManager = acquireFileManager();
+        try {
+            MemoryJavaFileManager fileManager = new MemoryJavaFileManager(standardFileManager);
+            JavaFileObject source = new MemoryJavaFileManager.SourceFileObject(className, code);
+            Boolean success = compiler.getTask(null, fileManager, diagnostics, COMPILE_OPTIONS, null,
+                    Collections.singletonList(source)).call();
+            executeMessage.setTime(System.currentTimeMillis() - start);
+            if (Boolean.TRUE.equals(success)) {
+                executeMessage.setExitValue(0);
+                return new CompileResult(executeMessage, fileManager.getClassBytes());
+            }
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getText() + "\n" + formatDiagnostics(className, diagnostics));
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getValue());
+            return new CompileResult(executeMessage, null);
+        } finally {
+            releaseFileManager(standardFileManager);
+        }
+    }
+
+    //格式与javac命令行输出一致：Main.java:3: error: ...
+    private String formatDiagnostics(String className, DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder builder = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(className).append(".java:").append(diagnostic.getLineNumber())
+                    .append(": error: ").append(diagnostic.getMessage(null));
+        }
+        return builder.toString();
+    }
+
+    private StandardJavaFileManager acquireFileManager() {
+        StandardJavaFileManager fileManager = idleFileManagers.poll();
+        if (fileManager != null) {
+            return fileManager;
+        }
+        fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        try {
+            //用户代码只依赖JDK，不扫描沙箱服务自身的classpath
+            fileManager.setLocation(StandardLocation.CLASS_PATH, Collections.emptyList());
+        } catch (IOException e) {
+            log.warn("设置编译classpath失败", e);
+        }
+        return fileManager;
+    }
+
+    private void releaseFileManager(StandardJavaFileManager fileManager) {
+        if (!idleFileManagers.offer(fileManager)) {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                log.warn("关闭文件管理器失败", e);
+            }
+        }
+    }
+}
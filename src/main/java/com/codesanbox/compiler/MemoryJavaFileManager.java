@@ -0,0 +1,83 @@
+package com.codesanbox.compiler;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 内存文件管理器
+ * 源码从字符串读取，编译产物写入内存，不落盘
+ * 注意：不要调用close()，否则会关闭被复用的StandardJavaFileManager
+ */
+public class MemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    private final Map<String, ClassFileObject> classFiles = new LinkedHashMap<>();
+
+    public MemoryJavaFileManager(StandardJavaFileManager fileManager) {
+        super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+        ClassFileObject classFile = new ClassFileObject(className, kind);
+        classFiles.put(className, classFile);
+        return classFile;
+    }
+
+    /**
+     * 获取编译产物
+     *
+     * @return 类名 -> 字节码
+     */
+    public Map<String, byte[]> getClassBytes() {
+        Map<String, byte[]> classBytes = new LinkedHashMap<>();
+        for (Map.Entry<String, ClassFileObject> entry : classFiles.entrySet()) {
+            classBytes.put(entry.getKey(), entry.getValue().getBytes());
+        }
+        return classBytes;
+    }
+
+    private static URI classUri(String className, JavaFileObject.Kind kind) {
+        return URI.create("string:///" + className.replace('.', '/') + kind.extension);
+    }
+
+    //字符串源码
+    public static class SourceFileObject extends SimpleJavaFileObject {
+        private final String code;
+
+        public SourceFileObject(String className, String code) {
+            super(classUri(className, Kind.SOURCE), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    //内存字节码
+    private static class ClassFileObject extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        ClassFileObject(String className, Kind kind) {
+            super(classUri(className, kind), kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return outputStream;
+        }
+
+        byte[] getBytes() {
+            return outputStream.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.codesanbox.config;
+
+import cn.hutool.core.util.StrUtil;
+import com.codesanbox.CodeSandbox;
+import com.codesanbox.JavaCgroupCodeSandbox;
+import com.codesanbox.CodeSandboxRouter;
+import com.codesanbox.JavaCodeSandboxTemplate;
+import com.codesanbox.JavaDockerCodeSandbox;
+import com.codesanbox.JavaNativeCodeSandbox;
+import com.codesanbox.cgroup.CgroupPool;
+import com.codesanbox.compiler.CompileCache;
+import com.codesanbox.dataset.TestDataStore;
+import com.codesanbox.docker.ContainerPool;
+import com.codesanbox.docker.DockerContainerRuntime;
+import com.codesanbox.docker.StatsOverhead;
+import com.codesanbox.language.LanguageCodeSandbox;
+import com.codesanbox.language.NativeRuntime;
+import com.codesanbox.language.PythonRuntime;
+import com.codesanbox.metrics.SandboxMeterBinder;
+import com.codesanbox.metrics.SandboxMetrics;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+import com.codesanbox.runner.AppCdsArchive;
+import com.codesanbox.runner.ForkServerPool;
+import com.codesanbox.runner.JvmRunnerPool;
+import com.codesanbox.scheduler.TestCaseScheduler;
+import com.codesanbox.service.AsyncExecuteService;
+import com.codesanbox.service.BatchExecuteService;
+import com.codesanbox.util.VirtualThreads;
+import com.codesanbox.workspace.WorkspacePool;
+import com.github.dockerjava.core.DockerClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 代码沙箱共享组件装配
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(SandboxProperties.class)
+public class SandboxConfig {
+
+    @Bean
+    public CompileCache compileCache(SandboxProperties sandboxProperties) {
+        SandboxProperties.CompileCacheProperties properties = sandboxProperties.getCompileCache();
+        return new CompileCache(properties.getMaxEntries(), properties.getMaxBytes());
+    }
+
+    @Bean
+    public TestDataStore testDataStore(SandboxProperties sandboxProperties) {
+        SandboxProperties.DatasetProperties properties = sandboxProperties.getDataset();
+        File root = StrUtil.isBlank(properties.getDir())
+                ? new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "dataset")
+                : new File(properties.getDir());
+        return new TestDataStore(root, properties.getMaxMappedBytes());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public JvmRunnerPool jvmRunnerPool(SandboxProperties sandboxProperties) {
+        SandboxProperties.RunnerPoolProperties properties = sandboxProperties.getRunnerPool();
+        File classpath = new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "runner");
+        return new JvmRunnerPool(properties.isEnabled(), properties.getSize(), properties.getMaxUses(),
+                properties.getAcquireTimeout(), properties.getJavaCommand(), properties.getJvmArgs(), classpath);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public AppCdsArchive appCdsArchive(SandboxProperties sandboxProperties) {
+        File dir = new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "runner");
+        return new AppCdsArchive(sandboxProperties.getAppCds().isEnabled(), "java", JavaCodeSandboxTemplate.JVM_OPTIONS, dir);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public TestCaseScheduler testCaseScheduler(SandboxProperties sandboxProperties) {
+        SandboxProperties.SchedulerProperties properties = sandboxProperties.getScheduler();
+        boolean virtualThreads = sandboxProperties.getVirtualThreads().isEnabled();
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            log.warn("当前JDK（{}）不支持虚拟线程，继续使用平台线程", System.getProperty("java.version"));
+            virtualThreads = false;
+        }
+        return new TestCaseScheduler(properties.getMaxConcurrency(), properties.isFailFast(), virtualThreads);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public AsyncExecuteService asyncExecuteService(SandboxProperties sandboxProperties, CodeSandboxRouter codeSandboxRouter) {
+        SandboxProperties.AsyncProperties properties = sandboxProperties.getAsync();
+        return new AsyncExecuteService(codeSandboxRouter, properties.getWorkers(), properties.getQueueCapacity(), properties.getResultTtl());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public BatchExecuteService batchExecuteService(SandboxProperties sandboxProperties, CodeSandboxRouter codeSandboxRouter) {
+        SandboxProperties.BatchProperties properties = sandboxProperties.getBatch();
+        return new BatchExecuteService(codeSandboxRouter, properties.getWorkers(), properties.getQueueCapacity(),
+                properties.getMaxRequests(), properties.getChunkSize());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public ForkServerPool forkServerPool(SandboxProperties sandboxProperties) {
+        SandboxProperties.ForkServerProperties properties = sandboxProperties.getForkServer();
+        File scriptDir = new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "runner");
+        return new ForkServerPool(properties.isEnabled(), properties.getSize(), properties.getMaxUses(), properties.isIsolated(),
+                properties.getAcquireTimeout(), properties.getPythonCommand(), scriptDir);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public WorkspacePool workspacePool(SandboxProperties sandboxProperties) {
+        SandboxProperties.WorkspaceProperties properties = sandboxProperties.getWorkspace();
+        File fallbackRoot = new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "workspace");
+        //隔离执行时代码目录按原路径挂载进用户程序的根目录，放在 /dev/shm 上也可见
+        return new WorkspacePool(properties.getRoot(), fallbackRoot, properties.getSize(), properties.getQuota(), properties.getSweepInterval());
+    }
+
+    @Bean
+    public LanguageCodeSandbox pythonCodeSandbox(ForkServerPool forkServerPool, WorkspacePool workspacePool) {
+        return new LanguageCodeSandbox(new PythonRuntime(forkServerPool, workspacePool));
+    }
+
+    @Bean
+    public LanguageCodeSandbox cCodeSandbox(SandboxProperties sandboxProperties, ForkServerPool forkServerPool, WorkspacePool workspacePool) {
+        return new LanguageCodeSandbox(NativeRuntime.c(sandboxProperties.getNativeCompiler().getCCommand(), forkServerPool, workspacePool));
+    }
+
+    @Bean
+    public LanguageCodeSandbox cppCodeSandbox(SandboxProperties sandboxProperties, ForkServerPool forkServerPool, WorkspacePool workspacePool) {
+        return new LanguageCodeSandbox(NativeRuntime.cpp(sandboxProperties.getNativeCompiler().getCppCommand(), forkServerPool, workspacePool));
+    }
+
+    /**
+     * Java默认使用进程内编译 + 常驻JVM的原生沙箱，开启cgroup时改为在cgroup中执行，其他语言由各自的运行时执行
+     * Python、C/C++程序在fork服务中以服务本身的身份执行，代码黑名单很容易绕过，只在隔离执行（且启动时探测可用）时提供这些语言
+     */
+    @Bean
+    public CodeSandboxRouter codeSandboxRouter(ForkServerPool forkServerPool, JavaNativeCodeSandbox javaNativeCodeSandbox,
+                                               ObjectProvider<JavaCgroupCodeSandbox> javaCgroupCodeSandboxProvider,
+                                               List<LanguageCodeSandbox> languageCodeSandboxes) {
+        Map<String, CodeSandbox> codeSandboxes = new LinkedHashMap<>();
+        JavaCgroupCodeSandbox javaCgroupCodeSandbox = javaCgroupCodeSandboxProvider.getIfAvailable();
+        codeSandboxes.put(SupportLanguageEnum.JAVA.getValue(), javaCgroupCodeSandbox != null ? javaCgroupCodeSandbox : javaNativeCodeSandbox);
+        if (forkServerPool.isEnabled() && forkServerPool.isIsolated()) {
+            for (LanguageCodeSandbox languageCodeSandbox : languageCodeSandboxes) {
+                codeSandboxes.put(languageCodeSandbox.getLanguageValue(), languageCodeSandbox);
+            }
+        } else if (forkServerPool.isEnabled()) {
+            log.warn("fork服务未开启隔离执行（codesandbox.fork-server.isolated=false）或隔离不可用，不提供Python、C/C++，只执行Java");
+        }
+        return new CodeSandboxRouter(codeSandboxes);
+    }
+
+    @Bean
+    public SandboxMetrics sandboxMetrics(MeterRegistry meterRegistry) {
+        return new SandboxMetrics(meterRegistry);
+    }
+
+    @Bean
+    public SandboxMeterBinder sandboxMeterBinder(TestCaseScheduler testCaseScheduler, ObjectProvider<AsyncExecuteService> asyncExecuteServiceProvider,
+                                                 CompileCache compileCache, TestDataStore testDataStore, JvmRunnerPool jvmRunnerPool,
+                                                 ForkServerPool forkServerPool, ObjectProvider<ContainerPool> containerPoolProvider,
+                                                 ObjectProvider<CgroupPool> cgroupPoolProvider, WorkspacePool workspacePool) {
+        return new SandboxMeterBinder(testCaseScheduler, asyncExecuteServiceProvider, compileCache, testDataStore, jvmRunnerPool,
+                forkServerPool, containerPoolProvider.getIfAvailable(), cgroupPoolProvider.getIfAvailable(), workspacePool);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "codesandbox.cgroup", name = "enabled", havingValue = "true")
+    public CgroupPool cgroupPool(SandboxProperties sandboxProperties) {
+        SandboxProperties.CgroupProperties properties = sandboxProperties.getCgroup();
+        return new CgroupPool(true, new File(properties.getRoot()), properties.getSize(), properties.getAcquireTimeout(),
+                properties.getMemoryLimit(), properties.getCpuCount(), properties.getPidsLimit());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.cgroup", name = "enabled", havingValue = "true")
+    public JavaCgroupCodeSandbox javaCgroupCodeSandbox(CgroupPool cgroupPool) {
+        return new JavaCgroupCodeSandbox(cgroupPool);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.container-pool", name = "enabled", havingValue = "true")
+    public StatsOverhead statsOverhead() {
+        return new StatsOverhead();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "codesandbox.container-pool", name = "enabled", havingValue = "true")
+    public ContainerPool containerPool(SandboxProperties sandboxProperties, StatsOverhead statsOverhead) {
+        SandboxProperties.ContainerPoolProperties properties = sandboxProperties.getContainerPool();
+        DockerContainerRuntime containerRuntime = new DockerContainerRuntime(DockerClientBuilder.getInstance().build(),
+                properties.getImage(), properties.getMemoryLimit(), properties.getCpuCount(), properties.getPidsLimit(), statsOverhead);
+        File workRoot = new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "containers");
+        return new ContainerPool(containerRuntime, properties.getSize(), properties.getMaxUses(), properties.getAcquireTimeout(), workRoot);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.container-pool", name = "enabled", havingValue = "true")
+    public JavaDockerCodeSandbox javaDockerCodeSandbox(SandboxProperties sandboxProperties, ContainerPool containerPool) {
+        return new JavaDockerCodeSandbox(containerPool, sandboxProperties.getContainerPool().getMemoryLimit());
+    }
+}
@@ -0,0 +1,195 @@
+package com.codesanbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 代码沙箱配置，对应 application.yml 中的 codesandbox 前缀
+ */
+@Data
+@ConfigurationProperties(prefix = "codesandbox")
+public class SandboxProperties {
+
+    private CompileCacheProperties compileCache = new CompileCacheProperties();
+
+    private RunnerPoolProperties runnerPool = new RunnerPoolProperties();
+
+    private SchedulerProperties scheduler = new SchedulerProperties();
+
+    private AsyncProperties async = new AsyncProperties();
+
+    private BatchProperties batch = new BatchProperties();
+
+    private ContainerPoolProperties containerPool = new ContainerPoolProperties();
+
+    private CgroupProperties cgroup = new CgroupProperties();
+
+    private ForkServerProperties forkServer = new ForkServerProperties();
+
+    private AppCdsProperties appCds = new AppCdsProperties();
+
+    private WorkspaceProperties workspace = new WorkspaceProperties();
+
+    private NativeCompilerProperties nativeCompiler = new NativeCompilerProperties();
+
+    private DatasetProperties dataset = new DatasetProperties();
+
+    private VirtualThreadProperties virtualThreads = new VirtualThreadProperties();
+
+    //编译缓存
+    @Data
+    public static class CompileCacheProperties {
+        //最多缓存的编译结果数
+        private int maxEntries = 1024;
+        //缓存占用的最大字节数（源码 + 字节码 + 编译信息）
+        private long maxBytes = 64L * 1024 * 1024;
+    }
+
+    //常驻运行器JVM池
+    @Data
+    public static class RunnerPoolProperties {
+        //关闭时每个测试用例单独启动java进程
+        private boolean enabled = true;
+        //运行器数量，默认与CPU核数一致
+        private int size = Runtime.getRuntime().availableProcessors();
+        //单个运行器最多执行的次数，达到后销毁重建
+        private int maxUses = 50;
+        //等待空闲运行器的最长时间（ms）
+        private long acquireTimeout = 10000;
+        private String javaCommand = "java";
+        private List<String> jvmArgs = new ArrayList<>(Arrays.asList("-Xmx256m", "-Dfile.encoding=UTF-8"));
+    }
+
+    //测试用例调度
+    @Data
+    public static class SchedulerProperties {
+        //节点上同时运行的用户进程上限，默认与CPU核数一致
+        private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+        //第一个运行错误/超时后取消同一提交的剩余用例
+        private boolean failFast = true;
+    }
+
+    //异步执行
+    @Data
+    public static class AsyncProperties {
+        //同时执行的提交数
+        private int workers = Runtime.getRuntime().availableProcessors();
+        //排队上限，超过后返回429
+        private int queueCapacity = 1000;
+        //已完成任务结果的保留时间（ms）
+        private long resultTtl = 10 * 60 * 1000L;
+    }
+
+    //批量执行（重判）
+    @Data
+    public static class BatchProperties {
+        //同时执行的提交数
+        private int workers = Runtime.getRuntime().availableProcessors();
+        //所有批次排队的提交总数上限，超过后返回429
+        private int queueCapacity = 100000;
+        //单个批量请求拆分后最多的提交数
+        private int maxRequests = 10000;
+        //同一代码拆分执行时，每个提交默认的用例数
+        private int chunkSize = 100;
+    }
+
+    //docker常驻容器池
+    @Data
+    public static class ContainerPoolProperties {
+        //开启后注册docker沙箱，需要本机可以访问docker
+        private boolean enabled = false;
+        private String image = "openjdk:8-alpine";
+        private int size = 2;
+        //单个容器最多使用的次数，达到后删除重建
+        private int maxUses = 100;
+        //等待空闲容器的最长时间（ms）
+        private long acquireTimeout = 30000;
+        //单个容器内存上限（byte）
+        private long memoryLimit = 256L * 1024 * 1024;
+        private long cpuCount = 1;
+        //单个容器最多进程（线程）数
+        private long pidsLimit = 64;
+    }
+
+    //cgroup v2 叶子节点池
+    @Data
+    public static class CgroupProperties {
+        //开启后Java代码在cgroup中执行，需要可写的cgroup v2父节点（如systemd服务设置 Delegate=yes）
+        private boolean enabled = false;
+        //父节点，叶子节点创建在其下
+        private String root = "/sys/fs/cgroup/codesandbox";
+        //节点数量，默认与CPU核数一致（每个并发用例一个）
+        private int size = Runtime.getRuntime().availableProcessors();
+        //等待空闲节点的最长时间（ms）
+        private long acquireTimeout = 10000;
+        //单个用例内存上限（byte），包括JVM本身
+        private long memoryLimit = 512L * 1024 * 1024;
+        private double cpuCount = 1;
+        //单个用例最多进程（线程）数
+        private long pidsLimit = 64;
+    }
+
+    //常驻fork服务池，执行Python和C/C++
+    @Data
+    public static class ForkServerProperties {
+        //关闭后不支持Python和C/C++
+        private boolean enabled = true;
+        //fork服务数量，默认与CPU核数一致
+        private int size = Runtime.getRuntime().availableProcessors();
+        //单个fork服务最多执行的次数，达到后销毁重建
+        private int maxUses = 1000;
+        //等待空闲fork服务的最长时间（ms）
+        private long acquireTimeout = 10000;
+        private String pythonCommand = "python3";
+        //用户程序（包括Java用例）在新的命名空间和只读的最小根目录中以nobody身份执行，并限制系统调用；需要以root身份运行服务
+        //默认关闭：不提供Python、C/C++（没有其他隔离手段），Java使用运行器池执行；开启后启动时探测，不可用时自动关闭
+        private boolean isolated = false;
+    }
+
+    //启动器的AppCDS归档
+    @Data
+    public static class AppCdsProperties {
+        //开启后启动时生成归档，原生执行的Java用例映射归档中的类启动；需要JDK 13及以上，不支持时自动关闭
+        private boolean enabled = true;
+    }
+
+    //工作目录池
+    @Data
+    public static class WorkspaceProperties {
+        //根目录，为空时使用 /dev/shm/codesandbox（隔离执行时和没有 /dev/shm 时使用代码目录下的workspace）
+        private String root;
+        //保持的空闲目录数量，默认为CPU核数的2倍
+        private int size = 2 * Runtime.getRuntime().availableProcessors();
+        //源码、编译产物总大小上限（byte），放在内存文件系统上时占用内存
+        private long quota = 256L * 1024 * 1024;
+        //清理泄漏目录的间隔（ms）
+        private long sweepInterval = 60000;
+    }
+
+    //C/C++编译器
+    @Data
+    public static class NativeCompilerProperties {
+        private String cCommand = "gcc";
+        private String cppCommand = "g++";
+    }
+
+    //测试数据存储
+    @Data
+    public static class DatasetProperties {
+        //存储目录，为空时使用代码目录下的dataset
+        private String dir;
+        //缓存的内存映射文件总字节数上限
+        private long maxMappedBytes = 256L * 1024 * 1024;
+    }
+
+    //虚拟线程
+    @Data
+    public static class VirtualThreadProperties {
+        //请求处理、用例执行和输出读取改用虚拟线程，需要在JDK 21及以上运行，不支持时忽略
+        private boolean enabled = false;
+    }
+}
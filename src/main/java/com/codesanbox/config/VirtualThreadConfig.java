@@ -0,0 +1,48 @@
+package com.codesanbox.config;
+
+import com.codesanbox.util.ProcessUtils;
+import com.codesanbox.util.VirtualThreads;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程模式（codesandbox.virtual-threads.enabled=true，且运行在JDK 21及以上）
+ * 执行请求由 MainController 以异步请求交给 {@link #getRequestExecutor()} 的虚拟线程处理，MVC异步请求（流式批量响应）
+ * 和读取进程输出也改为每个任务一个虚拟线程；用例执行由 {@link SandboxConfig#testCaseScheduler} 切换，
+ * 节点上同时运行的用户进程数仍受 maxConcurrency 限制
+ * Tomcat 9（Spring Boot 2.7）在 synchronized 块中调用Servlet，虚拟线程在其中等待时会占住载体线程，
+ * 所以Tomcat本身仍使用平台线程，只负责接收请求和写回结果；升级到Spring Boot 3.2 + Tomcat 10.1 后可改为整个请求在虚拟线程中处理
+ * 等待用例结果、排队等待执行名额时虚拟线程让出载体线程，节点能同时持有的提交数不再受 server.tomcat.threads.max 限制
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("${codesandbox.virtual-threads.enabled:false} and T(com.codesanbox.util.VirtualThreads).isSupported()")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    //每个执行请求一个虚拟线程
+    @Getter
+    private final ExecutorService requestExecutor = VirtualThreads.newThreadPerTaskExecutor("execute-request-");
+
+    public VirtualThreadConfig() {
+        ProcessUtils.useVirtualThreads();
+        log.info("已开启虚拟线程：请求处理、用例执行和进程输出读取使用虚拟线程");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        requestExecutor.shutdown();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(requestExecutor));
+    }
+}
@@ -1,17 +1,45 @@
 package com.codesanbox.controller;
 
 import com.codesanbox.JavaCodeSandboxTemplate;
-import com.codesanbox.JavaNativeCodeSandbox;
+import com.codesanbox.CodeSandboxRouter;
+import com.codesanbox.config.VirtualThreadConfig;
+import com.codesanbox.dataset.Dataset;
+import com.codesanbox.dataset.TestDataStore;
+import com.codesanbox.docker.StatsOverhead;
+import com.codesanbox.model.BatchExecuteRequest;
+import com.codesanbox.model.DatasetInfo;
+import com.codesanbox.model.DatasetUploadRequest;
 import com.codesanbox.model.ExecuteCodeRequest;
 import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.ExecuteJob;
+import com.codesanbox.model.QueueStats;
+import com.codesanbox.service.AsyncExecuteService;
+import com.codesanbox.service.BatchExecuteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/")
@@ -19,18 +47,252 @@ public class MainController {
     //定义鉴权请求头和密钥
     private static final String SECRET_KEY="secretKey";
     private static final String SECRET_HEADER="secretHeader";
+    //长轮询、SSE最长等待时间（ms）
+    private static final long MAX_WAIT_TIME=60000L;
     @Resource
-    private JavaNativeCodeSandbox javaNativeCodeSandbox;
+    private CodeSandboxRouter codeSandboxRouter;
+    @Resource
+    private AsyncExecuteService asyncExecuteService;
+    @Resource
+    private BatchExecuteService batchExecuteService;
+    @Resource
+    private TestDataStore testDataStore;
+    @Resource
+    private ObjectProvider<StatsOverhead> statsOverheadProvider;
+    @Resource
+    private ObjectMapper objectMapper;
+    //未开启虚拟线程时为空
+    @Resource
+    private ObjectProvider<VirtualThreadConfig> virtualThreadConfigProvider;
+
+    /**
+     * 同步执行，开启虚拟线程时在虚拟线程中执行，请求线程立即释放
+     */
     @PostMapping("/execute")
-    public ExecuteCodeResponse execute(@RequestBody ExecuteCodeRequest executeCodeRequest, HttpServletRequest request, HttpServletResponse response){
-        String header = request.getHeader(SECRET_HEADER);
-        if(!SECRET_KEY.equals(header)){
-            response.setStatus(403);
+    public DeferredResult<ExecuteCodeResponse> execute(@RequestBody ExecuteCodeRequest executeCodeRequest, HttpServletRequest request, HttpServletResponse response){
+        DeferredResult<ExecuteCodeResponse> deferredResult = new DeferredResult<>();
+        if (!checkAuth(request, response)) {
+            deferredResult.setResult(null);
+            return deferredResult;
+        }
+        if (executeCodeRequest == null) {
+            throw new RuntimeException("请求参数为空");
+        }
+        VirtualThreadConfig virtualThreadConfig = virtualThreadConfigProvider.getIfAvailable();
+        if (virtualThreadConfig == null) {
+            deferredResult.setResult(codeSandboxRouter.executeCode(executeCodeRequest));
+            return deferredResult;
+        }
+        virtualThreadConfig.getRequestExecutor().execute(() -> {
+            try {
+                deferredResult.setResult(codeSandboxRouter.executeCode(executeCodeRequest));
+            } catch (Exception e) {
+                deferredResult.setErrorResult(e);
+            }
+        });
+        return deferredResult;
+    }
+
+    /**
+     * 异步执行：立即返回任务id，队列已满时返回429
+     */
+    @PostMapping(value = "/execute", params = "async=true")
+    public ExecuteJob executeAsync(@RequestBody ExecuteCodeRequest executeCodeRequest, HttpServletRequest request, HttpServletResponse response){
+        if (!checkAuth(request, response)) {
             return null;
         }
         if (executeCodeRequest == null) {
             throw new RuntimeException("请求参数为空");
         }
-        return javaNativeCodeSandbox.executeCode(executeCodeRequest);
+        try {
+            return asyncExecuteService.submit(executeCodeRequest);
+        } catch (RejectedExecutionException e) {
+            response.setStatus(429);
+            return null;
+        }
+    }
+
+    /**
+     * 批量执行（重判）：传入多个请求，或同一代码和大量输入（按chunkSize拆分）
+     * 按完成顺序逐行返回结果（NDJSON），请求不合法返回400，排队已满返回429，客户端断开后取消未执行的提交
+     */
+    @PostMapping(value = "/execute/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> executeBatch(@RequestBody BatchExecuteRequest batchExecuteRequest,
+                                                              HttpServletRequest request, HttpServletResponse response){
+        if (!checkAuth(request, response)) {
+            return ResponseEntity.status(403).build();
+        }
+        BatchExecuteService.Batch batch;
+        try {
+            batch = batchExecuteService.submit(batchExecuteRequest);
+        } catch (IllegalArgumentException e) {
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(outputStream -> outputStream.write(message));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(429).build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(outputStream -> {
+            try {
+                batch.forEachCompleted(batchExecuteResult -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(batchExecuteResult));
+                        outputStream.write('\n');
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                batch.cancel();
+            }
+        });
+    }
+
+    /**
+     * 上传一个版本的测试数据，之后的执行请求通过 datasetId + datasetVersion 引用
+     * 请求不合法返回400，该版本已存在返回409（发布后不可修改，更新数据请使用新版本）
+     */
+    @PutMapping("/dataset/{datasetId}/{version}")
+    public ResponseEntity<?> uploadDataset(@PathVariable String datasetId, @PathVariable String version,
+                                           @RequestBody DatasetUploadRequest datasetUploadRequest,
+                                           HttpServletRequest request, HttpServletResponse response){
+        if (!checkAuth(request, response)) {
+            return ResponseEntity.status(403).build();
+        }
+        try {
+            Dataset dataset = testDataStore.save(datasetId, version, datasetUploadRequest.getInputList(),
+                    datasetUploadRequest.getExpectedOutputList());
+            return ResponseEntity.ok(dataset.toInfo());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询测试数据，不存在返回404
+     */
+    @GetMapping("/dataset/{datasetId}/{version}")
+    public DatasetInfo getDataset(@PathVariable String datasetId, @PathVariable String version,
+                                  HttpServletRequest request, HttpServletResponse response){
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        Dataset dataset = testDataStore.get(datasetId, version);
+        if (dataset == null) {
+            response.setStatus(404);
+            return null;
+        }
+        return dataset.toInfo();
+    }
+
+    /**
+     * 删除测试数据，不存在返回404
+     */
+    @DeleteMapping("/dataset/{datasetId}/{version}")
+    public void deleteDataset(@PathVariable String datasetId, @PathVariable String version,
+                              HttpServletRequest request, HttpServletResponse response){
+        if (!checkAuth(request, response)) {
+            return;
+        }
+        if (!testDataStore.delete(datasetId, version)) {
+            response.setStatus(404);
+        }
+    }
+
+    /**
+     * 查询异步执行结果
+     * timeout大于0时为长轮询：任务完成或等待超时后返回
+     */
+    @GetMapping("/result/{jobId}")
+    public DeferredResult<ExecuteJob> getResult(@PathVariable String jobId, @RequestParam(defaultValue = "0") long timeout,
+                                                HttpServletRequest request, HttpServletResponse response){
+        DeferredResult<ExecuteJob> deferredResult = new DeferredResult<>(Math.min(Math.max(timeout, 1L), MAX_WAIT_TIME));
+        if (!checkAuth(request, response)) {
+            deferredResult.setResult(null);
+            return deferredResult;
+        }
+        CompletableFuture<ExecuteJob> future = asyncExecuteService.getJobFuture(jobId);
+        if (future == null) {
+            response.setStatus(404);
+            deferredResult.setResult(null);
+            return deferredResult;
+        }
+        if (timeout <= 0 || future.isDone()) {
+            deferredResult.setResult(asyncExecuteService.getJob(jobId));
+            return deferredResult;
+        }
+        deferredResult.onTimeout(() -> deferredResult.setResult(asyncExecuteService.getJob(jobId)));
+        future.thenAccept(deferredResult::setResult);
+        return deferredResult;
+    }
+
+    /**
+     * 以SSE推送异步执行结果：先推送当前状态（status事件），完成后推送结果（result事件）
+     */
+    @GetMapping(value = "/result/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamResult(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        SseEmitter emitter = new SseEmitter(MAX_WAIT_TIME);
+        if (!checkAuth(request, response)) {
+            emitter.complete();
+            return emitter;
+        }
+        CompletableFuture<ExecuteJob> future = asyncExecuteService.getJobFuture(jobId);
+        if (future == null) {
+            response.setStatus(404);
+            emitter.complete();
+            return emitter;
+        }
+        emitter.send(SseEmitter.event().name("status").data(asyncExecuteService.getJob(jobId)));
+        future.thenAccept(executeJob -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(executeJob));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 异步执行队列状态：队列深度、排队时间等
+     */
+    @GetMapping("/queue/stats")
+    public QueueStats getQueueStats(HttpServletRequest request, HttpServletResponse response){
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        return asyncExecuteService.getQueueStats();
+    }
+
+    /**
+     * docker沙箱内存统计的开销，未开启容器池时返回404
+     */
+    @GetMapping("/container/stats")
+    public StatsOverhead getContainerStats(HttpServletRequest request, HttpServletResponse response){
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        StatsOverhead statsOverhead = statsOverheadProvider.getIfAvailable();
+        if (statsOverhead == null) {
+            response.setStatus(404);
+        }
+        return statsOverhead;
+    }
+
+    //鉴权，失败时设置403
+    private boolean checkAuth(HttpServletRequest request, HttpServletResponse response){
+        String header = request.getHeader(SECRET_HEADER);
+        if(!SECRET_KEY.equals(header)){
+            response.setStatus(403);
+            return false;
+        }
+        return true;
     }
 }
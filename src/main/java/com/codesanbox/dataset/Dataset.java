@@ -0,0 +1,73 @@
+package com.codesanbox.dataset;
+
+import com.codesanbox.model.DatasetInfo;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * 一个版本的测试数据，发布后只读
+ * 第i个用例的输入为 i.in，期望输出为 i.out（上传时没有期望输出则不存在）
+ */
+@Getter
+public class Dataset {
+
+    private final String datasetId;
+
+    private final String version;
+
+    private final File dir;
+
+    private final int caseCount;
+
+    //是否包含期望输出
+    private final boolean expectedOutput;
+
+    //总字节数（输入 + 期望输出）
+    private final long totalBytes;
+
+    //映射文件的缓存
+    @Getter(AccessLevel.NONE)
+    private final TestDataStore store;
+
+    Dataset(String datasetId, String version, File dir, int caseCount, boolean expectedOutput, long totalBytes, TestDataStore store) {
+        this.datasetId = datasetId;
+        this.version = version;
+        this.dir = dir;
+        this.caseCount = caseCount;
+        this.expectedOutput = expectedOutput;
+        this.totalBytes = totalBytes;
+        this.store = store;
+    }
+
+    /**
+     * 输入文件，标准输入方式下直接作为子进程的标准输入
+     */
+    public File getInputFile(int index) {
+        return new File(dir, index + TestDataStore.INPUT_SUFFIX);
+    }
+
+    public File getExpectedOutputFile(int index) {
+        return new File(dir, index + TestDataStore.OUTPUT_SUFFIX);
+    }
+
+    /**
+     * 输入内容（只读映射）
+     */
+    public ByteBuffer mapInput(int index) {
+        return store.map(getInputFile(index));
+    }
+
+    /**
+     * 期望输出内容（只读映射），没有期望输出时返回null
+     */
+    public ByteBuffer mapExpectedOutput(int index) {
+        return expectedOutput ? store.map(getExpectedOutputFile(index)) : null;
+    }
+
+    public DatasetInfo toInfo() {
+        return new DatasetInfo(datasetId, version, caseCount, expectedOutput, totalBytes);
+    }
+}
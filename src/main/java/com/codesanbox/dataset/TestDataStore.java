@@ -0,0 +1,326 @@
+package com.codesanbox.dataset;
+
+import cn.hutool.core.io.FileUtil;
+import com.codesanbox.JavaCodeSandboxTemplate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 本地测试数据存储，按 测试数据id（题目id）+ 版本 保存
+ * 同一题目的测试数据只上传一次，之后的提交只传id和版本，不再在请求中携带完整输入
+ * 目录结构：根目录/id/版本/{i.in, i.out, dataset.properties}，先写到临时目录再整体改名发布，发布后只读
+ * 标准输入方式直接把输入文件交给子进程；期望输出和命令行参数方式的输入以只读内存映射读取，
+ * 映射按LRU淘汰，限制总字节数（被淘汰的映射在不再被引用后由GC解除）
+ * 根目录及其中的目录、文件只有服务用户可以访问（0700/0600），用户程序无法读取期望输出；标准输入由服务打开后交给子进程
+ */
+@Slf4j
+public class TestDataStore {
+
+    static final String INPUT_SUFFIX = ".in";
+
+    static final String OUTPUT_SUFFIX = ".out";
+
+    private static final String MANIFEST_NAME = "dataset.properties";
+
+    //id和版本只允许字母、数字、下划线、点和横线，且不能以点开头（防止路径穿越和与临时目录冲突）
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]{0,63}");
+
+    private static final Set<PosixFilePermission> DIR_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+
+    private static final Set<PosixFilePermission> FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+    private static volatile TestDataStore defaultStore;
+
+    private final File root;
+
+    private final long maxMappedBytes;
+
+    //已加载的测试数据信息，key为 id/版本
+    private final ConcurrentHashMap<String, Dataset> datasets = new ConcurrentHashMap<>();
+
+    //accessOrder=true 即LRU顺序，由 mapped 加锁保护
+    private final LinkedHashMap<String, MappedByteBuffer> mapped = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long mappedBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param root           存储根目录
+     * @param maxMappedBytes 缓存的映射文件总字节数上限
+     */
+    public TestDataStore(File root, long maxMappedBytes) {
+        this.root = root;
+        this.maxMappedBytes = maxMappedBytes;
+        //之前创建的根目录可能对其他用户可读，启动时收紧
+        if (root.isDirectory()) {
+            try {
+                setPermissions(root, DIR_PERMISSIONS);
+            } catch (IOException e) {
+                log.warn("无法设置测试数据目录权限：{}", root, e);
+            }
+        }
+    }
+
+    /**
+     * 非Spring环境（如直接new沙箱）使用的默认存储，位于代码目录下的dataset
+     */
+    public static TestDataStore getDefault() {
+        if (defaultStore == null) {
+            synchronized (TestDataStore.class) {
+                if (defaultStore == null) {
+                    File root = new File(System.getProperty("user.dir"), JavaCodeSandboxTemplate.USER_DIR + File.separator + "dataset");
+                    defaultStore = new TestDataStore(root, 256L * 1024 * 1024);
+                }
+            }
+        }
+        return defaultStore;
+    }
+
+    /**
+     * 保存一个版本的测试数据，同一版本只能上传一次
+     *
+     * @param datasetId          测试数据id
+     * @param version            版本
+     * @param inputList          输入用例
+     * @param expectedOutputList 期望输出，可为null
+     * @throws IllegalArgumentException id、版本不合法或期望输出数量与输入不一致
+     * @throws IllegalStateException    该版本已存在
+     */
+    public Dataset save(String datasetId, String version, List<String> inputList, List<String> expectedOutputList) {
+        checkName(datasetId, "测试数据id");
+        checkName(version, "版本");
+        if (inputList == null || inputList.isEmpty()) {
+            throw new IllegalArgumentException("输入用例为空");
+        }
+        if (expectedOutputList != null && expectedOutputList.size() != inputList.size()) {
+            throw new IllegalArgumentException("期望输出数量与输入用例数量不一致");
+        }
+        File datasetDir = new File(root, datasetId);
+        File dir = new File(datasetDir, version);
+        if (dir.exists()) {
+            throw new IllegalStateException("测试数据已存在：" + datasetId + "/" + version);
+        }
+        File tempDir = new File(datasetDir, "." + UUID.randomUUID());
+        long totalBytes = 0;
+        try {
+            mkdirs(root);
+            mkdirs(datasetDir);
+            mkdirs(tempDir);
+            for (int i = 0; i < inputList.size(); i++) {
+                totalBytes += write(new File(tempDir, i + INPUT_SUFFIX), inputList.get(i));
+                if (expectedOutputList != null) {
+                    totalBytes += write(new File(tempDir, i + OUTPUT_SUFFIX), expectedOutputList.get(i));
+                }
+            }
+            Properties manifest = new Properties();
+            manifest.setProperty("caseCount", String.valueOf(inputList.size()));
+            manifest.setProperty("expectedOutput", String.valueOf(expectedOutputList != null));
+            manifest.setProperty("totalBytes", String.valueOf(totalBytes));
+            File manifestFile = new File(tempDir, MANIFEST_NAME);
+            try (OutputStream outputStream = Files.newOutputStream(manifestFile.toPath())) {
+                manifest.store(outputStream, null);
+            }
+            setPermissions(manifestFile, FILE_PERMISSIONS);
+            //整体改名发布，并发上传同一版本时只有一个成功
+            Files.move(tempDir.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            FileUtil.del(tempDir);
+            if (dir.exists()) {
+                throw new IllegalStateException("测试数据已存在：" + datasetId + "/" + version);
+            }
+            throw new UncheckedIOException(e);
+        }
+        Dataset dataset = new Dataset(datasetId, version, dir, inputList.size(), expectedOutputList != null, totalBytes, this);
+        datasets.put(key(datasetId, version), dataset);
+        log.info("保存测试数据：{}/{}，用例数：{}，{} bytes", datasetId, version, inputList.size(), totalBytes);
+        return dataset;
+    }
+
+    /**
+     * 获取测试数据，不存在（或id、版本不合法）时返回null
+     */
+    public Dataset get(String datasetId, String version) {
+        if (!isValidName(datasetId) || !isValidName(version)) {
+            return null;
+        }
+        return datasets.computeIfAbsent(key(datasetId, version), key -> load(datasetId, version));
+    }
+
+    /**
+     * 删除测试数据，正在使用该版本的提交可能因文件不存在而失败
+     *
+     * @return 是否存在
+     */
+    public boolean delete(String datasetId, String version) {
+        Dataset dataset = get(datasetId, version);
+        if (dataset == null) {
+            return false;
+        }
+        datasets.remove(key(datasetId, version));
+        String prefix = dataset.getDir().getAbsolutePath() + File.separator;
+        synchronized (mapped) {
+            Iterator<Map.Entry<String, MappedByteBuffer>> iterator = mapped.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, MappedByteBuffer> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    mappedBytes -= entry.getValue().capacity();
+                    iterator.remove();
+                }
+            }
+        }
+        FileUtil.del(dataset.getDir());
+        log.info("删除测试数据：{}/{}", datasetId, version);
+        return true;
+    }
+
+    /**
+     * 只读映射文件，返回独立的position和limit
+     */
+    ByteBuffer map(File file) {
+        String path = file.getAbsolutePath();
+        synchronized (mapped) {
+            MappedByteBuffer buffer = mapped.get(path);
+            if (buffer != null) {
+                hitCount.incrementAndGet();
+                return buffer.duplicate();
+            }
+        }
+        missCount.incrementAndGet();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        //超过上限的单个文件不缓存
+        if (buffer.capacity() <= maxMappedBytes) {
+            put(path, buffer);
+        }
+        return buffer.duplicate();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public int getMappedCount() {
+        synchronized (mapped) {
+            return mapped.size();
+        }
+    }
+
+    public long getMappedBytes() {
+        synchronized (mapped) {
+            return mappedBytes;
+        }
+    }
+
+    private void put(String path, MappedByteBuffer buffer) {
+        synchronized (mapped) {
+            MappedByteBuffer previous = mapped.put(path, buffer);
+            if (previous != null) {
+                mappedBytes -= previous.capacity();
+            }
+            mappedBytes += buffer.capacity();
+            Iterator<Map.Entry<String, MappedByteBuffer>> iterator = mapped.entrySet().iterator();
+            while (mappedBytes > maxMappedBytes && iterator.hasNext()) {
+                MappedByteBuffer eldest = iterator.next().getValue();
+                if (eldest == buffer) {
+                    continue;
+                }
+                iterator.remove();
+                mappedBytes -= eldest.capacity();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    //从磁盘读取已发布的测试数据，不存在时返回null
+    private Dataset load(String datasetId, String version) {
+        File dir = new File(new File(root, datasetId), version);
+        File manifestFile = new File(dir, MANIFEST_NAME);
+        if (!manifestFile.isFile()) {
+            return null;
+        }
+        Properties manifest = new Properties();
+        try (InputStream inputStream = Files.newInputStream(manifestFile.toPath())) {
+            manifest.load(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Dataset(datasetId, version, dir, Integer.parseInt(manifest.getProperty("caseCount")),
+                Boolean.parseBoolean(manifest.getProperty("expectedOutput")), Long.parseLong(manifest.getProperty("totalBytes")), this);
+    }
+
+    private static long write(File file, String content) throws IOException {
+        byte[] bytes = content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8);
+        Files.write(file.toPath(), bytes);
+        setPermissions(file, FILE_PERMISSIONS);
+        return bytes.length;
+    }
+
+    //创建只有服务用户可以访问的目录
+    private static void mkdirs(File dir) throws IOException {
+        Files.createDirectories(dir.toPath());
+        setPermissions(dir, DIR_PERMISSIONS);
+    }
+
+    //不支持POSIX权限的文件系统（如Windows）跳过
+    private static void setPermissions(File file, Set<PosixFilePermission> permissions) throws IOException {
+        if (Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class) != null) {
+            Files.setPosixFilePermissions(file.toPath(), permissions);
+        }
+    }
+
+    private static void checkName(String name, String description) {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException(description + "不合法：" + name);
+        }
+    }
+
+    private static boolean isValidName(String name) {
+        return name != null && NAME_PATTERN.matcher(name).matches();
+    }
+
+    private static String key(String datasetId, String version) {
+        return datasetId + "/" + version;
+    }
+}
@@ -0,0 +1,164 @@
+package com.codesanbox.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.StatsCmd;
+import com.github.dockerjava.api.model.MemoryStatsConfig;
+import com.github.dockerjava.api.model.Statistics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * 单个容器的内存监控
+ * 容器创建后订阅一次docker统计流，直到容器删除；每次exec开一个统计窗口，窗口期间收到的样本计入该exec
+ * exec结束后再读一次容器cgroup的峰值文件，补上统计流来不及采到的短时峰值
+ *
+ * 统计的是整个容器的内存，同一时刻只允许一个窗口，这样得到的才是单个exec的峰值（容器中的用例依次执行）
+ */
+@Slf4j
+class ContainerMonitor implements Closeable {
+
+    //宿主机上容器cgroup峰值文件的可能位置：cgroup v2（systemd / cgroupfs驱动）、cgroup v1
+    private static final String[] PEAK_FILE_PATTERNS = {
+            "/sys/fs/cgroup/system.slice/docker-%s.scope/memory.peak",
+            "/sys/fs/cgroup/docker/%s/memory.peak",
+            "/sys/fs/cgroup/memory/docker/%s/memory.max_usage_in_bytes",
+            "/sys/fs/cgroup/memory/system.slice/docker-%s.scope/memory.max_usage_in_bytes"
+    };
+
+    private final StatsCmd statsCmd;
+
+    private final ResultCallback.Adapter<Statistics> callback;
+
+    //找不到时（如沙箱服务本身运行在容器中）只使用统计流
+    private final File peakFile;
+
+    private final StatsOverhead statsOverhead;
+
+    //当前exec的统计窗口，没有exec时为null
+    private volatile Window window;
+
+    private ContainerMonitor(DockerClient dockerClient, String containerId, StatsOverhead statsOverhead) {
+        this.statsOverhead = statsOverhead;
+        this.peakFile = findPeakFile(containerId);
+        this.statsCmd = dockerClient.statsCmd(containerId);
+        this.callback = statsCmd.exec(new ResultCallback.Adapter<Statistics>() {
+            @Override
+            public void onNext(Statistics statistics) {
+                onSample(statistics);
+            }
+        });
+        statsOverhead.subscribed();
+    }
+
+    static ContainerMonitor start(DockerClient dockerClient, String containerId, StatsOverhead statsOverhead) {
+        return new ContainerMonitor(dockerClient, containerId, statsOverhead);
+    }
+
+    /**
+     * exec开始前调用
+     *
+     * @throws IllegalStateException 容器中已有exec在执行，内存无法区分
+     */
+    synchronized Window begin() {
+        if (window != null) {
+            throw new IllegalStateException("容器中已有用例在执行，内存统计无法区分");
+        }
+        window = new Window(readPeak());
+        return window;
+    }
+
+    /**
+     * exec结束后调用
+     *
+     * @return 该exec期间的内存峰值（byte）
+     */
+    long end(Window window) {
+        synchronized (this) {
+            if (this.window == window) {
+                this.window = null;
+            }
+        }
+        long peak = readPeak();
+        //容器峰值在窗口期间上升，说明新的峰值出现在这次exec中
+        if (peak > window.startPeak) {
+            window.update(peak);
+        }
+        return window.peak;
+    }
+
+    @Override
+    public void close() {
+        try {
+            callback.close();
+        } catch (IOException e) {
+            log.debug("关闭统计回调失败", e);
+        }
+        statsCmd.close();
+    }
+
+    private void onSample(Statistics statistics) {
+        long start = System.nanoTime();
+        MemoryStatsConfig memoryStats = statistics.getMemoryStats();
+        Window current = window;
+        if (memoryStats != null && current != null) {
+            //max_usage是容器生命周期内的峰值，会把之前exec的峰值带进来，这里只用当前用量
+            current.update(valueOf(memoryStats.getUsage()));
+        }
+        statsOverhead.sampled(System.nanoTime() - start);
+    }
+
+    //读取容器生命周期内的内存峰值（byte），不可用时返回-1
+    private long readPeak() {
+        if (peakFile == null) {
+            return -1;
+        }
+        long start = System.nanoTime();
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(peakFile.toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        } finally {
+            statsOverhead.cgroupRead(System.nanoTime() - start);
+        }
+    }
+
+    private static File findPeakFile(String containerId) {
+        for (String pattern : PEAK_FILE_PATTERNS) {
+            File file = new File(String.format(pattern, containerId));
+            if (file.canRead()) {
+                return file;
+            }
+        }
+        log.debug("找不到容器的cgroup峰值文件，只使用统计流：{}", containerId);
+        return null;
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * 一次exec的统计窗口
+     */
+    static class Window {
+        private final long startPeak;
+
+        private volatile long peak;
+
+        Window(long startPeak) {
+            this.startPeak = startPeak;
+        }
+
+        synchronized void update(long usage) {
+            if (usage > peak) {
+                peak = usage;
+            }
+        }
+    }
+}
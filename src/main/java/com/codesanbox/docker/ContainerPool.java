@@ -0,0 +1,152 @@
+package com.codesanbox.docker;
+
+import cn.hutool.core.io.FileUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常驻容器池
+ * 预先创建并启动若干受限容器，每个提交借用一个；归还时清空工作目录并做健康检查，
+ * 不健康（超时后可能有残留进程、容器已退出）或达到最大使用次数的容器删除后异步补充新的
+ */
+@Slf4j
+public class ContainerPool {
+
+    @Getter
+    private final ContainerRuntime containerRuntime;
+
+    @Getter
+    private final int size;
+
+    private final int maxUses;
+
+    //等待空闲容器的最长时间（ms）
+    private final long acquireTimeout;
+
+    //各容器工作目录的父目录
+    private final File workRoot;
+
+    private final BlockingQueue<PooledContainer> idleContainers = new LinkedBlockingQueue<>();
+
+    //使用中 + 空闲 + 创建中的容器数量
+    private final AtomicInteger containerCount = new AtomicInteger();
+
+    private final ExecutorService starter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "container-starter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean closed;
+
+    public ContainerPool(ContainerRuntime containerRuntime, int size, int maxUses, long acquireTimeout, File workRoot) {
+        this.containerRuntime = containerRuntime;
+        this.size = size;
+        this.maxUses = maxUses;
+        this.acquireTimeout = acquireTimeout;
+        this.workRoot = workRoot;
+    }
+
+    /**
+     * 在后台准备镜像并预创建容器
+     */
+    public void start() {
+        starter.execute(containerRuntime::prepare);
+        for (int i = 0; i < size; i++) {
+            replenish();
+        }
+        log.info("容器池启动，大小：{}，单个容器最多使用：{} 次", size, maxUses);
+    }
+
+    /**
+     * 借用一个容器，工作目录为空
+     */
+    public PooledContainer acquire() throws InterruptedException {
+        //之前创建失败的容器在这里补上
+        if (containerCount.get() < size) {
+            replenish();
+        }
+        PooledContainer container = idleContainers.poll(acquireTimeout, TimeUnit.MILLISECONDS);
+        if (container == null) {
+            throw new IllegalStateException("等待空闲容器超时");
+        }
+        container.use();
+        return container;
+    }
+
+    /**
+     * 归还容器
+     *
+     * @param container 借用的容器
+     * @param healthy   本次使用是否正常结束，超时等情况下容器内可能还有残留进程，直接回收
+     */
+    public void release(PooledContainer container, boolean healthy) {
+        FileUtil.clean(container.getWorkDir());
+        if (healthy && !closed && container.getUses() < maxUses && containerRuntime.isRunning(container.getContainerId())) {
+            idleContainers.offer(container);
+            return;
+        }
+        recycle(container);
+    }
+
+    public int getIdleCount() {
+        return idleContainers.size();
+    }
+
+    public void shutdown() {
+        closed = true;
+        starter.shutdownNow();
+        PooledContainer container;
+        while ((container = idleContainers.poll()) != null) {
+            remove(container);
+        }
+    }
+
+    private void recycle(PooledContainer container) {
+        log.debug("回收容器：{}，已使用：{} 次", container.getContainerId(), container.getUses());
+        remove(container);
+        containerCount.decrementAndGet();
+        replenish();
+    }
+
+    private void remove(PooledContainer container) {
+        try {
+            containerRuntime.remove(container.getContainerId());
+        } catch (RuntimeException e) {
+            log.warn("删除容器失败：{}", container.getContainerId(), e);
+        }
+        FileUtil.del(container.getWorkDir());
+    }
+
+    private void replenish() {
+        if (closed || containerCount.incrementAndGet() > size) {
+            containerCount.decrementAndGet();
+            return;
+        }
+        starter.execute(() -> {
+            File workDir = new File(workRoot, UUID.randomUUID().toString());
+            try {
+                FileUtil.mkdir(workDir);
+                PooledContainer container = new PooledContainer(containerRuntime.create(workDir), workDir);
+                if (closed) {
+                    remove(container);
+                    return;
+                }
+                idleContainers.offer(container);
+            } catch (RuntimeException e) {
+                log.error("创建容器失败", e);
+                FileUtil.del(workDir);
+                containerCount.decrementAndGet();
+            }
+        });
+    }
+}
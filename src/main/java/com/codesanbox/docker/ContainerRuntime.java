@@ -0,0 +1,51 @@
+package com.codesanbox.docker;
+
+import com.codesanbox.model.ExecuteMessage;
+
+import java.io.File;
+
+/**
+ * 容器运行时，容器池只通过这几个操作管理容器
+ * 默认实现基于docker-java，测试时可替换为假实现
+ */
+public interface ContainerRuntime {
+
+    /**
+     * 准备镜像，本地没有时拉取
+     */
+    void prepare();
+
+    /**
+     * 创建并启动一个受限容器，宿主机目录以只读方式挂载到容器的工作目录
+     *
+     * @param workDir 宿主机上的工作目录
+     * @return 容器id
+     */
+    String create(File workDir);
+
+    /**
+     * 健康检查
+     *
+     * @param containerId 容器id
+     * @return 容器是否仍在运行
+     */
+    boolean isRunning(String containerId);
+
+    /**
+     * 在容器中执行命令
+     *
+     * @param containerId 容器id
+     * @param cmd         命令
+     * @param timeout     超时时间（ms），超时后返回超时结果
+     * @param outputLimit 单个输出流最多保留的字节数
+     * @return 执行信息
+     */
+    ExecuteMessage exec(String containerId, String[] cmd, long timeout, int outputLimit);
+
+    /**
+     * 强制删除容器
+     *
+     * @param containerId 容器id
+     */
+    void remove(String containerId);
+}
@@ -0,0 +1,203 @@
+package com.codesanbox.docker;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.util.OutputBuffer;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.command.PullImageResultCallback;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.AccessMode;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Capability;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.StreamType;
+import com.github.dockerjava.api.model.Volume;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于docker-java的容器运行时
+ */
+@Slf4j
+public class DockerContainerRuntime implements ContainerRuntime {
+
+    //容器内的工作目录
+    public static final String WORK_DIR = "/app";
+
+    private static final int INITIAL_OUTPUT_CAPACITY = 4096;
+
+    private final DockerClient dockerClient;
+
+    private final String image;
+
+    //内存上限（byte）
+    private final long memoryLimit;
+
+    private final long cpuCount;
+
+    //容器内最多进程（线程）数
+    private final long pidsLimit;
+
+    private final StatsOverhead statsOverhead;
+
+    //容器id -> 内存监控，随容器创建和删除
+    private final Map<String, ContainerMonitor> monitors = new ConcurrentHashMap<>();
+
+    public DockerContainerRuntime(DockerClient dockerClient, String image, long memoryLimit, long cpuCount, long pidsLimit,
+                                  StatsOverhead statsOverhead) {
+        this.dockerClient = dockerClient;
+        this.image = image;
+        this.memoryLimit = memoryLimit;
+        this.cpuCount = cpuCount;
+        this.pidsLimit = pidsLimit;
+        this.statsOverhead = statsOverhead;
+    }
+
+    @Override
+    public void prepare() {
+        try {
+            dockerClient.inspectImageCmd(image).exec();
+            return;
+        } catch (NotFoundException e) {
+            log.info("本地没有镜像：{}，开始拉取", image);
+        }
+        try {
+            dockerClient.pullImageCmd(image).exec(new PullImageResultCallback()).awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("拉取镜像被中断", e);
+        }
+        log.info("拉取镜像成功：{}", image);
+    }
+
+    @Override
+    public String create(File workDir) {
+        HostConfig hostConfig = new HostConfig()
+                //代码目录只读挂载
+                .withBinds(new Bind(workDir.getAbsolutePath(), new Volume(WORK_DIR), AccessMode.ro))
+                .withMemory(memoryLimit)
+                //与内存上限相同，即不允许使用交换分区
+                .withMemorySwap(memoryLimit)
+                .withCpuCount(cpuCount)
+                .withPidsLimit(pidsLimit)
+                .withReadonlyRootfs(true)
+                .withNetworkMode("none")
+                .withCapDrop(Capability.ALL)
+                //系统调用白名单
+                .withSecurityOpts(Arrays.asList("seccomp=" + ResourceUtil.readUtf8Str("profile.json"), "no-new-privileges"));
+        String containerId = dockerClient.createContainerCmd(image)
+                .withHostConfig(hostConfig)
+                .withNetworkDisabled(true)
+                .withWorkingDir(WORK_DIR)
+                //容器本身只负责常驻，用户程序通过exec执行
+                .withCmd("tail", "-f", "/dev/null")
+                .exec()
+                .getId();
+        dockerClient.startContainerCmd(containerId).exec();
+        //每个容器只订阅一次统计流
+        monitors.put(containerId, ContainerMonitor.start(dockerClient, containerId, statsOverhead));
+        log.info("创建容器：{}", containerId);
+        return containerId;
+    }
+
+    @Override
+    public boolean isRunning(String containerId) {
+        try {
+            InspectContainerResponse.ContainerState state = dockerClient.inspectContainerCmd(containerId).exec().getState();
+            return Boolean.TRUE.equals(state.getRunning());
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public ExecuteMessage exec(String containerId, String[] cmd, long timeout, int outputLimit) {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        String execId = dockerClient.execCreateCmd(containerId)
+                .withCmd(cmd)
+                .withAttachStderr(true)
+                .withAttachStdout(true)
+                .exec()
+                .getId();
+        OutputBuffer outputBuffer = new OutputBuffer(INITIAL_OUTPUT_CAPACITY, outputLimit);
+        OutputBuffer errorBuffer = new OutputBuffer(INITIAL_OUTPUT_CAPACITY, outputLimit);
+        //通过 StreamType 区分标准输出和错误输出，按帧追加，不会丢失前面的输出
+        ResultCallback.Adapter<Frame> execCallback = new ResultCallback.Adapter<Frame>() {
+            @Override
+            public void onNext(Frame frame) {
+                OutputBuffer buffer = StreamType.STDERR.equals(frame.getStreamType()) ? errorBuffer : outputBuffer;
+                byte[] payload = frame.getPayload();
+                buffer.append(payload, 0, payload.length);
+            }
+        };
+        ContainerMonitor monitor = monitors.get(containerId);
+        ContainerMonitor.Window window = monitor == null ? null : monitor.begin();
+        long start = System.currentTimeMillis();
+        boolean completed;
+        try {
+            completed = dockerClient.execStartCmd(execId).exec(execCallback).awaitCompletion(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        }
+        long time = System.currentTimeMillis() - start;
+        //结束后立即读取峰值，只计入本次exec窗口
+        long memory = window == null ? 0 : monitor.end(window);
+        if (!completed) {
+            //超时不再等待输出，进程可能还在容器内运行，由容器池回收容器
+            closeQuietly(execCallback);
+            executeMessage.setExitValue(1);
+            executeMessage.setTime(timeout);
+            executeMessage.setMessage(JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getText());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getValue());
+            return executeMessage;
+        }
+        Long exitCode = dockerClient.inspectExecCmd(execId).exec().getExitCodeLong();
+        executeMessage.setExitValue(exitCode == null ? null : exitCode.intValue());
+        executeMessage.setTime(time);
+        executeMessage.setMemory(Math.max(memory, 0) / 1024);
+        if (outputBuffer.isExceeded() || errorBuffer.isExceeded()) {
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getText());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getValue());
+        } else {
+            executeMessage.setMessage(outputBuffer.toText());
+            if (exitCode == null || exitCode != 0) {
+                executeMessage.setErrorMessage(errorBuffer.toText());
+            }
+        }
+        return executeMessage;
+    }
+
+    @Override
+    public void remove(String containerId) {
+        ContainerMonitor monitor = monitors.remove(containerId);
+        if (monitor != null) {
+            monitor.close();
+        }
+        try {
+            dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+            log.info("删除容器：{}", containerId);
+        } catch (NotFoundException e) {
+            log.debug("容器已不存在：{}", containerId);
+        }
+    }
+
+    private static void closeQuietly(ResultCallback.Adapter<Frame> callback) {
+        try {
+            callback.close();
+        } catch (IOException e) {
+            log.debug("关闭回调失败", e);
+        }
+    }
+}
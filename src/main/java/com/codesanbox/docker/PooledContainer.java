@@ -0,0 +1,29 @@
+package com.codesanbox.docker;
+
+import lombok.Getter;
+
+import java.io.File;
+
+/**
+ * 池中的一个容器及其在宿主机上挂载的工作目录
+ * 同一时间只借给一个提交
+ */
+@Getter
+public class PooledContainer {
+
+    private final String containerId;
+
+    //挂载到容器 /app 的宿主机目录，每次使用前写入字节码，归还时清空
+    private final File workDir;
+
+    private int uses;
+
+    PooledContainer(String containerId, File workDir) {
+        this.containerId = containerId;
+        this.workDir = workDir;
+    }
+
+    void use() {
+        uses++;
+    }
+}
@@ -0,0 +1,58 @@
+package com.codesanbox.docker;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 容器内存统计本身的开销，所有容器共享一个实例
+ */
+public class StatsOverhead {
+
+    //打开过的统计订阅数（每个容器一个）
+    private final LongAdder subscriptions = new LongAdder();
+
+    //收到的统计样本数
+    private final LongAdder samples = new LongAdder();
+
+    //处理样本的累计耗时（ns）
+    private final LongAdder sampleNanos = new LongAdder();
+
+    //读取cgroup峰值文件的次数
+    private final LongAdder cgroupReads = new LongAdder();
+
+    //读取cgroup峰值文件的累计耗时（ns）
+    private final LongAdder cgroupReadNanos = new LongAdder();
+
+    void subscribed() {
+        subscriptions.increment();
+    }
+
+    void sampled(long nanos) {
+        samples.increment();
+        sampleNanos.add(nanos);
+    }
+
+    void cgroupRead(long nanos) {
+        cgroupReads.increment();
+        cgroupReadNanos.add(nanos);
+    }
+
+    public long getSubscriptions() {
+        return subscriptions.sum();
+    }
+
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    public long getSampleNanos() {
+        return sampleNanos.sum();
+    }
+
+    public long getCgroupReads() {
+        return cgroupReads.sum();
+    }
+
+    public long getCgroupReadNanos() {
+        return cgroupReadNanos.sum();
+    }
+}
@@ -0,0 +1,156 @@
+package com.codesanbox.input;
+
+import cn.hutool.core.io.FileUtil;
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.dataset.Dataset;
+import com.codesanbox.model.enums.CheckerEnum;
+import com.codesanbox.model.enums.InputModeEnum;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 单个用例的输入
+ * 命令行参数方式按空白拆分为main参数；标准输入方式写到文件后作为子进程的标准输入，
+ * 子进程直接从文件读取，服务端不再经管道逐字节转发，也不受命令行长度（ARG_MAX）限制
+ * 输入文件在首次使用时写出，{@link #close()} 时删除
+ * 设置了期望输出时，由 {@link #newChecker()} 得到比对器，在读取输出的同时比对
+ * 来自测试数据存储的用例直接使用存储中的文件：输入文件作为标准输入，期望输出以内存映射比对，不复制也不删除
+ */
+public class TestInput implements Closeable {
+
+    private static final String[] NO_ARGS = new String[0];
+
+    //请求中的输入，来自测试数据存储时为null
+    private final String text;
+
+    //来自测试数据存储时的数据和用例下标
+    private final Dataset dataset;
+
+    private final int index;
+
+    private final InputModeEnum inputMode;
+
+    //输入文件所在目录
+    private final File dir;
+
+    private File file;
+
+    //请求中的期望输出，为null时不比对（来自测试数据存储时按测试数据是否包含期望输出）
+    private String expectedOutput;
+
+    private CheckerEnum checker;
+
+    private Double epsilon;
+
+    private TestInput(String text, Dataset dataset, int index, InputModeEnum inputMode, File dir) {
+        this.text = text;
+        this.dataset = dataset;
+        this.index = index;
+        this.inputMode = inputMode;
+        this.dir = dir;
+    }
+
+    /**
+     * @param inputList 输入用例
+     * @param inputMode 输入方式，为空时按命令行参数
+     * @param dir       标准输入方式下输入文件所在目录
+     */
+    public static List<TestInput> of(List<String> inputList, InputModeEnum inputMode, File dir) {
+        InputModeEnum mode = inputMode == null ? InputModeEnum.ARGS : inputMode;
+        List<TestInput> testInputs = new ArrayList<>(inputList.size());
+        for (String input : inputList) {
+            testInputs.add(new TestInput(input, null, -1, mode, dir));
+        }
+        return testInputs;
+    }
+
+    /**
+     * 测试数据存储中的全部用例，包含期望输出时按 checker 比对
+     *
+     * @param dataset   测试数据
+     * @param inputMode 输入方式，为空时按命令行参数
+     * @param checker   比对方式
+     * @param epsilon   浮点比对的误差
+     */
+    public static List<TestInput> of(Dataset dataset, InputModeEnum inputMode, CheckerEnum checker, Double epsilon) {
+        InputModeEnum mode = inputMode == null ? InputModeEnum.ARGS : inputMode;
+        List<TestInput> testInputs = new ArrayList<>(dataset.getCaseCount());
+        for (int i = 0; i < dataset.getCaseCount(); i++) {
+            TestInput testInput = new TestInput(null, dataset, i, mode, null);
+            testInput.checker = checker;
+            testInput.epsilon = epsilon;
+            testInputs.add(testInput);
+        }
+        return testInputs;
+    }
+
+    /**
+     * 设置期望输出，执行时在沙箱内比对
+     *
+     * @param expectedOutput 期望输出
+     * @param checker        比对方式
+     * @param epsilon        浮点比对的误差
+     */
+    public void expect(String expectedOutput, CheckerEnum checker, Double epsilon) {
+        this.expectedOutput = expectedOutput;
+        this.checker = checker;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * 新建本用例的输出比对器，没有期望输出时返回null
+     */
+    public OutputChecker newChecker() {
+        if (dataset != null) {
+            ByteBuffer expected = dataset.mapExpectedOutput(index);
+            return expected == null ? null : OutputChecker.create(checker, expected, epsilon);
+        }
+        return expectedOutput == null ? null : OutputChecker.create(checker, expectedOutput, epsilon);
+    }
+
+    public boolean isStdin() {
+        return inputMode == InputModeEnum.STDIN;
+    }
+
+    /**
+     * 命令行参数，标准输入方式下为空数组
+     */
+    public String[] toArgs() {
+        if (isStdin()) {
+            return NO_ARGS;
+        }
+        String input = text != null ? text : StandardCharsets.UTF_8.decode(dataset.mapInput(index)).toString();
+        String trimInput = input.trim();
+        return trimInput.isEmpty() ? NO_ARGS : trimInput.split("\\s+");
+    }
+
+    /**
+     * 标准输入文件，命令行参数方式下为null
+     */
+    public synchronized File getStdinFile() {
+        if (!isStdin()) {
+            return null;
+        }
+        if (dataset != null) {
+            return dataset.getInputFile(index);
+        }
+        if (file == null) {
+            file = FileUtil.writeString(text, new File(dir, UUID.randomUUID() + ".in"), StandardCharsets.UTF_8);
+        }
+        return file;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (file != null) {
+            FileUtil.del(file);
+            file = null;
+        }
+    }
+}
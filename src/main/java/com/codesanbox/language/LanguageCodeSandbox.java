@@ -0,0 +1,113 @@
+package com.codesanbox.language;
+
+import com.codesanbox.JavaCodeSandboxTemplate;
+import com.codesanbox.blacklist.BlacklistScanner;
+import com.codesanbox.blacklist.SourceSyntax;
+import com.codesanbox.compiler.CachedCompilation;
+import com.codesanbox.input.TestInput;
+import com.codesanbox.metrics.SandboxMetrics;
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 由 {@link LanguageRuntime} 驱动的代码沙箱，复用模板的编译缓存、用例调度和结果汇总
+ */
+@Slf4j
+public class LanguageCodeSandbox extends JavaCodeSandboxTemplate {
+
+    private final LanguageRuntime languageRuntime;
+
+    private final BlacklistScanner blacklistScanner;
+
+    public LanguageCodeSandbox(LanguageRuntime languageRuntime) {
+        this.languageRuntime = languageRuntime;
+        this.blacklistScanner = BlacklistScanner.compile(SourceSyntax.of(languageRuntime.getLanguage()), languageRuntime.getBlackList());
+    }
+
+    public String getLanguageValue() {
+        return languageRuntime.getLanguage().getValue();
+    }
+
+    @Override
+    protected SupportLanguageEnum getLanguage() {
+        return languageRuntime.getLanguage();
+    }
+
+    @Override
+    protected BlacklistScanner getBlacklistScanner() {
+        return blacklistScanner;
+    }
+
+    @Override
+    protected List<String> getCompileOptions() {
+        return languageRuntime.getCompileOptions();
+    }
+
+    @Override
+    public CompileResult complieCode(String code) {
+        try {
+            return languageRuntime.compile(code);
+        } catch (Exception e) {
+            log.error("编译失败", e);
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return new CompileResult(executeMessage, null);
+        }
+    }
+
+    @Override
+    protected List<ExecuteMessage> runCompiled(CachedCompilation compilation, String code, List<TestInput> testInputs) {
+        File workDir = materialize(compilation, code).getParentFile();
+        return getTestCaseScheduler().runAll(testInputs, testInput -> runCase(workDir, testInput));
+    }
+
+    //源文件和编译产物落盘，同一缓存条目只写一次，随条目淘汰删除（或归还工作目录）
+    @Override
+    protected File materialize(CachedCompilation compilation, String code) {
+        synchronized (compilation) {
+            File file = compilation.getCodeFile();
+            if (file == null) {
+                long startTime = System.nanoTime();
+                file = createCodeFile(compilation, code, languageRuntime.getSourceFileName());
+                for (Map.Entry<String, byte[]> entry : compilation.getCompileResult().getClassBytes().entrySet()) {
+                    File artifact = writeArtifact(compilation, file.getParentFile(), entry.getKey(), entry.getValue());
+                    //隔离执行时以nobody身份exec，需要其他用户的执行权限
+                    artifact.setExecutable(true, false);
+                }
+                compilation.setCodeFile(file);
+                getSandboxMetrics().recordPhase(SandboxMetrics.PHASE_FILE_WRITE, getLanguageValue(), startTime);
+            }
+            return file;
+        }
+    }
+
+    private ExecuteMessage runCase(File workDir, TestInput testInput) {
+        ExecuteMessage executeMessage;
+        try {
+            executeMessage = languageRuntime.run(workDir, testInput.toArgs(), testInput.getStdinFile(), testInput.newChecker());
+        } catch (Exception e) {
+            log.error("执行失败", e);
+            executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return executeMessage;
+        }
+        //超时、内存溢出、输出溢出、系统错误、答案错误已标记，其余非0退出为运行错误
+        if (executeMessage.getExitValue() != 0 && !isMarked(executeMessage)) {
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getText());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getValue());
+        }
+        return executeMessage;
+    }
+}
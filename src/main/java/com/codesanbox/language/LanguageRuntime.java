@@ -0,0 +1,65 @@
+package com.codesanbox.language;
+
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * 语言运行时：描述一种语言如何编译、命名文件、运行及其资源限制
+ * 由 {@link LanguageCodeSandbox} 驱动，编译结果同样进入编译缓存
+ */
+public interface LanguageRuntime {
+
+    SupportLanguageEnum getLanguage();
+
+    /**
+     * 源文件名，如 main.py
+     */
+    String getSourceFileName();
+
+    /**
+     * 编译参数，作为编译缓存key的一部分
+     */
+    List<String> getCompileOptions();
+
+    /**
+     * 该语言的代码黑名单，规则写法见 {@link com.codesanbox.blacklist.BlacklistScanner}
+     * 只用于尽早拒绝明显违规的提交，很容易绕过（如拼接模块名、借用已加载的模块），不是安全边界；
+     * 隔离由fork服务的命名空间和系统调用白名单提供
+     */
+    List<String> getBlackList();
+
+    /**
+     * 编译源码，产物以 文件名 -> 内容 放在 CompileResult.classBytes 中，运行前写到代码目录
+     * 编译错误沿用 COMPILE_ERROR 约定
+     *
+     * @param code 规范化后的源码
+     * @return 编译结果
+     */
+    CompileResult compile(String code);
+
+    /**
+     * 运行单个用例
+     *
+     * @param workDir 代码目录，已写好源文件和编译产物
+     * @param args    参数
+     * @param stdin   标准输入文件，为null时没有输入
+     * @param checker 输出比对器，为null时返回输出
+     * @return 执行信息，超时、内存溢出、输出溢出、答案错误已标记
+     */
+    ExecuteMessage run(File workDir, String[] args, File stdin, OutputChecker checker);
+
+    /**
+     * 单个用例的超时时间（ms）
+     */
+    long getTimeLimit();
+
+    /**
+     * 单个用例的内存上限（byte）
+     */
+    long getMemoryLimit();
+}
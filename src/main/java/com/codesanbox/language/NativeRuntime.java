@@ -0,0 +1,174 @@
+package com.codesanbox.language;
+
+import cn.hutool.core.io.FileUtil;
+import com.codesanbox.JavaCodeSandboxTemplate;
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+import com.codesanbox.runner.ForkServer;
+import com.codesanbox.runner.ForkServerPool;
+import com.codesanbox.scheduler.ProcessWatchdog;
+import com.codesanbox.util.ProcessUtils;
+import com.codesanbox.workspace.Workspace;
+import com.codesanbox.workspace.WorkspacePool;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * C/C++运行时
+ * 编译出的可执行文件随编译缓存复用，运行时由常驻fork服务fork后exec，不经过JVM
+ */
+public class NativeRuntime implements LanguageRuntime {
+
+    private static final String BINARY_NAME = "main";
+
+    private static final long COMPILE_TIME_OUT = 10000L;
+
+    private static final long MEMORY_LIMIT = 256L * 1024 * 1024;
+
+    //按token匹配，以 * 结尾的规则按前缀匹配；只拦截明显违规的提交，不是安全边界
+    private static final List<String> BLACK_LIST = Arrays.asList(
+            "system(", "fork(", "vfork(", "clone(", "execl", "execlp", "execle", "execv", "execvp", "execvpe", "execve", "fexecve",
+            "popen(", "socket(", "<thread>", "pthread*", "<sys/socket.h>", "<sys/ptrace.h>", "syscall(", "asm", "__asm", "__asm__", "kill(");
+
+    private final SupportLanguageEnum language;
+
+    private final String sourceFileName;
+
+    private final String compilerCommand;
+
+    //编译参数
+    private final List<String> compileOptions;
+
+    //链接参数，放在源文件之后
+    private final List<String> linkOptions;
+
+    private final ForkServerPool forkServerPool;
+
+    //编译使用的临时目录
+    private final WorkspacePool workspacePool;
+
+    private NativeRuntime(SupportLanguageEnum language, String sourceFileName, String compilerCommand, List<String> compileOptions,
+                          List<String> linkOptions, ForkServerPool forkServerPool, WorkspacePool workspacePool) {
+        this.language = language;
+        this.sourceFileName = sourceFileName;
+        this.compilerCommand = compilerCommand;
+        this.compileOptions = compileOptions;
+        this.linkOptions = linkOptions;
+        this.forkServerPool = forkServerPool;
+        this.workspacePool = workspacePool;
+    }
+
+    public static NativeRuntime c(String compilerCommand, ForkServerPool forkServerPool, WorkspacePool workspacePool) {
+        return new NativeRuntime(SupportLanguageEnum.C, "main.c", compilerCommand,
+                Arrays.asList("-O2", "-std=gnu11", "-DONLINE_JUDGE"), Collections.singletonList("-lm"), forkServerPool, workspacePool);
+    }
+
+    public static NativeRuntime cpp(String compilerCommand, ForkServerPool forkServerPool, WorkspacePool workspacePool) {
+        return new NativeRuntime(SupportLanguageEnum.CPP, "main.cpp", compilerCommand,
+                Arrays.asList("-O2", "-std=gnu++17", "-DONLINE_JUDGE"), Collections.emptyList(), forkServerPool, workspacePool);
+    }
+
+    @Override
+    public SupportLanguageEnum getLanguage() {
+        return language;
+    }
+
+    @Override
+    public String getSourceFileName() {
+        return sourceFileName;
+    }
+
+    @Override
+    public List<String> getCompileOptions() {
+        List<String> options = new ArrayList<>();
+        options.add(compilerCommand);
+        options.addAll(compileOptions);
+        options.addAll(linkOptions);
+        return options;
+    }
+
+    @Override
+    public List<String> getBlackList() {
+        return BLACK_LIST;
+    }
+
+    @Override
+    public CompileResult compile(String code) {
+        List<String> command = new ArrayList<>();
+        command.add(compilerCommand);
+        command.addAll(compileOptions);
+        command.add(sourceFileName);
+        command.add("-o");
+        command.add(BINARY_NAME);
+        command.addAll(linkOptions);
+        Workspace workspace = null;
+        Process process = null;
+        try {
+            workspace = workspacePool.acquire();
+            File compileDir = workspace.getDir();
+            workspace.write(sourceFileName, code);
+            process = new ProcessBuilder(command).directory(compileDir).start();
+            ExecuteMessage executeMessage;
+            try (ProcessWatchdog.Watch watch = ProcessWatchdog.getInstance().watch(process, COMPILE_TIME_OUT)) {
+                executeMessage = ProcessUtils.runAndProcess(process, "编译");
+                if (watch.isTimedOut()) {
+                    executeMessage.setExitValue(1);
+                    executeMessage.setMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getText() + "\n编译超时");
+                    executeMessage.setErrorMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getValue());
+                    return new CompileResult(executeMessage, null);
+                }
+            }
+            if (executeMessage.getExitValue() == null || executeMessage.getExitValue() != 0) {
+                executeMessage.setExitValue(1);
+                executeMessage.setMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getText() + "\n" + executeMessage.getErrorMessage());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getValue());
+                return new CompileResult(executeMessage, null);
+            }
+            //编译警告不作为结果返回
+            executeMessage.setMessage(null);
+            byte[] binary = FileUtil.readBytes(new File(compileDir, BINARY_NAME));
+            return new CompileResult(executeMessage, Collections.singletonMap(BINARY_NAME, binary));
+        } catch (Exception e) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            return new CompileResult(executeMessage, null);
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+            if (workspace != null) {
+                workspace.close();
+            }
+        }
+    }
+
+    @Override
+    public ExecuteMessage run(File workDir, String[] args, File stdin, OutputChecker checker) {
+        try {
+            return forkServerPool.execute(forkServerPool.userMode(ForkServer.MODE_EXEC), new File(workDir, BINARY_NAME), args,
+                    stdin, JavaCodeSandboxTemplate.TIME_OUT, ProcessUtils.DEFAULT_OUTPUT_LIMIT, MEMORY_LIMIT, checker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("执行被中断", e);
+        }
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return JavaCodeSandboxTemplate.TIME_OUT;
+    }
+
+    @Override
+    public long getMemoryLimit() {
+        return MEMORY_LIMIT;
+    }
+}
@@ -0,0 +1,125 @@
+package com.codesanbox.language;
+
+import com.codesanbox.JavaCodeSandboxTemplate;
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.model.enums.SupportLanguageEnum;
+import com.codesanbox.runner.ForkServer;
+import com.codesanbox.runner.ForkServerPool;
+import com.codesanbox.util.ProcessUtils;
+import com.codesanbox.workspace.Workspace;
+import com.codesanbox.workspace.WorkspacePool;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Python3运行时
+ * 源码在常驻fork服务fork出的子进程中直接执行，不再为每个用例启动解释器；编译步骤只做语法检查
+ */
+public class PythonRuntime implements LanguageRuntime {
+
+    private static final String SOURCE_FILE_NAME = "main.py";
+
+    private static final List<String> COMPILE_OPTIONS = Collections.singletonList("syntax-check");
+
+    //按token匹配，注释和字符串中的内容不算命中；只拦截明显违规的提交，不是安全边界
+    private static final List<String> BLACK_LIST = Arrays.asList(
+            "import os", "from os", "subprocess", "socket", "shutil", "ctypes", "multiprocessing", "threading",
+            "signal", "pty", "importlib", "__import__", "open(", "eval(", "exec(");
+
+    //解释型语言放宽时间限制
+    private static final long TIME_LIMIT = 2L * JavaCodeSandboxTemplate.TIME_OUT;
+
+    private static final long MEMORY_LIMIT = 256L * 1024 * 1024;
+
+    private final ForkServerPool forkServerPool;
+
+    //语法检查使用的临时目录
+    private final WorkspacePool workspacePool;
+
+    public PythonRuntime(ForkServerPool forkServerPool, WorkspacePool workspacePool) {
+        this.forkServerPool = forkServerPool;
+        this.workspacePool = workspacePool;
+    }
+
+    @Override
+    public SupportLanguageEnum getLanguage() {
+        return SupportLanguageEnum.PYTHON3;
+    }
+
+    @Override
+    public String getSourceFileName() {
+        return SOURCE_FILE_NAME;
+    }
+
+    @Override
+    public List<String> getCompileOptions() {
+        return COMPILE_OPTIONS;
+    }
+
+    @Override
+    public List<String> getBlackList() {
+        return BLACK_LIST;
+    }
+
+    @Override
+    public CompileResult compile(String code) {
+        byte[] source = code.getBytes(StandardCharsets.UTF_8);
+        Workspace workspace = null;
+        try {
+            workspace = workspacePool.acquire();
+            File sourceFile = workspace.write(SOURCE_FILE_NAME, source);
+            ExecuteMessage executeMessage = forkServerPool.execute(ForkServer.MODE_PYTHON_COMPILE, sourceFile, new String[0],
+                    null, TIME_LIMIT, ProcessUtils.DEFAULT_OUTPUT_LIMIT, MEMORY_LIMIT, null);
+            if (JudgeInfoMessageEnum.SYSTEM_ERROR.getValue().equals(executeMessage.getErrorMessage())) {
+                //fork服务异常，不是源码的问题，不进入缓存
+                return new CompileResult(executeMessage, null);
+            }
+            if (executeMessage.getExitValue() != 0) {
+                executeMessage.setExitValue(1);
+                executeMessage.setMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getText() + "\n" + executeMessage.getErrorMessage());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.COMPILE_ERROR.getValue());
+                return new CompileResult(executeMessage, null);
+            }
+            executeMessage.setMessage(null);
+            return new CompileResult(executeMessage, Collections.singletonMap(SOURCE_FILE_NAME, source));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("语法检查被中断", e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            if (workspace != null) {
+                workspace.close();
+            }
+        }
+    }
+
+    @Override
+    public ExecuteMessage run(File workDir, String[] args, File stdin, OutputChecker checker) {
+        try {
+            return forkServerPool.execute(forkServerPool.userMode(ForkServer.MODE_PYTHON), new File(workDir, SOURCE_FILE_NAME), args,
+                    stdin, TIME_LIMIT, ProcessUtils.DEFAULT_OUTPUT_LIMIT, MEMORY_LIMIT, checker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("执行被中断", e);
+        }
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return TIME_LIMIT;
+    }
+
+    @Override
+    public long getMemoryLimit() {
+        return MEMORY_LIMIT;
+    }
+}
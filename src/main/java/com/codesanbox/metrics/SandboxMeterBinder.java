@@ -0,0 +1,160 @@
+package com.codesanbox.metrics;
+
+import com.codesanbox.cgroup.CgroupPool;
+import com.codesanbox.compiler.CompileCache;
+import com.codesanbox.dataset.TestDataStore;
+import com.codesanbox.docker.ContainerPool;
+import com.codesanbox.model.QueueStats;
+import com.codesanbox.runner.ForkServerPool;
+import com.codesanbox.runner.JvmRunnerPool;
+import com.codesanbox.scheduler.ProcessWatchdog;
+import com.codesanbox.scheduler.TestCaseScheduler;
+import com.codesanbox.service.AsyncExecuteService;
+import com.codesanbox.workspace.WorkspacePool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 沙箱共享组件的状态指标：执行中的进程、调度器和异步队列深度、各池的占用、工作目录、编译缓存、测试数据映射缓存
+ * 在抓取指标时读取，不影响执行路径
+ */
+public class SandboxMeterBinder implements MeterBinder {
+
+    private final TestCaseScheduler testCaseScheduler;
+
+    //异步服务经路由依赖各沙箱，沙箱又依赖指标注册表，这里延迟获取避免循环依赖
+    private final ObjectProvider<AsyncExecuteService> asyncExecuteServiceProvider;
+
+    private final CompileCache compileCache;
+
+    private final TestDataStore testDataStore;
+
+    private final JvmRunnerPool jvmRunnerPool;
+
+    private final ForkServerPool forkServerPool;
+
+    //未开启容器池时为空
+    private final ContainerPool containerPool;
+
+    //未开启cgroup时为空
+    private final CgroupPool cgroupPool;
+
+    private final WorkspacePool workspacePool;
+
+    public SandboxMeterBinder(TestCaseScheduler testCaseScheduler, ObjectProvider<AsyncExecuteService> asyncExecuteServiceProvider, CompileCache compileCache,
+                              TestDataStore testDataStore, JvmRunnerPool jvmRunnerPool, ForkServerPool forkServerPool, ContainerPool containerPool,
+                              CgroupPool cgroupPool, WorkspacePool workspacePool) {
+        this.testCaseScheduler = testCaseScheduler;
+        this.asyncExecuteServiceProvider = asyncExecuteServiceProvider;
+        this.compileCache = compileCache;
+        this.testDataStore = testDataStore;
+        this.jvmRunnerPool = jvmRunnerPool;
+        this.forkServerPool = forkServerPool;
+        this.containerPool = containerPool;
+        this.cgroupPool = cgroupPool;
+        this.workspacePool = workspacePool;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        //看门狗监控中的进程：原生执行的用户进程、运行器和fork服务中执行的任务、编译进程
+        Gauge.builder("sandbox.processes.inflight", ProcessWatchdog.getInstance(), ProcessWatchdog::getPendingCount)
+                .description("执行中的进程数")
+                .register(registry);
+
+        Gauge.builder("sandbox.scheduler.queue", testCaseScheduler, TestCaseScheduler::getQueueSize)
+                .description("等待调度的用例数")
+                .register(registry);
+        Gauge.builder("sandbox.scheduler.active", testCaseScheduler, TestCaseScheduler::getActiveCount)
+                .description("执行中的用例数")
+                .register(registry);
+        Gauge.builder("sandbox.scheduler.capacity", testCaseScheduler, TestCaseScheduler::getMaxConcurrency)
+                .register(registry);
+
+        Gauge.builder("sandbox.async.queue", asyncExecuteServiceProvider, provider -> asyncStat(provider, QueueStats::getQueueDepth))
+                .description("排队中的异步任务数")
+                .register(registry);
+        Gauge.builder("sandbox.async.running", asyncExecuteServiceProvider, provider -> asyncStat(provider, QueueStats::getRunningCount))
+                .description("执行中的异步任务数")
+                .register(registry);
+        FunctionCounter.builder("sandbox.async.rejected", asyncExecuteServiceProvider, provider -> asyncStat(provider, QueueStats::getRejectedCount))
+                .description("队列满被拒绝的异步任务数")
+                .register(registry);
+
+        if (jvmRunnerPool.isEnabled()) {
+            bindPool(registry, "jvm", jvmRunnerPool, JvmRunnerPool::getSize, JvmRunnerPool::getIdleCount);
+        }
+        if (forkServerPool.isEnabled()) {
+            bindPool(registry, "fork", forkServerPool, ForkServerPool::getSize, ForkServerPool::getIdleCount);
+        }
+        if (containerPool != null) {
+            bindPool(registry, "container", containerPool, ContainerPool::getSize, ContainerPool::getIdleCount);
+        }
+        if (cgroupPool != null && cgroupPool.isAvailable()) {
+            bindPool(registry, "cgroup", cgroupPool, CgroupPool::getSize, CgroupPool::getIdleCount);
+        }
+
+        //工作目录池的大小只是保持的空闲数量，借出的目录数随编译缓存变化，单独统计
+        Gauge.builder("sandbox.workspace.idle", workspacePool, WorkspacePool::getIdleCount)
+                .description("空闲的工作目录数")
+                .register(registry);
+        Gauge.builder("sandbox.workspace.bytes", workspacePool, WorkspacePool::getUsedBytes)
+                .description("工作目录中已写入的文件大小")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("sandbox.workspace.quota", workspacePool, WorkspacePool::getQuota)
+                .baseUnit("bytes")
+                .register(registry);
+
+        Gauge.builder("sandbox.compile.cache.size", compileCache, CompileCache::size)
+                .description("编译缓存条目数")
+                .register(registry);
+        Gauge.builder("sandbox.compile.cache.bytes", compileCache, CompileCache::getTotalBytes)
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("sandbox.compile.cache.requests", compileCache, CompileCache::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("sandbox.compile.cache.requests", compileCache, CompileCache::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("sandbox.compile.cache.evictions", compileCache, CompileCache::getEvictionCount)
+                .register(registry);
+
+        Gauge.builder("sandbox.dataset.mapped.files", testDataStore, TestDataStore::getMappedCount)
+                .description("缓存的测试数据映射文件数")
+                .register(registry);
+        Gauge.builder("sandbox.dataset.mapped.bytes", testDataStore, TestDataStore::getMappedBytes)
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("sandbox.dataset.mapped.requests", testDataStore, TestDataStore::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("sandbox.dataset.mapped.requests", testDataStore, TestDataStore::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("sandbox.dataset.mapped.evictions", testDataStore, TestDataStore::getEvictionCount)
+                .register(registry);
+    }
+
+    private static double asyncStat(ObjectProvider<AsyncExecuteService> provider, Function<QueueStats, Number> stat) {
+        AsyncExecuteService asyncExecuteService = provider.getIfAvailable();
+        return asyncExecuteService == null ? Double.NaN : stat.apply(asyncExecuteService.getQueueStats()).doubleValue();
+    }
+
+    //池的大小和空闲数量，占用 = 大小 - 空闲
+    private static <T> void bindPool(MeterRegistry registry, String pool, T target, ToDoubleFunction<T> size, ToDoubleFunction<T> idle) {
+        Gauge.builder("sandbox.pool.size", target, size)
+                .tag("pool", pool)
+                .register(registry);
+        Gauge.builder("sandbox.pool.idle", target, idle)
+                .tag("pool", pool)
+                .register(registry);
+    }
+}
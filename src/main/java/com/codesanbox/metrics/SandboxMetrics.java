@@ -0,0 +1,143 @@
+package com.codesanbox.metrics;
+
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 沙箱执行指标，通过Actuator暴露（/actuator/prometheus）
+ * 非Spring环境使用Micrometer的全局注册表，没有添加具体注册表时不记录任何数据
+ */
+public class SandboxMetrics {
+
+    public static final String PHASE_BLACKLIST = "blacklist";
+
+    public static final String PHASE_FILE_WRITE = "file_write";
+
+    public static final String PHASE_COMPILE = "compile";
+
+    public static final String PHASE_RUN = "run";
+
+    public static final String PHASE_AGGREGATE = "aggregate";
+
+    public static final String PHASE_CLEANUP = "cleanup";
+
+    private static final SandboxMetrics DEFAULT = new SandboxMetrics(Metrics.globalRegistry);
+
+    private final MeterRegistry meterRegistry;
+
+    //按名称和标签缓存，热路径上不再重复构造Meter.Id
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> caseTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, DistributionSummary> caseMemories = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> startupTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> verdictCounters = new ConcurrentHashMap<>();
+
+    public SandboxMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static SandboxMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     *
+     * @param phase     阶段，见 PHASE_*
+     * @param language  语言
+     * @param startTime 阶段开始时的 System.nanoTime()
+     */
+    public void recordPhase(String phase, String language, long startTime) {
+        long duration = System.nanoTime() - startTime;
+        phaseTimers.computeIfAbsent(phase + '|' + language, key -> Timer.builder("sandbox.phase")
+                .description("代码沙箱各阶段耗时")
+                .tag("phase", phase)
+                .tag("language", language)
+                .register(meterRegistry))
+                .record(duration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 包装编译函数，只有未命中编译缓存、实际编译时才记录
+     */
+    public <R> Function<String, R> timedCompile(String language, Function<String, R> compiler) {
+        return code -> {
+            long startTime = System.nanoTime();
+            try {
+                return compiler.apply(code);
+            } finally {
+                recordPhase(PHASE_COMPILE, language, startTime);
+            }
+        };
+    }
+
+    /**
+     * 记录单个用例的运行时间、峰值内存和JVM启动耗时
+     */
+    public void recordCase(String language, ExecuteMessage executeMessage) {
+        String verdict = verdictOf(executeMessage.getErrorMessage());
+        String key = language + '|' + verdict;
+        if (executeMessage.getTime() != null) {
+            caseTimers.computeIfAbsent(key, k -> Timer.builder("sandbox.case")
+                    .description("单个用例的运行时间（不含进程启动）")
+                    .tag("language", language)
+                    .tag("verdict", verdict)
+                    .register(meterRegistry))
+                    .record(executeMessage.getTime(), TimeUnit.MILLISECONDS);
+        }
+        if (executeMessage.getMemory() != null) {
+            caseMemories.computeIfAbsent(key, k -> DistributionSummary.builder("sandbox.case.memory")
+                    .description("单个用例的峰值内存")
+                    .baseUnit("kilobytes")
+                    .tag("language", language)
+                    .tag("verdict", verdict)
+                    .register(meterRegistry))
+                    .record(executeMessage.getMemory());
+        }
+        if (executeMessage.getStartupTime() != null) {
+            startupTimers.computeIfAbsent(language, k -> Timer.builder("sandbox.case.startup")
+                    .description("单个用例从启动进程到调用main的时间")
+                    .tag("language", language)
+                    .register(meterRegistry))
+                    .record(executeMessage.getStartupTime(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 记录提交的判题结果
+     *
+     * @param judgeMessage JudgeInfo.message，通过时为空
+     */
+    public void recordVerdict(String language, String judgeMessage) {
+        String verdict = verdictOf(judgeMessage);
+        verdictCounters.computeIfAbsent(language + '|' + verdict, key -> Counter.builder("sandbox.verdict")
+                .description("按判题结果统计的提交数")
+                .tag("language", language)
+                .tag("verdict", verdict)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    //判题信息 -> 枚举名，没有错误为ACCEPTED
+    private static String verdictOf(String judgeMessage) {
+        if (judgeMessage == null || judgeMessage.isEmpty()) {
+            return JudgeInfoMessageEnum.ACCEPTED.name();
+        }
+        JudgeInfoMessageEnum judgeInfoMessageEnum = JudgeInfoMessageEnum.getEnumByValue(judgeMessage);
+        return judgeInfoMessageEnum == null ? JudgeInfoMessageEnum.SYSTEM_ERROR.name() : judgeInfoMessageEnum.name();
+    }
+}
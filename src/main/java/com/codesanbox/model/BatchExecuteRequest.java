@@ -0,0 +1,26 @@
+package com.codesanbox.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量执行请求（重判），两种用法二选一：
+ * 1. requests：多个独立的执行请求
+ * 2. code + language + inputList：同一份代码执行大量输入，按 chunkSize 拆分成多个提交
+ */
+@Data
+public class BatchExecuteRequest {
+    private List<ExecuteCodeRequest> requests;
+    private String code;
+    private String language;
+    private List<String> inputList;
+    //输入方式，见 ExecuteCodeRequest.inputMode
+    private String inputMode;
+    //期望输出，与inputList一起拆分，见 ExecuteCodeRequest.expectedOutputList
+    private List<String> expectedOutputList;
+    private String checker;
+    private Double epsilon;
+    //每个拆分提交的用例数，为空时使用配置的默认值
+    private Integer chunkSize;
+}
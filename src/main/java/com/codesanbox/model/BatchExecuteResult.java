@@ -0,0 +1,17 @@
+package com.codesanbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//批量执行中单个提交的结果，按完成顺序逐行返回
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchExecuteResult {
+    //requests中的下标；同一代码拆分执行时为拆分后的序号
+    private Integer index;
+    //同一代码拆分执行时，第一个用例在inputList中的下标
+    private Integer offset;
+    private ExecuteCodeResponse response;
+}
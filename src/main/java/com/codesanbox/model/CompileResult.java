@@ -0,0 +1,22 @@
+package com.codesanbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+//编译结果：编译信息 + 内存中的字节码
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompileResult {
+    //编译信息，沿用ExecuteMessage的编译错误约定
+    private ExecuteMessage executeMessage;
+    //类名 -> 字节码，编译失败时为空
+    private Map<String, byte[]> classBytes;
+
+    public boolean isSuccess() {
+        return executeMessage != null && executeMessage.getErrorMessage() == null;
+    }
+}
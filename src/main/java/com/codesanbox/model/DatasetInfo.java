@@ -0,0 +1,21 @@
+package com.codesanbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//测试数据信息
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetInfo {
+    //测试数据id（通常为题目id）
+    private String datasetId;
+    private String version;
+    //用例数
+    private Integer caseCount;
+    //是否包含期望输出
+    private Boolean expectedOutput;
+    //输入和期望输出的总字节数
+    private Long totalBytes;
+}
@@ -0,0 +1,18 @@
+package com.codesanbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//上传测试数据
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetUploadRequest {
+    //输入用例
+    private List<String> inputList;
+    //期望输出，与inputList一一对应，可为空
+    private List<String> expectedOutputList;
+}
@@ -17,4 +17,24 @@ public class ExecuteCodeRequest {
     //代码
     private String code;
     private String language;
+    //输入方式：args（默认，按空白拆分为main参数）或 stdin（原样作为标准输入）
+    private String inputMode;
+    //期望输出，与inputList一一对应；不为空时在沙箱内比对，只返回判题结果和差异摘要
+    private List<String> expectedOutputList;
+    //比对方式：exact（默认）、whitespace、float
+    private String checker;
+    //float比对的误差，默认1e-6
+    private Double epsilon;
+    //测试数据id（通常为题目id），不为空时使用已上传的测试数据代替inputList和expectedOutputList
+    private String datasetId;
+    //测试数据版本
+    private String datasetVersion;
+
+    public ExecuteCodeRequest(List<String> inputList, String code, String language) {
+        this(inputList, code, language, null);
+    }
+
+    public ExecuteCodeRequest(List<String> inputList, String code, String language, String inputMode) {
+        this(inputList, code, language, inputMode, null, null, null, null, null);
+    }
 }
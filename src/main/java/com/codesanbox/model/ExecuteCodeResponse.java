@@ -17,4 +17,6 @@ public class ExecuteCodeResponse {
     private Integer status;
     //接口信息
     private String message;
+    //各阶段耗时，沙箱内部出错时为空
+    private PhaseTimings phaseTimings;
 }
@@ -0,0 +1,18 @@
+package com.codesanbox.model;
+
+import lombok.Data;
+
+//异步执行任务
+@Data
+public class ExecuteJob {
+    private String jobId;
+    //0 - 排队中、1 - 执行中、2 - 成功、3 - 失败，同 QuestionSubmitStatusEnum
+    private Integer status;
+    //执行结果，完成前为空
+    private ExecuteCodeResponse response;
+    private Long submitTime;
+    private Long startTime;
+    private Long finishTime;
+    //排队等待时间（ms）
+    private Long waitTime;
+}
@@ -7,6 +7,14 @@ public class ExecuteMessage {
     private Integer exitValue;
     private String message;
     private String errorMessage;
+    //运行时间（ms），不包含JVM启动
     private Long time;
+    //用户态 + 内核态CPU时间（ms）
+    private Long cpuTime;
+    //峰值内存（KB）
     private Long memory;
+    //JVM启动耗时（ms），从启动进程到调用用户程序的main，常驻运行器和其他语言为空
+    private Long startupTime;
+    //在调度器中等待执行的时间（μs）
+    private Long queueTime;
 }
@@ -13,4 +13,8 @@ public class JudgeInfo {
     private String message;
     private Long time;
     private Long memory;
+    //CPU时间（ms）
+    private Long cpuTime;
+    //JVM启动耗时（ms），各用例中的最大值，不计入time
+    private Long startupTime;
 }
@@ -0,0 +1,18 @@
+package com.codesanbox.model;
+
+import lombok.Data;
+
+/**
+ * 一次提交在沙箱内各阶段的耗时（μs），供压测和排查使用，各阶段互不重叠
+ */
+@Data
+public class PhaseTimings {
+    //从提交用例到第一个用例开始执行，等待调度器空闲位置的时间
+    private Long queue;
+    //黑名单检测 + 编译（命中编译缓存时只有查找缓存的时间）
+    private Long compile;
+    //执行全部用例，不含排队时间
+    private Long run;
+    //汇总结果、释放编译缓存条目
+    private Long cleanup;
+}
@@ -0,0 +1,21 @@
+package com.codesanbox.model;
+
+import lombok.Data;
+
+//异步执行队列状态
+@Data
+public class QueueStats {
+    //排队中的任务数
+    private Integer queueDepth;
+    private Integer queueCapacity;
+    //执行中的任务数
+    private Integer runningCount;
+    //队首任务已等待的时间（ms）
+    private Long oldestWaitTime;
+    //已开始执行的任务的平均/最大排队时间（ms）
+    private Long averageWaitTime;
+    private Long maxWaitTime;
+    private Long completedCount;
+    //队列满被拒绝的任务数
+    private Long rejectedCount;
+}
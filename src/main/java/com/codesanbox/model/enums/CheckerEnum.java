@@ -0,0 +1,70 @@
+package com.codesanbox.model.enums;
+
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 输出比对方式
+ * exact：逐字符比较，只忽略换行符（\r\n）差异和末尾的空行，仅空白不同时为格式错误
+ * whitespace：按空白拆分后逐个比较
+ * float：按空白拆分，数值在误差范围内即视为相同
+ */
+public enum CheckerEnum
+{
+    EXACT("精确比较", "exact"), WHITESPACE("忽略空白", "whitespace"), FLOAT("浮点误差", "float");
+
+    private final String text;
+
+    private final String value;
+
+    CheckerEnum(String text, String value)
+    {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues()
+    {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static CheckerEnum getEnumByValue(String value)
+    {
+        if (ObjectUtils.isEmpty(value))
+        {
+            return null;
+        }
+        for (CheckerEnum anEnum : CheckerEnum.values())
+        {
+            if (anEnum.value.equals(value))
+            {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue()
+    {
+        return value;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+}
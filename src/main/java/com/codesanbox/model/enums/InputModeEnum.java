@@ -0,0 +1,69 @@
+package com.codesanbox.model.enums;
+
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 用例输入方式
+ * args：按空白拆分后作为main参数（默认，受命令行长度限制）
+ * stdin：原样作为标准输入，适合大输入
+ */
+public enum InputModeEnum
+{
+    ARGS("命令行参数", "args"), STDIN("标准输入", "stdin");
+
+    private final String text;
+
+    private final String value;
+
+    InputModeEnum(String text, String value)
+    {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues()
+    {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static InputModeEnum getEnumByValue(String value)
+    {
+        if (ObjectUtils.isEmpty(value))
+        {
+            return null;
+        }
+        for (InputModeEnum anEnum : InputModeEnum.values())
+        {
+            if (anEnum.value.equals(value))
+            {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue()
+    {
+        return value;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+}
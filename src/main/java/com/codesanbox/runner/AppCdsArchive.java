@@ -0,0 +1,158 @@
+package com.codesanbox.runner;
+
+import cn.hutool.core.io.FileUtil;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.scheduler.ProcessWatchdog;
+import com.codesanbox.util.ProcessUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 启动器的AppCDS动态归档
+ * 每个用例启动一个JVM时，大部分时间花在加载、解析和校验类上；启动时用预热程序 {@link CdsWarmup} 跑一遍启动器，
+ * 退出时把加载过的类（启动器本身、常用集合、输入输出、lambda等）写入归档，用户程序启动时直接映射
+ * 归档要求生成时的classpath是运行时classpath的前缀且不含非空目录，所以启动器打包为jar放在最前，代码目录追加在后
+ * 需要JDK 13及以上，不支持或校验失败时不可用，用户程序照常使用JDK默认的CDS启动
+ */
+@Slf4j
+public class AppCdsArchive {
+
+    public static final String JAR_NAME = "launcher.jar";
+
+    public static final String ARCHIVE_NAME = "launcher.jsa";
+
+    //生成、校验归档各自的最长时间（ms）
+    private static final long DUMP_TIMEOUT = 60000;
+
+    @Getter
+    private final boolean enabled;
+
+    private final String javaCommand;
+
+    //生成归档和使用归档的JVM参数需要一致
+    private final List<String> jvmOptions;
+
+    private final File jar;
+
+    private final File archive;
+
+    private final ExecutorService dumper = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "app-cds-dumper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean available;
+
+    //生成并校验归档的耗时（ms），未生成为-1
+    @Getter
+    private volatile long dumpTime = -1;
+
+    /**
+     * @param javaCommand 与运行用户程序相同的java命令
+     * @param jvmOptions  运行用户程序的JVM参数
+     * @param dir         jar和归档所在目录
+     */
+    public AppCdsArchive(boolean enabled, String javaCommand, List<String> jvmOptions, File dir) {
+        this.enabled = enabled;
+        this.javaCommand = javaCommand;
+        this.jvmOptions = jvmOptions;
+        this.jar = new File(dir, JAR_NAME);
+        this.archive = new File(dir, ARCHIVE_NAME);
+    }
+
+    /**
+     * 在后台生成归档，完成前用户程序不使用归档
+     */
+    public void start() {
+        if (enabled) {
+            dumper.execute(this::dump);
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * 使用归档时的classpath：启动器jar在前，与生成归档时一致
+     *
+     * @param codeDir 用户代码目录
+     */
+    public String classpath(String codeDir) {
+        return jar.getAbsolutePath() + File.pathSeparator + codeDir;
+    }
+
+    /**
+     * 使用归档的JVM参数
+     * 归档与classpath或JVM参数不匹配时JVM退回默认CDS，并把警告打印到标准输出，这里关闭cds日志，避免混入用户输出
+     */
+    public List<String> archiveOptions() {
+        return Arrays.asList("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xlog:cds=off", "-Xlog:cds+dynamic=off");
+    }
+
+    public void shutdown() {
+        dumper.shutdownNow();
+    }
+
+    private void dump() {
+        long start = System.currentTimeMillis();
+        File tempArchive = new File(archive.getParentFile(), ARCHIVE_NAME + ".tmp");
+        File reportFile = new File(archive.getParentFile(), "cds-warmup.measure");
+        try {
+            RunnerClasses.writeJar(jar);
+            FileUtil.del(tempArchive);
+            runWarmup("-XX:ArchiveClassesAtExit=" + tempArchive.getAbsolutePath(), jar.getAbsolutePath(), reportFile);
+            if (!tempArchive.isFile()) {
+                throw new IOException("JVM未生成归档");
+            }
+            FileUtil.move(tempArchive, archive, true);
+            archive.setWritable(false, false);
+            //-Xshare:on 时归档无法使用会直接报错，确认追加代码目录后仍然可用
+            runWarmup("-Xshare:on", classpath(archive.getParent()), reportFile, archiveOptions().get(0));
+            dumpTime = System.currentTimeMillis() - start;
+            available = true;
+            log.info("AppCDS归档已生成：{}，大小：{} bytes，耗时：{} ms", archive, archive.length(), dumpTime);
+        } catch (IOException e) {
+            log.warn("AppCDS归档不可用，用户程序使用JDK默认的CDS启动：{}", e.getMessage());
+            FileUtil.del(tempArchive);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            FileUtil.del(reportFile);
+        }
+    }
+
+    //通过启动器运行预热程序，输出不一致时认为失败
+    private void runWarmup(String option, String classpath, File reportFile, String... extraOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(javaCommand);
+        command.add(option);
+        command.addAll(Arrays.asList(extraOptions));
+        command.addAll(jvmOptions);
+        command.addAll(Arrays.asList("-cp", classpath, MeasuredLauncher.class.getName(), reportFile.getAbsolutePath(),
+                CdsWarmup.class.getName()));
+        Process process = new ProcessBuilder(command).start();
+        process.getOutputStream().close();
+        ExecuteMessage executeMessage;
+        try (ProcessWatchdog.Watch watch = ProcessWatchdog.getInstance().watch(process, DUMP_TIMEOUT)) {
+            executeMessage = ProcessUtils.runAndProcess(process, "生成AppCDS归档");
+            if (watch.isTimedOut()) {
+                throw new IOException("预热程序超时");
+            }
+        }
+        String output = executeMessage.getMessage() == null ? "" : executeMessage.getMessage().trim();
+        if (executeMessage.getExitValue() != 0 || !CdsWarmup.EXPECTED_OUTPUT.equals(output)) {
+            throw new IOException("预热程序执行失败，退出码：" + executeMessage.getExitValue() + "，输出："
+                    + output + (executeMessage.getErrorMessage() == null ? "" : executeMessage.getErrorMessage().trim()));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.codesanbox.runner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StreamTokenizer;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Scanner;
+import java.util.StringTokenizer;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * AppCDS归档的预热程序：由 {@link MeasuredLauncher} 启动，执行一遍判题程序常用的输入输出、集合、字符串格式化和lambda，
+ * 退出时这些类被写入归档（见 {@link AppCdsArchive}），用户程序启动时直接映射，不再解析和校验
+ * 只依赖JDK，输出固定为 {@link #EXPECTED_OUTPUT}，用于校验归档是否可用
+ */
+public class CdsWarmup {
+
+    static final String EXPECTED_OUTPUT = "6 3,2,1 20 1.73 1860867 2.50 [a, b]";
+
+    public static void main(String[] args) throws IOException {
+        //不从标准输入读取，只创建常用的读取器
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        Scanner scanner = new Scanner("1 2 3\nb a");
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            list.add(scanner.nextInt());
+        }
+        scanner.nextLine();
+        StringTokenizer tokenizer = new StringTokenizer(scanner.nextLine());
+        TreeSet<String> words = new TreeSet<>();
+        while (tokenizer.hasMoreTokens()) {
+            words.add(tokenizer.nextToken());
+        }
+        StreamTokenizer streamTokenizer = new StreamTokenizer(new BufferedReader(new StringReader("4")));
+        streamTokenizer.nextToken();
+        int[] array = {(int) streamTokenizer.nval, 2, 5};
+        Arrays.sort(array);
+        list.sort(Comparator.reverseOrder());
+        Map<Integer, Integer> counts = new HashMap<>();
+        TreeMap<Integer, Integer> sorted = new TreeMap<>();
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> a[0] - b[0]);
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        LinkedList<Integer> linked = new LinkedList<>(new HashSet<>(list));
+        for (int value : list) {
+            counts.merge(value, 1, Integer::sum);
+            sorted.put(value, array[value % array.length]);
+            queue.offer(new int[]{value, value});
+            deque.push(value);
+        }
+        int size = counts.size() + sorted.size() + queue.size() + deque.size() + linked.size();
+        StringBuilder builder = new StringBuilder();
+        builder.append(list.stream().mapToInt(Integer::intValue).sum()).append(' ')
+                .append(list.stream().map(String::valueOf).collect(Collectors.joining(","))).append(' ')
+                .append(IntStream.of(array).max().getAsInt() + size).append(' ')
+                .append(String.format("%.2f", Math.sqrt(3))).append(' ')
+                .append(new BigInteger("123").pow(3)).append(' ')
+                .append(new BigDecimal("1.25").multiply(BigDecimal.valueOf(2))).append(' ')
+                .append(words);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        out.println(builder);
+        out.flush();
+        reader.ready();
+    }
+}
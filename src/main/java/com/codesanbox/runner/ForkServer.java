@@ -0,0 +1,219 @@
+package com.codesanbox.runner;
+
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.scheduler.ProcessWatchdog;
+import com.codesanbox.util.OutputBuffer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 一个常驻fork服务进程的句柄（服务端），协议见 runner/fork_server.py
+ * 非线程安全，同一时间只能执行一个任务，由 {@link ForkServerPool} 负责分配
+ */
+@Slf4j
+public class ForkServer {
+
+    //在fork出的子进程中执行Python源码
+    public static final byte MODE_PYTHON = 0;
+
+    //在fork出的子进程中exec可执行文件
+    public static final byte MODE_EXEC = 1;
+
+    //只检查Python源码的语法
+    public static final byte MODE_PYTHON_COMPILE = 2;
+
+    //与模式组合：在新的mount、net、pid命名空间和只读的最小根目录中以nobody身份执行，并安装系统调用白名单（需要以root运行）
+    public static final byte FLAG_ISOLATED = 0x10;
+
+    //隔离环境建立失败（如服务不是以root运行、不能创建命名空间）时的退出码，错误输出以 ISOLATION_ERROR 开头；
+    //隔离后安装系统调用白名单或exec失败（没有执行权限、文件不存在等）时错误输出以 EXEC_ERROR 开头，带errno
+    private static final int ISOLATION_FAILED_EXIT = 126;
+
+    private static final String ISOLATION_ERROR = "隔离失败：";
+
+    private static final String EXEC_ERROR = "启动失败：";
+
+    //fork服务自身卡死时的兜底超时，在任务超时的基础上额外等待的时间（ms）
+    private static final long EXTRA_TIMEOUT = 2000;
+
+    private final Process process;
+
+    private final DataOutputStream request;
+
+    private final DataInputStream response;
+
+    @Getter
+    private int uses;
+
+    private boolean reusable = true;
+
+    private ForkServer(Process process) {
+        this.process = process;
+        this.request = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.response = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    /**
+     * 启动fork服务并等待其就绪
+     *
+     * @param pythonCommand python命令
+     * @param script        fork服务脚本
+     * @return 就绪的fork服务
+     */
+    public static ForkServer start(String pythonCommand, File script) throws IOException {
+        Process process = new ProcessBuilder(Arrays.asList(pythonCommand, "-u", script.getAbsolutePath()))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        ForkServer forkServer = new ForkServer(process);
+        try {
+            int ready = forkServer.response.readInt();
+            if (ready != SandboxRunner.READY) {
+                throw new IOException("fork服务握手失败：" + ready);
+            }
+        } catch (IOException e) {
+            forkServer.destroy();
+            throw e;
+        }
+        return forkServer;
+    }
+
+    /**
+     * 执行一次任务
+     *
+     * @param mode        执行模式，可以组合 FLAG_ISOLATED
+     * @param file        Python源文件或可执行文件
+     * @param args        参数
+     * @param stdin       标准输入文件，为null时没有输入
+     * @param timeout     超时时间（ms）
+     * @param outputLimit 单个输出流最多保留的字节数
+     * @param memoryLimit 地址空间上限（byte），0为不限制
+     * @param checker     输出比对器，为null时返回输出
+     * @param view        隔离执行时用户程序能看到的文件，不隔离时忽略
+     * @return 执行信息，失败时 exitValue 不为0
+     */
+    public ExecuteMessage run(byte mode, File file, String[] args, File stdin, long timeout, int outputLimit, long memoryLimit,
+                             OutputChecker checker, SandboxView view) {
+        uses++;
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        ProcessWatchdog.Watch watch = ProcessWatchdog.getInstance().watch(process, timeout + EXTRA_TIMEOUT);
+        try {
+            request.writeByte(mode);
+            writeBytes(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            request.writeInt(args.length);
+            for (String arg : args) {
+                writeBytes(arg.getBytes(StandardCharsets.UTF_8));
+            }
+            writeBytes(stdin == null ? new byte[0] : stdin.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            request.writeInt((int) timeout);
+            request.writeInt(outputLimit);
+            request.writeLong(memoryLimit);
+            writeView(view);
+            request.flush();
+
+            int exitValue = response.readInt();
+            long time = response.readLong();
+            long cpuTime = response.readLong();
+            long memory = response.readLong();
+            boolean timedOut = response.readBoolean();
+            boolean outputLimitExceeded = response.readBoolean();
+            boolean memoryLimitExceeded = response.readBoolean();
+            byte[] output = readBytes();
+            String errorOutput = readString();
+            executeMessage.setExitValue(exitValue);
+            executeMessage.setTime(time);
+            executeMessage.setCpuTime(cpuTime);
+            executeMessage.setMemory(memory);
+            if (timedOut) {
+                executeMessage.setExitValue(1);
+                executeMessage.setTime(timeout);
+                executeMessage.setMessage(JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getText());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getValue());
+            } else if (memoryLimitExceeded) {
+                executeMessage.setExitValue(1);
+                executeMessage.setMessage(JudgeInfoMessageEnum.MEMORY_LIMIT_EXCEEDED.getText());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.MEMORY_LIMIT_EXCEEDED.getValue());
+            } else if (outputLimitExceeded) {
+                executeMessage.setExitValue(1);
+                executeMessage.setMessage(JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getText());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getValue());
+            } else if ((mode & FLAG_ISOLATED) != 0 && exitValue == ISOLATION_FAILED_EXIT
+                    && (errorOutput.startsWith(ISOLATION_ERROR) || errorOutput.startsWith(EXEC_ERROR))) {
+                executeMessage.setExitValue(1);
+                executeMessage.setMessage(errorOutput);
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            } else if (exitValue != 0) {
+                executeMessage.setMessage(OutputBuffer.toText(output, 0, output.length));
+                executeMessage.setErrorMessage(errorOutput);
+            } else if (checker != null) {
+                //输出已由fork服务限制了大小，直接按字节比对，不再转换为字符串
+                checker.feed(output, 0, output.length);
+                checker.applyTo(executeMessage);
+            } else {
+                executeMessage.setMessage(OutputBuffer.toText(output, 0, output.length));
+            }
+        } catch (IOException e) {
+            reusable = false;
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage("fork服务异常退出：" + e.getMessage());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+        } finally {
+            watch.close();
+        }
+        return executeMessage;
+    }
+
+    public boolean isReusable(int maxUses) {
+        return reusable && uses < maxUses && process.isAlive();
+    }
+
+    public void destroy() {
+        try {
+            request.close();
+        } catch (IOException e) {
+            log.debug("关闭fork服务输入流失败", e);
+        }
+        process.destroyForcibly();
+    }
+
+    //标准输入由fork服务打开后交给用户程序，不需要出现在挂载中
+    private void writeView(SandboxView view) throws IOException {
+        writeBytes(view.getWorkDir().getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+        request.writeInt(view.getReadOnlyPaths().size() + view.getWritablePaths().size());
+        for (File path : view.getReadOnlyPaths()) {
+            writeBytes(path.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            request.writeBoolean(false);
+        }
+        for (File path : view.getWritablePaths()) {
+            writeBytes(path.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            request.writeBoolean(true);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        request.writeInt(bytes.length);
+        request.write(bytes);
+    }
+
+    private byte[] readBytes() throws IOException {
+        byte[] bytes = new byte[response.readInt()];
+        response.readFully(bytes);
+        return bytes;
+    }
+
+    //与 ProcessUtils 一致：统一换行符，去掉末尾换行
+    private String readString() throws IOException {
+        byte[] bytes = readBytes();
+        return OutputBuffer.toText(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,198 @@
+package com.codesanbox.runner;
+
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常驻fork服务池，执行Python源码和编译好的C/C++程序，不经过JVM
+ * 每个任务在fork服务中fork子进程执行，服务进程本身保持干净，达到最大使用次数或异常后销毁并异步补充
+ * 开启隔离后用户程序在命名空间 + 最小根目录 + seccomp白名单中以nobody身份执行（见 fork_server.py），Java用例也改由fork服务启动；
+ * 启动时先隔离执行一次 /bin/true，不可用（没有python3、不是root等）时关闭隔离并告警
+ */
+@Slf4j
+public class ForkServerPool {
+
+    public static final String SCRIPT_NAME = "fork_server.py";
+
+    //启动时探测隔离是否可用的程序
+    private static final File PROBE_PROGRAM = new File("/bin/true");
+
+    private static final long PROBE_TIMEOUT = 5000;
+
+    @Getter
+    private final boolean enabled;
+
+    @Getter
+    private final int size;
+
+    private final int maxUses;
+
+    //用户程序是否隔离执行，编译等服务端自己的命令不受影响；隔离不可用时启动后为false
+    @Getter
+    private volatile boolean isolated;
+
+    //等待空闲fork服务的最长时间（ms）
+    private final long acquireTimeout;
+
+    private final String pythonCommand;
+
+    private final File script;
+
+    private final BlockingQueue<ForkServer> idleServers = new LinkedBlockingQueue<>();
+
+    //运行中 + 空闲 + 启动中的fork服务数量
+    private final AtomicInteger serverCount = new AtomicInteger();
+
+    private final ExecutorService starter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "fork-server-starter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean closed;
+
+    public ForkServerPool(boolean enabled, int size, int maxUses, long acquireTimeout, String pythonCommand, File scriptDir) {
+        this(enabled, size, maxUses, false, acquireTimeout, pythonCommand, scriptDir);
+    }
+
+    public ForkServerPool(boolean enabled, int size, int maxUses, boolean isolated, long acquireTimeout, String pythonCommand, File scriptDir) {
+        this.enabled = enabled;
+        this.size = size;
+        this.maxUses = maxUses;
+        this.isolated = isolated;
+        this.acquireTimeout = acquireTimeout;
+        this.pythonCommand = pythonCommand;
+        this.script = new File(scriptDir, SCRIPT_NAME);
+    }
+
+    /**
+     * 写出fork服务脚本并在后台预启动，开启隔离时探测是否可用
+     */
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        RunnerClasses.extractResource(script.getParentFile(), "runner/" + SCRIPT_NAME);
+        for (int i = 0; i < size; i++) {
+            replenish();
+        }
+        if (isolated) {
+            String failure = probeIsolation();
+            if (failure != null) {
+                isolated = false;
+                log.warn("隔离执行不可用，已关闭（Java改用运行器池执行，不提供Python、C/C++）：{}", failure);
+            }
+        }
+        log.info("fork服务池启动，大小：{}，单个服务最多执行：{} 次，隔离执行：{}", size, maxUses, isolated);
+    }
+
+    /**
+     * 执行用户程序使用的模式：开启隔离时加上 {@link ForkServer#FLAG_ISOLATED}
+     */
+    public byte userMode(byte mode) {
+        return isolated ? (byte) (mode | ForkServer.FLAG_ISOLATED) : mode;
+    }
+
+    /**
+     * 借用一个fork服务执行任务，隔离执行时用户程序只能看到文件所在的目录（只读）
+     */
+    public ExecuteMessage execute(byte mode, File file, String[] args, File stdin, long timeout, int outputLimit, long memoryLimit, OutputChecker checker)
+            throws InterruptedException {
+        return execute(mode, file, args, stdin, timeout, outputLimit, memoryLimit, checker, SandboxView.of(file.getAbsoluteFile().getParentFile()));
+    }
+
+    /**
+     * 借用一个fork服务执行任务，参数见 {@link ForkServer#run}
+     */
+    public ExecuteMessage execute(byte mode, File file, String[] args, File stdin, long timeout, int outputLimit, long memoryLimit,
+                                  OutputChecker checker, SandboxView view) throws InterruptedException {
+        if (!enabled) {
+            throw new IllegalStateException("fork服务池未开启");
+        }
+        if (serverCount.get() < size) {
+            replenish();
+        }
+        ForkServer forkServer = idleServers.poll(acquireTimeout, TimeUnit.MILLISECONDS);
+        if (forkServer == null) {
+            throw new IllegalStateException("等待空闲fork服务超时");
+        }
+        ExecuteMessage executeMessage;
+        try {
+            executeMessage = forkServer.run(mode, file, args, stdin, timeout, outputLimit, memoryLimit, checker, view);
+        } catch (RuntimeException e) {
+            recycle(forkServer);
+            throw e;
+        }
+        if (forkServer.isReusable(maxUses) && !closed) {
+            idleServers.offer(forkServer);
+        } else {
+            recycle(forkServer);
+        }
+        return executeMessage;
+    }
+
+    public int getIdleCount() {
+        return idleServers.size();
+    }
+
+    public void shutdown() {
+        closed = true;
+        starter.shutdownNow();
+        ForkServer forkServer;
+        while ((forkServer = idleServers.poll()) != null) {
+            forkServer.destroy();
+        }
+    }
+
+    //隔离执行 /bin/true，成功时返回null，否则返回原因
+    private String probeIsolation() {
+        try {
+            ExecuteMessage executeMessage = execute(userMode(ForkServer.MODE_EXEC), PROBE_PROGRAM, new String[0], null,
+                    PROBE_TIMEOUT, 1 << 16, 0, null);
+            if (Integer.valueOf(0).equals(executeMessage.getExitValue())
+                    && !JudgeInfoMessageEnum.SYSTEM_ERROR.getValue().equals(executeMessage.getErrorMessage())) {
+                return null;
+            }
+            return executeMessage.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "探测被中断";
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void recycle(ForkServer forkServer) {
+        log.debug("回收fork服务，已执行：{} 次", forkServer.getUses());
+        forkServer.destroy();
+        serverCount.decrementAndGet();
+        replenish();
+    }
+
+    private void replenish() {
+        if (closed || serverCount.incrementAndGet() > size) {
+            serverCount.decrementAndGet();
+            return;
+        }
+        starter.execute(() -> {
+            try {
+                idleServers.offer(ForkServer.start(pythonCommand, script));
+            } catch (IOException e) {
+                log.error("启动fork服务失败", e);
+                serverCount.decrementAndGet();
+            }
+        });
+    }
+}
@@ -0,0 +1,204 @@
+package com.codesanbox.runner;
+
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.scheduler.ProcessWatchdog;
+import com.codesanbox.util.OutputBuffer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个常驻运行器JVM进程的句柄（服务端）
+ * 非线程安全，同一时间只能由一个提交占用，由 {@link JvmRunnerPool} 负责分配
+ */
+@Slf4j
+public class JvmRunner {
+
+    //用户程序调用System.exit后等待运行器进程退出的最长时间（ms）
+    private static final long EXIT_WAIT = 1000;
+
+    private final Process process;
+
+    private final DataOutputStream request;
+
+    private final DataInputStream response;
+
+    @Getter
+    private int uses;
+
+    //上一次执行后运行器是否还能继续使用
+    private boolean reusable = true;
+
+    private JvmRunner(Process process) {
+        this.process = process;
+        this.request = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.response = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    /**
+     * 启动运行器并等待其就绪
+     *
+     * @param javaCommand java命令
+     * @param jvmArgs     运行器JVM参数
+     * @param classpath   运行器类所在目录
+     * @return 就绪的运行器
+     */
+    public static JvmRunner start(String javaCommand, List<String> jvmArgs, File classpath) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(javaCommand);
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classpath.getAbsolutePath());
+        command.add(SandboxRunner.class.getName());
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        JvmRunner runner = new JvmRunner(process);
+        try {
+            int ready = runner.response.readInt();
+            if (ready != SandboxRunner.READY) {
+                throw new IOException("运行器握手失败：" + ready);
+            }
+        } catch (IOException e) {
+            runner.destroy();
+            throw e;
+        }
+        return runner;
+    }
+
+    /**
+     * 执行一次用户程序
+     *
+     * @param classBytes 类名 -> 字节码
+     * @param mainClass  主类
+     * @param args       main参数
+     * @param stdin      标准输入文件，为null时没有输入
+     * @param timeout    超时时间（ms），超时后强制结束运行器
+     * @param outputLimit 单个输出流最多保留的字节数
+     * @param checker    输出比对器，为null时返回输出
+     * @return 执行信息，失败时 exitValue 不为0
+     */
+    public ExecuteMessage run(Map<String, byte[]> classBytes, String mainClass, String[] args, File stdin, long timeout, int outputLimit, OutputChecker checker) {
+        uses++;
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        ProcessWatchdog.Watch watch = ProcessWatchdog.getInstance().watch(process, timeout);
+        try {
+            request.writeInt(classBytes.size());
+            for (Map.Entry<String, byte[]> entry : classBytes.entrySet()) {
+                request.writeUTF(entry.getKey());
+                request.writeInt(entry.getValue().length);
+                request.write(entry.getValue());
+            }
+            request.writeUTF(mainClass);
+            request.writeInt(args.length);
+            for (String arg : args) {
+                request.writeUTF(arg);
+            }
+            request.writeUTF(stdin == null ? "" : stdin.getAbsolutePath());
+            request.writeInt(outputLimit);
+            request.flush();
+
+            int exitValue = response.readInt();
+            long time = response.readLong();
+            long cpuTime = response.readLong();
+            long memory = response.readLong();
+            boolean outOfMemory = response.readBoolean();
+            reusable = response.readBoolean();
+            boolean outputLimitExceeded = response.readBoolean();
+            byte[] output = readBytes();
+            String errorOutput = readString();
+            if (exitValue == SandboxRunner.EXITED) {
+                exitValue = awaitExitValue();
+            }
+            executeMessage.setExitValue(exitValue);
+            executeMessage.setTime(time);
+            executeMessage.setCpuTime(cpuTime);
+            executeMessage.setMemory(memory);
+            if (outOfMemory) {
+                executeMessage.setExitValue(1);
+                executeMessage.setMessage(JudgeInfoMessageEnum.MEMORY_LIMIT_EXCEEDED.getText());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.MEMORY_LIMIT_EXCEEDED.getValue());
+            } else if (outputLimitExceeded) {
+                executeMessage.setExitValue(1);
+                executeMessage.setMessage(JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getText());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getValue());
+            } else if (exitValue != 0) {
+                executeMessage.setMessage(OutputBuffer.toText(output, 0, output.length));
+                executeMessage.setErrorMessage(errorOutput);
+            } else if (checker != null) {
+                //输出已由运行器限制了大小，直接按字节比对，不再转换为字符串
+                checker.feed(output, 0, output.length);
+                checker.applyTo(executeMessage);
+            } else {
+                executeMessage.setMessage(OutputBuffer.toText(output, 0, output.length));
+            }
+        } catch (IOException e) {
+            reusable = false;
+            executeMessage.setExitValue(1);
+            if (watch.isTimedOut()) {
+                executeMessage.setTime(timeout);
+                executeMessage.setMessage(JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getText());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.TIME_LIMIT_EXCEEDED.getValue());
+            } else {
+                executeMessage.setMessage("运行器异常退出：" + e.getMessage());
+                executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+            }
+        } finally {
+            watch.close();
+        }
+        //执行失败的运行器状态不可信，不再复用
+        if (executeMessage.getExitValue() != 0) {
+            reusable = false;
+        }
+        return executeMessage;
+    }
+
+    public boolean isReusable(int maxUses) {
+        return reusable && uses < maxUses && process.isAlive();
+    }
+
+    public void destroy() {
+        try {
+            request.close();
+        } catch (IOException e) {
+            log.debug("关闭运行器输入流失败", e);
+        }
+        process.destroyForcibly();
+    }
+
+    //用户程序调用System.exit时运行器在关闭钩子中响应，随后以用户指定的状态退出
+    private int awaitExitValue() throws IOException {
+        try {
+            if (process.waitFor(EXIT_WAIT, TimeUnit.MILLISECONDS)) {
+                return process.exitValue();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new IOException("调用System.exit后运行器未退出");
+    }
+
+    private byte[] readBytes() throws IOException {
+        byte[] bytes = new byte[response.readInt()];
+        response.readFully(bytes);
+        return bytes;
+    }
+
+    //与 ProcessUtils 一致：统一换行符，去掉末尾换行
+    private String readString() throws IOException {
+        byte[] bytes = readBytes();
+        return OutputBuffer.toText(bytes, 0, bytes.length);
+    }
+}
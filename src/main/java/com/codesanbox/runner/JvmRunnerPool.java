@@ -0,0 +1,151 @@
+package com.codesanbox.runner;
+
+import com.codesanbox.checker.OutputChecker;
+import com.codesanbox.model.ExecuteMessage;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常驻运行器JVM池
+ * 预先启动若干运行器，每个测试用例借用一个执行；运行器达到最大使用次数或执行失败后销毁并异步补充新的
+ */
+@Slf4j
+public class JvmRunnerPool {
+
+    @Getter
+    private final boolean enabled;
+
+    @Getter
+    private final int size;
+
+    private final int maxUses;
+
+    //等待空闲运行器的最长时间（ms）
+    private final long acquireTimeout;
+
+    private final String javaCommand;
+
+    private final List<String> jvmArgs;
+
+    private final File classpath;
+
+    private final BlockingQueue<JvmRunner> idleRunners = new LinkedBlockingQueue<>();
+
+    //运行中 + 空闲 + 启动中的运行器数量
+    private final AtomicInteger runnerCount = new AtomicInteger();
+
+    private final ExecutorService starter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "jvm-runner-starter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean closed;
+
+    public JvmRunnerPool(boolean enabled, int size, int maxUses, long acquireTimeout, String javaCommand, List<String> jvmArgs, File classpath) {
+        this.enabled = enabled;
+        this.size = size;
+        this.maxUses = maxUses;
+        this.acquireTimeout = acquireTimeout;
+        this.javaCommand = javaCommand;
+        this.jvmArgs = jvmArgs;
+        this.classpath = classpath;
+    }
+
+    /**
+     * 写出运行器类并在后台预启动运行器
+     */
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        RunnerClasses.extract(classpath);
+        for (int i = 0; i < size; i++) {
+            replenish();
+        }
+        log.info("运行器池启动，大小：{}，单个运行器最多执行：{} 次", size, maxUses);
+    }
+
+    /**
+     * 借用一个运行器执行用户程序，执行完归还或回收
+     *
+     * @param classBytes 类名 -> 字节码
+     * @param mainClass  主类
+     * @param args       main参数
+     * @param stdin      标准输入文件，为null时没有输入
+     * @param timeout    超时时间（ms）
+     * @param outputLimit 单个输出流最多保留的字节数
+     * @param checker    输出比对器，为null时返回输出
+     * @return 执行信息
+     */
+    public ExecuteMessage execute(Map<String, byte[]> classBytes, String mainClass, String[] args, File stdin, long timeout, int outputLimit, OutputChecker checker)
+            throws InterruptedException {
+        //之前启动失败的运行器在这里补上
+        if (runnerCount.get() < size) {
+            replenish();
+        }
+        JvmRunner runner = idleRunners.poll(acquireTimeout, TimeUnit.MILLISECONDS);
+        if (runner == null) {
+            throw new IllegalStateException("等待空闲运行器超时");
+        }
+        ExecuteMessage executeMessage;
+        try {
+            executeMessage = runner.run(classBytes, mainClass, args, stdin, timeout, outputLimit, checker);
+        } catch (RuntimeException e) {
+            recycle(runner);
+            throw e;
+        }
+        if (runner.isReusable(maxUses) && !closed) {
+            idleRunners.offer(runner);
+        } else {
+            recycle(runner);
+        }
+        return executeMessage;
+    }
+
+    public int getIdleCount() {
+        return idleRunners.size();
+    }
+
+    public void shutdown() {
+        closed = true;
+        starter.shutdownNow();
+        JvmRunner runner;
+        while ((runner = idleRunners.poll()) != null) {
+            runner.destroy();
+        }
+    }
+
+    private void recycle(JvmRunner runner) {
+        log.debug("回收运行器，已执行：{} 次", runner.getUses());
+        runner.destroy();
+        runnerCount.decrementAndGet();
+        replenish();
+    }
+
+    private void replenish() {
+        if (closed || runnerCount.incrementAndGet() > size) {
+            runnerCount.decrementAndGet();
+            return;
+        }
+        starter.execute(() -> {
+            try {
+                idleRunners.offer(JvmRunner.start(javaCommand, jvmArgs, classpath));
+            } catch (IOException e) {
+                log.error("启动运行器失败", e);
+                runnerCount.decrementAndGet();
+            }
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package com.codesanbox.runner;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 带测量的启动器：在用户程序所在的JVM中调用其main方法，退出时把测量结果写到报告文件
+ * 计时从JVM启动完成、调用main之前开始，不包含JVM启动本身；调用main的时刻一并写入报告，由服务端计算JVM启动耗时
+ * 只依赖JDK，和运行器一样由沙箱服务写到磁盘作为classpath
+ *
+ * 用法：java -cp 代码目录:运行器目录 com.codesanbox.runner.MeasuredLauncher 报告文件 主类 参数...
+ * 报告：运行耗时(ms) CPU时间(ms) 峰值内存(KB) 是否内存溢出 调用main的时刻(epoch ms)
+ */
+public class MeasuredLauncher {
+
+    //Linux下 /proc/[pid]/stat 的时间单位，几乎所有发行版都是100
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    private static volatile boolean outOfMemory;
+
+    private static volatile long start;
+
+    private static volatile long startCpuTime;
+
+    private static volatile long mainTime;
+
+    public static void main(String[] args) throws Exception {
+        String reportFile = args[0];
+        String[] mainArgs = new String[args.length - 2];
+        System.arraycopy(args, 2, mainArgs, 0, mainArgs.length);
+        //只加载不初始化，用户类的静态初始化计入运行时间
+        Method main = Class.forName(args[1], false, MeasuredLauncher.class.getClassLoader()).getMethod("main", String[].class);
+        //用户程序调用System.exit时也会执行；先注册钩子，避免其开销计入运行时间
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> report(reportFile)));
+        startCpuTime = readCpuTime();
+        mainTime = System.currentTimeMillis();
+        start = System.nanoTime();
+        try {
+            main.invoke(null, (Object) mainArgs);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OutOfMemoryError) {
+                outOfMemory = true;
+            }
+            //与直接运行 java Main 的输出和退出码保持一致
+            SandboxRunner.trimStackTrace(cause);
+            System.err.print("Exception in thread \"main\" ");
+            cause.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void report(String reportFile) {
+        long time = (System.nanoTime() - start) / 1000000;
+        long cpuTime = startCpuTime < 0 ? -1 : readCpuTime() - startCpuTime;
+        long memory = readPeakMemory();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), StandardCharsets.UTF_8)) {
+            writer.write(time + " " + cpuTime + " " + memory + " " + outOfMemory + " " + mainTime);
+        } catch (IOException e) {
+            //报告缺失时服务端退回到墙钟时间
+        }
+    }
+
+    //进程用户态 + 内核态CPU时间（ms），第14、15个字段，读取失败返回-1
+    private static long readCpuTime() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/stat"))) {
+            String stat = reader.readLine();
+            //进程名可能包含空格，从右括号之后开始切分，此时state是第0个字段
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            return ticks * 1000 / CLOCK_TICKS_PER_SECOND;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    //进程峰值常驻内存（KB），读取失败返回-1
+    private static long readPeakMemory() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring("VmHWM:".length()).replace("kB", "").trim());
+                }
+            }
+        } catch (Exception e) {
+            //非Linux环境
+        }
+        return -1;
+    }
+}
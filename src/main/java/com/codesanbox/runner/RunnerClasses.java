@@ -0,0 +1,96 @@
+package com.codesanbox.runner;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * 运行器、启动器需要单独写到磁盘的类（均只依赖JDK）和脚本，写出的目录作为用户JVM的classpath
+ * 写出的文件去掉所有人的写权限：隔离执行时该目录以只读方式出现在用户程序的根目录中，fork服务每次启动都会重新读取脚本
+ */
+public final class RunnerClasses {
+
+    private static final Class<?>[] CLASSES = {SandboxRunner.class, SandboxRunner.TaskClassLoader.class,
+            SandboxRunner.LimitedOutputStream.class, MeasuredLauncher.class, CdsWarmup.class};
+
+    //本次启动已写出过的目录
+    private static final Set<File> EXTRACTED = new HashSet<>();
+
+    private RunnerClasses() {
+    }
+
+    /**
+     * 写出运行器类，同一目录只写一次
+     *
+     * @param dir 目标目录
+     */
+    public static synchronized void extract(File dir) throws IOException {
+        if (EXTRACTED.contains(dir)) {
+            return;
+        }
+        for (Class<?> runnerClass : CLASSES) {
+            String resource = runnerClass.getName().replace('.', '/') + ".class";
+            try (InputStream inputStream = runnerClass.getClassLoader().getResourceAsStream(resource)) {
+                if (inputStream == null) {
+                    throw new IOException("找不到运行器类：" + resource);
+                }
+                writeReadOnly(IoUtil.readBytes(inputStream), new File(dir, resource));
+            }
+        }
+        EXTRACTED.add(dir);
+    }
+
+    /**
+     * 把运行器类打包为jar（AppCDS归档不支持classpath中非空的目录）
+     *
+     * @param jar 目标文件，已存在时覆盖
+     */
+    public static void writeJar(File jar) throws IOException {
+        FileUtil.mkParentDirs(jar);
+        FileUtil.del(jar);
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            for (Class<?> runnerClass : CLASSES) {
+                String resource = runnerClass.getName().replace('.', '/') + ".class";
+                try (InputStream inputStream = runnerClass.getClassLoader().getResourceAsStream(resource)) {
+                    if (inputStream == null) {
+                        throw new IOException("找不到运行器类：" + resource);
+                    }
+                    jarOutputStream.putNextEntry(new ZipEntry(resource));
+                    IoUtil.copy(inputStream, jarOutputStream);
+                    jarOutputStream.closeEntry();
+                }
+            }
+        }
+        jar.setWritable(false, false);
+    }
+
+    /**
+     * 写出classpath中的资源文件（如fork服务脚本），文件名不变
+     *
+     * @param dir      目标目录
+     * @param resource 资源路径
+     */
+    public static synchronized void extractResource(File dir, String resource) throws IOException {
+        try (InputStream inputStream = RunnerClasses.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IOException("找不到资源：" + resource);
+            }
+            writeReadOnly(IoUtil.readBytes(inputStream), new File(dir, FileUtil.getName(resource)));
+        }
+    }
+
+    //之前写出的文件已经只读，先删除再写
+    private static void writeReadOnly(byte[] bytes, File file) {
+        FileUtil.del(file);
+        FileUtil.writeBytes(bytes, file);
+        file.setWritable(false, false);
+    }
+}
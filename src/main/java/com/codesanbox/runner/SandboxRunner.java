@@ -0,0 +1,322 @@
+package com.codesanbox.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 常驻运行器：在预先启动的JVM中循环执行用户程序
+ * 通过标准输入输出与沙箱服务通信，每个任务使用独立的类加载器，运行完恢复标准流
+ * 只依赖JDK，沙箱服务会把本类单独写到磁盘作为运行器的classpath
+ *
+ * 请求：类数量，(类名, 字节码)...，主类名，参数个数，参数...，标准输入文件路径（空串为无输入），输出上限
+ * 响应：退出码，耗时(ms)，CPU时间(ms)，堆内存峰值(KB)，是否内存溢出，是否可复用，是否输出溢出，标准输出，错误输出
+ * 用户程序调用System.exit时由关闭钩子响应，退出码为 {@link #EXITED}，实际退出码由服务端从进程退出状态取得
+ *
+ * 运行器进程是常驻的，进程的峰值常驻内存会跨任务累积，所以内存按本任务期间的堆使用峰值统计：
+ * 任务开始前先GC回收之前任务留下的垃圾，再减去开始时仍在使用的堆（运行器自身），同一程序在新旧运行器上结果一致；
+ * CPU时间按执行main的线程统计
+ */
+public class SandboxRunner {
+
+    public static final int READY = 0x5EED;
+
+    //用户程序调用了System.exit，退出码以运行器进程的退出状态为准
+    public static final int EXITED = Integer.MIN_VALUE;
+
+    //常用类预加载，减少用户程序首次运行时的类加载
+    private static final String[] WARM_UP_CLASSES = {
+            "java.util.Scanner", "java.io.BufferedReader", "java.io.InputStreamReader", "java.io.StreamTokenizer",
+            "java.util.ArrayList", "java.util.HashMap", "java.util.TreeMap", "java.util.ArrayDeque",
+            "java.util.PriorityQueue", "java.util.Arrays", "java.util.Collections", "java.math.BigInteger",
+            "java.math.BigDecimal", "java.util.regex.Pattern", "java.util.Formatter"
+    };
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = new ArrayList<>();
+
+    private static DataOutputStream response;
+
+    //当前任务的输出缓冲，用户程序调用System.exit时由关闭钩子写回
+    private static LimitedOutputStream taskOut;
+
+    private static LimitedOutputStream taskErr;
+
+    private static long taskStart;
+
+    //执行任务的线程及其开始时的CPU时间(ns)
+    private static long taskThreadId;
+
+    private static long taskCpuStart;
+
+    //任务开始时各堆内存池已使用的字节数，统计峰值时扣除
+    private static long taskHeapBaseline;
+
+    private static volatile boolean taskOutOfMemory;
+
+    private static boolean responded = true;
+
+    public static void main(String[] args) throws IOException {
+        DataInputStream request = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        response = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        InputStream originalIn = System.in;
+        warmUp();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> respond(EXITED, false)));
+        int baselineThreads = Thread.activeCount();
+        synchronized (SandboxRunner.class) {
+            response.writeInt(READY);
+            response.flush();
+        }
+        while (true) {
+            Map<String, byte[]> classBytes;
+            String mainClass;
+            String[] mainArgs;
+            String stdin;
+            int outputLimit;
+            try {
+                int classCount = request.readInt();
+                classBytes = new HashMap<>(classCount * 2);
+                for (int i = 0; i < classCount; i++) {
+                    String name = request.readUTF();
+                    byte[] bytes = new byte[request.readInt()];
+                    request.readFully(bytes);
+                    classBytes.put(name, bytes);
+                }
+                mainClass = request.readUTF();
+                mainArgs = new String[request.readInt()];
+                for (int i = 0; i < mainArgs.length; i++) {
+                    mainArgs[i] = request.readUTF();
+                }
+                stdin = request.readUTF();
+                outputLimit = request.readInt();
+            } catch (EOFException e) {
+                //服务端关闭管道，正常退出
+                return;
+            }
+            int exitValue = runTask(classBytes, mainClass, mainArgs, stdin, outputLimit);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            System.setIn(originalIn);
+            //用户程序残留线程时不再复用
+            respond(exitValue, Thread.activeCount() <= baselineThreads);
+        }
+    }
+
+    private static int runTask(Map<String, byte[]> classBytes, String mainClass, String[] mainArgs, String stdin, int outputLimit) {
+        synchronized (SandboxRunner.class) {
+            taskOut = new LimitedOutputStream(outputLimit);
+            taskErr = new LimitedOutputStream(outputLimit);
+            //之前任务的垃圾不计入本任务
+            System.gc();
+            taskHeapBaseline = 0;
+            for (MemoryPoolMXBean pool : HEAP_POOLS) {
+                pool.resetPeakUsage();
+                taskHeapBaseline += pool.getUsage().getUsed();
+            }
+            taskThreadId = Thread.currentThread().getId();
+            taskCpuStart = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            taskOutOfMemory = false;
+            taskStart = System.currentTimeMillis();
+            responded = false;
+        }
+        PrintStream out = newPrintStream(taskOut);
+        PrintStream err = newPrintStream(taskErr);
+        System.setOut(out);
+        System.setErr(err);
+        int exitValue = 0;
+        InputStream in = null;
+        try {
+            //直接从输入文件读取，不经过运行器的请求管道
+            in = stdin.isEmpty() ? new ByteArrayInputStream(new byte[0]) : new BufferedInputStream(new FileInputStream(stdin));
+            System.setIn(in);
+            TaskClassLoader classLoader = new TaskClassLoader(classBytes);
+            Method main = classLoader.loadClass(mainClass).getMethod("main", String[].class);
+            main.invoke(null, (Object) mainArgs);
+        } catch (InvocationTargetException e) {
+            exitValue = 1;
+            Throwable cause = e.getCause();
+            if (cause instanceof OutOfMemoryError) {
+                taskOutOfMemory = true;
+            }
+            trimStackTrace(cause);
+            err.print("Exception in thread \"main\" ");
+            cause.printStackTrace(err);
+        } catch (Throwable e) {
+            exitValue = 1;
+            if (e instanceof OutOfMemoryError) {
+                taskOutOfMemory = true;
+            }
+            e.printStackTrace(err);
+        } finally {
+            closeQuietly(in);
+        }
+        out.flush();
+        err.flush();
+        return exitValue;
+    }
+
+    private static synchronized void respond(int exitValue, boolean reusable) {
+        if (responded) {
+            return;
+        }
+        responded = true;
+        try {
+            System.out.flush();
+            System.err.flush();
+            response.writeInt(exitValue);
+            response.writeLong(System.currentTimeMillis() - taskStart);
+            response.writeLong((THREAD_MX_BEAN.getThreadCpuTime(taskThreadId) - taskCpuStart) / 1000000);
+            response.writeLong(heapPeakUsage() / 1024);
+            response.writeBoolean(taskOutOfMemory);
+            response.writeBoolean(reusable);
+            response.writeBoolean(taskOut.exceeded || taskErr.exceeded);
+            writeBytes(taskOut);
+            writeBytes(taskErr);
+            response.flush();
+        } catch (IOException e) {
+            //服务端已断开，无需处理
+        }
+        taskOut = null;
+        taskErr = null;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            //忽略
+        }
+    }
+
+    //本任务期间各堆内存池峰值之和，扣除任务开始时已使用的部分
+    private static long heapPeakUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return Math.max(peak - taskHeapBaseline, 0);
+    }
+
+    private static void writeBytes(LimitedOutputStream bytes) throws IOException {
+        response.writeInt(bytes.size());
+        bytes.writeTo(response);
+    }
+
+    private static PrintStream newPrintStream(ByteArrayOutputStream outputStream) {
+        try {
+            return new PrintStream(outputStream, false, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //去掉运行器反射调用main的栈帧，与直接运行 java Main 的输出保持一致
+    static void trimStackTrace(Throwable throwable) {
+        StackTraceElement[] stackTrace = throwable.getStackTrace();
+        for (int i = 0; i < stackTrace.length; i++) {
+            String className = stackTrace[i].getClassName();
+            if (className.startsWith("sun.reflect.") || className.startsWith("jdk.internal.reflect.")
+                    || className.equals(Method.class.getName())) {
+                StackTraceElement[] userStackTrace = new StackTraceElement[i];
+                System.arraycopy(stackTrace, 0, userStackTrace, 0, i);
+                throwable.setStackTrace(userStackTrace);
+                return;
+            }
+        }
+    }
+
+    private static void warmUp() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                HEAP_POOLS.add(pool);
+            }
+        }
+        for (String className : WARM_UP_CLASSES) {
+            try {
+                Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                //忽略
+            }
+        }
+    }
+
+    /**
+     * 有上限的输出捕获，超过上限后抛出Error终止用户程序
+     */
+    static class LimitedOutputStream extends ByteArrayOutputStream {
+        private final int limit;
+
+        private volatile boolean exceeded;
+
+        LimitedOutputStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            checkLimit(1);
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            checkLimit(len);
+            super.write(b, off, len);
+        }
+
+        private void checkLimit(int length) {
+            if (count + length > limit) {
+                exceeded = true;
+                throw new Error("Output Limit Exceeded");
+            }
+        }
+    }
+
+    /**
+     * 每个任务一个类加载器，父加载器跳过应用类加载器，用户代码看不到运行器自身
+     * 任务结束后随加载器一起丢弃，静态变量不会带到下一个任务
+     */
+    static class TaskClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classBytes;
+
+        TaskClassLoader(Map<String, byte[]> classBytes) {
+            super(SandboxRunner.class.getClassLoader().getParent());
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classBytes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.codesanbox.runner;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 隔离执行时用户程序能看到的文件
+ * 除只读的系统目录（/usr、/etc等）外，新根目录中只有这里列出的路径，路径与宿主机相同；工作目录为用户程序的当前目录
+ */
+public class SandboxView {
+
+    @Getter
+    private final File workDir;
+
+    private final List<File> readOnlyPaths = new ArrayList<>();
+
+    private final List<File> writablePaths = new ArrayList<>();
+
+    private SandboxView(File workDir) {
+        this.workDir = workDir;
+    }
+
+    /**
+     * 只读挂载工作目录
+     */
+    public static SandboxView of(File workDir) {
+        return new SandboxView(workDir).readOnly(workDir);
+    }
+
+    public SandboxView readOnly(File path) {
+        readOnlyPaths.add(path);
+        return this;
+    }
+
+    /**
+     * 可写挂载，路径在只读目录中时（如代码目录中的测量报告）单独挂载为可写
+     */
+    public SandboxView writable(File path) {
+        writablePaths.add(path);
+        return this;
+    }
+
+    public List<File> getReadOnlyPaths() {
+        return Collections.unmodifiableList(readOnlyPaths);
+    }
+
+    public List<File> getWritablePaths() {
+        return Collections.unmodifiableList(writablePaths);
+    }
+}
@@ -0,0 +1,96 @@
+package com.codesanbox.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进程超时看门狗（全局单例）
+ * 所有用户进程的截止时间由同一个调度线程管理，进程结束后取消对应的定时任务；
+ * 超时先 destroy()，宽限期后仍存活再 destroyForcibly()
+ */
+@Slf4j
+public class ProcessWatchdog {
+
+    //destroy 之后等待进程自行退出的时间（ms）
+    private static final long DESTROY_GRACE_TIME = 500L;
+
+    private static final ProcessWatchdog INSTANCE = new ProcessWatchdog();
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    private ProcessWatchdog() {
+        timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "process-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //取消的任务立即移出队列，避免已结束进程的任务堆积到截止时间
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public static ProcessWatchdog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 监控进程，超时后结束进程
+     *
+     * @param process 用户进程
+     * @param timeout 超时时间（ms）
+     * @return 监控句柄，进程结束后必须关闭
+     */
+    public Watch watch(Process process, long timeout) {
+        return watch(() -> {
+            process.destroy();
+            timer.schedule(() -> {
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+            }, DESTROY_GRACE_TIME, TimeUnit.MILLISECONDS);
+        }, timeout);
+    }
+
+    /**
+     * 注册超时回调
+     *
+     * @param onTimeout 超时时执行
+     * @param timeout   超时时间（ms）
+     * @return 监控句柄，任务结束后必须关闭
+     */
+    public Watch watch(Runnable onTimeout, long timeout) {
+        Watch watch = new Watch();
+        watch.future = timer.schedule(() -> {
+            watch.timedOut.set(true);
+            log.debug("执行超时，结束进程");
+            onTimeout.run();
+        }, timeout, TimeUnit.MILLISECONDS);
+        return watch;
+    }
+
+    /**
+     * @return 尚未到期的截止时间数量
+     */
+    public int getPendingCount() {
+        return timer.getQueue().size();
+    }
+
+    public static class Watch implements AutoCloseable {
+        private final AtomicBoolean timedOut = new AtomicBoolean();
+
+        private volatile ScheduledFuture<?> future;
+
+        public boolean isTimedOut() {
+            return timedOut.get();
+        }
+
+        //进程已结束，取消截止时间
+        @Override
+        public void close() {
+            future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.codesanbox.scheduler;
+
+import cn.hutool.core.util.StrUtil;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.util.VirtualThreads;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 测试用例调度器（全节点共享）
+ * 同一提交的多个用例并发执行（一次只能运行一个用例的执行环境用 {@link #runSequentially} 依次执行），
+ * 节点上同时运行的用户进程数不超过 maxConcurrency，
+ * 返回结果的顺序与 inputList 一致；开启 failFast 时用例运行错误/超时后取消其后的用例，返回的总是下标最小的失败用例，与各用例完成的先后无关
+ * 每个用例的排队时间记录在 ExecuteMessage.queueTime 中
+ * 使用虚拟线程时每个用例一个虚拟线程，并发数改由信号量限制：排队的用例阻塞在信号量上，不占用平台线程
+ */
+@Slf4j
+public class TestCaseScheduler {
+
+    private static volatile TestCaseScheduler defaultScheduler;
+
+    @Getter
+    private final int maxConcurrency;
+
+    @Getter
+    private final boolean failFast;
+
+    @Getter
+    private final boolean virtualThreads;
+
+    private final ExecutorService executor;
+
+    //使用虚拟线程时限制同时执行的用例数，否则为null（由线程池大小限制）
+    private final Semaphore permits;
+
+    //使用虚拟线程时等待信号量的用例数
+    private final AtomicInteger waitingCount = new AtomicInteger();
+
+    public TestCaseScheduler(int maxConcurrency, boolean failFast) {
+        this(maxConcurrency, failFast, false);
+    }
+
+    /**
+     * @param virtualThreads 每个用例使用一个虚拟线程，需要JDK 21
+     */
+    public TestCaseScheduler(int maxConcurrency, boolean failFast, boolean virtualThreads) {
+        this.maxConcurrency = maxConcurrency;
+        this.failFast = failFast;
+        this.virtualThreads = virtualThreads;
+        if (virtualThreads) {
+            this.executor = VirtualThreads.newThreadPerTaskExecutor("test-case-");
+            this.permits = new Semaphore(maxConcurrency, true);
+            return;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "test-case-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executor = threadPoolExecutor;
+        this.permits = null;
+    }
+
+    /**
+     * 非Spring环境（如直接new沙箱）使用的默认调度器，并发数为CPU核数
+     */
+    public static TestCaseScheduler getDefault() {
+        if (defaultScheduler == null) {
+            synchronized (TestCaseScheduler.class) {
+                if (defaultScheduler == null) {
+                    defaultScheduler = new TestCaseScheduler(Runtime.getRuntime().availableProcessors(), true);
+                }
+            }
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * 并发执行所有用例
+     *
+     * @param inputList  输入用例
+     * @param caseRunner 单个用例的执行逻辑，需要响应中断（被取消时结束用户进程）
+     * @return 按输入顺序排列的执行信息；failFast 时截止到第一个失败的用例
+     */
+    public <T> List<ExecuteMessage> runAll(List<T> inputList, Function<T, ExecuteMessage> caseRunner) {
+        int size = inputList.size();
+        List<ExecuteMessage> executeMessages = new ArrayList<>(size);
+        if (size == 0) {
+            return executeMessages;
+        }
+        Future<?>[] futures = new Future<?>[size];
+        //已失败用例的最小下标，没有失败时为size
+        AtomicInteger failedIndex = new AtomicInteger(size);
+        for (int i = 0; i < size; i++) {
+            int index = i;
+            T input = inputList.get(i);
+            long submitTime = System.nanoTime();
+            futures[i] = executor.submit(() -> {
+                acquirePermit();
+                try {
+                    long queueTime = (System.nanoTime() - submitTime) / 1000;
+                    ExecuteMessage executeMessage = runCase(caseRunner, input);
+                    executeMessage.setQueueTime(queueTime);
+                    //只取消下标更大的用例，前面还在执行的用例可能失败，结果以它为准
+                    if (failFast && isFailed(executeMessage) && failedIndex.accumulateAndGet(index, Math::min) == index) {
+                        cancelAfter(futures, index);
+                    }
+                    return executeMessage;
+                } finally {
+                    if (permits != null) {
+                        permits.release();
+                    }
+                }
+            });
+        }
+        //提交过程中已有用例失败时，补取消后提交的用例
+        if (failedIndex.get() < size) {
+            cancelAfter(futures, failedIndex.get());
+        }
+        for (int i = 0; i < size; i++) {
+            ExecuteMessage executeMessage;
+            try {
+                executeMessage = (ExecuteMessage) futures[i].get();
+            } catch (CancellationException e) {
+                //只有失败用例之后的用例会被取消，按顺序等待时先遇到失败用例，正常不会走到这里
+                executeMessages.add(systemError("用例已取消"));
+                break;
+            } catch (InterruptedException e) {
+                cancel(futures);
+                Thread.currentThread().interrupt();
+                executeMessages.add(systemError("执行被中断"));
+                break;
+            } catch (ExecutionException e) {
+                executeMessage = systemError(e.getCause().getMessage());
+            }
+            executeMessages.add(executeMessage);
+            if (failFast && isFailed(executeMessage)) {
+                cancelAfter(futures, i);
+                break;
+            }
+        }
+        return executeMessages;
+    }
+
+    /**
+     * 占用一个执行名额依次执行所有用例，用于一次只能运行一个用例的执行环境（如同一个容器）
+     *
+     * @param inputList  输入用例
+     * @param caseRunner 单个用例的执行逻辑，需要响应中断（被取消时结束用户进程）
+     * @return 按输入顺序排列的执行信息；failFast 时截止到第一个失败的用例
+     */
+    public <T> List<ExecuteMessage> runSequentially(List<T> inputList, Function<T, ExecuteMessage> caseRunner) {
+        if (inputList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long submitTime = System.nanoTime();
+        Future<List<ExecuteMessage>> future = executor.submit(() -> {
+            acquirePermit();
+            try {
+                List<ExecuteMessage> executeMessages = new ArrayList<>(inputList.size());
+                for (T input : inputList) {
+                    //排队时间包括等待同一提交中前面的用例
+                    long queueTime = (System.nanoTime() - submitTime) / 1000;
+                    ExecuteMessage executeMessage = runCase(caseRunner, input);
+                    executeMessage.setQueueTime(queueTime);
+                    executeMessages.add(executeMessage);
+                    if ((failFast && isFailed(executeMessage)) || Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                }
+                return executeMessages;
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return new ArrayList<>(Collections.singletonList(systemError("执行被中断")));
+        } catch (ExecutionException e) {
+            return new ArrayList<>(Collections.singletonList(systemError(e.getCause().getMessage())));
+        }
+    }
+
+    /**
+     * @return 排队等待执行的用例数
+     */
+    public int getQueueSize() {
+        return permits != null ? waitingCount.get() : ((ThreadPoolExecutor) executor).getQueue().size();
+    }
+
+    /**
+     * @return 正在执行的用例数
+     */
+    public int getActiveCount() {
+        return permits != null ? maxConcurrency - permits.availablePermits() : ((ThreadPoolExecutor) executor).getActiveCount();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    //使用虚拟线程时等待执行名额，用例被取消时在等待中被中断
+    private void acquirePermit() throws InterruptedException {
+        if (permits == null) {
+            return;
+        }
+        waitingCount.incrementAndGet();
+        try {
+            permits.acquire();
+        } finally {
+            waitingCount.decrementAndGet();
+        }
+    }
+
+    private <T> ExecuteMessage runCase(Function<T, ExecuteMessage> caseRunner, T input) {
+        try {
+            return caseRunner.apply(input);
+        } catch (Exception e) {
+            log.error("用例执行异常", e);
+            return systemError(e.getMessage());
+        }
+    }
+
+    //取消下标大于index的用例
+    private static void cancelAfter(Future<?>[] futures, int index) {
+        for (int i = index + 1; i < futures.length; i++) {
+            if (futures[i] != null) {
+                futures[i].cancel(true);
+            }
+        }
+    }
+
+    private static void cancel(Future<?>[] futures) {
+        for (Future<?> future : futures) {
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    //与 getOutputResponse 的判断一致：有错误信息即为失败（运行错误、超时等）
+    private static boolean isFailed(ExecuteMessage executeMessage) {
+        return StrUtil.isNotBlank(executeMessage.getErrorMessage());
+    }
+
+    private static ExecuteMessage systemError(String message) {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setExitValue(1);
+        executeMessage.setMessage(message);
+        executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
+        return executeMessage;
+    }
+}
@@ -0,0 +1,193 @@
+package com.codesanbox.service;
+
+import cn.hutool.core.util.IdUtil;
+import com.codesanbox.CodeSandbox;
+import com.codesanbox.model.ExecuteCodeRequest;
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.ExecuteJob;
+import com.codesanbox.model.JudgeInfo;
+import com.codesanbox.model.QueueStats;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.model.enums.QuestionSubmitStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步执行服务
+ * 提交后立即返回任务id，由有界队列交给固定数量的执行线程；队列满时拒绝提交，结果保留一段时间供查询
+ */
+@Slf4j
+public class AsyncExecuteService {
+
+    private final CodeSandbox codeSandbox;
+
+    private final int queueCapacity;
+
+    //已完成任务结果的保留时间（ms）
+    private final long resultTtl;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService cleaner;
+
+    private final Map<String, JobHolder> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong startedCount = new AtomicLong();
+
+    private final AtomicLong completedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final AtomicLong totalWaitTime = new AtomicLong();
+
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    public AsyncExecuteService(CodeSandbox codeSandbox, int workers, int queueCapacity, long resultTtl) {
+        this.codeSandbox = codeSandbox;
+        this.queueCapacity = queueCapacity;
+        this.resultTtl = resultTtl;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> new Thread(r, "async-execute-" + threadIndex.incrementAndGet()));
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "async-execute-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cleaner.scheduleWithFixedDelay(this::cleanExpiredJobs, resultTtl, Math.max(resultTtl / 10, 1000), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param executeCodeRequest 执行请求
+     * @return 排队中的任务
+     * @throws RejectedExecutionException 队列已满
+     */
+    public ExecuteJob submit(ExecuteCodeRequest executeCodeRequest) {
+        JobHolder holder = new JobHolder(IdUtil.fastSimpleUUID(), executeCodeRequest);
+        jobs.put(holder.jobId, holder);
+        try {
+            executor.execute(holder);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(holder.jobId);
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+        return holder.toJob();
+    }
+
+    /**
+     * @return 任务当前状态，不存在或已过期时为null
+     */
+    public ExecuteJob getJob(String jobId) {
+        JobHolder holder = jobs.get(jobId);
+        return holder == null ? null : holder.toJob();
+    }
+
+    /**
+     * @return 任务完成时完成的future，不存在或已过期时为null
+     */
+    public CompletableFuture<ExecuteJob> getJobFuture(String jobId) {
+        JobHolder holder = jobs.get(jobId);
+        return holder == null ? null : holder.future;
+    }
+
+    public QueueStats getQueueStats() {
+        QueueStats queueStats = new QueueStats();
+        queueStats.setQueueDepth(executor.getQueue().size());
+        queueStats.setQueueCapacity(queueCapacity);
+        queueStats.setRunningCount(executor.getActiveCount());
+        Runnable oldest = executor.getQueue().peek();
+        queueStats.setOldestWaitTime(oldest instanceof JobHolder ? System.currentTimeMillis() - ((JobHolder) oldest).submitTime : 0L);
+        long started = startedCount.get();
+        queueStats.setAverageWaitTime(started == 0 ? 0L : totalWaitTime.get() / started);
+        queueStats.setMaxWaitTime(maxWaitTime.get());
+        queueStats.setCompletedCount(completedCount.get());
+        queueStats.setRejectedCount(rejectedCount.get());
+        return queueStats;
+    }
+
+    public void shutdown() {
+        cleaner.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void cleanExpiredJobs() {
+        long expireBefore = System.currentTimeMillis() - resultTtl;
+        Iterator<JobHolder> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            JobHolder holder = iterator.next();
+            Long finishTime = holder.finishTime;
+            if (finishTime != null && finishTime < expireBefore) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private class JobHolder implements Runnable {
+        private final String jobId;
+        private final ExecuteCodeRequest executeCodeRequest;
+        private final long submitTime = System.currentTimeMillis();
+        private final CompletableFuture<ExecuteJob> future = new CompletableFuture<>();
+        private volatile Integer status = QuestionSubmitStatusEnum.WAITING.getValue();
+        private volatile Long startTime;
+        private volatile Long finishTime;
+        private volatile ExecuteCodeResponse response;
+
+        JobHolder(String jobId, ExecuteCodeRequest executeCodeRequest) {
+            this.jobId = jobId;
+            this.executeCodeRequest = executeCodeRequest;
+        }
+
+        @Override
+        public void run() {
+            long now = System.currentTimeMillis();
+            startTime = now;
+            status = QuestionSubmitStatusEnum.RUNNING.getValue();
+            long waitTime = now - submitTime;
+            startedCount.incrementAndGet();
+            totalWaitTime.addAndGet(waitTime);
+            maxWaitTime.accumulateAndGet(waitTime, Math::max);
+            ExecuteCodeResponse executeCodeResponse;
+            try {
+                executeCodeResponse = codeSandbox.executeCode(executeCodeRequest);
+            } catch (Exception e) {
+                log.error("异步执行任务失败：{}", jobId, e);
+                executeCodeResponse = new ExecuteCodeResponse(null, new JudgeInfo(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue(), null, null, null, null),
+                        QuestionSubmitStatusEnum.FAILED.getValue(), e.getMessage(), null);
+            }
+            response = executeCodeResponse;
+            Integer responseStatus = executeCodeResponse.getStatus();
+            status = responseStatus != null ? responseStatus : QuestionSubmitStatusEnum.FAILED.getValue();
+            finishTime = System.currentTimeMillis();
+            completedCount.incrementAndGet();
+            future.complete(toJob());
+        }
+
+        ExecuteJob toJob() {
+            ExecuteJob executeJob = new ExecuteJob();
+            executeJob.setJobId(jobId);
+            executeJob.setStatus(status);
+            executeJob.setResponse(response);
+            executeJob.setSubmitTime(submitTime);
+            executeJob.setStartTime(startTime);
+            executeJob.setFinishTime(finishTime);
+            Long start = startTime;
+            executeJob.setWaitTime((start != null ? start : System.currentTimeMillis()) - submitTime);
+            return executeJob;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.codesanbox.service;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.codesanbox.CodeSandbox;
+import com.codesanbox.model.BatchExecuteRequest;
+import com.codesanbox.model.BatchExecuteResult;
+import com.codesanbox.model.ExecuteCodeRequest;
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.JudgeInfo;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.model.enums.QuestionSubmitStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 批量执行服务（重判）
+ * 完全相同的请求（语言、源码、输入）只执行一次，结果分发给所有相同的下标；
+ * 相同源码的提交相邻排队，由编译缓存保证每份源码只编译一次；
+ * 提交由固定数量的执行线程并发执行，用例共享全局调度器，结果按完成顺序返回
+ */
+@Slf4j
+public class BatchExecuteService {
+
+    private final CodeSandbox codeSandbox;
+
+    //单个批量请求拆分后最多的提交数
+    private final int maxRequests;
+
+    //同一代码拆分执行时，每个提交默认的用例数
+    private final int chunkSize;
+
+    private final ThreadPoolExecutor executor;
+
+    public BatchExecuteService(CodeSandbox codeSandbox, int workers, int queueCapacity, int maxRequests, int chunkSize) {
+        this.codeSandbox = codeSandbox;
+        this.maxRequests = maxRequests;
+        this.chunkSize = chunkSize;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> new Thread(r, "batch-execute-" + threadIndex.incrementAndGet()));
+    }
+
+    /**
+     * 校验、去重后提交全部执行任务
+     *
+     * @param batchExecuteRequest 批量请求
+     * @return 执行中的批次，通过 {@link Batch#forEachCompleted} 按完成顺序获取结果
+     * @throws IllegalArgumentException   请求不合法
+     * @throws RejectedExecutionException 排队的任务过多
+     */
+    public Batch submit(BatchExecuteRequest batchExecuteRequest) {
+        List<Item> items = split(batchExecuteRequest);
+        if (items.size() > maxRequests) {
+            throw new IllegalArgumentException("单次最多执行 " + maxRequests + " 个提交");
+        }
+        //相同源码 -> (相同请求 -> 任务)，遍历顺序即提交顺序，相同源码的任务相邻
+        Map<List<String>, Map<ExecuteCodeRequest, Task>> groups = new LinkedHashMap<>();
+        for (Item item : items) {
+            ExecuteCodeRequest executeCodeRequest = item.executeCodeRequest;
+            List<String> sourceKey = Arrays.asList(executeCodeRequest.getLanguage(), executeCodeRequest.getCode());
+            groups.computeIfAbsent(sourceKey, key -> new LinkedHashMap<>())
+                    .computeIfAbsent(executeCodeRequest, Task::new)
+                    .items.add(item);
+        }
+        List<Task> tasks = new ArrayList<>();
+        groups.values().forEach(group -> tasks.addAll(group.values()));
+        if (executor.getQueue().remainingCapacity() < tasks.size()) {
+            throw new RejectedExecutionException("批量执行队列已满");
+        }
+        log.info("批量执行：{} 个提交，去重后 {} 个，{} 份源码", items.size(), tasks.size(), groups.size());
+        Batch batch = new Batch(tasks.size());
+        try {
+            for (Task task : tasks) {
+                batch.futures.add(executor.submit(() -> {
+                    //无论结果如何都放入完成队列，否则 forEachCompleted 会一直等待
+                    try {
+                        task.response = execute(task.executeCodeRequest);
+                    } finally {
+                        batch.completed.add(task);
+                    }
+                }));
+            }
+        } catch (RejectedExecutionException e) {
+            batch.cancel();
+            throw e;
+        }
+        return batch;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    //拆分为独立的执行请求
+    private List<Item> split(BatchExecuteRequest batchExecuteRequest) {
+        if (batchExecuteRequest == null) {
+            throw new IllegalArgumentException("请求参数为空");
+        }
+        List<Item> items = new ArrayList<>();
+        List<ExecuteCodeRequest> requests = batchExecuteRequest.getRequests();
+        if (CollUtil.isNotEmpty(requests)) {
+            for (int i = 0; i < requests.size(); i++) {
+                ExecuteCodeRequest executeCodeRequest = requests.get(i);
+                if (executeCodeRequest == null || StrUtil.isBlank(executeCodeRequest.getCode())) {
+                    throw new IllegalArgumentException("第 " + i + " 个请求的代码为空");
+                }
+                if (executeCodeRequest.getInputList() == null) {
+                    executeCodeRequest.setInputList(Collections.emptyList());
+                }
+                items.add(new Item(i, null, executeCodeRequest));
+            }
+            return items;
+        }
+        if (StrUtil.isBlank(batchExecuteRequest.getCode())) {
+            throw new IllegalArgumentException("requests和code不能同时为空");
+        }
+        List<String> inputList = batchExecuteRequest.getInputList() == null ? Collections.emptyList() : batchExecuteRequest.getInputList();
+        int size = batchExecuteRequest.getChunkSize() == null ? chunkSize : batchExecuteRequest.getChunkSize();
+        if (size <= 0) {
+            throw new IllegalArgumentException("chunkSize必须大于0");
+        }
+        List<String> expectedOutputList = batchExecuteRequest.getExpectedOutputList();
+        if (expectedOutputList != null && expectedOutputList.size() != inputList.size()) {
+            throw new IllegalArgumentException("期望输出数量与输入用例数量不一致");
+        }
+        int offset = 0;
+        do {
+            int end = Math.min(offset + size, inputList.size());
+            ExecuteCodeRequest executeCodeRequest = new ExecuteCodeRequest(new ArrayList<>(inputList.subList(offset, end)),
+                    batchExecuteRequest.getCode(), batchExecuteRequest.getLanguage(), batchExecuteRequest.getInputMode(),
+                    expectedOutputList == null ? null : new ArrayList<>(expectedOutputList.subList(offset, end)),
+                    batchExecuteRequest.getChecker(), batchExecuteRequest.getEpsilon(), null, null);
+            items.add(new Item(items.size(), offset, executeCodeRequest));
+            offset += size;
+        } while (offset < inputList.size());
+        return items;
+    }
+
+    //沙箱抛出的异常和Error（如StackOverflowError）都转为系统错误
+    private ExecuteCodeResponse execute(ExecuteCodeRequest executeCodeRequest) {
+        try {
+            return codeSandbox.executeCode(executeCodeRequest);
+        } catch (Throwable e) {
+            log.error("批量执行失败", e);
+            return new ExecuteCodeResponse(null, new JudgeInfo(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue(), null, null, null, null),
+                    QuestionSubmitStatusEnum.FAILED.getValue(), e.getMessage(), null);
+        }
+    }
+
+    /**
+     * 执行中的批次
+     */
+    public static class Batch {
+        private final int taskCount;
+
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        private final BlockingQueue<Task> completed = new LinkedBlockingQueue<>();
+
+        private Batch(int taskCount) {
+            this.taskCount = taskCount;
+        }
+
+        /**
+         * 按完成顺序回调每个提交的结果，全部完成后返回；相同请求的结果依次回调
+         */
+        public void forEachCompleted(Consumer<BatchExecuteResult> consumer) throws InterruptedException {
+            for (int i = 0; i < taskCount; i++) {
+                Task task = completed.take();
+                for (Item item : task.items) {
+                    consumer.accept(new BatchExecuteResult(item.index, item.offset, task.response));
+                }
+            }
+        }
+
+        /**
+         * 取消未完成的提交（如客户端断开），已完成的不受影响
+         */
+        public void cancel() {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    //拆分后的单个提交
+    private static class Item {
+        private final int index;
+
+        private final Integer offset;
+
+        private final ExecuteCodeRequest executeCodeRequest;
+
+        Item(int index, Integer offset, ExecuteCodeRequest executeCodeRequest) {
+            this.index = index;
+            this.offset = offset;
+            this.executeCodeRequest = executeCodeRequest;
+        }
+    }
+
+    //去重后实际执行的任务
+    private static class Task {
+        private final ExecuteCodeRequest executeCodeRequest;
+
+        private final List<Item> items = new ArrayList<>();
+
+        private volatile ExecuteCodeResponse response;
+
+        Task(ExecuteCodeRequest executeCodeRequest) {
+            this.executeCodeRequest = executeCodeRequest;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.codesanbox.util;
+
+import com.codesanbox.checker.OutputChecker;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 有上限的输出缓冲
+ * 直接按字节读取进程输出，不逐行创建字符串；超过上限后丢弃多余内容并标记溢出
+ * 指定比对器时不保存输出，读到的内容直接交给比对器
+ */
+public class OutputBuffer {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private byte[] bytes;
+
+    private int size;
+
+    private final int limit;
+
+    private boolean exceeded;
+
+    private final OutputChecker checker;
+
+    /**
+     * @param initialCapacity 预分配大小
+     * @param limit           最多保留的字节数
+     */
+    public OutputBuffer(int initialCapacity, int limit) {
+        this(initialCapacity, limit, null);
+    }
+
+    /**
+     * @param initialCapacity 预分配大小
+     * @param limit           最多读取的字节数
+     * @param checker         输出比对器，为null时保存输出
+     */
+    public OutputBuffer(int initialCapacity, int limit, OutputChecker checker) {
+        this.bytes = new byte[checker != null ? 0 : Math.max(0, Math.min(initialCapacity, limit))];
+        this.limit = limit;
+        this.checker = checker;
+    }
+
+    /**
+     * 读取输入流直到结束
+     *
+     * @param inputStream 进程输出
+     * @param onExceeded  第一次超过上限或比对不一致时执行，可为null
+     */
+    public void drain(InputStream inputStream, Runnable onExceeded) throws IOException {
+        byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(readBuffer)) != -1) {
+            if (!append(readBuffer, 0, read) && onExceeded != null) {
+                onExceeded.run();
+                onExceeded = null;
+            }
+        }
+    }
+
+    /**
+     * @return 未超过上限（且比对未发现不一致）返回true
+     */
+    public synchronized boolean append(byte[] data, int offset, int length) {
+        int writable = Math.min(length, limit - size);
+        if (checker != null) {
+            if (writable > 0) {
+                size += writable;
+                if (!checker.feed(data, offset, writable)) {
+                    return false;
+                }
+            }
+            if (writable < length) {
+                exceeded = true;
+            }
+            return !exceeded;
+        }
+        if (writable > 0) {
+            ensureCapacity(size + writable);
+            System.arraycopy(data, offset, bytes, size, writable);
+            size += writable;
+        }
+        if (writable < length) {
+            exceeded = true;
+        }
+        return !exceeded;
+    }
+
+    public synchronized boolean isExceeded() {
+        return exceeded;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 转换为文本，与按行读取再用换行拼接的结果一致：统一换行符，去掉末尾的一个换行
+     */
+    public synchronized String toText() {
+        return toText(bytes, 0, size);
+    }
+
+    public static String toText(byte[] data, int offset, int length) {
+        int end = offset + length;
+        if (end > offset && data[end - 1] == '\n') {
+            end--;
+            if (end > offset && data[end - 1] == '\r') {
+                end--;
+            }
+        }
+        String text = new String(data, offset, end - offset, StandardCharsets.UTF_8);
+        return text.indexOf('\r') >= 0 ? text.replace("\r\n", "\n") : text;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            int newCapacity = Math.max(capacity, Math.min(Math.max(bytes.length * 2, READ_BUFFER_SIZE), limit));
+            bytes = Arrays.copyOf(bytes, newCapacity);
+        }
+    }
+}
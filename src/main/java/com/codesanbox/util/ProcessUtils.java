@@ -1,116 +1,155 @@
 package com.codesanbox.util;
 
-import cn.hutool.core.util.StrUtil;
+import com.codesanbox.checker.OutputChecker;
 import com.codesanbox.model.ExecuteMessage;
-import org.apache.commons.lang3.StringUtils;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StopWatch;
 
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 //执行进程获取信息
+@Slf4j
 public class ProcessUtils {
+   //单个输出流默认上限
+   public static final int DEFAULT_OUTPUT_LIMIT = 16 * 1024 * 1024;
+
+   //输出缓冲预分配大小
+   private static final int INITIAL_OUTPUT_CAPACITY = 4096;
+
+   //错误输出读取线程，与标准输出并发读取，避免任一管道写满后进程阻塞
+   private static volatile ExecutorService drainer = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "process-drainer");
+      thread.setDaemon(true);
+      return thread;
+   });
+
+   /**
+    * 改为每次读取一个虚拟线程（需要JDK 21），原线程池中的空闲线程超时后自行退出
+    */
+   public static void useVirtualThreads() {
+      drainer = VirtualThreads.newThreadPerTaskExecutor("process-drainer-");
+   }
+
    //提前输入答案执行
    public static ExecuteMessage runAndProcess(Process process,String name){  //name：进程名
+      return runAndProcess(process, name, DEFAULT_OUTPUT_LIMIT);
+   }
+
+   /**
+    * 运行进程并读取输出
+    * 标准输出与错误输出并发读取到有上限的缓冲中，任一输出超过上限时结束进程并返回输出溢出
+    * 这里只记录墙钟时间，子进程的CPU时间和峰值内存由启动器测量（见 MeasuredLauncher）
+    *
+    * @param process     进程
+    * @param name        进程名
+    * @param outputLimit 单个输出流最多保留的字节数
+    * @return 执行信息
+    */
+   public static ExecuteMessage runAndProcess(Process process, String name, int outputLimit){
+      return runAndProcess(process, name, outputLimit, null, null);
+   }
+
+   /**
+    * 运行进程并把标准输出流式交给比对器，不保存输出；比对发现答案错误时立即结束进程
+    *
+    * @param checker 输出比对器，为null时与 {@link #runAndProcess(Process, String, int)} 相同
+    */
+   public static ExecuteMessage runAndProcess(Process process, String name, int outputLimit, OutputChecker checker){
+      return runAndProcess(process, name, outputLimit, null, checker);
+   }
+
+   private static ExecuteMessage runAndProcess(Process process, String name, int outputLimit, byte[] stdin, OutputChecker checker){
       ExecuteMessage executeMessage=new ExecuteMessage();
-      // 记录初始内存使用情况
-      long initialMemory = getUsedMemory();
       try {
          // 设置计时器
          StopWatch stopWatch = new StopWatch();
          stopWatch.start();
-         //等待执行获取退出码
+         if (stdin == null) {
+            //不提供标准输入，读取输入的程序直接得到EOF
+            process.getOutputStream().close();
+         } else {
+            //与读取输出并发写入，避免输入、输出管道同时写满互相等待
+            drainer.submit(() -> feed(process.getOutputStream(), stdin));
+         }
+         OutputBuffer outputBuffer = new OutputBuffer(INITIAL_OUTPUT_CAPACITY, outputLimit, checker);
+         OutputBuffer errorBuffer = new OutputBuffer(INITIAL_OUTPUT_CAPACITY, outputLimit);
+         Runnable onExceeded = process::destroyForcibly;
+         Future<?> outputFuture = drainer.submit(() -> drain(process.getInputStream(), outputBuffer, onExceeded));
+         Future<?> errorFuture = drainer.submit(() -> drain(process.getErrorStream(), errorBuffer, onExceeded));
+         //等待执行获取退出码（可被中断，调用方负责结束进程）
          int exitValue= process.waitFor();
+         outputFuture.get();
+         errorFuture.get();
          executeMessage.setExitValue(exitValue);
-         if (exitValue==0){
-            System.out.println(name+"成功");
-            //获取执行信息
-            BufferedReader bufferedReader=new BufferedReader(new InputStreamReader(process.getInputStream()));
-            //使用集合代替StringBuilder，使用StringBuilder会出现得出的结果不一致的问题，有可能是因为StringBuilder是立即进行拼接，每次都重新创建StringBuilder对象，而集合是先创建再添加
-            List<String> outputStrList = new ArrayList<>();
-            String line;
-            while ((line=bufferedReader.readLine())!=null){
-               outputStrList.add(line);
-            }
-            executeMessage.setMessage(StringUtils.join(outputStrList, "\n"));
+         if (outputBuffer.isExceeded() || errorBuffer.isExceeded()) {
+            log.debug("{}输出超过上限", name);
+            executeMessage.setExitValue(1);
+            executeMessage.setMessage(JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getText());
+            executeMessage.setErrorMessage(JudgeInfoMessageEnum.OUTPUT_LIMIT_EXCEEDED.getValue());
+         }else if (checker != null && (exitValue==0 || checker.isRejected())){
+            //提前判定答案错误时进程已被结束，退出码不代表程序出错
+            log.debug("{}结束，比对{}", name, checker.isRejected() ? "不一致" : "完成");
+            executeMessage.setExitValue(0);
+            checker.applyTo(executeMessage);
+         }else if (exitValue==0){
+            log.debug("{}成功", name);
+            executeMessage.setMessage(outputBuffer.toText());
          }else {
-            System.out.println(name+"失败，错误码："+exitValue);
-            executeMessage.setExitValue(exitValue);
-            //获取正常输出
-            BufferedReader bufferedReader=new BufferedReader(new InputStreamReader(process.getInputStream()));
-            List<String> outputStrList = new ArrayList<>();
-
-            String line;
-            while ((line=bufferedReader.readLine())!=null){
-               outputStrList.add(line);
-
-            }
-            executeMessage.setMessage(StringUtils.join(outputStrList, "\n"));
-            //获取错误信息
-            BufferedReader errorbufferedReader=new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            List<String> errorOutputStrList = new ArrayList<>();
-            String errorLine;
-            while ((errorLine=errorbufferedReader.readLine())!=null){
-               errorOutputStrList.add(errorLine);
-
-            }
-            executeMessage.setErrorMessage(StringUtils.join(errorOutputStrList, "\n"));
+            log.debug("{}失败，错误码：{}", name, exitValue);
+            executeMessage.setMessage(outputBuffer.toText());
+            executeMessage.setErrorMessage(errorBuffer.toText());
          }
-         // 记录执行后的内存使用情况
-         long finalMemory = getUsedMemory();
-         // 计算内存使用量，单位字节，转换成kb需要除以1024
-         long memoryUsage = finalMemory - initialMemory;
-         executeMessage.setMemory(memoryUsage / 1024);
          stopWatch.stop();
          executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
+      } catch (InterruptedException e) {
+         //用例被取消（failFast），由调用方结束进程
+         Thread.currentThread().interrupt();
+         log.debug("{}被中断", name);
+         executeMessage.setExitValue(1);
+         executeMessage.setMessage("执行被中断");
+         executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
       } catch (Exception e) {
-         e.printStackTrace();
+         //读取输出等服务端异常，不是用户程序的错误
+         log.error("{}失败", name, e);
+         executeMessage.setExitValue(1);
+         executeMessage.setMessage(name + "失败：" + e.getMessage());
+         executeMessage.setErrorMessage(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue());
       }
       return executeMessage;
    }
 
-   //交互式进程获取信息
-   public static ExecuteMessage runInteractProcess(Process process, String args){
-      ExecuteMessage executeMessage=new ExecuteMessage();
+   //读取进程输出；进程被结束（超时、输出溢出）时destroy会关闭管道，此时视为读取完毕
+   private static Void drain(InputStream inputStream, OutputBuffer buffer, Runnable onExceeded) {
       try {
-         //向控制台输入命令，使用outputStream或inputStream代替输入流都行
-         OutputStream outputStream = process.getOutputStream();
-         OutputStreamWriter outputStreamWriter=new OutputStreamWriter(outputStream);
-         String[] s = args.split(" ");
-         String join = StrUtil.join("\n", s)+"\n";
-         outputStreamWriter.write(join);
-         //回车
-         outputStreamWriter.flush();
-         //获取正常输出
-         InputStream inputStream = process.getInputStream();
-         BufferedReader bufferedReader=new BufferedReader(new InputStreamReader(inputStream));
-         StringBuilder stringBuilder=new StringBuilder();
-         String line;
-         while ((line=bufferedReader.readLine())!=null){
-            stringBuilder.append(line);
-         }
-         executeMessage.setMessage(stringBuilder.toString());
-         //释放资源，防止卡死
-         outputStreamWriter.close();
-         outputStream.close();
-         inputStream.close();
-         process.destroy();
-      }catch (Exception e){
-         e.printStackTrace();
+         buffer.drain(inputStream, onExceeded);
+      } catch (IOException e) {
+         log.debug("输出管道已关闭：{}", e.getMessage());
       }
-      return executeMessage;
+      return null;
+   }
+
+   //写入标准输入后关闭；进程提前退出时管道已断开，忽略
+   private static Void feed(OutputStream outputStream, byte[] stdin) {
+      try (OutputStream out = outputStream) {
+         out.write(stdin);
+      } catch (IOException e) {
+         log.debug("输入管道已关闭：{}", e.getMessage());
+      }
+      return null;
    }
 
    /**
-    * 获取当前已使用的内存量
-    * 单位是byte
-    *
-    * @return
+    * 交互式运行：输入原样写入标准输入（不再把空格替换为换行），写完后关闭，输出的读取与 runAndProcess 一致
+    * 大输入应写到文件后用 ProcessBuilder.redirectInput 重定向，不经过服务端
     */
-   public static long getUsedMemory()
-   {
-      Runtime runtime = Runtime.getRuntime();
-      return runtime.totalMemory() - runtime.freeMemory();
+   public static ExecuteMessage runInteractProcess(Process process, String input){
+      return runAndProcess(process, "交互式运行", DEFAULT_OUTPUT_LIMIT, input.getBytes(StandardCharsets.UTF_8), null);
    }
 }
@@ -0,0 +1,75 @@
+package com.codesanbox.workspace;
+
+import cn.hutool.core.io.FileUtil;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 从 {@link WorkspacePool} 借出的工作目录
+ * 通过 {@link #write} 写入的文件计入池的空间配额，{@link #close()} 后目录在后台清空并回到池中，不能再使用
+ * 写入的文件和中间目录对所有用户可读，隔离执行的用户程序（nobody）可以加载
+ */
+public class Workspace implements Closeable {
+
+    @Getter
+    private final File dir;
+
+    private final WorkspacePool pool;
+
+    //本次借用写入的字节数，归还时从池的已用空间中扣除
+    private long usedBytes;
+
+    private boolean closed;
+
+    Workspace(File dir, WorkspacePool pool) {
+        this.dir = dir;
+        this.pool = pool;
+    }
+
+    /**
+     * 写入文件，超过池的空间配额时抛出异常
+     *
+     * @param name 相对工作目录的路径
+     */
+    public synchronized File write(String name, byte[] bytes) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("工作目录已归还：" + dir);
+        }
+        pool.reserve(bytes.length);
+        usedBytes += bytes.length;
+        File file = FileUtil.writeBytes(bytes, new File(dir, name));
+        //带目录的文件名（如包名对应的目录）逐级开放
+        for (File current = file; current != null && !current.equals(dir); current = current.getParentFile()) {
+            WorkspacePool.share(current);
+        }
+        return file;
+    }
+
+    public File write(String name, String content) throws IOException {
+        return write(name, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    synchronized long takeUsedBytes() {
+        long bytes = usedBytes;
+        usedBytes = 0;
+        return bytes;
+    }
+
+    /**
+     * 归还到池中，重复调用无效
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        pool.release(this);
+    }
+}
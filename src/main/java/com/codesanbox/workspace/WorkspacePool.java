@@ -0,0 +1,245 @@
+package com.codesanbox.workspace;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.RuntimeUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 工作目录池，存放用户代码、编译产物和标准输入文件
+ * 根目录默认放在内存文件系统（/dev/shm）上，写文件、删目录不再落到应用所在的磁盘；
+ * 目录预先创建，借用时只需从队列中取出，归还后在后台清空并复用，清理不在请求的关键路径上
+ * 每个进程使用根目录下以pid命名的子目录：启动时删除已退出进程留下的子目录，运行中定时删除不属于池的目录（泄漏的目录）
+ * 通过 {@link Workspace#write} 写入的文件总大小受配额限制，避免占满内存
+ * 根目录、进程目录和输入目录只有服务用户可以访问，其他用户无法列出或进入任意提交的目录；
+ * 隔离执行时用户程序以nobody身份运行，只有挂载进本次运行的工作目录对所有用户可读、可进入，不受服务进程umask的影响
+ */
+@Slf4j
+public class WorkspacePool {
+
+    private static final String DIR_PREFIX = "ws-";
+
+    private static final String INPUT_DIR = "input";
+
+    //本进程的目录：根目录/pid
+    @Getter
+    private final File dir;
+
+    //保持的空闲目录数量
+    @Getter
+    private final int size;
+
+    //写入文件的总大小上限（byte）
+    @Getter
+    private final long quota;
+
+    //定时清理的间隔（ms）
+    private final long sweepInterval;
+
+    private final BlockingQueue<Workspace> idleWorkspaces = new LinkedBlockingQueue<>();
+
+    //池中的全部目录（空闲 + 借出 + 清理中），不在其中的目录由定时清理删除
+    private final Map<File, Boolean> workspaceDirs = new ConcurrentHashMap<>();
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "workspace-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean closed;
+
+    /**
+     * @param root          根目录，为空时优先使用 /dev/shm/codesandbox，不可用时使用 fallbackRoot
+     * @param fallbackRoot  没有内存文件系统时的根目录
+     */
+    public WorkspacePool(String root, File fallbackRoot, int size, long quota, long sweepInterval) {
+        this.dir = new File(resolveRoot(root, fallbackRoot), String.valueOf(RuntimeUtil.getPid()));
+        this.size = size;
+        this.quota = quota;
+        this.sweepInterval = sweepInterval;
+    }
+
+    /**
+     * 清理残留目录，预先创建空闲目录并开始定时清理
+     */
+    public void start() throws IOException {
+        sweepStaleProcesses();
+        //pid可能与之前异常退出的进程相同，本进程的目录也先清空
+        FileUtil.del(dir);
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("无法创建工作目录：" + dir);
+        }
+        restrict(dir.getParentFile());
+        restrict(dir);
+        restrict(FileUtil.mkdir(getInputDir()));
+        replenish();
+        cleaner.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+        log.info("工作目录池启动：{}，大小：{}，配额：{} bytes", dir, size, quota);
+    }
+
+    /**
+     * 借用一个空目录，没有空闲目录时直接创建
+     */
+    public Workspace acquire() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("工作目录池已关闭");
+        }
+        Workspace workspace = idleWorkspaces.poll();
+        if (workspace == null) {
+            workspace = createWorkspace();
+            cleaner.execute(this::replenish);
+        }
+        return workspace;
+    }
+
+    /**
+     * 标准输入文件所在目录，输入文件随提交删除
+     */
+    public File getInputDir() {
+        return new File(dir, INPUT_DIR);
+    }
+
+    public int getIdleCount() {
+        return idleWorkspaces.size();
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public void shutdown() {
+        closed = true;
+        cleaner.shutdownNow();
+        idleWorkspaces.clear();
+        FileUtil.del(dir);
+    }
+
+    //占用配额，超过时抛出异常
+    void reserve(long bytes) throws IOException {
+        long used;
+        do {
+            used = usedBytes.get();
+            if (used + bytes > quota) {
+                throw new IOException("工作目录空间不足，已使用：" + used + " bytes，配额：" + quota + " bytes");
+            }
+        } while (!usedBytes.compareAndSet(used, used + bytes));
+    }
+
+    //在后台清空目录，空闲目录不足时放回池中，否则删除
+    void release(Workspace workspace) {
+        if (closed) {
+            return;
+        }
+        cleaner.execute(() -> {
+            File workspaceDir = workspace.getDir();
+            File[] files = workspaceDir.listFiles();
+            boolean cleaned = files != null;
+            if (files != null) {
+                for (File file : files) {
+                    cleaned &= FileUtil.del(file);
+                }
+            }
+            usedBytes.addAndGet(-workspace.takeUsedBytes());
+            if (cleaned && idleWorkspaces.size() < size) {
+                idleWorkspaces.offer(new Workspace(workspaceDir, this));
+            } else {
+                if (!cleaned) {
+                    log.warn("清空工作目录失败：{}", workspaceDir);
+                }
+                workspaceDirs.remove(workspaceDir);
+                FileUtil.del(workspaceDir);
+            }
+        });
+    }
+
+    private Workspace createWorkspace() throws IOException {
+        File workspaceDir = new File(dir, DIR_PREFIX + sequence.incrementAndGet());
+        //先登记再创建，避免被定时清理当作泄漏的目录
+        workspaceDirs.put(workspaceDir, Boolean.TRUE);
+        if (!workspaceDir.mkdir()) {
+            workspaceDirs.remove(workspaceDir);
+            throw new IOException("无法创建工作目录：" + workspaceDir);
+        }
+        share(workspaceDir);
+        return new Workspace(workspaceDir, this);
+    }
+
+    //只允许服务用户读写和进入（0700）
+    private static void restrict(File dir) throws IOException {
+        boolean restricted = dir.setReadable(false, false) & dir.setWritable(false, false) & dir.setExecutable(false, false)
+                & dir.setReadable(true, true) & dir.setWritable(true, true) & dir.setExecutable(true, true);
+        if (!restricted) {
+            throw new IOException("无法设置工作目录权限：" + dir);
+        }
+    }
+
+    //允许其他用户读取和进入（目录）
+    static void share(File file) {
+        file.setReadable(true, false);
+        if (file.isDirectory()) {
+            file.setExecutable(true, false);
+        }
+    }
+
+    private void replenish() {
+        try {
+            while (!closed && idleWorkspaces.size() < size) {
+                idleWorkspaces.offer(createWorkspace());
+            }
+        } catch (IOException e) {
+            log.error("创建工作目录失败", e);
+        }
+    }
+
+    //删除不属于池的目录（如异常退出前写到一半、未登记的目录），并补充空闲目录
+    private void sweep() {
+        File[] files = dir.listFiles(file -> !file.getName().equals(INPUT_DIR) && !workspaceDirs.containsKey(file));
+        if (files != null) {
+            for (File file : files) {
+                log.warn("删除泄漏的工作目录：{}", file);
+                FileUtil.del(file);
+            }
+        }
+        replenish();
+    }
+
+    //删除已退出进程留下的目录
+    private void sweepStaleProcesses() {
+        File[] files = dir.getParentFile().listFiles(file -> file.isDirectory() && StrUtil.isNumeric(file.getName()) && !file.equals(dir));
+        //没有 /proc 时无法判断进程是否存在，不删除
+        if (files == null || !new File("/proc/self").exists()) {
+            return;
+        }
+        for (File file : files) {
+            if (!new File("/proc", file.getName()).exists()) {
+                log.info("删除已退出进程的工作目录：{}", file);
+                FileUtil.del(file);
+            }
+        }
+    }
+
+    private static File resolveRoot(String root, File fallbackRoot) {
+        if (StrUtil.isNotBlank(root)) {
+            return new File(root);
+        }
+        File shm = new File("/dev/shm");
+        return shm.isDirectory() && shm.canWrite() ? new File(shm, "codesandbox") : fallbackRoot;
+    }
+}
@@ -0,0 +1,527 @@
+# -*- coding: utf-8 -*-
+"""
+常驻fork服务：预先启动并导入常用模块，每个任务fork一个子进程执行，
+Python源码在子进程中直接执行（不再启动解释器），可执行文件在子进程中exec
+父进程用wait4取得子进程的CPU时间和峰值内存，超时由计时器结束整个进程组
+
+通过标准输入输出与沙箱服务通信（大端）：
+请求：模式(byte，低4位为模式，FLAG_ISOLATED位表示隔离执行)，文件路径，参数个数(int)，参数...，标准输入文件路径（空为无输入），超时(int ms)，输出上限(int)，内存上限(long)，
+     工作目录，挂载数(int)，(路径，是否可写(bool))...（后两项只在隔离执行时使用）
+响应：退出码(int，被信号结束时为负的信号值)，耗时(long ms)，CPU时间(long ms)，峰值内存(long KB)，
+     是否超时，是否输出溢出，是否内存溢出(bool)，标准输出，错误输出
+字符串和字节数组均为 长度(int) + 内容
+
+隔离执行（FLAG_ISOLATED）需要fork服务以root身份运行：子进程进入新的mount、net、pid、ipc、uts命名空间，
+切换到只读的最小根目录（pivot_root）：只有只读的系统目录（/usr、/etc等）、几个设备文件、私有的/tmp、/dev/shm、/proc，
+以及请求中列出的路径（与宿主机路径相同，如本次执行的代码目录），其余宿主机文件（其他提交的代码、测试数据、
+fork服务自身）都看不到；随后切换为nobody身份，当前目录为请求中的工作目录
+执行前安装系统调用白名单（seccomp），不能创建子进程、不能打开网络连接，白名单之外的系统调用返回EPERM
+白名单的BPF程序在fork服务启动时生成一次
+"""
+import ctypes
+import os
+import resource
+import signal
+import struct
+import sys
+import tempfile
+import threading
+import time
+import traceback
+import types
+
+# 预先导入，fork出的子进程直接共享
+import bisect
+import collections
+import functools
+import heapq
+import itertools
+import math
+import re
+import string
+
+READY = 0x5EED
+
+MODE_PYTHON = 0
+MODE_EXEC = 1
+MODE_PYTHON_COMPILE = 2
+
+FLAG_ISOLATED = 0x10
+
+# Python子进程因MemoryError退出时使用的退出码
+MEMORY_ERROR_EXIT = 125
+
+# 隔离环境建立失败时使用的退出码，错误输出以ISOLATION_ERROR开头；
+# 隔离后安装系统调用白名单或exec失败（没有执行权限、文件不存在等）时错误输出以EXEC_ERROR开头
+ISOLATION_FAILED_EXIT = 126
+ISOLATION_ERROR = '隔离失败：'
+EXEC_ERROR = '启动失败：'
+
+NOBODY = 65534
+
+# 隔离执行时新根目录的挂载点，与脚本在同一目录（只有fork服务自己使用）
+ROOTFS = os.path.join(os.path.dirname(os.path.abspath(__file__)), 'rootfs')
+
+# 以只读方式出现在新根目录中的系统目录，宿主机上是符号链接（如 /bin -> usr/bin）时只复制链接
+SYSTEM_PATHS = ('/usr', '/bin', '/sbin', '/lib', '/lib32', '/lib64', '/libx32', '/etc')
+
+DEVICES = ('null', 'zero', 'full', 'random', 'urandom')
+
+# pivot_root没有libc封装，按架构直接调用
+PIVOT_ROOT = {'x86_64': 155, 'aarch64': 41}
+
+CLONE_THREAD = 0x00010000
+CLONE_NEWNS = 0x00020000
+CLONE_NEWUTS = 0x04000000
+CLONE_NEWIPC = 0x08000000
+CLONE_NEWPID = 0x20000000
+CLONE_NEWNET = 0x40000000
+
+MS_RDONLY = 1
+MS_NOSUID = 2
+MS_NODEV = 4
+MS_NOEXEC = 8
+MS_REMOUNT = 32
+MS_BIND = 0x1000
+MS_REC = 0x4000
+MS_PRIVATE = 0x40000
+
+MNT_DETACH = 2
+
+PR_SET_SECCOMP = 22
+PR_SET_NO_NEW_PRIVS = 38
+SECCOMP_MODE_FILTER = 2
+
+SECCOMP_RET_KILL_PROCESS = 0x80000000
+SECCOMP_RET_ERRNO = 0x00050000
+SECCOMP_RET_ALLOW = 0x7FFF0000
+EPERM = 1
+ENOSYS = 38
+
+# 系统调用白名单：文件读写（受nobody身份和私有挂载限制）、内存、信号、线程、时间，
+# JVM、CPython和C程序运行所需；clone只允许创建线程，clone3返回ENOSYS让libc退回clone
+SYSCALLS = {
+    # 架构: (审计架构, clone调用号, clone3调用号, 允许的系统调用)
+    'x86_64': (0xC000003E, 56, 435, {
+        'read': 0, 'write': 1, 'readv': 19, 'writev': 20, 'pread64': 17, 'pwrite64': 18, 'open': 2, 'openat': 257,
+        'close': 3, 'close_range': 436, 'lseek': 8, 'fcntl': 72, 'flock': 73, 'fsync': 74, 'fdatasync': 75,
+        'ftruncate': 77, 'stat': 4, 'fstat': 5, 'lstat': 6, 'newfstatat': 262, 'statx': 332, 'statfs': 137,
+        'fstatfs': 138, 'access': 21, 'faccessat': 269, 'faccessat2': 439, 'readlink': 89, 'readlinkat': 267,
+        'getdents64': 217, 'getcwd': 79, 'chdir': 80, 'fchdir': 81, 'mkdir': 83, 'mkdirat': 258, 'unlink': 87,
+        'unlinkat': 263, 'umask': 95, 'fadvise64': 221, 'ioctl': 16, 'poll': 7, 'ppoll': 271, 'select': 23,
+        'pselect6': 270, 'pipe': 22, 'pipe2': 293, 'dup': 32, 'dup2': 33, 'dup3': 292, 'mmap': 9, 'mprotect': 10,
+        'munmap': 11, 'mremap': 25, 'msync': 26, 'mincore': 27, 'madvise': 28, 'brk': 12, 'rt_sigaction': 13,
+        'rt_sigprocmask': 14, 'rt_sigreturn': 15, 'rt_sigsuspend': 130, 'rt_sigtimedwait': 128, 'sigaltstack': 131,
+        'kill': 62, 'tgkill': 234, 'tkill': 200, 'restart_syscall': 219, 'futex': 202, 'set_robust_list': 273,
+        'get_robust_list': 274, 'set_tid_address': 218, 'rseq': 334, 'membarrier': 324, 'sched_yield': 24,
+        'sched_getaffinity': 204, 'sched_getparam': 143, 'sched_getscheduler': 145, 'sched_get_priority_max': 146,
+        'sched_get_priority_min': 147, 'getpriority': 140, 'nanosleep': 35, 'clock_nanosleep': 230,
+        'clock_gettime': 228, 'clock_getres': 229, 'gettimeofday': 96, 'getitimer': 36, 'setitimer': 38, 'alarm': 37,
+        'times': 100, 'getpid': 39, 'gettid': 186, 'getppid': 110, 'getpgrp': 111, 'getpgid': 121, 'getsid': 124,
+        'getuid': 102, 'geteuid': 107, 'getgid': 104, 'getegid': 108, 'getgroups': 115, 'getresuid': 118,
+        'getresgid': 120, 'getrlimit': 97, 'setrlimit': 160, 'prlimit64': 302, 'getrusage': 98, 'sysinfo': 99,
+        'uname': 63, 'arch_prctl': 158, 'prctl': 157, 'getrandom': 318, 'getcpu': 309, 'epoll_create1': 291,
+        'epoll_ctl': 233, 'epoll_wait': 232, 'epoll_pwait': 281, 'eventfd2': 290, 'wait4': 61, 'waitid': 247,
+        'execve': 59, 'exit': 60, 'exit_group': 231}),
+    'aarch64': (0xC00000B7, 220, 435, {
+        'read': 63, 'write': 64, 'readv': 65, 'writev': 66, 'pread64': 67, 'pwrite64': 68, 'openat': 56, 'close': 57,
+        'close_range': 436, 'lseek': 62, 'fcntl': 25, 'flock': 32, 'fsync': 82, 'fdatasync': 83, 'ftruncate': 46,
+        'fstat': 80, 'newfstatat': 79, 'statx': 291, 'statfs': 43, 'fstatfs': 44, 'faccessat': 48, 'faccessat2': 439,
+        'readlinkat': 78, 'getdents64': 61, 'getcwd': 17, 'chdir': 49, 'fchdir': 50, 'mkdirat': 34, 'unlinkat': 35,
+        'umask': 166, 'fadvise64': 223, 'ioctl': 29, 'ppoll': 73, 'pselect6': 72, 'pipe2': 59, 'dup': 23, 'dup3': 24,
+        'mmap': 222, 'mprotect': 226, 'munmap': 215, 'mremap': 216, 'msync': 227, 'mincore': 232, 'madvise': 233,
+        'brk': 214, 'rt_sigaction': 134, 'rt_sigprocmask': 135, 'rt_sigreturn': 139, 'rt_sigsuspend': 133,
+        'rt_sigtimedwait': 137, 'sigaltstack': 132, 'kill': 129, 'tgkill': 131, 'tkill': 130, 'restart_syscall': 128,
+        'futex': 98, 'set_robust_list': 99, 'get_robust_list': 100, 'set_tid_address': 96, 'rseq': 293,
+        'membarrier': 283, 'sched_yield': 124, 'sched_getaffinity': 123, 'sched_getparam': 121,
+        'sched_getscheduler': 120, 'sched_get_priority_max': 125, 'sched_get_priority_min': 126, 'getpriority': 141,
+        'nanosleep': 101, 'clock_nanosleep': 115, 'clock_gettime': 113, 'clock_getres': 114, 'gettimeofday': 169,
+        'getitimer': 102, 'setitimer': 103, 'times': 153, 'getpid': 172, 'gettid': 178, 'getppid': 173,
+        'getpgid': 155, 'getsid': 156, 'getuid': 174, 'geteuid': 175, 'getgid': 176, 'getegid': 177,
+        'getgroups': 158, 'getresuid': 148, 'getresgid': 150, 'getrlimit': 163, 'setrlimit': 164, 'prlimit64': 261,
+        'getrusage': 165, 'sysinfo': 179, 'uname': 160, 'prctl': 167, 'getrandom': 278, 'getcpu': 168,
+        'epoll_create1': 20, 'epoll_ctl': 21, 'epoll_pwait': 22, 'eventfd2': 19, 'wait4': 260, 'waitid': 95,
+        'execve': 221, 'exit': 93, 'exit_group': 94}),
+}
+
+
+def read_exact(stream, length):
+    data = stream.read(length)
+    if data is None or len(data) < length:
+        raise EOFError()
+    return data
+
+
+def read_int(stream):
+    return struct.unpack('>i', read_exact(stream, 4))[0]
+
+
+def read_long(stream):
+    return struct.unpack('>q', read_exact(stream, 8))[0]
+
+
+def read_bool(stream):
+    return read_exact(stream, 1) != b'\x00'
+
+
+def read_bytes(stream):
+    return read_exact(stream, read_int(stream))
+
+
+def new_file():
+    if hasattr(os, 'memfd_create'):
+        return os.memfd_create('sandbox')
+    fd, path = tempfile.mkstemp()
+    os.unlink(path)
+    return fd
+
+
+def open_stdin(path):
+    # 子进程直接读取输入文件，输入不经过fork服务
+    if path:
+        return os.open(path, os.O_RDONLY)
+    return new_file()
+
+
+def read_output(fd, limit):
+    os.lseek(fd, 0, os.SEEK_SET)
+    chunks = []
+    remaining = limit + 1
+    while remaining > 0:
+        chunk = os.read(fd, min(remaining, 65536))
+        if not chunk:
+            break
+        chunks.append(chunk)
+        remaining -= len(chunk)
+    data = b''.join(chunks)
+    return data[:limit], len(data) > limit
+
+
+def exit_code(e):
+    if e.code is None:
+        return 0
+    if isinstance(e.code, int):
+        return e.code
+    sys.stderr.write(str(e.code) + '\n')
+    return 1
+
+
+def run_python(path, args, compile_only):
+    with open(path, 'rb') as f:
+        source = f.read()
+    name = os.path.basename(path)
+    try:
+        code = compile(source, name, 'exec')
+    except (SyntaxError, ValueError) as e:
+        traceback.print_exception(type(e), e, None)
+        return 1
+    if compile_only:
+        return 0
+    sys.argv = [name] + args
+    main = types.ModuleType('__main__')
+    main.__file__ = name
+    sys.modules['__main__'] = main
+    try:
+        exec(code, main.__dict__)
+    except SystemExit as e:
+        return exit_code(e)
+    except MemoryError as e:
+        traceback.print_exception(type(e), e, e.__traceback__.tb_next)
+        return MEMORY_ERROR_EXIT
+    except BaseException as e:
+        # 去掉fork服务自身的栈帧
+        traceback.print_exception(type(e), e, e.__traceback__.tb_next)
+        return 1
+    return 0
+
+
+class SockFprog(ctypes.Structure):
+    _fields_ = [('len', ctypes.c_ushort), ('filter', ctypes.c_void_p)]
+
+
+def bpf_stmt(code, k):
+    return struct.pack('=HBBI', code, 0, 0, k)
+
+
+def bpf_jump(code, k, jt, jf):
+    return struct.pack('=HBBI', code, jt, jf, k)
+
+
+def build_seccomp_filter():
+    """
+    生成白名单的BPF程序：先校验架构，再逐个比较系统调用号
+    返回 (程序, 过滤器结构)，当前架构不支持时返回None
+    """
+    machine = os.uname().machine
+    if machine not in SYSCALLS:
+        return None
+    audit_arch, clone_nr, clone3_nr, allowed = SYSCALLS[machine]
+    ld_abs, jeq, jset, ret = 0x20, 0x15, 0x45, 0x06
+    program = [
+        # seccomp_data.arch
+        bpf_stmt(ld_abs, 4),
+        bpf_jump(jeq, audit_arch, 1, 0),
+        bpf_stmt(ret, SECCOMP_RET_KILL_PROCESS),
+        # seccomp_data.nr
+        bpf_stmt(ld_abs, 0),
+        # clone的flags（args[0]的低32位）必须包含CLONE_THREAD
+        bpf_jump(jeq, clone_nr, 0, 4),
+        bpf_stmt(ld_abs, 16),
+        bpf_jump(jset, CLONE_THREAD, 0, 1),
+        bpf_stmt(ret, SECCOMP_RET_ALLOW),
+        bpf_stmt(ret, SECCOMP_RET_ERRNO | EPERM),
+        bpf_jump(jeq, clone3_nr, 0, 1),
+        bpf_stmt(ret, SECCOMP_RET_ERRNO | ENOSYS),
+    ]
+    for nr in sorted(set(allowed.values())):
+        program.append(bpf_jump(jeq, nr, 0, 1))
+        program.append(bpf_stmt(ret, SECCOMP_RET_ALLOW))
+    program.append(bpf_stmt(ret, SECCOMP_RET_ERRNO | EPERM))
+    code = ctypes.create_string_buffer(b''.join(program))
+    return code, SockFprog(len(program), ctypes.addressof(code))
+
+
+libc = ctypes.CDLL(None, use_errno=True)
+SECCOMP_FILTER = build_seccomp_filter()
+
+
+def check(result, action):
+    if result != 0:
+        errno = ctypes.get_errno()
+        raise OSError(errno, '%s：%s' % (action, os.strerror(errno)))
+
+
+def mount(source, target, fstype, flags, data):
+    check(libc.mount(source.encode(), target.encode(), fstype.encode() if fstype else None, ctypes.c_ulong(flags),
+                     data.encode() if data else None), 'mount ' + target)
+
+
+def bind(source, target, writable):
+    mount(source, target, None, MS_BIND | MS_REC, None)
+    # 绑定挂载的只读等标志要重新挂载一次才生效
+    mount('none', target, None, MS_BIND | MS_REMOUNT | MS_NOSUID | MS_NODEV | (0 if writable else MS_RDONLY), None)
+
+
+def under_system_path(path):
+    return any(path == prefix or path.startswith(prefix + '/') for prefix in SYSTEM_PATHS)
+
+
+def enter_rootfs(work_dir, mounts):
+    """
+    在新的mount命名空间中搭建最小根目录并切换过去，只能在新pid命名空间的1号进程中调用（需要挂载新的/proc）
+    """
+    mount('none', '/', None, MS_REC | MS_PRIVATE, None)
+    mount('tmpfs', ROOTFS, 'tmpfs', MS_NOSUID | MS_NODEV, 'size=16m,mode=0755')
+    for path in SYSTEM_PATHS:
+        target = ROOTFS + path
+        if os.path.islink(path):
+            os.symlink(os.readlink(path), target)
+        elif os.path.isdir(path):
+            os.mkdir(target)
+            bind(path, target, False)
+    dev = ROOTFS + '/dev'
+    os.mkdir(dev)
+    mount('tmpfs', dev, 'tmpfs', MS_NOSUID | MS_NOEXEC, 'size=64k,mode=0755')
+    for name in DEVICES:
+        target = os.path.join(dev, name)
+        open(target, 'w').close()
+        mount('/dev/' + name, target, None, MS_BIND, None)
+    for index, name in enumerate(('stdin', 'stdout', 'stderr')):
+        os.symlink('/proc/self/fd/%d' % index, os.path.join(dev, name))
+    os.symlink('/proc/self/fd', os.path.join(dev, 'fd'))
+    for target in (ROOTFS + '/tmp', dev + '/shm'):
+        os.mkdir(target)
+        mount('tmpfs', target, 'tmpfs', MS_NOSUID | MS_NODEV, 'size=64m,mode=1777')
+    os.mkdir(ROOTFS + '/proc')
+    # 只显示新pid命名空间中的进程
+    mount('proc', ROOTFS + '/proc', 'proc', MS_NOSUID | MS_NODEV | MS_NOEXEC, None)
+    # 父目录先挂载，文件（如可写的测量报告）挂载在已挂载的目录中
+    for path, writable in sorted(mounts):
+        if under_system_path(path):
+            continue
+        target = ROOTFS + path
+        if os.path.isdir(path):
+            os.makedirs(target, exist_ok=True)
+        else:
+            os.makedirs(os.path.dirname(target), exist_ok=True)
+            if not os.path.exists(target):
+                open(target, 'w').close()
+        bind(path, target, writable)
+    os.chdir(ROOTFS)
+    check(libc.syscall(PIVOT_ROOT[os.uname().machine], b'.', b'.'), 'pivot_root')
+    # 旧根目录叠在新根目录之下，卸载后宿主机文件系统在命名空间中不再可达
+    check(libc.umount2(b'.', MNT_DETACH), 'umount')
+    os.chdir('/')
+    mount('none', '/', None, MS_BIND | MS_REMOUNT | MS_RDONLY | MS_NOSUID | MS_NODEV, None)
+    os.chdir(work_dir or '/')
+
+
+def isolate(work_dir, mounts):
+    """
+    进入新的命名空间和根目录并切换为nobody，当前进程留在外层等待，返回的是新pid命名空间中的1号进程
+    """
+    if SECCOMP_FILTER is None or os.uname().machine not in PIVOT_ROOT:
+        raise OSError(0, '不支持的架构：' + os.uname().machine)
+    if os.geteuid() != 0:
+        # 非root时只能把自身uid映射进user命名空间，用户程序仍以服务的身份访问宿主机文件，不算隔离
+        raise OSError(0, '需要以root身份运行服务，用户程序才能以nobody身份执行')
+    check(libc.unshare(CLONE_NEWNS | CLONE_NEWNET | CLONE_NEWPID | CLONE_NEWIPC | CLONE_NEWUTS), 'unshare')
+    pid = os.fork()
+    if pid == 0:
+        enter_rootfs(work_dir, mounts)
+        os.setgroups([])
+        os.setgid(NOBODY)
+        os.setuid(NOBODY)
+        return
+    # 外层进程只负责转发退出状态，1号进程退出时内核结束命名空间中的所有进程
+    _, status = os.waitpid(pid, 0)
+    if os.WIFSIGNALED(status):
+        signal.signal(os.WTERMSIG(status), signal.SIG_DFL)
+        os.kill(os.getpid(), os.WTERMSIG(status))
+    os._exit(os.WEXITSTATUS(status) if os.WIFEXITED(status) else 1)
+
+
+def install_seccomp():
+    check(libc.prctl(PR_SET_NO_NEW_PRIVS, 1, 0, 0, 0), 'prctl')
+    check(libc.prctl(PR_SET_SECCOMP, SECCOMP_MODE_FILTER, ctypes.byref(SECCOMP_FILTER[1]), 0, 0), 'seccomp')
+
+
+def exec_failed(path, e):
+    """
+    隔离执行时用户程序没能开始运行，是服务端的问题（如代码目录对nobody不可读），不能判为运行错误
+    """
+    os.write(2, ('%s%s：errno=%d（%s）' % (EXEC_ERROR, path, e.errno or 0, e.strerror or e)).encode())
+    os._exit(ISOLATION_FAILED_EXIT)
+
+
+def child(mode, path, args, stdin_fd, out_fd, err_fd, timeout, output_limit, memory_limit, work_dir, mounts):
+    code = 1
+    try:
+        os.setpgid(0, 0)
+        os.dup2(stdin_fd, 0)
+        os.dup2(out_fd, 1)
+        os.dup2(err_fd, 2)
+        for fd in (stdin_fd, out_fd, err_fd):
+            os.close(fd)
+        cpu_seconds = timeout // 1000 + 1
+        resource.setrlimit(resource.RLIMIT_CPU, (cpu_seconds, cpu_seconds + 1))
+        resource.setrlimit(resource.RLIMIT_FSIZE, (output_limit + 1, output_limit + 1))
+        if memory_limit > 0:
+            resource.setrlimit(resource.RLIMIT_AS, (memory_limit, memory_limit))
+        resource.setrlimit(resource.RLIMIT_CORE, (0, 0))
+        isolated = mode & FLAG_ISOLATED
+        mode &= 0x0F
+        if isolated:
+            try:
+                isolate(work_dir, mounts)
+            except OSError as e:
+                os.write(2, (ISOLATION_ERROR + str(e)).encode())
+                os._exit(ISOLATION_FAILED_EXIT)
+        if mode == MODE_EXEC:
+            # Python忽略了这两个信号，exec前恢复默认处理
+            signal.signal(signal.SIGPIPE, signal.SIG_DFL)
+            signal.signal(signal.SIGXFSZ, signal.SIG_DFL)
+            if not isolated:
+                os.execv(path, [path] + args)
+            try:
+                install_seccomp()
+                os.execv(path, [path] + args)
+            except OSError as e:
+                exec_failed(path, e)
+        sys.stdin = open(0, 'r', encoding='utf-8', closefd=False)
+        sys.stdout = open(1, 'w', encoding='utf-8', closefd=False)
+        sys.stderr = open(2, 'w', encoding='utf-8', closefd=False)
+        if isolated:
+            try:
+                install_seccomp()
+            except OSError as e:
+                exec_failed(path, e)
+        code = run_python(path, args, mode == MODE_PYTHON_COMPILE)
+        sys.stdout.flush()
+        sys.stderr.flush()
+    except BaseException:
+        try:
+            traceback.print_exc()
+            sys.stderr.flush()
+        except BaseException:
+            pass
+    os._exit(code & 0xFF)
+
+
+def run_task(request):
+    mode = struct.unpack('>b', read_exact(request, 1))[0]
+    path = read_bytes(request).decode('utf-8')
+    args = [read_bytes(request).decode('utf-8') for _ in range(read_int(request))]
+    stdin_path = read_bytes(request).decode('utf-8')
+    timeout = read_int(request)
+    output_limit = read_int(request)
+    memory_limit = read_long(request)
+    work_dir = read_bytes(request).decode('utf-8')
+    mounts = [(read_bytes(request).decode('utf-8'), read_bool(request)) for _ in range(read_int(request))]
+
+    stdin_fd, out_fd, err_fd = open_stdin(stdin_path), new_file(), new_file()
+    start = time.monotonic()
+    pid = os.fork()
+    if pid == 0:
+        child(mode, path, args, stdin_fd, out_fd, err_fd, timeout, output_limit, memory_limit, work_dir, mounts)
+    os.close(stdin_fd)
+    timed_out = threading.Event()
+
+    def kill():
+        timed_out.set()
+        try:
+            os.killpg(pid, signal.SIGKILL)
+        except OSError:
+            pass
+
+    timer = threading.Timer(timeout / 1000.0, kill)
+    timer.start()
+    _, status, usage = os.wait4(pid, 0)
+    elapsed = int((time.monotonic() - start) * 1000)
+    timer.cancel()
+    # 清理子进程留下的后台进程
+    try:
+        os.killpg(pid, signal.SIGKILL)
+    except OSError:
+        pass
+
+    output, output_exceeded = read_output(out_fd, output_limit)
+    error, error_exceeded = read_output(err_fd, output_limit)
+    os.close(out_fd)
+    os.close(err_fd)
+    if os.WIFSIGNALED(status):
+        exit_value = -os.WTERMSIG(status)
+    else:
+        exit_value = os.WEXITSTATUS(status)
+    cpu_time = int((usage.ru_utime + usage.ru_stime) * 1000)
+    if exit_value == -signal.SIGXCPU:
+        timed_out.set()
+    output_exceeded = output_exceeded or error_exceeded or exit_value == -signal.SIGXFSZ
+    memory_exceeded = (mode & 0x0F) != MODE_EXEC and exit_value == MEMORY_ERROR_EXIT
+    return struct.pack('>iqqq???', exit_value, elapsed, cpu_time, usage.ru_maxrss,
+                       timed_out.is_set(), output_exceeded, memory_exceeded) \
+        + struct.pack('>i', len(output)) + output + struct.pack('>i', len(error)) + error
+
+
+def main():
+    if os.geteuid() == 0:
+        try:
+            os.mkdir(ROOTFS, 0o755)
+        except FileExistsError:
+            pass
+    request = os.fdopen(0, 'rb')
+    response = os.fdopen(1, 'wb')
+    response.write(struct.pack('>i', READY))
+    response.flush()
+    while True:
+        try:
+            result = run_task(request)
+        except EOFError:
+            # 服务端关闭管道，正常退出
+            return
+        response.write(result)
+        response.flush()
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,69 @@
+package com.codesanbox.blacklist;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlacklistScannerTests {
+
+    private static final BlacklistScanner JAVA = BlacklistScanner.compile(SourceSyntax.JAVA,
+            Arrays.asList("Files", "Path", "Runtime.getRuntime().exec", "exec", "java.util.concurrent.", "System.exit"));
+
+    @Test
+    void matchesWholeTokensOnly() {
+        assertEquals(words(""), scan(JAVA, "String Profiles = maxPath + executor; int Files2 = 0;"));
+        assertEquals(words("Files", "Path"), scan(JAVA, "Files.readAllLines(Path.of(\"a\"));"));
+        assertEquals(words("Runtime.getRuntime().exec", "exec"), scan(JAVA, "Runtime . getRuntime ( )\n  .exec(cmd);"));
+        assertEquals(words("java.util.concurrent."), scan(JAVA, "import java.util.concurrent.*;"));
+        assertEquals(words("System.exit"), scan(JAVA, "System.exit(0);"));
+    }
+
+    @Test
+    void skipsCommentsAndLiteralsButNotUnicodeEscapes() {
+        assertEquals(words(""), scan(JAVA, "// Files\n/* System.exit(0) */ String s = \"Path \\\" exec\"; char c = '\"'; String t = \"\"\"\n  exec\n  \"\"\";"));
+        //Unicode转义在编译前处理，注释中转义的换行会结束注释
+        assertEquals(words("Files", "System.exit"), scan(JAVA, "\\u0046iles.delete(); // \\u000a System.exit(1);"));
+        assertEquals(words(""), scan(JAVA, "String s = \"\\\\u0046iles\";"));
+    }
+
+    @Test
+    void reportsAllHitsWithLines() {
+        List<BlacklistHit> hits = JAVA.scan("class Main {\n  Path p;\n  // Files\n  void f() { System.exit(0); }\n}", 10);
+        assertEquals("Path（第 2 行）、System.exit（第 4 行）",
+                hits.stream().map(BlacklistHit::toString).collect(Collectors.joining("、")));
+        assertEquals(1, JAVA.scan("Path a; Path b; Path c;", 1).size());
+    }
+
+    @Test
+    void pythonAndCRules() {
+        BlacklistScanner python = BlacklistScanner.compile(SourceSyntax.PYTHON, Arrays.asList("import os", "pty", "__import__", "open("));
+        assertEquals(words(""), scan(python, "empty = 1  # import os\ns = 'open(' + \"\"\"\n__import__\n\"\"\""));
+        assertEquals(words("import os", "__import__", "open("), scan(python, "import os.path\nx = f\"{__import__('sys')}\"\nopen ('a')"));
+
+        BlacklistScanner c = BlacklistScanner.compile(SourceSyntax.C, Arrays.asList("system(", "pthread*", "<sys/socket.h>"));
+        assertEquals(words(""), scan(c, "int filesystem(int); const char *s = R\"x(system(\"sh\"))x\"; // pthread"));
+        assertEquals(words("<sys/socket.h>", "pthread*", "system("),
+                scan(c, "#include < sys/socket.h >\npthread_t t;\nint x = 1'000; sys\\\ntem(\"sh\");"));
+    }
+
+    @Test
+    void rejectsEmptyAndNonAsciiRules() {
+        assertThrows(IllegalArgumentException.class, () -> BlacklistScanner.compile(SourceSyntax.JAVA, Arrays.asList("// ")));
+        assertThrows(IllegalArgumentException.class, () -> BlacklistScanner.compile(SourceSyntax.JAVA, Arrays.asList("文件")));
+        assertTrue(BlacklistScanner.compile(SourceSyntax.JAVA, Arrays.asList("File", "File")).getRules().size() == 1);
+    }
+
+    private static List<String> scan(BlacklistScanner scanner, String code) {
+        return scanner.scan(code, 100).stream().map(BlacklistHit::getWord).collect(Collectors.toList());
+    }
+
+    private static List<String> words(String... words) {
+        return Arrays.stream(words).filter(word -> !word.isEmpty()).collect(Collectors.toList());
+    }
+}
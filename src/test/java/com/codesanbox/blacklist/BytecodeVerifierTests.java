@@ -0,0 +1,67 @@
+package com.codesanbox.blacklist;
+
+import com.codesanbox.compiler.JavaCompilerEngine;
+import com.codesanbox.model.CompileResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BytecodeVerifierTests {
+
+    private static final BytecodeVerifier VERIFIER = BytecodeVerifier.compile(JavaApiPolicy.FORBIDDEN_APIS);
+
+    @Test
+    void acceptsOrdinaryPrograms() {
+        //lambda、字符串拼接、枚举switch会引用java.lang.invoke和内部类，不能误判
+        assertEquals(Arrays.asList(), verify("import java.io.*; import java.util.*;\n"
+                + "public class Main { enum Op { ADD, SUB }\n"
+                + "  public static void main(String[] args) throws IOException {\n"
+                + "    BufferedReader in = new BufferedReader(new InputStreamReader(System.in));\n"
+                + "    PrintWriter out = new PrintWriter(System.out);\n"
+                + "    List<Integer> list = new ArrayList<>(Arrays.asList(3, 1, 2));\n"
+                + "    list.sort((a, b) -> b - a);\n"
+                + "    Op op = Op.valueOf(\"ADD\");\n"
+                + "    switch (op) { case ADD: out.println(\"sum=\" + list.stream().mapToInt(Integer::intValue).sum()); break; default: break; }\n"
+                + "    out.flush();\n"
+                + "  }\n"
+                + "}"));
+    }
+
+    @Test
+    void rejectsForbiddenReferences() {
+        assertEquals(Arrays.asList("Main 引用了 java.lang.Runtime.exec"),
+                verify("public class Main { public static void main(String[] a) throws Exception { Runtime.getRuntime().exec(\"ls\"); } }"));
+        assertEquals(Arrays.asList("Main 引用了 java.lang.System.exit"),
+                verify("import static java.lang.System.exit;\npublic class Main { public static void main(String[] a) { exit(1); } }"));
+        assertEquals(Arrays.asList("Main 引用了 java.lang.Class.forName", "Main 引用了 java.lang.reflect.Method"),
+                verify("public class Main { public static void main(String[] a) throws Exception { Class.forName(\"x\").getMethod(\"f\").invoke(null); } }"));
+        assertEquals(Arrays.asList("Main 引用了 java.io.PrintWriter.<init>(Ljava/lang/String;"),
+                verify("public class Main { public static void main(String[] a) throws Exception { new java.io.PrintWriter(\"out.txt\").close(); } }"));
+        //继承禁止的类、内部类和数组类型同样拦截
+        List<String> violations = verify("public class Main extends java.lang.Thread {\n"
+                + "  static java.net.Socket[] sockets = new java.net.Socket[1];\n"
+                + "  public static void main(String[] a) { System.out.println(Thread.State.NEW); }\n"
+                + "}");
+        assertTrue(violations.contains("Main 引用了 java.lang.Thread"), violations.toString());
+        assertTrue(violations.contains("Main 引用了 java.net.Socket"), violations.toString());
+    }
+
+    @Test
+    void sharesRulesWithSourceBlacklist() {
+        List<String> sourceRules = JavaApiPolicy.sourceRules();
+        assertTrue(sourceRules.containsAll(Arrays.asList("java.net.", "ProcessBuilder", "Runtime.exec", "System.exit", "Class.forName")));
+        assertTrue(sourceRules.stream().noneMatch(rule -> rule.contains("<init>")));
+        assertThrows(IllegalArgumentException.class, () -> BytecodeVerifier.compile(Arrays.asList("exec")));
+    }
+
+    private static List<String> verify(String code) {
+        CompileResult compileResult = JavaCompilerEngine.getInstance().compile("Main", code);
+        assertTrue(compileResult.isSuccess(), compileResult.getExecuteMessage().getMessage());
+        return VERIFIER.verify(compileResult.getClassBytes(), 20);
+    }
+}
@@ -0,0 +1,37 @@
+package com.codesanbox.cgroup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CgroupPoolTests {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void unavailableOutsideCgroupV2() {
+        //普通目录不是cgroup v2节点，池不可用，调用方退回原生执行
+        CgroupPool cgroupPool = new CgroupPool(true, new File(tempDir, "codesandbox"), 2, 100, 256L * 1024 * 1024, 1, 64);
+        cgroupPool.start();
+        try {
+            assertFalse(cgroupPool.isAvailable());
+            assertEquals(0, cgroupPool.getIdleCount());
+            assertFalse(new File(tempDir, "codesandbox").exists());
+        } finally {
+            cgroupPool.shutdown();
+        }
+    }
+
+    @Test
+    void wrapsCommandToEnterLeafBeforeExec() {
+        CgroupLeaf leaf = new CgroupLeaf(new File("/sys/fs/cgroup/codesandbox/leaf-1"));
+        assertEquals(Arrays.asList("sh", "-c", "echo 0 > \"$0/cgroup.procs\" && exec \"$@\"", "/sys/fs/cgroup/codesandbox/leaf-1",
+                "java", "-cp", ".", "Main"), leaf.wrap(Arrays.asList("java", "-cp", ".", "Main")));
+    }
+}
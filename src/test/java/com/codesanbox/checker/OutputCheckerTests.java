@@ -0,0 +1,76 @@
+package com.codesanbox.checker;
+
+import com.codesanbox.model.enums.CheckerEnum;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputCheckerTests {
+
+    @Test
+    void exactIgnoresCarriageReturnAndTrailingNewlines() {
+        assertEquals(JudgeInfoMessageEnum.ACCEPTED, check(CheckerEnum.EXACT, "1 2\n3\n", "1 2\r\n3\r\n\n"));
+        assertEquals(JudgeInfoMessageEnum.ACCEPTED, check(CheckerEnum.EXACT, "1 2\n3\n\n", "1 2\n3"));
+    }
+
+    @Test
+    void exactReportsPresentationErrorWhenOnlyWhitespaceDiffers() {
+        assertEquals(JudgeInfoMessageEnum.PRESENTATION_ERROR, check(CheckerEnum.EXACT, "1 2\n3", "1  2\n3"));
+        assertEquals(JudgeInfoMessageEnum.PRESENTATION_ERROR, check(CheckerEnum.EXACT, "1 2\n3", "1\n2\n3"));
+        assertEquals(JudgeInfoMessageEnum.ACCEPTED, check(CheckerEnum.WHITESPACE, "1 2\n3", "1\n2   3\n"));
+    }
+
+    @Test
+    void wrongAnswerStopsEarlyWithExcerpt() {
+        OutputChecker checker = OutputChecker.create(CheckerEnum.EXACT, "1\n2\n3\n", null);
+        byte[] output = "1\n5 6\n3\n".getBytes(StandardCharsets.UTF_8);
+        assertFalse(checker.feed(output, 0, output.length));
+        assertTrue(checker.isRejected());
+        CheckResult checkResult = checker.finish();
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, checkResult.getVerdict());
+        assertEquals("第 2 行与期望输出第 2 行不一致\n期望：2\n实际：5 6", checkResult.getDiff());
+    }
+
+    @Test
+    void missingAndExtraOutputAreWrongAnswers() {
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.EXACT, "1 2 3", "1 2"));
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.WHITESPACE, "1 2", "1 2 3"));
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.WHITESPACE, "12", "1"));
+    }
+
+    @Test
+    void floatCheckerUsesAbsoluteOrRelativeError() {
+        assertEquals(JudgeInfoMessageEnum.ACCEPTED, check(CheckerEnum.FLOAT, "0.3333333 1e9 abc", "0.33333334 1000000500 abc"));
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.FLOAT, "0.3333", "0.3334"));
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.FLOAT, "abc", "abd"));
+        assertEquals(JudgeInfoMessageEnum.ACCEPTED, check(CheckerEnum.FLOAT, "-.5 +2. 1E-3", "-0.5 2 0.001"));
+        //Java字面量写法不是数值，超出double范围的值不相同
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.FLOAT, "1", "1f"));
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.FLOAT, "8", "0x1p3"));
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.FLOAT, "1", "1d"));
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.FLOAT, "1e999", "Infinity"));
+        assertEquals(JudgeInfoMessageEnum.WRONG_ANSWER, check(CheckerEnum.FLOAT, "1e999", "2e999"));
+    }
+
+    @Test
+    void tokensSplitAcrossChunksAreCompared() {
+        OutputChecker checker = OutputChecker.create(CheckerEnum.WHITESPACE, "12345 678", null);
+        byte[] output = "12345 678\n".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < output.length; i += 2) {
+            assertTrue(checker.feed(output, i, Math.min(2, output.length - i)));
+        }
+        assertTrue(checker.finish().isAccepted());
+    }
+
+    private static JudgeInfoMessageEnum check(CheckerEnum checkerEnum, String expected, String actual) {
+        OutputChecker checker = OutputChecker.create(checkerEnum, expected, null);
+        byte[] output = actual.getBytes(StandardCharsets.UTF_8);
+        checker.feed(output, 0, output.length);
+        return checker.finish().getVerdict();
+    }
+}
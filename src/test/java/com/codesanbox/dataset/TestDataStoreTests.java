@@ -0,0 +1,82 @@
+package com.codesanbox.dataset;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestDataStoreTests {
+
+    @TempDir
+    File root;
+
+    @Test
+    void savedDatasetIsReadableAfterRestart() throws Exception {
+        new TestDataStore(root, 1024).save("1001", "v1", Arrays.asList("1 2", "3 4"), Arrays.asList("3", "7"));
+        //新实例从磁盘读取
+        TestDataStore store = new TestDataStore(root, 1024);
+        Dataset dataset = store.get("1001", "v1");
+        assertEquals(2, dataset.getCaseCount());
+        assertTrue(dataset.isExpectedOutput());
+        assertEquals("3 4", text(dataset.mapInput(1)));
+        assertEquals("7", text(dataset.mapExpectedOutput(1)));
+        assertEquals("1 2", FileUtil.readUtf8String(dataset.getInputFile(0)));
+        assertNull(store.get("1001", "v2"));
+        //只有服务用户可以访问
+        assertEquals("rwx------", permissions(root));
+        assertEquals("rwx------", permissions(dataset.getDir()));
+        assertEquals("rw-------", permissions(dataset.getInputFile(0)));
+    }
+
+    @Test
+    void versionsAreImmutableAndNamesAreChecked() {
+        TestDataStore store = new TestDataStore(root, 1024);
+        store.save("1001", "v1", Arrays.asList("1"), null);
+        assertThrows(IllegalStateException.class, () -> store.save("1001", "v1", Arrays.asList("2"), null));
+        assertThrows(IllegalArgumentException.class, () -> store.save("..", "v1", Arrays.asList("1"), null));
+        assertThrows(IllegalArgumentException.class, () -> store.save("1001", "a/b", Arrays.asList("1"), null));
+        assertThrows(IllegalArgumentException.class, () -> store.save("1001", "v2", Arrays.asList("1"), Arrays.asList("1", "2")));
+        assertNull(store.get("../1001", "v1"));
+        assertFalse(store.get("1001", "v1").isExpectedOutput());
+        assertTrue(store.delete("1001", "v1"));
+        assertNull(store.get("1001", "v1"));
+        assertFalse(new File(root, "1001" + File.separator + "v1").exists());
+    }
+
+    @Test
+    void mappedFilesAreEvictedByTotalBytes() {
+        TestDataStore store = new TestDataStore(root, 10);
+        Dataset dataset = store.save("1001", "v1", Arrays.asList("aaaa", "bbbb", "cccc"), null);
+        dataset.mapInput(0);
+        dataset.mapInput(1);
+        dataset.mapInput(0);
+        assertEquals(1, store.getHitCount());
+        //超过10字节，淘汰最久未使用的1.in
+        dataset.mapInput(2);
+        assertEquals(2, store.getMappedCount());
+        assertEquals(8, store.getMappedBytes());
+        assertEquals(1, store.getEvictionCount());
+        dataset.mapInput(0);
+        assertEquals(2, store.getHitCount());
+    }
+
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    private static String permissions(File file) throws Exception {
+        return PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath()));
+    }
+}
@@ -0,0 +1,133 @@
+package com.codesanbox.docker;
+
+import com.codesanbox.model.ExecuteMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContainerPoolTests {
+
+    @TempDir
+    File workRoot;
+
+    private final FakeContainerRuntime containerRuntime = new FakeContainerRuntime();
+
+    private ContainerPool containerPool;
+
+    @AfterEach
+    void tearDown() {
+        if (containerPool != null) {
+            containerPool.shutdown();
+        }
+    }
+
+    @Test
+    void reusesContainerAndCleansWorkDir() throws Exception {
+        containerPool = start(1, 10);
+        PooledContainer first = containerPool.acquire();
+        assertTrue(new File(first.getWorkDir(), "Main.class").createNewFile());
+        containerPool.release(first, true);
+
+        PooledContainer second = containerPool.acquire();
+        assertEquals(first.getContainerId(), second.getContainerId());
+        assertEquals(0, second.getWorkDir().list().length);
+        assertEquals(1, containerRuntime.created.get());
+    }
+
+    @Test
+    void recyclesUnhealthyContainer() throws Exception {
+        containerPool = start(1, 10);
+        PooledContainer first = containerPool.acquire();
+        containerPool.release(first, false);
+
+        PooledContainer second = containerPool.acquire();
+        assertNotEquals(first.getContainerId(), second.getContainerId());
+        assertFalse(containerRuntime.running.contains(first.getContainerId()));
+        assertFalse(first.getWorkDir().exists());
+    }
+
+    @Test
+    void recyclesStoppedContainer() throws Exception {
+        containerPool = start(1, 10);
+        PooledContainer first = containerPool.acquire();
+        containerRuntime.running.remove(first.getContainerId());
+        containerPool.release(first, true);
+
+        assertNotEquals(first.getContainerId(), containerPool.acquire().getContainerId());
+    }
+
+    @Test
+    void recyclesAfterMaxUses() throws Exception {
+        containerPool = start(1, 2);
+        PooledContainer first = containerPool.acquire();
+        containerPool.release(first, true);
+        PooledContainer second = containerPool.acquire();
+        assertEquals(first.getContainerId(), second.getContainerId());
+        containerPool.release(second, true);
+
+        assertNotEquals(first.getContainerId(), containerPool.acquire().getContainerId());
+        assertEquals(2, containerRuntime.created.get());
+    }
+
+    @Test
+    void shutdownRemovesIdleContainers() throws Exception {
+        containerPool = start(2, 10);
+        PooledContainer first = containerPool.acquire();
+        PooledContainer second = containerPool.acquire();
+        containerPool.release(first, true);
+        containerPool.release(second, true);
+        containerPool.shutdown();
+        assertTrue(containerRuntime.running.isEmpty());
+    }
+
+    private ContainerPool start(int size, int maxUses) {
+        ContainerPool pool = new ContainerPool(containerRuntime, size, maxUses, 5000, workRoot);
+        pool.start();
+        return pool;
+    }
+
+    //不依赖docker的容器运行时
+    private static class FakeContainerRuntime implements ContainerRuntime {
+        private final AtomicInteger created = new AtomicInteger();
+
+        private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public String create(File workDir) {
+            String containerId = "container-" + created.incrementAndGet();
+            running.add(containerId);
+            return containerId;
+        }
+
+        @Override
+        public boolean isRunning(String containerId) {
+            return running.contains(containerId);
+        }
+
+        @Override
+        public ExecuteMessage exec(String containerId, String[] cmd, long timeout, int outputLimit) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(0);
+            return executeMessage;
+        }
+
+        @Override
+        public void remove(String containerId) {
+            running.remove(containerId);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.codesanbox.language;
+
+import cn.hutool.core.io.FileUtil;
+import com.codesanbox.model.ExecuteCodeRequest;
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.runner.ForkServerPool;
+import com.codesanbox.workspace.WorkspacePool;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class LanguageCodeSandboxTests {
+
+    private static final File PYTHON = new File("/usr/bin/python3");
+
+    private static final File GPP = new File("/usr/bin/g++");
+
+    //隔离执行的用户程序看不到 /tmp，工作目录放在 /var/tmp 下，且路径上的目录对nobody可进入
+    private static final File VAR_TMP = new File("/var/tmp");
+
+    private static final String A_PLUS_B = "#include <cstdio>\n"
+            + "#include <cstdlib>\n"
+            + "int main(int argc, char *argv[]) {\n"
+            + "    printf(\"%d\\n\", atoi(argv[1]) + atoi(argv[2]));\n"
+            + "    return 0;\n"
+            + "}\n";
+
+    @Test
+    void runsCompiledBinaryAsNobody() throws Exception {
+        assumeTrue(PYTHON.canExecute() && GPP.canExecute(), "python3 或 g++ 不存在");
+        assumeTrue(VAR_TMP.isDirectory() && VAR_TMP.canWrite(), "/var/tmp 不可写");
+        File root = new File(VAR_TMP, "codesandbox-test-" + UUID.randomUUID());
+        File scriptDir = new File(root, "runner");
+        ForkServerPool forkServerPool = new ForkServerPool(true, 1, 10, true, 10000, PYTHON.getPath(), scriptDir);
+        WorkspacePool workspacePool = new WorkspacePool(root.getPath(), root, 2, 1 << 24, 60000);
+        try {
+            forkServerPool.start();
+            workspacePool.start();
+            LanguageCodeSandbox codeSandbox = new LanguageCodeSandbox(NativeRuntime.cpp(GPP.getPath(), forkServerPool, workspacePool));
+            ReflectionTestUtils.setField(codeSandbox, "forkServerPool", forkServerPool);
+            ReflectionTestUtils.setField(codeSandbox, "workspacePool", workspacePool);
+            //不是root或内核不支持时启动探测失败，隔离自动关闭
+            assumeTrue(forkServerPool.isIsolated(), "隔离执行不可用");
+
+            ExecuteCodeRequest executeCodeRequest = new ExecuteCodeRequest();
+            executeCodeRequest.setCode(A_PLUS_B);
+            executeCodeRequest.setLanguage("cpp");
+            executeCodeRequest.setInputList(Collections.singletonList("1 2"));
+            ExecuteCodeResponse executeCodeResponse = codeSandbox.executeCode(executeCodeRequest);
+            assertEquals(Arrays.asList("3"), executeCodeResponse.getOutputList(), executeCodeResponse.getMessage());
+        } finally {
+            workspacePool.shutdown();
+            forkServerPool.shutdown();
+            FileUtil.del(root);
+        }
+    }
+}
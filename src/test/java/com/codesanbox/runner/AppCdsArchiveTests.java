@@ -0,0 +1,41 @@
+package com.codesanbox.runner;
+
+import com.codesanbox.JavaCodeSandboxTemplate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AppCdsArchiveTests {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void dumpsAndValidatesArchive() throws Exception {
+        //动态归档需要JDK 13及以上
+        assumeTrue(!System.getProperty("java.specification.version").startsWith("1.")
+                && Integer.parseInt(System.getProperty("java.specification.version")) >= 13);
+        AppCdsArchive appCdsArchive = new AppCdsArchive(true, "java", JavaCodeSandboxTemplate.JVM_OPTIONS, tempDir);
+        assertFalse(appCdsArchive.isAvailable());
+        appCdsArchive.start();
+        try {
+            long deadline = System.currentTimeMillis() + 60000;
+            while (appCdsArchive.getDumpTime() < 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(appCdsArchive.isAvailable());
+            assertTrue(new File(tempDir, AppCdsArchive.ARCHIVE_NAME).isFile());
+            //启动器jar在前，代码目录追加在后
+            assertEquals(new File(tempDir, AppCdsArchive.JAR_NAME).getAbsolutePath() + File.pathSeparator + "/code",
+                    appCdsArchive.classpath("/code"));
+        } finally {
+            appCdsArchive.shutdown();
+        }
+    }
+}
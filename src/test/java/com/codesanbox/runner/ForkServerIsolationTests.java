@@ -0,0 +1,46 @@
+package com.codesanbox.runner;
+
+import com.codesanbox.model.ExecuteMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ForkServerIsolationTests {
+
+    private static final File PYTHON = new File("/usr/bin/python3");
+
+    //在沙箱中检查身份、pid命名空间，fork、socket是否被seccomp拒绝，以及宿主机的其他目录是否可见、根目录是否可写
+    private static final String PROBE = "import os, socket, sys\n"
+            + "print(os.getuid(), os.getpid())\n"
+            + "for name, call in (('fork', os.fork), ('socket', socket.socket), ('write', lambda: open('/probe', 'w'))):\n"
+            + "    try:\n"
+            + "        call()\n"
+            + "        print(name, 'allowed')\n"
+            + "    except OSError as e:\n"
+            + "        print(name, 'denied')\n"
+            + "print(os.path.exists(sys.argv[1]))\n";
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void runsUserProgramInNamespacesWithSeccomp() throws Exception {
+        assumeTrue(PYTHON.canExecute(), "python3 不存在");
+        ForkServerPool forkServerPool = new ForkServerPool(true, 1, 10, true, 10000, PYTHON.getPath(), tempDir);
+        forkServerPool.start();
+        try {
+            //不是root或内核不支持时启动探测失败，隔离自动关闭
+            assumeTrue(forkServerPool.isIsolated(), "隔离执行不可用");
+            ExecuteMessage executeMessage = forkServerPool.execute(forkServerPool.userMode(ForkServer.MODE_EXEC), PYTHON,
+                    new String[]{"-c", PROBE, System.getProperty("user.dir")}, null, 5000, 1 << 16, 0, null);
+            assertEquals(0, executeMessage.getExitValue(), executeMessage.getErrorMessage());
+            assertEquals("65534 1\nfork denied\nsocket denied\nwrite denied\nFalse", executeMessage.getMessage().trim());
+        } finally {
+            forkServerPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.codesanbox.runner;
+
+import com.codesanbox.compiler.JavaCompilerEngine;
+import com.codesanbox.model.CompileResult;
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JvmRunnerTests {
+
+    private static final String JAVA = new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath();
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void reportsSystemExitStatus() throws Exception {
+        ExecuteMessage exited = run("System.out.println(\"partial\"); System.exit(3);");
+        assertEquals(3, exited.getExitValue());
+        assertEquals("partial", exited.getMessage());
+
+        ExecuteMessage exitedNormally = run("System.out.println(\"ok\"); System.exit(0);");
+        assertEquals(0, exitedNormally.getExitValue());
+        assertEquals("ok", exitedNormally.getMessage());
+    }
+
+    @Test
+    void reportsRunnerCrashAsSystemError() throws Exception {
+        //halt不执行关闭钩子，运行器没有响应就退出
+        ExecuteMessage crashed = run("Runtime.getRuntime().halt(5);");
+        assertEquals(1, crashed.getExitValue());
+        assertEquals(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue(), crashed.getErrorMessage());
+        assertTrue(crashed.getMessage().startsWith("运行器异常退出"));
+    }
+
+    private ExecuteMessage run(String body) throws Exception {
+        CompileResult compileResult = JavaCompilerEngine.getInstance()
+                .compile("Main", "public class Main { public static void main(String[] args) { " + body + " } }");
+        assertTrue(compileResult.isSuccess(), compileResult.getExecuteMessage().getMessage());
+        RunnerClasses.extract(tempDir);
+        JvmRunner jvmRunner = JvmRunner.start(JAVA, Collections.emptyList(), tempDir);
+        try {
+            return jvmRunner.run(compileResult.getClassBytes(), "Main", new String[0], null, 10000, 1 << 16, null);
+        } finally {
+            jvmRunner.destroy();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.codesanbox.scheduler;
+
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import com.codesanbox.util.VirtualThreads;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TestCaseSchedulerTests {
+
+    @Test
+    void virtualThreadsKeepOrderAndConcurrencyLimit() {
+        assumeTrue(VirtualThreads.isSupported(), "需要JDK 21及以上");
+        TestCaseScheduler testCaseScheduler = new TestCaseScheduler(2, true, true);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> inputList = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            inputList.add(i);
+        }
+        try {
+            List<ExecuteMessage> executeMessages = testCaseScheduler.runAll(inputList, input -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                assertTrue(Thread.currentThread().getName().startsWith("test-case-"));
+                ExecuteMessage executeMessage = new ExecuteMessage();
+                executeMessage.setExitValue(0);
+                executeMessage.setMessage(String.valueOf(input));
+                return executeMessage;
+            });
+            assertEquals(inputList.size(), executeMessages.size());
+            for (int i = 0; i < inputList.size(); i++) {
+                assertEquals(String.valueOf(i), executeMessages.get(i).getMessage());
+            }
+            assertEquals(2, maxRunning.get());
+            assertEquals(0, testCaseScheduler.getQueueSize());
+            assertEquals(0, testCaseScheduler.getActiveCount());
+        } finally {
+            testCaseScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void runSequentiallyUsesOneSlotAndStopsAtFirstFailure() {
+        TestCaseScheduler testCaseScheduler = new TestCaseScheduler(4, true);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> inputList = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            inputList.add(i);
+        }
+        try {
+            List<ExecuteMessage> executeMessages = testCaseScheduler.runSequentially(inputList, input -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                running.decrementAndGet();
+                ExecuteMessage executeMessage = new ExecuteMessage();
+                executeMessage.setExitValue(input == 5 ? 1 : 0);
+                executeMessage.setMessage(String.valueOf(input));
+                if (input == 5) {
+                    executeMessage.setErrorMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getValue());
+                }
+                return executeMessage;
+            });
+            assertEquals(6, executeMessages.size());
+            for (int i = 0; i < executeMessages.size(); i++) {
+                assertEquals(String.valueOf(i), executeMessages.get(i).getMessage());
+            }
+            assertEquals(1, maxRunning.get());
+        } finally {
+            testCaseScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void failFastReportsLowestFailedCase() {
+        TestCaseScheduler testCaseScheduler = new TestCaseScheduler(4, true);
+        List<Integer> inputList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            inputList.add(i);
+        }
+        try {
+            //用例3先失败，仍在执行的用例1不被取消，结果以后失败的用例1为准
+            List<ExecuteMessage> executeMessages = testCaseScheduler.runAll(inputList, input -> {
+                if (input == 1) {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                ExecuteMessage executeMessage = new ExecuteMessage();
+                boolean failed = input == 1 || input == 3;
+                executeMessage.setExitValue(failed ? 1 : 0);
+                executeMessage.setMessage(Thread.currentThread().isInterrupted() ? "interrupted" : String.valueOf(input));
+                if (failed) {
+                    executeMessage.setErrorMessage(JudgeInfoMessageEnum.RUNTIME_ERROR.getValue());
+                }
+                return executeMessage;
+            });
+            assertEquals(2, executeMessages.size());
+            assertEquals("0", executeMessages.get(0).getMessage());
+            assertEquals("1", executeMessages.get(1).getMessage());
+        } finally {
+            testCaseScheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.codesanbox.service;
+
+import com.codesanbox.model.BatchExecuteRequest;
+import com.codesanbox.model.BatchExecuteResult;
+import com.codesanbox.model.ExecuteCodeRequest;
+import com.codesanbox.model.ExecuteCodeResponse;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class BatchExecuteServiceTests {
+
+    //实际执行的请求
+    private final List<ExecuteCodeRequest> executed = new CopyOnWriteArrayList<>();
+
+    private BatchExecuteService batchExecuteService;
+
+    @AfterEach
+    void tearDown() {
+        if (batchExecuteService != null) {
+            batchExecuteService.shutdown();
+        }
+    }
+
+    @Test
+    void executesIdenticalRequestsOnce() throws Exception {
+        batchExecuteService = start(10, 100);
+        BatchExecuteRequest batchExecuteRequest = new BatchExecuteRequest();
+        batchExecuteRequest.setRequests(Arrays.asList(
+                request("A", "1"), request("B", "1"), request("A", "1"), request("A", "2")));
+
+        List<BatchExecuteResult> results = collect(batchExecuteService.submit(batchExecuteRequest));
+
+        assertEquals(3, executed.size());
+        assertEquals(4, results.size());
+        results.sort((a, b) -> a.getIndex() - b.getIndex());
+        assertEquals(Arrays.asList("A:1", "B:1", "A:1", "A:2"),
+                results.stream().map(result -> result.getResponse().getMessage()).collect(Collectors.toList()));
+    }
+
+    @Test
+    void splitsLargeInputSet() throws Exception {
+        batchExecuteService = start(10, 100);
+        BatchExecuteRequest batchExecuteRequest = new BatchExecuteRequest();
+        batchExecuteRequest.setCode("A");
+        batchExecuteRequest.setLanguage("java");
+        batchExecuteRequest.setInputList(IntStream.range(0, 25).mapToObj(String::valueOf).collect(Collectors.toList()));
+        batchExecuteRequest.setChunkSize(10);
+
+        List<BatchExecuteResult> results = collect(batchExecuteService.submit(batchExecuteRequest));
+
+        results.sort((a, b) -> a.getIndex() - b.getIndex());
+        assertEquals(Arrays.asList(0, 10, 20),
+                results.stream().map(BatchExecuteResult::getOffset).collect(Collectors.toList()));
+        assertEquals("A:20,21,22,23,24", results.get(2).getResponse().getMessage());
+    }
+
+    @Test
+    void rejectsInvalidOrOversizedBatch() {
+        batchExecuteService = start(2, 100);
+        assertThrows(IllegalArgumentException.class, () -> batchExecuteService.submit(new BatchExecuteRequest()));
+        BatchExecuteRequest tooMany = new BatchExecuteRequest();
+        tooMany.setRequests(Arrays.asList(request("A", "1"), request("A", "2"), request("A", "3")));
+        assertThrows(IllegalArgumentException.class, () -> batchExecuteService.submit(tooMany));
+
+        batchExecuteService.shutdown();
+        batchExecuteService = start(100, 1);
+        BatchExecuteRequest overQueue = new BatchExecuteRequest();
+        overQueue.setRequests(Arrays.asList(request("A", "1"), request("A", "2")));
+        assertThrows(RejectedExecutionException.class, () -> batchExecuteService.submit(overQueue));
+    }
+
+    @Test
+    void sandboxErrorBecomesSystemError() {
+        batchExecuteService = start(10, 100);
+        BatchExecuteRequest batchExecuteRequest = new BatchExecuteRequest();
+        batchExecuteRequest.setRequests(Arrays.asList(request("ERROR", "1"), request("A", "1")));
+
+        //沙箱抛出Error时也要返回结果，不能一直等待
+        List<BatchExecuteResult> results = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> collect(batchExecuteService.submit(batchExecuteRequest)));
+
+        results.sort((a, b) -> a.getIndex() - b.getIndex());
+        assertEquals(2, results.size());
+        assertEquals(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue(), results.get(0).getResponse().getJudgeInfo().getMessage());
+        assertEquals("A:1", results.get(1).getResponse().getMessage());
+    }
+
+    //沙箱回显代码和输入，代码为ERROR时抛出Error
+    private BatchExecuteService start(int maxRequests, int queueCapacity) {
+        return new BatchExecuteService(executeCodeRequest -> {
+            if ("ERROR".equals(executeCodeRequest.getCode())) {
+                throw new StackOverflowError();
+            }
+            executed.add(executeCodeRequest);
+            ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
+            executeCodeResponse.setMessage(executeCodeRequest.getCode() + ":" + String.join(",", executeCodeRequest.getInputList()));
+            return executeCodeResponse;
+        }, 2, queueCapacity, maxRequests, 100);
+    }
+
+    private static ExecuteCodeRequest request(String code, String input) {
+        return new ExecuteCodeRequest(Collections.singletonList(input), code, "java");
+    }
+
+    private static List<BatchExecuteResult> collect(BatchExecuteService.Batch batch) throws InterruptedException {
+        List<BatchExecuteResult> results = new ArrayList<>();
+        batch.forEachCompleted(results::add);
+        return results;
+    }
+}
@@ -0,0 +1,51 @@
+package com.codesanbox.util;
+
+import com.codesanbox.model.ExecuteMessage;
+import com.codesanbox.model.enums.JudgeInfoMessageEnum;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProcessUtilsTests {
+
+    @Test
+    void serverFailureIsSystemError() {
+        //服务端读写进程失败时也要有退出码，调用方会直接拆箱
+        Process process = new Process() {
+            @Override
+            public OutputStream getOutputStream() {
+                throw new IllegalStateException("管道已关闭");
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                throw new IllegalStateException("管道已关闭");
+            }
+
+            @Override
+            public InputStream getErrorStream() {
+                throw new IllegalStateException("管道已关闭");
+            }
+
+            @Override
+            public int waitFor() {
+                return 0;
+            }
+
+            @Override
+            public int exitValue() {
+                return 0;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+        ExecuteMessage executeMessage = ProcessUtils.runAndProcess(process, "运行");
+        assertEquals(1, executeMessage.getExitValue());
+        assertEquals(JudgeInfoMessageEnum.SYSTEM_ERROR.getValue(), executeMessage.getErrorMessage());
+    }
+}
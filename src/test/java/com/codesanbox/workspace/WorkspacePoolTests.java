@@ -0,0 +1,86 @@
+package com.codesanbox.workspace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkspacePoolTests {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void reusesCleanedDirectoriesWithinQuota() throws Exception {
+        WorkspacePool workspacePool = new WorkspacePool(tempDir.getPath(), tempDir, 1, 10, 60000);
+        workspacePool.start();
+        try {
+            assertEquals(1, workspacePool.getIdleCount());
+            Workspace workspace = workspacePool.acquire();
+            File dir = workspace.getDir();
+            workspace.write("Main.java", "0123456789");
+            //超过配额时不写入
+            assertThrows(IOException.class, () -> workspace.write("Main.class", new byte[1]));
+            assertFalse(new File(dir, "Main.class").exists());
+            assertEquals(10, workspacePool.getUsedBytes());
+            workspace.close();
+            waitUntil(() -> workspacePool.getIdleCount() == 1 && workspacePool.getUsedBytes() == 0);
+            //归还的目录清空后复用
+            Workspace reused = workspacePool.acquire();
+            assertEquals(dir, reused.getDir());
+            assertArrayEquals(new String[0], dir.list());
+            reused.close();
+        } finally {
+            workspacePool.shutdown();
+        }
+        assertFalse(workspacePool.getDir().exists());
+    }
+
+    @Test
+    void sweepsLeakedDirectories() throws Exception {
+        //已退出进程留下的目录在启动时删除
+        File staleDir = new File(tempDir, String.valueOf(Integer.MAX_VALUE));
+        assertTrue(new File(staleDir, "ws-1").mkdirs());
+        WorkspacePool workspacePool = new WorkspacePool(tempDir.getPath(), tempDir, 1, 1024, 20);
+        workspacePool.start();
+        try {
+            assertEquals(new File("/proc/self").exists(), !staleDir.exists());
+            //不属于池的目录由定时清理删除，池中的目录保留
+            Workspace workspace = workspacePool.acquire();
+            File leakedDir = new File(workspacePool.getDir(), "leaked");
+            assertTrue(leakedDir.mkdir());
+            waitUntil(() -> !leakedDir.exists());
+            assertTrue(workspace.getDir().isDirectory());
+            assertTrue(workspacePool.getInputDir().isDirectory());
+            //进程目录和输入目录只有服务用户可以访问，工作目录可供nobody读取
+            assertEquals("rwx------", permissions(workspacePool.getDir()));
+            assertEquals("rwx------", permissions(workspacePool.getInputDir()));
+            assertEquals("r-x", permissions(workspace.getDir()).substring(6));
+            workspace.close();
+        } finally {
+            workspacePool.shutdown();
+        }
+    }
+
+    private static String permissions(File file) throws IOException {
+        return PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath()));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
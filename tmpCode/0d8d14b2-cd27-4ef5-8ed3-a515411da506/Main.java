@@ -1,7 +0,0 @@
-public class Main {
-    public static void main(String[] args) {
-        int a=args[0];
-        int b=args[1];
-        System.out.println(a+b);
-    }
-}
\ No newline at end of file